@@ -18,6 +18,7 @@
 package com.waz.zclient.controllers.stubs;
 
 import com.waz.api.MessageContent;
+import com.waz.zclient.controllers.location.GeocodingScheduler;
 import com.waz.zclient.controllers.location.ILocationController;
 import com.waz.zclient.controllers.location.LocationObserver;
 import java.lang.Override;
@@ -38,6 +39,11 @@ public class StubLocationController implements ILocationController {
     ;
   }
 
+  @Override
+  public GeocodingScheduler getGeocodingScheduler() {
+    return null;
+  }
+
   @Override
   public void addObserver(LocationObserver observer) {
     ;
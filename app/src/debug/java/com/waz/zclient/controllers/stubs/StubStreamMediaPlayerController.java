@@ -24,9 +24,9 @@ import com.waz.zclient.controllers.mediaplayer.MediaPlayerState;
 import com.waz.zclient.controllers.streammediaplayer.IStreamMediaPlayerController;
 import com.waz.zclient.controllers.streammediaplayer.StreamMediaBarObserver;
 import com.waz.zclient.controllers.streammediaplayer.StreamMediaPlayerObserver;
+import com.waz.zclient.controllers.streammediaplayer.VisibleRange;
 import java.lang.Override;
 import java.lang.String;
-import java.util.List;
 
 public class StubStreamMediaPlayerController implements IStreamMediaPlayerController {
   @Override
@@ -105,7 +105,7 @@ public class StubStreamMediaPlayerController implements IStreamMediaPlayerContro
   }
 
   @Override
-  public void informVisibleItems(List<String> visibleMessageIds) {
+  public void informVisibleItems(VisibleRange visibleRange) {
     ;
   }
 
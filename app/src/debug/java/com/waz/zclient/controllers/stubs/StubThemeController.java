@@ -20,6 +20,8 @@ package com.waz.zclient.controllers.stubs;
 import com.waz.zclient.controllers.theme.IThemeController;
 import com.waz.zclient.controllers.theme.ThemeObserver;
 import com.waz.zclient.ui.theme.OptionsTheme;
+import com.waz.zclient.ui.theme.ThemeAttributes;
+import com.waz.zclient.ui.theme.ThemedViews;
 import java.lang.Override;
 
 public class StubThemeController implements IThemeController {
@@ -48,6 +50,16 @@ public class StubThemeController implements IThemeController {
     return null;
   }
 
+  @Override
+  public ThemeAttributes getThemeAttributes() {
+    return null;
+  }
+
+  @Override
+  public ThemedViews getThemedViews() {
+    return null;
+  }
+
   @Override
   public void tearDown() {
     ;
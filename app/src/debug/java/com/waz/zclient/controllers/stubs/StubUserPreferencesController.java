@@ -18,6 +18,7 @@
 package com.waz.zclient.controllers.stubs;
 
 import com.waz.zclient.camera.CameraFacing;
+import com.waz.zclient.controllers.userpreferences.EmojiPreferencesObserver;
 import com.waz.zclient.controllers.userpreferences.IUserPreferencesController;
 
 import java.util.List;
@@ -145,6 +146,16 @@ public class StubUserPreferencesController implements IUserPreferencesController
     return false;
   }
 
+  @Override
+  public void addEmojiPreferencesObserver(EmojiPreferencesObserver observer) {
+
+  }
+
+  @Override
+  public void removeEmojiPreferencesObserver(EmojiPreferencesObserver observer) {
+
+  }
+
   @Override
   public void setSavedFlashState(String state) {
     ;
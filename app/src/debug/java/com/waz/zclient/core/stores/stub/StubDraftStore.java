@@ -18,9 +18,11 @@
 package com.waz.zclient.core.stores.stub;
 
 import com.waz.api.IConversation;
+import com.waz.zclient.core.stores.draft.Draft;
 import com.waz.zclient.core.stores.draft.IDraftStore;
 import java.lang.Override;
 import java.lang.String;
+import java.util.Collection;
 
 public class StubDraftStore implements IDraftStore {
   @Override
@@ -37,4 +39,29 @@ public class StubDraftStore implements IDraftStore {
   public void setDraft(IConversation conversation, String text) {
     ;
   }
+
+  @Override
+  public void setDraft(IConversation conversation, Draft draft) {
+    ;
+  }
+
+  @Override
+  public Draft getDraftState(IConversation conversation) {
+    return null;
+  }
+
+  @Override
+  public void loadDraftState(IConversation conversation, IDraftStore.DraftCallback callback) {
+    ;
+  }
+
+  @Override
+  public void retainDrafts(Collection<String> conversationIds) {
+    ;
+  }
+
+  @Override
+  public void onLogout() {
+    ;
+  }
 }
@@ -25,6 +25,7 @@ import android.graphics.Color;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -42,6 +43,7 @@ import com.localytics.android.Localytics;
 import com.waz.api.ActiveVoiceChannels;
 import com.waz.api.CommonConnections;
 import com.waz.api.ConversationsList;
+import com.waz.api.CoreList;
 import com.waz.api.IConversation;
 import com.waz.api.MessagesList;
 import com.waz.api.NetworkMode;
@@ -123,6 +125,8 @@ public class MainActivity extends BaseActivity implements MainPhoneFragment.Cont
     public static final int REQUEST_CODE_GOOGLE_PLAY_SERVICES_DIALOG = 56571;
     private static final int LAUNCH_CONVERSATION_CHANGE_DELAY = 123;
 
+    private boolean draftsPruned;
+
     ///////////////////////////////////////////////////////////////////////////////////////////////////////////
     //
     //  Lifecycle
@@ -254,14 +258,26 @@ public class MainActivity extends BaseActivity implements MainPhoneFragment.Cont
         Localytics.handleTestMode(getIntent());
         if (getControllerFactory().getThemeController().isRestartPending()) {
             getControllerFactory().getThemeController().removePendingRestart();
-            restartActivity();
+            applyThemeChange();
         }
     }
 
-    private void restartActivity() {
-        finish();
-        startActivity(IntentUtils.getAppLaunchIntent(this));
-        overridePendingTransition(android.R.anim.fade_in, android.R.anim.fade_out);
+    /**
+     * Switches the running activity to the new theme, nothing is inflated again. The theme controller already
+     * re-bound the registered views in one pass, e.g. the open conversation. Applying the style here makes
+     * views inflated from now on, like the rows of the message list, use the new theme.
+     *
+     * The conversation list, the OTR warning and the offline indicator only use fixed colors and the calling
+     * and grid containers hold no themed views, so they have nothing to re-bind.
+     */
+    private void applyThemeChange() {
+        getTheme().applyStyle(getControllerFactory().getThemeController().getTheme(), true);
+        Drawable windowBackground = getControllerFactory().getThemeController()
+                                                          .getThemeAttributes()
+                                                          .getDrawable(android.R.attr.windowBackground);
+        if (windowBackground != null) {
+            getWindow().setBackgroundDrawable(windowBackground);
+        }
     }
 
     @Override
@@ -563,6 +579,7 @@ public class MainActivity extends BaseActivity implements MainPhoneFragment.Cont
     @Override
     public void onLogout() {
         Timber.i("onLogout");
+        getStoreFactory().getDraftStore().onLogout();
         getStoreFactory().reset();
         getControllerFactory().getPickUserController().hideUserProfile();
         getControllerFactory().getUserPreferencesController().reset();
@@ -912,7 +929,22 @@ public class MainActivity extends BaseActivity implements MainPhoneFragment.Cont
 
     @Override
     public void onConversationListUpdated(@NonNull ConversationsList conversationsList) {
+        if (draftsPruned || !conversationsList.isReady()) {
+            return;
+        }
+        // Once per session is enough to drop the drafts of deleted conversations
+        draftsPruned = true;
+        List<String> conversationIds = new ArrayList<>();
+        addConversationIds(conversationIds, conversationsList);
+        addConversationIds(conversationIds, conversationsList.getIncomingConversations());
+        addConversationIds(conversationIds, conversationsList.getArchivedConversations());
+        getStoreFactory().getDraftStore().retainDrafts(conversationIds);
+    }
 
+    private static void addConversationIds(List<String> conversationIds, CoreList<IConversation> conversations) {
+        for (int i = 0; i < conversations.size(); i++) {
+            conversationIds.add(conversations.get(i).getId());
+        }
     }
 
     @Override
@@ -18,16 +18,20 @@
 package com.waz.zclient;
 
 import com.waz.zclient.controllers.IControllerFactory;
+import com.waz.zclient.utils.WireLoggerTree;
 
 class WireUncaughtExceptionHandler implements Thread.UncaughtExceptionHandler {
 
     private IControllerFactory controllerFactory;
     private Thread.UncaughtExceptionHandler defaultUncaughtExceptionHandler;
+    private WireLoggerTree loggerTree;
 
     WireUncaughtExceptionHandler(IControllerFactory controllerFactory,
-                                 Thread.UncaughtExceptionHandler defaultUncaughtExceptionHandler) {
+                                 Thread.UncaughtExceptionHandler defaultUncaughtExceptionHandler,
+                                 WireLoggerTree loggerTree) {
         this.controllerFactory = controllerFactory;
         this.defaultUncaughtExceptionHandler = defaultUncaughtExceptionHandler;
+        this.loggerTree = loggerTree;
     }
 
     @Override
@@ -46,6 +50,10 @@ class WireUncaughtExceptionHandler implements Thread.UncaughtExceptionHandler {
             controllerFactory.getUserPreferencesController().setCrashException(cause.getClass().getSimpleName(), details);
         } catch (Throwable ignored) {
         }
+        if (loggerTree != null) {
+            // The process is about to die, get the log file to disk
+            loggerTree.close();
+        }
         if (defaultUncaughtExceptionHandler != null) {
             defaultUncaughtExceptionHandler.uncaughtException(thread, throwable);
         }
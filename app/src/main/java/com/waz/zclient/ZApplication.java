@@ -18,8 +18,10 @@
 package com.waz.zclient;
 
 import android.app.Activity;
+import android.content.ComponentCallbacks2;
 import android.graphics.Typeface;
 import android.support.annotation.Nullable;
+import android.util.Log;
 import com.jakewharton.threetenabp.AndroidThreeTen;
 import com.localytics.android.Localytics;
 import com.localytics.android.LocalyticsActivityLifecycleCallbacks;
@@ -28,19 +30,22 @@ import com.waz.api.LogLevel;
 import com.waz.api.NotificationsHandler;
 import com.waz.api.TrackingEventsHandler;
 import com.waz.api.impl.AccentColors;
+import com.waz.threading.Threading;
 import com.waz.zclient.controllers.IControllerFactory;
 import com.waz.zclient.controllers.notifications.AppTrackingEventsHandler;
 import com.waz.zclient.controllers.notifications.CallingTrackingEventsHandler;
+import com.waz.zclient.core.events.EventBus;
 import com.waz.zclient.core.stores.IStoreFactory;
+import com.waz.zclient.ui.colorpicker.EmojiGlyphAtlas;
 import com.waz.zclient.ui.text.TypefaceFactory;
-import com.waz.zclient.ui.text.TypefaceLoader;
+import com.waz.zclient.ui.text.TypefaceRegistry;
+import com.waz.zclient.ui.utils.OverlayAtlas;
 import com.waz.zclient.utils.BuildConfigUtils;
+import com.waz.zclient.utils.LogFileWriter;
 import com.waz.zclient.utils.WireLoggerTree;
 import timber.log.Timber;
 
 import java.io.File;
-import java.util.HashMap;
-import java.util.Map;
 
 public class ZApplication extends WireApplication implements NotificationsHandler.NotificationsHandlerFactory,
                                                              ServiceContainer {
@@ -49,53 +54,17 @@ public class ZApplication extends WireApplication implements NotificationsHandle
 
     private static final String FONT_FOLDER = "fonts";
 
+    private static final String LOG_FOLDER = "logs";
+    private static final int LOG_FILE_SIZE = 512 * 1024;
+    private static final int LOG_FILE_HISTORY = 3;
+    private static final int LOG_BUFFER_CAPACITY = 1024;
+
     // Plays calling sounds/vibrations
     private CallingEventsHandler callingEventsHandler;
+    private WireLoggerTree loggerTree;
+    private TypefaceRegistry typefaceRegistry;
     private TrackingEventsHandler trackingEventsHandler;
 
-    private TypefaceLoader typefaceloader = new TypefaceLoader() {
-
-        private Map<String, Typeface> typefaceMap = new HashMap<>();
-
-        @Override
-        public Typeface getTypeface(String name) {
-            if (name == null || "".equals(name)) {
-                return null;
-            }
-
-            if (typefaceMap.containsKey(name)) {
-                return typefaceMap.get(name);
-            }
-
-            try {
-                Typeface typeface;
-                if (name.equals(getString(R.string.wire__glyphs)) ||
-                    name.equals(getString(R.string.wire__typeface__redacted))) {
-                    typeface = Typeface.createFromAsset(getAssets(), FONT_FOLDER + File.separator + name);
-                } else if (name.equals(getString(R.string.wire__typeface__thin))) {
-                    typeface = Typeface.create("sans-serif-thin", Typeface.NORMAL);
-                } else if (name.equals(getString(R.string.wire__typeface__light))) {
-                    typeface = Typeface.create("sans-serif-light", Typeface.NORMAL);
-                } else if (name.equals(getString(R.string.wire__typeface__regular))) {
-                    typeface = Typeface.create("sans-serif", Typeface.NORMAL);
-                } else if (name.equals(getString(R.string.wire__typeface__medium))) {
-                    typeface = Typeface.create("sans-serif-medium", Typeface.NORMAL);
-                } else if (name.equals(getString(R.string.wire__typeface__bold))) {
-                    typeface = Typeface.create("sans-serif", Typeface.BOLD);
-                } else {
-                    Timber.e("Couldn't load typeface: %s", name);
-                    return Typeface.DEFAULT;
-                }
-
-                typefaceMap.put(name, typeface);
-                return typeface;
-            } catch (Throwable t) {
-                Timber.e(t, "Couldn't load typeface: %s", name);
-                return null;
-            }
-        }
-    };
-
     public static ZApplication from(@Nullable Activity activity) {
         return activity != null ? (ZApplication) activity.getApplication() : null;
     }
@@ -114,15 +83,24 @@ public class ZApplication extends WireApplication implements NotificationsHandle
             Timber.plant(new Timber.DebugTree());
             LogLevel.setMinimumLogLevel(LogLevel.VERBOSE);
         } else {
-            Timber.plant(new WireLoggerTree());
+            LogFileWriter logFileWriter = null;
+            if (BuildConfig.LOG_LEVEL_UI <= Log.ASSERT) {
+                logFileWriter = new LogFileWriter(new File(getFilesDir(), LOG_FOLDER),
+                                                  LOG_FILE_SIZE,
+                                                  LOG_FILE_HISTORY,
+                                                  LOG_BUFFER_CAPACITY);
+            }
+            loggerTree = new WireLoggerTree(BuildConfig.LOG_LEVEL_UI, logFileWriter);
+            WireLoggerTree.plant(loggerTree);
             LogLevel.setMinimumLogLevel(BuildConfigUtils.getLogLevelSE(this));
         }
 
         AndroidThreeTen.init(this);
-        TypefaceFactory.getInstance().init(typefaceloader);
+        initTypefaces();
 
         Thread.setDefaultUncaughtExceptionHandler(new WireUncaughtExceptionHandler(getControllerFactory(),
-                                                                                   Thread.getDefaultUncaughtExceptionHandler()));
+                                                                                   Thread.getDefaultUncaughtExceptionHandler(),
+                                                                                   loggerTree));
         // refresh
         AccentColors.setColors(AccentColors.loadArray(getApplicationContext(), R.array.accents_color));
 
@@ -131,6 +109,51 @@ public class ZApplication extends WireApplication implements NotificationsHandle
         Localytics.setPushDisabled(false);
     }
 
+    private void initTypefaces() {
+        typefaceRegistry = new TypefaceRegistry.Builder(getAssets())
+            .addAsset(getString(R.string.wire__glyphs), FONT_FOLDER + File.separator + getString(R.string.wire__glyphs))
+            .addAsset(getString(R.string.wire__typeface__redacted), FONT_FOLDER + File.separator + getString(R.string.wire__typeface__redacted))
+            .addSystem(getString(R.string.wire__typeface__thin), "sans-serif-thin", Typeface.NORMAL)
+            .addSystem(getString(R.string.wire__typeface__light), "sans-serif-light", Typeface.NORMAL)
+            .addSystem(getString(R.string.wire__typeface__regular), "sans-serif", Typeface.NORMAL)
+            .addSystem(getString(R.string.wire__typeface__medium), "sans-serif-medium", Typeface.NORMAL)
+            .addSystem(getString(R.string.wire__typeface__bold), "sans-serif", Typeface.BOLD)
+            .build();
+        TypefaceFactory.getInstance().init(typefaceRegistry);
+
+        // Decode the asset fonts before the first activity inflates its views
+        Threading.Background().execute(new Runnable() {
+            @Override
+            public void run() {
+                typefaceRegistry.warmUp();
+            }
+        });
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        if (level == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            if (typefaceRegistry != null) {
+                typefaceRegistry.logStats();
+            }
+            EventBus.getInstance().logStats();
+        }
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            // decoded again from disk the next time the emoji keyboard is shown
+            EmojiGlyphAtlas.trimMemory();
+            OverlayAtlas.trimMemory();
+        }
+    }
+
+    @Override
+    public void onTerminate() {
+        if (loggerTree != null) {
+            loggerTree.close();
+        }
+        super.onTerminate();
+    }
+
     @Override
     public CallingEventsHandler getCallingEventsHandler() {
         if (callingEventsHandler == null) {
@@ -43,8 +43,12 @@ import com.waz.zclient.core.stores.pickuser.IPickUserStore;
 import com.waz.zclient.core.stores.profile.IProfileStore;
 import com.waz.zclient.core.stores.singleparticipants.ISingleParticipantStore;
 
+import java.io.File;
+
 public class ScalaStoreFactory extends StoreFactory {
 
+    private static final String DRAFTS_DIRECTORY = "drafts";
+
     private Context context;
 
     public ScalaStoreFactory(Context context) {
@@ -108,7 +112,7 @@ public class ScalaStoreFactory extends StoreFactory {
 
     @Override
     protected IDraftStore createDraftStore() {
-        return new ScalaDraftStore();
+        return new ScalaDraftStore(new File(context.getFilesDir(), DRAFTS_DIRECTORY));
     }
 
     @Override
@@ -496,7 +496,7 @@ public abstract class Base$$ControllerFactory implements IControllerFactory {
   public ILocationController getLocationController() {
     verifyLifecycle();
     if (locationController == null) {
-      locationController = new LocationController();
+      locationController = new LocationController(this.context);
     }
     return locationController;
   }
@@ -22,18 +22,19 @@ import com.waz.api.AccentColor;
 import com.waz.api.impl.AccentColors;
 import com.waz.zclient.R;
 import com.waz.zclient.controllers.userpreferences.IUserPreferencesController;
+import com.waz.zclient.core.events.Dispatch;
+import com.waz.zclient.core.events.EventBus;
+import com.waz.zclient.core.events.EventChannel;
 import com.waz.zclient.ui.utils.ResourceUtils;
 
-import java.util.HashSet;
-import java.util.Set;
-
 public class AccentColorController implements IAccentColorController {
     public static final String TAG = AccentColorController.class.getName();
     private static final int NO_COLOR_FOUND = -1;
 
     private final int[] accentColors;
 
-    private Set<AccentColorObserver> accentColorObservers = new HashSet<>();
+    private final EventChannel<AccentColorObserver> accentColorObservers =
+        EventBus.getInstance().channel("accentColor", AccentColorObserver.class);
 
     private int color;
 
@@ -91,9 +92,12 @@ public class AccentColorController implements IAccentColorController {
         accentColorObservers.clear();
     }
 
-    private void notifyAccentColorHasChanged(AccentColorChangeRequester accentColorChangeRequester, int color) {
-        for (AccentColorObserver accentColorObserver : accentColorObservers) {
-            accentColorObserver.onAccentColorHasChanged(accentColorChangeRequester, color);
-        }
+    private void notifyAccentColorHasChanged(final AccentColorChangeRequester accentColorChangeRequester, final int color) {
+        accentColorObservers.publish(new Dispatch<AccentColorObserver>() {
+            @Override
+            public void dispatch(AccentColorObserver observer) {
+                observer.onAccentColorHasChanged(accentColorChangeRequester, color);
+            }
+        });
     }
 }
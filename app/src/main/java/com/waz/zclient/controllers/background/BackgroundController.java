@@ -20,11 +20,12 @@ package com.waz.zclient.controllers.background;
 import com.waz.api.ImageAsset;
 import com.waz.api.Self;
 import com.waz.api.UpdateListener;
-import java.util.HashSet;
-import java.util.Set;
+import com.waz.zclient.core.events.Dispatch;
+import com.waz.zclient.core.events.EventBus;
+import com.waz.zclient.core.events.EventChannel;
 
 public class BackgroundController implements IBackgroundController {
-    private Set<BackgroundObserver>  backgroundObservers;
+    private final EventChannel<BackgroundObserver> backgroundObservers;
     private Self self;
 
     private final UpdateListener selfUpdateListener = new UpdateListener() {
@@ -35,7 +36,7 @@ public class BackgroundController implements IBackgroundController {
     };
 
     public BackgroundController() {
-        backgroundObservers = new HashSet<>();
+        backgroundObservers = EventBus.getInstance().channel("background", BackgroundObserver.class);
     }
 
     @Override
@@ -54,10 +55,13 @@ public class BackgroundController implements IBackgroundController {
     }
 
     @Override
-    public void setImageAsset(ImageAsset imageAsset) {
-        for (BackgroundObserver backgroundObserver : backgroundObservers) {
-            backgroundObserver.onLoadImageAsset(imageAsset);
-        }
+    public void setImageAsset(final ImageAsset imageAsset) {
+        backgroundObservers.publish(new Dispatch<BackgroundObserver>() {
+            @Override
+            public void dispatch(BackgroundObserver observer) {
+                observer.onLoadImageAsset(imageAsset);
+            }
+        });
     }
 
     @Override
@@ -90,16 +94,16 @@ public class BackgroundController implements IBackgroundController {
 
     @Override
     public void tearDown() {
-        if (backgroundObservers != null) {
-            backgroundObservers.clear();
-            backgroundObservers = null;
-        }
+        backgroundObservers.clear();
     }
 
     @Override
-    public void expand(boolean expand) {
-        for (BackgroundObserver backgroundObserver : backgroundObservers) {
-            backgroundObserver.onScaleToMax(expand);
-        }
+    public void expand(final boolean expand) {
+        backgroundObservers.publish(new Dispatch<BackgroundObserver>() {
+            @Override
+            public void dispatch(BackgroundObserver observer) {
+                observer.onScaleToMax(expand);
+            }
+        });
     }
 }
@@ -22,19 +22,48 @@ import android.view.View;
 import android.view.ViewTreeObserver;
 import android.view.WindowManager;
 import com.waz.zclient.controllers.navigation.Page;
+import com.waz.zclient.core.events.Dispatch;
+import com.waz.zclient.core.events.EventBus;
+import com.waz.zclient.core.events.EventChannel;
 import com.waz.zclient.utils.ViewUtils;
 import com.waz.zclient.utils.keyboard.KeyboardVisibilityListener;
 
-import java.util.HashSet;
-import java.util.Set;
-
 public class GlobalLayoutController implements IGlobalLayoutController {
     public static final String TAG = GlobalLayoutController.class.getName();
 
-    protected Set<GlobalLayoutObserver> globalLayoutObservers = new HashSet<GlobalLayoutObserver>();
-    protected Set<KeyboardVisibilityObserver> keyboardVisibilityObservers = new HashSet<KeyboardVisibilityObserver>();
-    protected Set<KeyboardHeightObserver> keyboardHeightObservers = new HashSet<KeyboardHeightObserver>();
-    protected Set<StatusBarVisibilityObserver> statusBarVisibilityObservers = new HashSet<>();
+    // Layout passes and keyboard height changes come in bursts, observers only need the last one per frame and
+    // hear about it on the next frame
+    protected final EventChannel<GlobalLayoutObserver> globalLayoutObservers =
+        EventBus.getInstance().channel("globalLayout", GlobalLayoutObserver.class, EventChannel.Delivery.MAIN_COALESCED);
+    protected final EventChannel<KeyboardVisibilityObserver> keyboardVisibilityObservers =
+        EventBus.getInstance().channel("keyboardVisibility", KeyboardVisibilityObserver.class);
+    protected final EventChannel<KeyboardHeightObserver> keyboardHeightObservers =
+        EventBus.getInstance().channel("keyboardHeight", KeyboardHeightObserver.class, EventChannel.Delivery.MAIN_COALESCED);
+    protected final EventChannel<StatusBarVisibilityObserver> statusBarVisibilityObservers =
+        EventBus.getInstance().channel("statusBarVisibility", StatusBarVisibilityObserver.class);
+
+    private static final Dispatch<GlobalLayoutObserver> GLOBAL_LAYOUT_CHANGED = new Dispatch<GlobalLayoutObserver>() {
+        @Override
+        public void dispatch(GlobalLayoutObserver observer) {
+            observer.onGlobalLayoutChanged();
+        }
+    };
+
+    private static final Dispatch<StatusBarVisibilityObserver> STATUS_BAR_SHOWN = new Dispatch<StatusBarVisibilityObserver>() {
+        @Override
+        public void dispatch(StatusBarVisibilityObserver observer) {
+            observer.onStatusBarVisibilityChanged(true);
+        }
+    };
+
+    private static final Dispatch<StatusBarVisibilityObserver> STATUS_BAR_HIDDEN = new Dispatch<StatusBarVisibilityObserver>() {
+        @Override
+        public void dispatch(StatusBarVisibilityObserver observer) {
+            observer.onStatusBarVisibilityChanged(false);
+        }
+    };
+
+    private final KeyboardHeightDispatch keyboardHeightDispatch = new KeyboardHeightDispatch();
 
     private View globalLayout;
     private Activity activity;
@@ -85,6 +114,10 @@ public class GlobalLayoutController implements IGlobalLayoutController {
 
     @Override
     public void tearDown() {
+        globalLayoutObservers.clear();
+        keyboardVisibilityObservers.clear();
+        keyboardHeightObservers.clear();
+        statusBarVisibilityObservers.clear();
         if (globalLayout != null) {
             this.globalLayout.getViewTreeObserver().removeOnGlobalLayoutListener(globalLayoutListener);
             globalLayout = null;
@@ -104,9 +137,7 @@ public class GlobalLayoutController implements IGlobalLayoutController {
     }
 
     protected void notifyGlobalLayoutHasChanged() {
-        for (GlobalLayoutObserver globalLayoutObserver : globalLayoutObservers) {
-            globalLayoutObserver.onGlobalLayoutChanged();
-        }
+        globalLayoutObservers.publish(GLOBAL_LAYOUT_CHANGED);
     }
 
 
@@ -121,9 +152,15 @@ public class GlobalLayoutController implements IGlobalLayoutController {
     }
 
     protected void notifyKeyboardVisibilityHasChanged(boolean keyboardIsVisible, int keyboardHeight) {
-        for (KeyboardVisibilityObserver keyboardVisibilityObserver : keyboardVisibilityObservers) {
-            keyboardVisibilityObserver.onKeyboardVisibilityChanged(keyboardIsVisible, keyboardHeight, activity.getCurrentFocus());
-        }
+        final boolean visible = keyboardIsVisible;
+        final int height = keyboardHeight;
+        final View currentFocus = activity.getCurrentFocus();
+        keyboardVisibilityObservers.publish(new Dispatch<KeyboardVisibilityObserver>() {
+            @Override
+            public void dispatch(KeyboardVisibilityObserver observer) {
+                observer.onKeyboardVisibilityChanged(visible, height, currentFocus);
+            }
+        });
     }
 
     @Override
@@ -196,9 +233,7 @@ public class GlobalLayoutController implements IGlobalLayoutController {
             return;
         }
         activity.getWindow().clearFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN);
-        for (StatusBarVisibilityObserver observer : statusBarVisibilityObservers) {
-            observer.onStatusBarVisibilityChanged(true);
-        }
+        statusBarVisibilityObservers.publish(STATUS_BAR_SHOWN);
     }
 
     @Override
@@ -207,9 +242,7 @@ public class GlobalLayoutController implements IGlobalLayoutController {
             return;
         }
         activity.getWindow().addFlags(WindowManager.LayoutParams.FLAG_FULLSCREEN);
-        for (StatusBarVisibilityObserver observer : statusBarVisibilityObservers) {
-            observer.onStatusBarVisibilityChanged(false);
-        }
+        statusBarVisibilityObservers.publish(STATUS_BAR_HIDDEN);
     }
 
     @Override
@@ -221,8 +254,16 @@ public class GlobalLayoutController implements IGlobalLayoutController {
     }
 
     protected void notifyKeyboardHeightHasChanged(int keyboardHeight) {
-        for (KeyboardHeightObserver keyboardHeightObserver : keyboardHeightObservers) {
-            keyboardHeightObserver.onKeyboardHeightChanged(keyboardHeight);
+        keyboardHeightDispatch.keyboardHeight = keyboardHeight;
+        keyboardHeightObservers.publish(keyboardHeightDispatch);
+    }
+
+    private static class KeyboardHeightDispatch implements Dispatch<KeyboardHeightObserver> {
+        private int keyboardHeight;
+
+        @Override
+        public void dispatch(KeyboardHeightObserver observer) {
+            observer.onKeyboardHeightChanged(keyboardHeight);
         }
     }
 }
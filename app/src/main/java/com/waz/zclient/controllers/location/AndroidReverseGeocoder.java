@@ -0,0 +1,48 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.location;
+
+import android.content.Context;
+import android.location.Address;
+import android.location.Geocoder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+class AndroidReverseGeocoder implements ReverseGeocoder {
+
+    private final Geocoder geocoder;
+
+    AndroidReverseGeocoder(Context context) {
+        this.geocoder = new Geocoder(context, Locale.getDefault());
+    }
+
+    @Override
+    public GeocodedPlace getPlace(double latitude, double longitude) throws IOException {
+        List<Address> addresses = geocoder.getFromLocation(latitude, longitude, 1);
+        if (addresses == null || addresses.isEmpty()) {
+            return GeocodedPlace.UNKNOWN;
+        }
+        Address address = addresses.get(0);
+        return new GeocodedPlace(address.getMaxAddressLineIndex() >= 0 ? address.getAddressLine(0) : "",
+                                 address.getSubLocality(),
+                                 address.getLocality(),
+                                 address.getCountryName());
+    }
+}
@@ -0,0 +1,105 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.location;
+
+import com.waz.zclient.utils.StringUtils;
+
+/**
+ * The parts of a reverse geocoded address that are shown for a location, all of them may be empty.
+ */
+public class GeocodedPlace {
+
+    public static final GeocodedPlace UNKNOWN = new GeocodedPlace("", "", "", "");
+
+    static final int MIN_ZOOM_ADDRESS = 12;
+    static final int MIN_ZOOM_LOCALITY = 6;
+
+    private final String firstAddressLine;
+    private final String subLocality;
+    private final String locality;
+    private final String countryName;
+
+    public GeocodedPlace(String firstAddressLine, String subLocality, String locality, String countryName) {
+        this.firstAddressLine = nonNull(firstAddressLine);
+        this.subLocality = nonNull(subLocality);
+        this.locality = nonNull(locality);
+        this.countryName = nonNull(countryName);
+    }
+
+    public String getFirstAddressLine() {
+        return firstAddressLine;
+    }
+
+    public String getSubLocality() {
+        return subLocality;
+    }
+
+    public String getLocality() {
+        return locality;
+    }
+
+    public String getCountryName() {
+        return countryName;
+    }
+
+    /**
+     * The most specific name that fits the map zoom level: the address when zoomed in, then the
+     * (sub-)locality, then the country.
+     */
+    public String getName(int zoom) {
+        if (zoom >= MIN_ZOOM_ADDRESS && !StringUtils.isBlank(firstAddressLine)) {
+            return firstAddressLine;
+        }
+        if (zoom >= MIN_ZOOM_LOCALITY) {
+            if (!StringUtils.isBlank(subLocality)) {
+                return subLocality;
+            } else if (!StringUtils.isBlank(locality)) {
+                return locality;
+            }
+        }
+        return countryName;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        GeocodedPlace that = (GeocodedPlace) o;
+        return firstAddressLine.equals(that.firstAddressLine) &&
+               subLocality.equals(that.subLocality) &&
+               locality.equals(that.locality) &&
+               countryName.equals(that.countryName);
+    }
+
+    @Override
+    public int hashCode() {
+        int result = firstAddressLine.hashCode();
+        result = 31 * result + subLocality.hashCode();
+        result = 31 * result + locality.hashCode();
+        result = 31 * result + countryName.hashCode();
+        return result;
+    }
+
+    private static String nonNull(String value) {
+        return value == null ? "" : value;
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.location;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * LRU cache of reverse geocoded places, keyed by geohash cell.
+ *
+ * The cell size follows the zoom level the name is shown at: address names are cached for cells of about
+ * 38 x 19 m, locality names for about 1.2 x 0.6 km and country names for about 156 x 156 km. Thread safe.
+ */
+class GeocodingCache {
+
+    static final int ADDRESS_PRECISION = 8;
+    static final int LOCALITY_PRECISION = 6;
+    static final int COUNTRY_PRECISION = 3;
+
+    private static final int FILE_VERSION = 1;
+
+    private final int maxEntries;
+    private final long maxAgeMillis;
+    private final LinkedHashMap<String, Entry> entries;
+    private boolean dirty;
+
+    GeocodingCache(final int maxEntries, long maxAgeMillis) {
+        this.maxEntries = maxEntries;
+        this.maxAgeMillis = maxAgeMillis;
+        this.entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    static String cellOf(double latitude, double longitude, int zoom) {
+        int precision;
+        if (zoom >= GeocodedPlace.MIN_ZOOM_ADDRESS) {
+            precision = ADDRESS_PRECISION;
+        } else if (zoom >= GeocodedPlace.MIN_ZOOM_LOCALITY) {
+            precision = LOCALITY_PRECISION;
+        } else {
+            precision = COUNTRY_PRECISION;
+        }
+        return Geohash.encode(latitude, longitude, precision);
+    }
+
+    /**
+     * Returns the cached place of the cell, or null if there is none or it is too old.
+     */
+    synchronized GeocodedPlace get(String cell, long now) {
+        Entry entry = entries.get(cell);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.time > maxAgeMillis) {
+            entries.remove(cell);
+            dirty = true;
+            return null;
+        }
+        return entry.place;
+    }
+
+    synchronized void put(String cell, GeocodedPlace place, long now) {
+        entries.put(cell, new Entry(place, now));
+        dirty = true;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Adds the entries of a file written by {@link #save(File)}, entries already in memory win.
+     */
+    void load(File file, long now) throws IOException {
+        if (!file.exists()) {
+            return;
+        }
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            if (in.readInt() != FILE_VERSION) {
+                return;
+            }
+            int count = in.readInt();
+            synchronized (this) {
+                boolean wasDirty = dirty;
+                for (int i = 0; i < count; i++) {
+                    String cell = in.readUTF();
+                    long time = in.readLong();
+                    GeocodedPlace place = new GeocodedPlace(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                    if (now - time <= maxAgeMillis && !entries.containsKey(cell)) {
+                        entries.put(cell, new Entry(place, time));
+                    }
+                }
+                dirty = wasDirty;
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes the cache if it changed since it was loaded or last saved, least recently used entries first.
+     */
+    void save(File file) throws IOException {
+        List<Map.Entry<String, Entry>> snapshot;
+        synchronized (this) {
+            if (!dirty) {
+                return;
+            }
+            snapshot = new ArrayList<>(entries.entrySet());
+            dirty = false;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+        try {
+            out.writeInt(FILE_VERSION);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Entry> entry : snapshot) {
+                GeocodedPlace place = entry.getValue().place;
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue().time);
+                out.writeUTF(place.getFirstAddressLine());
+                out.writeUTF(place.getSubLocality());
+                out.writeUTF(place.getLocality());
+                out.writeUTF(place.getCountryName());
+            }
+        } finally {
+            out.close();
+        }
+        if (!tmp.renameTo(file)) {
+            throw new IOException("Unable to replace " + file);
+        }
+    }
+
+    private static class Entry {
+        final GeocodedPlace place;
+        final long time;
+
+        Entry(GeocodedPlace place, long time) {
+            this.place = place;
+            this.time = time;
+        }
+    }
+}
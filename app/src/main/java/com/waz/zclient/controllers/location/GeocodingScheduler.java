@@ -0,0 +1,195 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.location;
+
+import timber.log.Timber;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Resolves the name of the location under the map pin.
+ *
+ * Requests are debounced: while the map is moving every request cancels the one before it, and the geocoder
+ * is only asked once the pin rested for the debounce interval. Results are cached per geohash cell, so
+ * panning back and forth within a cell never hits the geocoder again. A callback is only delivered for
+ * the latest request.
+ */
+public class GeocodingScheduler {
+
+    public interface Callback {
+        void onPlaceResolved(GeocodedPlace place);
+    }
+
+    private final ReverseGeocoder geocoder;
+    private final GeocodingCache cache;
+    private final File cacheFile;
+    private final ScheduledExecutorService worker;
+    private final Executor callbackExecutor;
+    private final long debounceMillis;
+    private final AtomicInteger generation = new AtomicInteger();
+    private final AtomicInteger lookupCount = new AtomicInteger();
+
+    private ScheduledFuture<?> pendingLookup;
+
+    /**
+     * @param cacheFile        where the cache is persisted, or null to keep it in memory only
+     * @param worker           runs the geocoder, which blocks on network
+     * @param callbackExecutor delivers the resolved places, usually the main thread
+     */
+    GeocodingScheduler(ReverseGeocoder geocoder,
+                       GeocodingCache cache,
+                       final File cacheFile,
+                       ScheduledExecutorService worker,
+                       Executor callbackExecutor,
+                       long debounceMillis) {
+        this.geocoder = geocoder;
+        this.cache = cache;
+        this.cacheFile = cacheFile;
+        this.worker = worker;
+        this.callbackExecutor = callbackExecutor;
+        this.debounceMillis = debounceMillis;
+        if (cacheFile != null) {
+            worker.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        GeocodingScheduler.this.cache.load(cacheFile, System.currentTimeMillis());
+                    } catch (IOException e) {
+                        Timber.w(e, "Unable to load geocoding cache");
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Requests the name of a location. A cached place is delivered right away on the calling thread,
+     * otherwise the lookup is scheduled after the debounce interval and replaces any pending one.
+     */
+    public void request(double latitude, double longitude, int zoom, final Callback callback) {
+        final int requestGeneration = generation.incrementAndGet();
+        cancelPendingLookup();
+
+        final String cell = GeocodingCache.cellOf(latitude, longitude, zoom);
+        GeocodedPlace cached = cache.get(cell, System.currentTimeMillis());
+        if (cached != null) {
+            callback.onPlaceResolved(cached);
+            return;
+        }
+
+        final double lat = latitude;
+        final double lon = longitude;
+        ScheduledFuture<?> lookup = worker.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (requestGeneration != generation.get()) {
+                    return;
+                }
+                final GeocodedPlace place = lookup(cell, lat, lon);
+                callbackExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (requestGeneration == generation.get()) {
+                            callback.onPlaceResolved(place);
+                        }
+                    }
+                });
+            }
+        }, debounceMillis, TimeUnit.MILLISECONDS);
+        synchronized (this) {
+            pendingLookup = lookup;
+        }
+    }
+
+    /**
+     * Drops the pending lookup and any result that was not delivered yet.
+     */
+    public void cancel() {
+        generation.incrementAndGet();
+        cancelPendingLookup();
+    }
+
+    /**
+     * Writes the cache to disk on the worker thread, if it changed.
+     */
+    public void persistCache() {
+        if (cacheFile == null) {
+            return;
+        }
+        worker.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    cache.save(cacheFile);
+                } catch (IOException e) {
+                    Timber.w(e, "Unable to save geocoding cache");
+                }
+            }
+        });
+    }
+
+    /**
+     * Cancels pending lookups, persists the cache and stops the worker once that is done.
+     */
+    public void shutdown() {
+        cancel();
+        persistCache();
+        worker.shutdown();
+    }
+
+    /**
+     * Number of times the geocoder was asked.
+     */
+    int getLookupCount() {
+        return lookupCount.get();
+    }
+
+    private GeocodedPlace lookup(String cell, double latitude, double longitude) {
+        // An earlier lookup of the same cell may have finished while this one was waiting
+        GeocodedPlace place = cache.get(cell, System.currentTimeMillis());
+        if (place != null) {
+            return place;
+        }
+        lookupCount.incrementAndGet();
+        try {
+            place = geocoder.getPlace(latitude, longitude);
+        } catch (IOException | RuntimeException e) {
+            // Not cached, the geocoder may be reachable on the next request
+            Timber.i(e, "Unable to retrieve location name");
+            return GeocodedPlace.UNKNOWN;
+        }
+        if (place == null) {
+            return GeocodedPlace.UNKNOWN;
+        }
+        cache.put(cell, place, System.currentTimeMillis());
+        return place;
+    }
+
+    private synchronized void cancelPendingLookup() {
+        if (pendingLookup != null) {
+            pendingLookup.cancel(false);
+            pendingLookup = null;
+        }
+    }
+}
@@ -29,5 +29,10 @@ public interface ILocationController {
 
     void hideShareLocation(MessageContent.Location location);
 
+    /**
+     * Resolves location names for the share location screen, created on first use.
+     */
+    GeocodingScheduler getGeocodingScheduler();
+
     void tearDown();
 }
@@ -17,14 +17,32 @@
  */
 package com.waz.zclient.controllers.location;
 
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import com.waz.api.MessageContent;
 
+import java.io.File;
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
 public class LocationController implements ILocationController {
 
+    private static final String GEOCODING_CACHE_FILE = "geocoding.cache";
+    private static final int GEOCODING_CACHE_SIZE = 512;
+    private static final long GEOCODING_CACHE_MAX_AGE_MS = 30L * 24 * 60 * 60 * 1000;
+    private static final long GEOCODING_DEBOUNCE_MS = 300;
+
     private Set<LocationObserver> observers = new HashSet<>();
+    private Context context;
+    private GeocodingScheduler geocodingScheduler;
+
+    public LocationController(Context context) {
+        this.context = context;
+    }
 
     @Override
     public void addObserver(LocationObserver observer) {
@@ -48,12 +66,44 @@ public class LocationController implements ILocationController {
         for (LocationObserver observer : observers) {
             observer.onHideShareLocation(location);
         }
+        if (geocodingScheduler != null) {
+            geocodingScheduler.cancel();
+            geocodingScheduler.persistCache();
+        }
+    }
+
+    @Override
+    public GeocodingScheduler getGeocodingScheduler() {
+        if (geocodingScheduler == null) {
+            final Handler mainHandler = new Handler(Looper.getMainLooper());
+            geocodingScheduler = new GeocodingScheduler(new AndroidReverseGeocoder(context),
+                                                        new GeocodingCache(GEOCODING_CACHE_SIZE, GEOCODING_CACHE_MAX_AGE_MS),
+                                                        new File(context.getCacheDir(), GEOCODING_CACHE_FILE),
+                                                        Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                                                            @Override
+                                                            public Thread newThread(Runnable runnable) {
+                                                                return new Thread(runnable, "Geocoding");
+                                                            }
+                                                        }),
+                                                        new Executor() {
+                                                            @Override
+                                                            public void execute(Runnable command) {
+                                                                mainHandler.post(command);
+                                                            }
+                                                        },
+                                                        GEOCODING_DEBOUNCE_MS);
+        }
+        return geocodingScheduler;
     }
 
     @Override
     public void tearDown() {
         observers.clear();
+        if (geocodingScheduler != null) {
+            geocodingScheduler.shutdown();
+            geocodingScheduler = null;
+        }
+        context = null;
     }
 
-
 }
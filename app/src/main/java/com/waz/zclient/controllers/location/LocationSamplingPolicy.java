@@ -0,0 +1,139 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.location;
+
+/**
+ * Decides how often the location is sampled while the share location screen is open, and which fixes
+ * are worth showing.
+ *
+ * Sampling starts fast and accurate to find the position. Once accurate fixes keep agreeing with each
+ * other the device is not moving, so the interval and minimum distance are backed off in two steps. A fix
+ * that moved further than the accuracy of the fixes allows brings sampling back to fast. Fixes that are
+ * less accurate than the last shown one without having moved away from it are dropped.
+ */
+public class LocationSamplingPolicy {
+
+    static final long FAST_INTERVAL_MS = 1000;
+    static final long SETTLED_INTERVAL_MS = 5000;
+    static final long IDLE_INTERVAL_MS = 15000;
+    static final float FAST_MIN_DISTANCE_M = 0;
+    static final float SETTLED_MIN_DISTANCE_M = 5;
+    static final float IDLE_MIN_DISTANCE_M = 10;
+
+    static final float GOOD_ACCURACY_M = 20;
+    static final int AGREEING_FIXES_TO_SETTLE = 3;
+    static final int AGREEING_FIXES_TO_IDLE = 8;
+
+    /**
+     * A worse fix is still shown if the last shown one is older than this.
+     */
+    static final long STALE_FIX_MS = 30000;
+    static final float REDUNDANT_DISTANCE_M = 1;
+
+    private static final double EARTH_RADIUS_M = 6371009;
+
+    private boolean hasFix;
+    private double lastLatitude;
+    private double lastLongitude;
+    private float lastAccuracy;
+    private long lastTime;
+    private int agreeingFixes;
+
+    /**
+     * @param accuracy radius in meters, {@link Float#MAX_VALUE} if unknown
+     * @return whether the fix should be shown
+     */
+    public boolean onLocationFix(double latitude, double longitude, float accuracy, long timeMillis) {
+        if (!hasFix) {
+            accept(latitude, longitude, accuracy, timeMillis);
+            return true;
+        }
+        double distance = distanceMeters(lastLatitude, lastLongitude, latitude, longitude);
+        boolean moved = distance > Math.max(accuracy, lastAccuracy);
+        if (moved) {
+            agreeingFixes = 0;
+            accept(latitude, longitude, accuracy, timeMillis);
+            return true;
+        }
+
+        if (accuracy <= GOOD_ACCURACY_M && lastAccuracy <= GOOD_ACCURACY_M) {
+            agreeingFixes++;
+        } else {
+            agreeingFixes = 0;
+        }
+
+        boolean worse = accuracy > lastAccuracy;
+        boolean stale = timeMillis - lastTime > STALE_FIX_MS;
+        if ((worse && !stale) || (!worse && accuracy == lastAccuracy && distance < REDUNDANT_DISTANCE_M)) {
+            return false;
+        }
+        accept(latitude, longitude, accuracy, timeMillis);
+        return true;
+    }
+
+    /**
+     * Goes back to fast sampling, e.g. when the user asks for the current location.
+     */
+    public void reset() {
+        hasFix = false;
+        agreeingFixes = 0;
+    }
+
+    public long getIntervalMillis() {
+        if (agreeingFixes >= AGREEING_FIXES_TO_IDLE) {
+            return IDLE_INTERVAL_MS;
+        }
+        if (agreeingFixes >= AGREEING_FIXES_TO_SETTLE) {
+            return SETTLED_INTERVAL_MS;
+        }
+        return FAST_INTERVAL_MS;
+    }
+
+    public float getMinDistanceMeters() {
+        if (agreeingFixes >= AGREEING_FIXES_TO_IDLE) {
+            return IDLE_MIN_DISTANCE_M;
+        }
+        if (agreeingFixes >= AGREEING_FIXES_TO_SETTLE) {
+            return SETTLED_MIN_DISTANCE_M;
+        }
+        return FAST_MIN_DISTANCE_M;
+    }
+
+    /**
+     * Whether the position is still being searched for, in which case GPS is worth its power.
+     */
+    public boolean isHighAccuracy() {
+        return agreeingFixes < AGREEING_FIXES_TO_SETTLE;
+    }
+
+    private void accept(double latitude, double longitude, float accuracy, long timeMillis) {
+        hasFix = true;
+        lastLatitude = latitude;
+        lastLongitude = longitude;
+        lastAccuracy = accuracy;
+        lastTime = timeMillis;
+    }
+
+    static double distanceMeters(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2) +
+                   Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_M * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
@@ -23,8 +23,6 @@ import com.waz.api.MediaProvider;
 import com.waz.api.Message;
 import com.waz.zclient.controllers.mediaplayer.MediaPlayerState;
 
-import java.util.List;
-
 public interface IStreamMediaPlayerController {
 
     void addStreamMediaObserver(StreamMediaPlayerObserver streamMediaObserver);
@@ -68,7 +66,7 @@ public interface IStreamMediaPlayerController {
 
     void stop(String conversationId);
 
-    void informVisibleItems(List<String> visibleMessageIds);
+    void informVisibleItems(VisibleRange visibleRange);
 
     void requestScroll();
 
@@ -0,0 +1,100 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.streammediaplayer;
+
+import java.util.Arrays;
+
+/**
+ * Minimal open-addressing string set (linear probing, power-of-two table) meant to be cleared and refilled for
+ * every visible range. The table only grows, so once it has seen the largest screenful of rows no further
+ * allocation happens.
+ */
+public class MessageIdSet {
+
+    private static final int MIN_CAPACITY = 32;
+
+    private String[] table = new String[MIN_CAPACITY];
+    private int size;
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(table, null);
+            size = 0;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean add(String id) {
+        if (id == null) {
+            return false;
+        }
+        if ((size + 1) * 2 > table.length) {
+            grow();
+        }
+        int mask = table.length - 1;
+        int index = mix(id.hashCode()) & mask;
+        while (table[index] != null) {
+            if (table[index].equals(id)) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        table[index] = id;
+        size++;
+        return true;
+    }
+
+    public boolean contains(String id) {
+        if (id == null || size == 0) {
+            return false;
+        }
+        int mask = table.length - 1;
+        int index = mix(id.hashCode()) & mask;
+        String candidate;
+        while ((candidate = table[index]) != null) {
+            if (candidate.equals(id)) {
+                return true;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    private void grow() {
+        String[] old = table;
+        table = new String[old.length * 2];
+        size = 0;
+        for (String id : old) {
+            if (id != null) {
+                add(id);
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        int h = hash * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -35,6 +35,9 @@ import com.waz.zclient.controllers.mediaplayer.MediaPlayerListener;
 import com.waz.zclient.controllers.mediaplayer.MediaPlayerState;
 import com.waz.zclient.controllers.spotify.ISpotifyController;
 import com.waz.zclient.controllers.spotify.SpotifyMediaPlayer;
+import com.waz.zclient.core.events.Dispatch;
+import com.waz.zclient.core.events.EventBus;
+import com.waz.zclient.core.events.EventChannel;
 
 import java.util.HashMap;
 import java.util.HashSet;
@@ -50,8 +53,15 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
     private final Map<String, Long> alreadyPlayedTracks; // key = messageId
     private final Map<String, Integer> lastKnownPositions; // key = messageId
 
-    private final Set<StreamMediaPlayerObserver> streamMediaObservers;
-    private final Set<StreamMediaBarObserver> streamMediaBarObservers;
+    private static final Dispatch<StreamMediaBarObserver> HIDE_MEDIA_BAR = new Dispatch<StreamMediaBarObserver>() {
+        @Override
+        public void dispatch(StreamMediaBarObserver observer) {
+            observer.onHideMediaBar();
+        }
+    };
+
+    private final EventChannel<StreamMediaPlayerObserver> streamMediaObservers;
+    private final EventChannel<StreamMediaBarObserver> streamMediaBarObservers;
 
     private Context context;
     private ISpotifyController spotifyController;
@@ -63,8 +73,8 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
     private MediaAsset mediaTrack = MediaAssets.EMPTY;
 
     public StreamMediaPlayerController(Context context, ISpotifyController spotifyController) {
-        this.streamMediaObservers = new HashSet<>();
-        this.streamMediaBarObservers = new HashSet<>();
+        this.streamMediaObservers = EventBus.getInstance().channel("streamMediaPlayer", StreamMediaPlayerObserver.class);
+        this.streamMediaBarObservers = EventBus.getInstance().channel("streamMediaBar", StreamMediaBarObserver.class);
         this.lastMediaStateHashMap = new HashMap<>();
         this.lastKnownPositions = new HashMap<>();
         this.alreadyPlayedTracks = new HashMap<>();
@@ -323,9 +333,7 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
 
     @Override
     public void onPrepared() {
-        for (StreamMediaPlayerObserver listener : streamMediaObservers) {
-            listener.onPrepared(getMessage());
-        }
+        notifyStreamMediaObservers(PlayerEvent.PREPARED);
         if (!lastKnownPositions.containsKey(getMessage().getId())) {
             start();
         } else {
@@ -336,9 +344,7 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
     @Override
     public void onError() {
         audioManager.abandonAudioFocus(this);
-        for (StreamMediaPlayerObserver listener : streamMediaObservers) {
-            listener.onError(getMessage());
-        }
+        notifyStreamMediaObservers(PlayerEvent.ERROR);
     }
 
     @Override
@@ -348,9 +354,7 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
         if (getMediaPlayerState() != MediaPlayerState.Error) {
             lastKnownPositions.remove(getMessage().getId());
         }
-        for (StreamMediaPlayerObserver listener : streamMediaObservers) {
-            listener.onComplete(getMessage());
-        }
+        notifyStreamMediaObservers(PlayerEvent.COMPLETE);
         hideMediaBar();
     }
 
@@ -367,9 +371,7 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
     }
 
     private void notifyTrackChanged() {
-        for (StreamMediaPlayerObserver listener : streamMediaObservers) {
-            listener.onTrackChanged(getMessage());
-        }
+        notifyStreamMediaObservers(PlayerEvent.TRACK_CHANGED);
     }
 
     @Override
@@ -387,7 +389,7 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
     }
 
     @Override
-    public void informVisibleItems(List<String> visibleMessageIds) {
+    public void informVisibleItems(VisibleRange visibleRange) {
         MediaPlayerState mediaPlayerState = getMediaPlayerState();
         if (mediaPlayerState != null) {
             switch (mediaPlayerState) {
@@ -402,7 +404,7 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
             return;
         }
 
-        if (visibleMessageIds.contains(getMessage().getId())) {
+        if (visibleRange.containsMessage(getMessage().getId())) {
             hideMediaBar();
         } else {
             showMediaBar();
@@ -411,39 +413,41 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
 
     @Override
     public void requestScroll() {
-        for (StreamMediaBarObserver listener : streamMediaBarObservers) {
-            listener.onScrollTo(getMessage());
-        }
+        final Message current = getMessage();
+        streamMediaBarObservers.publish(new Dispatch<StreamMediaBarObserver>() {
+            @Override
+            public void dispatch(StreamMediaBarObserver observer) {
+                observer.onScrollTo(current);
+            }
+        });
     }
 
     private void showMediaBar() {
-        for (StreamMediaBarObserver listener : streamMediaBarObservers) {
-            listener.onShowMediaBar(getMessage().getConversationId());
-        }
+        final String conversationId = getMessage().getConversationId();
+        streamMediaBarObservers.publish(new Dispatch<StreamMediaBarObserver>() {
+            @Override
+            public void dispatch(StreamMediaBarObserver observer) {
+                observer.onShowMediaBar(conversationId);
+            }
+        });
     }
 
     private void hideMediaBar() {
-        for (StreamMediaBarObserver listener : streamMediaBarObservers) {
-            listener.onHideMediaBar();
-        }
+        streamMediaBarObservers.publish(HIDE_MEDIA_BAR);
     }
 
     @Override
     public void onStop() {
         audioManager.abandonAudioFocus(this);
         hideMediaBar();
-        for (StreamMediaPlayerObserver listener : streamMediaObservers) {
-            listener.onStop(getMessage());
-        }
+        notifyStreamMediaObservers(PlayerEvent.STOP);
     }
 
     @Override
     public void onPause() {
         audioManager.abandonAudioFocus(this);
         saveLastKnownPosition();
-        for (StreamMediaPlayerObserver listener : streamMediaObservers) {
-            listener.onPause(getMessage());
-        }
+        notifyStreamMediaObservers(PlayerEvent.PAUSE);
     }
 
     private void saveLastKnownPosition() {
@@ -463,9 +467,39 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
 
     @Override
     public void onStart() {
-        for (StreamMediaPlayerObserver listener : streamMediaObservers) {
-            listener.onPlay(getMessage());
-        }
+        notifyStreamMediaObservers(PlayerEvent.PLAY);
+    }
+
+    private void notifyStreamMediaObservers(final PlayerEvent event) {
+        final Message current = getMessage();
+        streamMediaObservers.publish(new Dispatch<StreamMediaPlayerObserver>() {
+            @Override
+            public void dispatch(StreamMediaPlayerObserver observer) {
+                switch (event) {
+                    case PREPARED:
+                        observer.onPrepared(current);
+                        break;
+                    case ERROR:
+                        observer.onError(current);
+                        break;
+                    case COMPLETE:
+                        observer.onComplete(current);
+                        break;
+                    case TRACK_CHANGED:
+                        observer.onTrackChanged(current);
+                        break;
+                    case STOP:
+                        observer.onStop(current);
+                        break;
+                    case PAUSE:
+                        observer.onPause(current);
+                        break;
+                    case PLAY:
+                        observer.onPlay(current);
+                        break;
+                }
+            }
+        });
     }
 
     @Override
@@ -498,4 +532,14 @@ public class StreamMediaPlayerController implements IStreamMediaPlayerController
             setTrack(Message.EMPTY, MediaAssets.EMPTY);
         }
     }
+
+    private enum PlayerEvent {
+        PREPARED,
+        ERROR,
+        COMPLETE,
+        TRACK_CHANGED,
+        STOP,
+        PAUSE,
+        PLAY
+    }
 }
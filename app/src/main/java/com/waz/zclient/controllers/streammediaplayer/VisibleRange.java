@@ -0,0 +1,63 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.streammediaplayer;
+
+import android.widget.ListAdapter;
+import com.waz.api.Message;
+
+/**
+ * The rows of the message stream currently on screen, published by the stream's scroll listener at most once
+ * per frame.
+ *
+ * The same instance is refilled on every change, listeners must not hold on to it or query it later.
+ */
+public class VisibleRange {
+
+    public static final int UNSET_POSITION = -1;
+
+    private int firstPosition = UNSET_POSITION;
+    private int lastPosition = UNSET_POSITION;
+    private final MessageIdSet messageIds = new MessageIdSet();
+
+    public boolean containsMessage(String messageId) {
+        return messageIds.contains(messageId);
+    }
+
+    public boolean isEmpty() {
+        return messageIds.isEmpty();
+    }
+
+    public boolean isSame(int firstPosition, int lastPosition) {
+        return this.firstPosition != UNSET_POSITION &&
+               this.firstPosition == firstPosition &&
+               this.lastPosition == lastPosition;
+    }
+
+    public void update(ListAdapter adapter, int firstPosition, int lastPosition) {
+        this.firstPosition = firstPosition;
+        this.lastPosition = lastPosition;
+        messageIds.clear();
+        int count = adapter.getCount();
+        for (int i = firstPosition; i <= lastPosition && i < count; i++) {
+            Message message = (Message) adapter.getItem(i);
+            if (message != null) {
+                messageIds.add(message.getId());
+            }
+        }
+    }
+}
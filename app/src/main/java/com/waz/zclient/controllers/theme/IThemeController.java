@@ -19,6 +19,8 @@ package com.waz.zclient.controllers.theme;
 
 import android.support.annotation.StyleRes;
 import com.waz.zclient.ui.theme.OptionsTheme;
+import com.waz.zclient.ui.theme.ThemeAttributes;
+import com.waz.zclient.ui.theme.ThemedViews;
 
 public interface IThemeController {
 
@@ -34,6 +36,16 @@ public interface IThemeController {
 
     OptionsTheme getThemeDependentOptionsTheme();
 
+    /**
+     * The resolved attributes of the current theme.
+     */
+    ThemeAttributes getThemeAttributes();
+
+    /**
+     * Views whose theme dependent properties are updated in place when the theme changes.
+     */
+    ThemedViews getThemedViews();
+
     void addThemeObserver(ThemeObserver themeObserver);
 
     void removeThemeObserver(ThemeObserver themeObserver);
@@ -42,6 +54,9 @@ public interface IThemeController {
 
     boolean isDarkTheme();
 
+    /**
+     * True if the theme changed while the main screen was in the background and it still has to apply it.
+     */
     boolean isRestartPending();
 
     void removePendingRestart();
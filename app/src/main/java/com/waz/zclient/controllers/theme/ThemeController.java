@@ -17,8 +17,10 @@
  */
 package com.waz.zclient.controllers.theme;
 
+import android.content.ComponentCallbacks;
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.content.res.Configuration;
 import android.support.annotation.IntDef;
 import android.support.annotation.StyleRes;
 import com.waz.zclient.R;
@@ -26,6 +28,8 @@ import com.waz.zclient.controllers.userpreferences.UserPreferencesController;
 import com.waz.zclient.ui.theme.OptionsDarkTheme;
 import com.waz.zclient.ui.theme.OptionsLightTheme;
 import com.waz.zclient.ui.theme.OptionsTheme;
+import com.waz.zclient.ui.theme.ThemeAttributes;
+import com.waz.zclient.ui.theme.ThemedViews;
 import com.waz.zclient.utils.LayoutSpec;
 
 import java.util.HashSet;
@@ -49,16 +53,43 @@ public class ThemeController implements IThemeController {
     private @Theme int currentTheme;
     private OptionsTheme optionsDarkTheme;
     private OptionsTheme optionsLightTheme;
+    private ThemeAttributes darkAttributes;
+    private ThemeAttributes lightAttributes;
+    private final ThemedViews themedViews;
     private final boolean isTablet;
+    private Context context;
+
+    private final ComponentCallbacks configurationCallbacks = new ComponentCallbacks() {
+        @Override
+        public void onConfigurationChanged(Configuration newConfig) {
+            // The tables hold values resolved for the old configuration
+            ThemeAttributes.clearShared();
+            loadAttributes();
+            themedViews.apply(getThemeAttributes());
+        }
+
+        @Override
+        public void onLowMemory() {
+        }
+    };
 
     public ThemeController(Context context) {
+        this.context = context.getApplicationContext();
         isTablet = LayoutSpec.isTablet(context);
         deprecatedThemeKey = context.getString(R.string.pref_account_theme_key);
         themeKey = context.getString(R.string.pref_options_theme_switch_key);
         prefs = context.getSharedPreferences(UserPreferencesController.USER_PREFS_TAG, Context.MODE_PRIVATE);
         currentTheme = getThemeFromPreferences();
-        optionsDarkTheme = new OptionsDarkTheme(context);
-        optionsLightTheme = new OptionsLightTheme(context);
+        loadAttributes();
+        themedViews = new ThemedViews(getThemeAttributes());
+        this.context.registerComponentCallbacks(configurationCallbacks);
+    }
+
+    private void loadAttributes() {
+        darkAttributes = ThemeAttributes.of(context, R.style.Theme_Dark);
+        lightAttributes = ThemeAttributes.of(context, R.style.Theme_Light);
+        optionsDarkTheme = new OptionsDarkTheme(darkAttributes);
+        optionsLightTheme = new OptionsLightTheme(lightAttributes);
     }
 
     @SuppressWarnings("ResourceType")
@@ -104,8 +135,11 @@ public class ThemeController implements IThemeController {
     @SuppressWarnings("WrongConstant")
     private void setTheme(@Theme int themeId) {
         currentTheme = themeId;
-        prefs.edit().putString(deprecatedThemeKey, String.valueOf(currentTheme)).apply();
-        prefs.edit().putBoolean(themeKey, isDarkTheme()).apply();
+        prefs.edit()
+             .putString(deprecatedThemeKey, String.valueOf(currentTheme))
+             .putBoolean(themeKey, isDarkTheme())
+             .apply();
+        themedViews.apply(getThemeAttributes());
         for (ThemeObserver observer : observers) {
             observer.onThemeHasChanged(currentTheme);
         }
@@ -139,6 +173,16 @@ public class ThemeController implements IThemeController {
         }
     }
 
+    @Override
+    public ThemeAttributes getThemeAttributes() {
+        return currentTheme == DARK_THEME ? darkAttributes : lightAttributes;
+    }
+
+    @Override
+    public ThemedViews getThemedViews() {
+        return themedViews;
+    }
+
     @Override
     public void addThemeObserver(ThemeObserver themeObserver) {
         observers.add(themeObserver);
@@ -151,7 +195,10 @@ public class ThemeController implements IThemeController {
 
     @Override
     public void tearDown() {
+        context.unregisterComponentCallbacks(configurationCallbacks);
+        context = null;
         prefs = null;
+        themedViews.clear();
         optionsDarkTheme.tearDown();
         optionsLightTheme.tearDown();
     }
@@ -116,6 +116,13 @@ public interface IUserPreferencesController {
 
     boolean hasCheckedForUnsupportedEmojis(int version);
 
+    /**
+     * Observers are notified on the main thread whenever the recent or unsupported emojis change.
+     */
+    void addEmojiPreferencesObserver(EmojiPreferencesObserver observer);
+
+    void removeEmojiPreferencesObserver(EmojiPreferencesObserver observer);
+
     long getLastEphemeralValue();
 
     void setLastEphemeralValue(long value);
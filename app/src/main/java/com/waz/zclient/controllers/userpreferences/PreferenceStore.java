@@ -0,0 +1,339 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.userpreferences;
+
+import android.annotation.SuppressLint;
+import android.content.SharedPreferences;
+import timber.log.Timber;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory mirror of a {@link SharedPreferences} file.
+ *
+ * All values are loaded once on a background thread, reads are served from a concurrent map without locking,
+ * and writes are applied to memory immediately and persisted in batches by a background writer that is shared
+ * by all stores.
+ * Changes made to the underlying file by someone else (e.g. the preference screens) are picked up through
+ * a {@link SharedPreferences.OnSharedPreferenceChangeListener}. Reads of keys that are not in memory yet
+ * go to the typed getters of {@link SharedPreferences} until the load has finished.
+ */
+public class PreferenceStore {
+
+    private static final long WRITE_BEHIND_DELAY_MS = 300;
+
+    private static final ScheduledThreadPoolExecutor WRITER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "PreferenceStore");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
+
+    static {
+        // Don't keep the thread around while no store is writing
+        WRITER.setKeepAliveTime(1, TimeUnit.SECONDS);
+        WRITER.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Marks a key as removed, {@link ConcurrentHashMap} does not accept null values.
+     */
+    private static final Object REMOVED = new Object();
+
+    private final SharedPreferences sharedPreferences;
+    private final ConcurrentHashMap<String, Object> values = new ConcurrentHashMap<>();
+    private final CountDownLatch loadedLatch = new CountDownLatch(1);
+    private final ScheduledExecutorService writer;
+    private final long writeBehindDelayMs;
+
+    private final Object writeLock = new Object();
+    // guarded by writeLock
+    private Map<String, Object> pendingWrites = new HashMap<>();
+    // guarded by writeLock
+    private Map<String, Object> inFlightWrites = new HashMap<>();
+    // guarded by writeLock
+    private boolean flushScheduled;
+
+    private volatile boolean loaded;
+
+    private final SharedPreferences.OnSharedPreferenceChangeListener externalChangeListener = new SharedPreferences.OnSharedPreferenceChangeListener() {
+        @Override
+        public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key) {
+            synchronized (writeLock) {
+                if (pendingWrites.containsKey(key) || inFlightWrites.containsKey(key)) {
+                    // a newer value is already on its way to disk
+                    return;
+                }
+                Object value = readValue(sharedPreferences, key, values.get(key));
+                values.put(key, value == null ? REMOVED : value);
+            }
+        }
+    };
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public PreferenceStore(SharedPreferences sharedPreferences) {
+        this(sharedPreferences, WRITER, WRITE_BEHIND_DELAY_MS);
+    }
+
+    PreferenceStore(SharedPreferences sharedPreferences, ScheduledExecutorService writer, long writeBehindDelayMs) {
+        this.sharedPreferences = sharedPreferences;
+        this.writer = writer;
+        this.writeBehindDelayMs = writeBehindDelayMs;
+        sharedPreferences.registerOnSharedPreferenceChangeListener(externalChangeListener);
+    }
+
+    /**
+     * Loads all values on the writer thread. {@code onLoaded} (may be null) runs on the same thread once the
+     * values are available.
+     */
+    public void load(final Runnable onLoaded) {
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                long start = System.nanoTime();
+                Map<String, ?> all = sharedPreferences.getAll();
+                for (Map.Entry<String, ?> entry : all.entrySet()) {
+                    if (entry.getValue() != null) {
+                        // values written before loading finished win
+                        values.putIfAbsent(entry.getKey(), entry.getValue());
+                    }
+                }
+                loaded = true;
+                loadedLatch.countDown();
+                Timber.i("Loaded %d preferences in %d ms",
+                         all.size(),
+                         TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                if (onLoaded != null) {
+                    onLoaded.run();
+                }
+            }
+        });
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * Blocks until the initial load has finished. Only meant for background threads and tests.
+     */
+    public void awaitLoaded() throws InterruptedException {
+        loadedLatch.await();
+    }
+
+    public boolean contains(String key) {
+        Object value = values.get(key);
+        if (value == null && !loaded) {
+            return sharedPreferences.contains(key);
+        }
+        return value != null && value != REMOVED;
+    }
+
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Object value = values.get(key);
+        if (value == null && !loaded) {
+            try {
+                return sharedPreferences.getBoolean(key, defaultValue);
+            } catch (ClassCastException e) {
+                return defaultValue;
+            }
+        }
+        return value instanceof Boolean ? (Boolean) value : defaultValue;
+    }
+
+    public int getInt(String key, int defaultValue) {
+        Object value = values.get(key);
+        if (value == null && !loaded) {
+            try {
+                return sharedPreferences.getInt(key, defaultValue);
+            } catch (ClassCastException e) {
+                return defaultValue;
+            }
+        }
+        return value instanceof Integer ? (Integer) value : defaultValue;
+    }
+
+    public long getLong(String key, long defaultValue) {
+        Object value = values.get(key);
+        if (value == null && !loaded) {
+            try {
+                return sharedPreferences.getLong(key, defaultValue);
+            } catch (ClassCastException e) {
+                return defaultValue;
+            }
+        }
+        return value instanceof Long ? (Long) value : defaultValue;
+    }
+
+    public String getString(String key, String defaultValue) {
+        Object value = values.get(key);
+        if (value == null && !loaded) {
+            try {
+                return sharedPreferences.getString(key, defaultValue);
+            } catch (ClassCastException e) {
+                return defaultValue;
+            }
+        }
+        return value instanceof String ? (String) value : defaultValue;
+    }
+
+    public void putBoolean(String key, boolean value) {
+        put(key, value);
+    }
+
+    public void putInt(String key, int value) {
+        put(key, value);
+    }
+
+    public void putLong(String key, long value) {
+        put(key, value);
+    }
+
+    /**
+     * As with {@link SharedPreferences.Editor#putString(String, String)} a null value removes the key.
+     */
+    public void putString(String key, String value) {
+        put(key, value);
+    }
+
+    public void remove(String key) {
+        put(key, null);
+    }
+
+    /**
+     * Writes all pending values synchronously on the calling thread. Use when the process is about to die.
+     */
+    public void flush() {
+        Map<String, Object> batch;
+        synchronized (writeLock) {
+            flushScheduled = false;
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            batch = pendingWrites;
+            pendingWrites = new HashMap<>();
+            inFlightWrites.putAll(batch);
+        }
+        commit(batch);
+        synchronized (writeLock) {
+            for (Map.Entry<String, Object> entry : batch.entrySet()) {
+                if (inFlightWrites.get(entry.getKey()) == entry.getValue()) {
+                    inFlightWrites.remove(entry.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops listening for external changes and writes what is still pending. The writer is shared and keeps running.
+     */
+    public void tearDown() {
+        sharedPreferences.unregisterOnSharedPreferenceChangeListener(externalChangeListener);
+        try {
+            writer.execute(flushRunnable);
+        } catch (RejectedExecutionException e) {
+            flush();
+        }
+    }
+
+    /**
+     * Re-reads a single value using the type of the value we already hold, so the common case (our own
+     * write coming back through the change listener) does not copy the whole preference map.
+     */
+    private static Object readValue(SharedPreferences sharedPreferences, String key, Object current) {
+        if (!sharedPreferences.contains(key)) {
+            return null;
+        }
+        try {
+            if (current instanceof Boolean) {
+                return sharedPreferences.getBoolean(key, false);
+            } else if (current instanceof Integer) {
+                return sharedPreferences.getInt(key, 0);
+            } else if (current instanceof Long) {
+                return sharedPreferences.getLong(key, 0);
+            } else if (current instanceof String) {
+                return sharedPreferences.getString(key, null);
+            }
+        } catch (ClassCastException e) {
+            // the type changed, fall through
+        }
+        return sharedPreferences.getAll().get(key);
+    }
+
+    private void put(String key, Object value) {
+        synchronized (writeLock) {
+            values.put(key, value == null ? REMOVED : value);
+            pendingWrites.put(key, value);
+            if (flushScheduled) {
+                return;
+            }
+            flushScheduled = true;
+        }
+        try {
+            writer.schedule(flushRunnable, writeBehindDelayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            // writer is gone, nobody left to write behind
+            flush();
+        }
+    }
+
+    @SuppressLint("CommitPrefEdits")
+    @SuppressWarnings("unchecked")
+    private void commit(Map<String, Object> batch) {
+        SharedPreferences.Editor editor = sharedPreferences.edit();
+        for (Map.Entry<String, Object> entry : batch.entrySet()) {
+            String key = entry.getKey();
+            Object value = entry.getValue();
+            if (value == null) {
+                editor.remove(key);
+            } else if (value instanceof Boolean) {
+                editor.putBoolean(key, (Boolean) value);
+            } else if (value instanceof Integer) {
+                editor.putInt(key, (Integer) value);
+            } else if (value instanceof Long) {
+                editor.putLong(key, (Long) value);
+            } else if (value instanceof Float) {
+                editor.putFloat(key, (Float) value);
+            } else if (value instanceof Set) {
+                editor.putStringSet(key, (Set<String>) value);
+            } else {
+                editor.putString(key, value.toString());
+            }
+        }
+        if (!editor.commit()) {
+            Timber.e("Failed writing %d preferences", batch.size());
+        }
+    }
+}
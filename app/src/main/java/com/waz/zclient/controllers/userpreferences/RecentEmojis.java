@@ -44,6 +44,10 @@ public class RecentEmojis {
         }
     }
 
+    public RecentEmojis(List<String> recentEmojis) {
+        this.recentEmojis = new LinkedList<>(recentEmojis);
+    }
+
     public String getJson() {
         JSONArray array = new JSONArray();
         for (String emoji : recentEmojis) {
@@ -21,6 +21,8 @@ import android.annotation.SuppressLint;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.content.pm.PackageManager;
+import android.os.Handler;
+import android.os.Looper;
 import com.waz.zclient.R;
 import com.waz.zclient.camera.CameraFacing;
 import com.waz.zclient.utils.StringUtils;
@@ -28,11 +30,14 @@ import org.json.JSONArray;
 import org.json.JSONException;
 import timber.log.Timber;
 
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.HashSet;
 import java.util.UUID;
-import java.util.Collection;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executor;
 
 public class UserPreferencesController implements IUserPreferencesController {
 
@@ -63,33 +68,96 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     private static final int AB_TESTING_GROUP_COUNT = 6;
 
-    private final SharedPreferences userPreferences;
+    private final PreferenceStore userPreferences;
+    private final Set<EmojiPreferencesObserver> emojiPreferencesObservers = new CopyOnWriteArraySet<>();
+    private final Executor observerExecutor;
     private Context context;
 
+    // Keys of preferences shared with the preference screens, resolved once
+    private final String devStatusBarKey;
+    private final String lastCallSessionIdKey;
+    private final String lastCallSessionIdNotAvailable;
+    private final String postSessionIdKey;
+    private final String cursorSendButtonKey;
+    private final String imageDownloadKey;
+    private final String imageDownloadValueWifi;
+    private final String imageDownloadValueAlways;
+
+    // Parsed once, replaced as a whole on change. Writers hold emojiLock so the initial load
+    // can not overwrite a change made while it was running
+    private final Object emojiLock = new Object();
+    private volatile List<String> recentEmojis;
+    private volatile Set<String> unsupportedEmojis;
+
     public UserPreferencesController(Context context) {
+        this(context,
+             new PreferenceStore(context.getSharedPreferences(USER_PREFS_TAG, Context.MODE_PRIVATE)),
+             new Executor() {
+                 private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+                 @Override
+                 public void execute(Runnable command) {
+                     mainHandler.post(command);
+                 }
+             });
+    }
+
+    UserPreferencesController(Context context, PreferenceStore userPreferences, Executor observerExecutor) {
         this.context = context;
-        userPreferences = context.getSharedPreferences(USER_PREFS_TAG, Context.MODE_PRIVATE);
+        this.userPreferences = userPreferences;
+        this.observerExecutor = observerExecutor;
+        devStatusBarKey = context.getString(R.string.pref_dev_status_bar_key);
+        lastCallSessionIdKey = context.getString(R.string.pref_dev_avs_last_call_session_id_key);
+        lastCallSessionIdNotAvailable = context.getString(R.string.pref_dev_avs_last_call_session_id_not_available);
+        postSessionIdKey = context.getString(R.string.pref_dev_avs_post_session_id_key);
+        cursorSendButtonKey = context.getString(R.string.pref_options_cursor_send_button_key);
+        imageDownloadKey = context.getString(R.string.pref_options_image_download_key);
+        imageDownloadValueWifi = context.getString(R.string.zms_image_download_value_wifi);
+        imageDownloadValueAlways = context.getString(R.string.zms_image_download_value_always);
+
+        userPreferences.load(new Runnable() {
+            @Override
+            public void run() {
+                loadEmojis();
+                updateSharedPreferences(userPreferences.getInt(USER_PREFS_VERSION_ID, 0), getVersionCode());
+            }
+        });
+    }
 
-        // get old version
-        int oldVersion = userPreferences.getInt(USER_PREFS_VERSION_ID, 0);
-        int newVersion = 0;
-        // get new version
+    private int getVersionCode() {
+        Context context = this.context;
+        if (context == null) {
+            return 0;
+        }
         try {
-            newVersion = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionCode;
+            return context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionCode;
         } catch (PackageManager.NameNotFoundException e) {
             Timber.e(e, "Failed loading version for UserPreferencesController!");
         }
-        updateSharedPreferences(oldVersion, newVersion);
+        return 0;
     }
 
     private void updateSharedPreferences(int oldVersion, int newVersion) {
         // TODO do something very clever here if old and new version do not match
         // at the end
-        userPreferences.edit().putInt(USER_PREFS_VERSION_ID, newVersion).apply();
+        userPreferences.putInt(USER_PREFS_VERSION_ID, newVersion);
+    }
+
+    private void loadEmojis() {
+        synchronized (emojiLock) {
+            if (recentEmojis == null) {
+                recentEmojis = parseRecentEmojis();
+            }
+            if (unsupportedEmojis == null) {
+                unsupportedEmojis = parseUnsupportedEmojis();
+            }
+        }
     }
 
     @Override
     public void tearDown() {
+        userPreferences.tearDown();
+        emojiPreferencesObservers.clear();
         context = null;
     }
 
@@ -100,7 +168,7 @@ public class UserPreferencesController implements IUserPreferencesController {
     }
 
     public void setLastAccentColor(int accentColor) {
-        userPreferences.edit().putInt(USER_PREFS_LAST_ACCENT_COLOR, accentColor).apply();
+        userPreferences.putInt(USER_PREFS_LAST_ACCENT_COLOR, accentColor);
     }
 
     public int getLastAccentColor() {
@@ -114,7 +182,7 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void setRecentCameraDirection(CameraFacing cameraFacing) {
-        userPreferences.edit().putInt(USER_PREFS_RECENT_CAMERA_DIRECTION, cameraFacing.facing).apply();
+        userPreferences.putInt(USER_PREFS_RECENT_CAMERA_DIRECTION, cameraFacing.facing);
     }
 
     @Override
@@ -125,7 +193,7 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void setReferralToken(String token) {
-        userPreferences.edit().putString(USER_PREFS_REFERRAL_TOKEN, token).apply();
+        userPreferences.putString(USER_PREFS_REFERRAL_TOKEN, token);
     }
 
     @Override
@@ -135,7 +203,7 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void setGenericInvitationToken(String token) {
-        userPreferences.edit().putString(USER_PREFS_GENERIC_INVITATION_TOKEN, token).apply();
+        userPreferences.putString(USER_PREFS_GENERIC_INVITATION_TOKEN, token);
     }
 
     @Override
@@ -145,7 +213,7 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void setPersonalInvitationToken(String token) {
-        userPreferences.edit().putString(USER_PREFS_PERSONAL_INVITATION_TOKEN, token).apply();
+        userPreferences.putString(USER_PREFS_PERSONAL_INVITATION_TOKEN, token);
     }
 
     @Override
@@ -155,23 +223,22 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public boolean showStatusBar() {
-        return userPreferences.getBoolean(context.getString(R.string.pref_dev_status_bar_key), true);
+        return userPreferences.getBoolean(devStatusBarKey, true);
     }
 
     @Override
     public String getLastCallSessionId() {
-        return userPreferences.getString(context.getString(R.string.pref_dev_avs_last_call_session_id_key),
-                                         context.getString(R.string.pref_dev_avs_last_call_session_id_not_available));
+        return userPreferences.getString(lastCallSessionIdKey, lastCallSessionIdNotAvailable);
     }
 
     @Override
     public void setPostSessionIdToConversation(boolean postSessionIdToConversation) {
-        userPreferences.edit().putBoolean(context.getString(R.string.pref_dev_avs_post_session_id_key), postSessionIdToConversation).apply();
+        userPreferences.putBoolean(postSessionIdKey, postSessionIdToConversation);
     }
 
     @Override
     public boolean isPostSessionIdToConversation() {
-        return userPreferences.getBoolean(context.getString(R.string.pref_dev_avs_post_session_id_key), false);
+        return userPreferences.getBoolean(postSessionIdKey, false);
     }
 
     @Override
@@ -182,9 +249,7 @@ public class UserPreferencesController implements IUserPreferencesController {
             if (id == null) {
                 id = UUID.randomUUID().toString();
             }
-            userPreferences.edit()
-                           .putString(PREFS_DEVICE_ID, id)
-                           .apply();
+            userPreferences.putString(PREFS_DEVICE_ID, id);
         }
         return id;
     }
@@ -196,7 +261,7 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void incrementSpotifyLoginTriesCount() {
-        userPreferences.edit().putInt(USER_PREF_SPOTIFY_LOGIN_COUNT, getSpotifyLoginTriesCount() + 1).apply();
+        userPreferences.putInt(USER_PREF_SPOTIFY_LOGIN_COUNT, getSpotifyLoginTriesCount() + 1);
     }
 
     @Override
@@ -206,17 +271,17 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public boolean isCursorSendButtonEnabled() {
-        return userPreferences.getBoolean(context.getString(R.string.pref_options_cursor_send_button_key), true);
+        return userPreferences.getBoolean(cursorSendButtonKey, true);
     }
 
     @Override
     public void setVerificationCode(String code) {
-        userPreferences.edit().putString(USER_PREF_PHONE_VERIFICATION_CODE, code).apply();
+        userPreferences.putString(USER_PREF_PHONE_VERIFICATION_CODE, code);
     }
 
     @Override
     public void removeVerificationCode() {
-        userPreferences.edit().remove(USER_PREF_PHONE_VERIFICATION_CODE).apply();
+        userPreferences.remove(USER_PREF_PHONE_VERIFICATION_CODE);
     }
 
     @Override
@@ -230,19 +295,18 @@ public class UserPreferencesController implements IUserPreferencesController {
     }
 
     @Override
-    @SuppressWarnings("CommitPrefEdits")
     public void setCrashException(String exception, String details) {
-        userPreferences.edit()
-                       .putString(USER_PREF_APP_CRASH, exception)
-                       .putString(USER_PREF_APP_CRASH_DETAILS, details)
-                       .commit();
+        userPreferences.putString(USER_PREF_APP_CRASH, exception);
+        userPreferences.putString(USER_PREF_APP_CRASH_DETAILS, details);
+        // the process is about to die, write synchronously
+        userPreferences.flush();
     }
 
     @Override
     public String getCrashException() {
         String exception = userPreferences.getString(USER_PREF_APP_CRASH, null);
         if (exception != null) {
-            userPreferences.edit().putString(USER_PREF_APP_CRASH, null).apply();
+            userPreferences.putString(USER_PREF_APP_CRASH, null);
         }
         return exception;
     }
@@ -251,7 +315,7 @@ public class UserPreferencesController implements IUserPreferencesController {
     public String getCrashDetails() {
         String details = userPreferences.getString(USER_PREF_APP_CRASH_DETAILS, null);
         if (details != null) {
-            userPreferences.edit().putString(USER_PREF_APP_CRASH_DETAILS, null).apply();
+            userPreferences.putString(USER_PREF_APP_CRASH_DETAILS, null);
         }
         return details;
     }
@@ -263,15 +327,12 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void setSavedFlashState(String state) {
-        userPreferences.edit().putString(USER_PREF_FLASH_STATE, state).apply();
+        userPreferences.putString(USER_PREF_FLASH_STATE, state);
     }
 
     @Override
     public boolean isImageDownloadPolicyWifiOnly() {
-        String downloadPolicyWifi = context.getString(R.string.zms_image_download_value_wifi);
-        String defaultPolicy = context.getString(R.string.zms_image_download_value_always);
-        String prefKey = context.getString(R.string.pref_options_image_download_key);
-        return downloadPolicyWifi.equals(userPreferences.getString(prefKey, defaultPolicy));
+        return imageDownloadValueWifi.equals(userPreferences.getString(imageDownloadKey, imageDownloadValueAlways));
     }
 
     @Override
@@ -281,12 +342,12 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void userLoggedIn(String userId) {
-        userPreferences.edit().putBoolean(String.format(USER_PREF_LOGGED_IN, userId), true).apply();
+        userPreferences.putBoolean(String.format(USER_PREF_LOGGED_IN, userId), true);
     }
 
     @Override
     public void setPerformedAction(@Action int action) {
-        userPreferences.edit().putBoolean(USER_PREF_ACTION_PREFIX + action, true).apply();
+        userPreferences.putBoolean(USER_PREF_ACTION_PREFIX + action, true);
     }
 
     @Override
@@ -299,23 +360,45 @@ public class UserPreferencesController implements IUserPreferencesController {
         int group = userPreferences.getInt(USER_PERFS_AB_TESTING_GROUP, -1);
         if (group == -1) {
             UUID uuid = UUID.randomUUID();
-            userPreferences.edit().putString(USER_PREF_AB_TESTING_UUID, uuid.toString()).apply();
+            userPreferences.putString(USER_PREF_AB_TESTING_UUID, uuid.toString());
             group = (int) Math.abs(uuid.getLeastSignificantBits() % AB_TESTING_GROUP_COUNT) + 1;
-            userPreferences.edit().putInt(USER_PERFS_AB_TESTING_GROUP, group).apply();
+            userPreferences.putInt(USER_PERFS_AB_TESTING_GROUP, group);
         }
         return group;
     }
 
     @Override
     public void addRecentEmoji(String emoji) {
-        RecentEmojis recentEmojis = new RecentEmojis(userPreferences.getString(USER_PREF_RECENT_EMOJIS, null));
-        recentEmojis.addRecentEmoji(emoji);
-        userPreferences.edit().putString(USER_PREF_RECENT_EMOJIS, recentEmojis.getJson()).apply();
+        final List<String> emojis;
+        synchronized (emojiLock) {
+            RecentEmojis updated = new RecentEmojis(getRecentEmojis());
+            updated.addRecentEmoji(emoji);
+            emojis = Collections.unmodifiableList(updated.getRecentEmojis());
+            recentEmojis = emojis;
+            userPreferences.putString(USER_PREF_RECENT_EMOJIS, updated.getJson());
+        }
+        notifyEmojiPreferencesObservers(emojis, null);
     }
 
+    /**
+     * @return an unmodifiable list, most recent first
+     */
     @Override
     public List<String> getRecentEmojis() {
-        return new RecentEmojis(userPreferences.getString(USER_PREF_RECENT_EMOJIS, null)).getRecentEmojis();
+        List<String> emojis = recentEmojis;
+        if (emojis != null) {
+            return emojis;
+        }
+        synchronized (emojiLock) {
+            if (recentEmojis == null) {
+                recentEmojis = parseRecentEmojis();
+            }
+            return recentEmojis;
+        }
+    }
+
+    private List<String> parseRecentEmojis() {
+        return Collections.unmodifiableList(new RecentEmojis(userPreferences.getString(USER_PREF_RECENT_EMOJIS, null)).getRecentEmojis());
     }
 
     @Override
@@ -324,14 +407,33 @@ public class UserPreferencesController implements IUserPreferencesController {
         for (String e : emoji) {
             array.put(e);
         }
-        userPreferences.edit()
-            .putString(USER_PREF_UNSUPPORTED_EMOJIS, array.toString())
-            .putInt(USER_PREF_UNSUPPORTED_EMOJIS_CHECKED, version)
-            .apply();
+        final Set<String> emojis = Collections.unmodifiableSet(new HashSet<>(emoji));
+        synchronized (emojiLock) {
+            unsupportedEmojis = emojis;
+            userPreferences.putString(USER_PREF_UNSUPPORTED_EMOJIS, array.toString());
+            userPreferences.putInt(USER_PREF_UNSUPPORTED_EMOJIS_CHECKED, version);
+        }
+        notifyEmojiPreferencesObservers(null, emojis);
     }
 
+    /**
+     * @return an unmodifiable set
+     */
     @Override
     public Set<String> getUnsupportedEmojis() {
+        Set<String> emojis = unsupportedEmojis;
+        if (emojis != null) {
+            return emojis;
+        }
+        synchronized (emojiLock) {
+            if (unsupportedEmojis == null) {
+                unsupportedEmojis = parseUnsupportedEmojis();
+            }
+            return unsupportedEmojis;
+        }
+    }
+
+    private Set<String> parseUnsupportedEmojis() {
         String json = userPreferences.getString(USER_PREF_UNSUPPORTED_EMOJIS, null);
         Set<String> unsupportedEmojis = new HashSet<>();
         if (!StringUtils.isBlank(json)) {
@@ -344,7 +446,7 @@ public class UserPreferencesController implements IUserPreferencesController {
                 // ignore
             }
         }
-        return unsupportedEmojis;
+        return Collections.unmodifiableSet(unsupportedEmojis);
     }
 
     @Override
@@ -352,6 +454,39 @@ public class UserPreferencesController implements IUserPreferencesController {
         return userPreferences.getInt(USER_PREF_UNSUPPORTED_EMOJIS_CHECKED, 0) >= version;
     }
 
+    @Override
+    public void addEmojiPreferencesObserver(EmojiPreferencesObserver observer) {
+        emojiPreferencesObservers.add(observer);
+    }
+
+    @Override
+    public void removeEmojiPreferencesObserver(EmojiPreferencesObserver observer) {
+        emojiPreferencesObservers.remove(observer);
+    }
+
+    /**
+     * Unsupported emojis are checked on a background thread, so observers are always called through
+     * {@link #observerExecutor}. Either argument may be null if that set did not change.
+     */
+    private void notifyEmojiPreferencesObservers(final List<String> recent, final Set<String> unsupported) {
+        if (emojiPreferencesObservers.isEmpty()) {
+            return;
+        }
+        observerExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                for (EmojiPreferencesObserver observer : emojiPreferencesObservers) {
+                    if (recent != null) {
+                        observer.onRecentEmojisChanged(recent);
+                    }
+                    if (unsupported != null) {
+                        observer.onUnsupportedEmojisChanged(unsupported);
+                    }
+                }
+            }
+        });
+    }
+
     @Override
     public long getLastEphemeralValue() {
         return userPreferences.getLong(USER_PREF_LAST_EPHEMERAL_VALUE, 0);
@@ -359,6 +494,6 @@ public class UserPreferencesController implements IUserPreferencesController {
 
     @Override
     public void setLastEphemeralValue(long value) {
-        userPreferences.edit().putLong(USER_PREF_LAST_EPHEMERAL_VALUE, value).apply();
+        userPreferences.putLong(USER_PREF_LAST_EPHEMERAL_VALUE, value);
     }
 }
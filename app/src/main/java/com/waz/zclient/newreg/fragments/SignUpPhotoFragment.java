@@ -47,10 +47,10 @@ import com.waz.zclient.pages.BaseFragment;
 import com.waz.zclient.pages.main.conversation.AssetIntentsManager;
 import com.waz.zclient.pages.main.profile.camera.CameraContext;
 import com.waz.zclient.pages.main.profile.camera.CameraFragment;
-import com.waz.zclient.ui.utils.BitmapUtils;
 import com.waz.zclient.ui.utils.ColorUtils;
 import com.waz.zclient.ui.utils.KeyboardUtils;
 import com.waz.zclient.ui.utils.ResourceUtils;
+import com.waz.zclient.ui.utils.VignetteDrawable;
 import com.waz.zclient.ui.views.ZetaButton;
 import com.waz.zclient.utils.ViewUtils;
 import com.waz.zclient.views.ProgressView;
@@ -102,7 +102,7 @@ public class SignUpPhotoFragment extends BaseFragment<SignUpPhotoFragment.Contai
         progressContainer.setVisibility(View.VISIBLE);
         initImage = ViewUtils.getView(view, R.id.iv__init_photo);
         final ImageView vignetteOverlay = ViewUtils.getView(view, R.id.iv_background_vignette_overlay);
-        vignetteOverlay.setImageBitmap(BitmapUtils.getVignetteBitmap(getResources()));
+        vignetteOverlay.setImageDrawable(new VignetteDrawable(getResources()));
 
         chooseOwnButton = ViewUtils.getView(view, R.id.zb__choose_own_picture);
         chooseOwnButton.setIsFilled(true);
@@ -20,7 +20,6 @@ package com.waz.zclient.newreg.fragments.country;
 import android.content.Context;
 import android.telephony.TelephonyManager;
 import android.text.TextUtils;
-import com.google.i18n.phonenumbers.PhoneNumberUtil;
 import com.waz.zclient.BuildConfig;
 import com.waz.zclient.R;
 
@@ -32,34 +31,30 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Future;
 
 public class CountryController {
     public static final String TAG = CountryController.class.getName();
 
-    public Map<String, Country> codeToCountryMap = new HashMap<>();
-    public Map<String, Country> abbreviationToCountryMap = new HashMap<>();
+    private final CountryIndex countryIndex;
+    private final String language;
+    private final Future<Map<String, String>> countryNames;
+    private final Map<String, Country> countries = new HashMap<>();
 
     private Country country;
 
     public CountryController(Context context) {
-        populateCountries(context);
+        countryIndex = CountryIndex.getInstance();
+        language = context.getResources().getConfiguration().locale.getLanguage();
+        // Only needed once the country list is shown, don't compute display names on the calling thread
+        countryNames = CountryNames.load(context.getCacheDir(), language, countryIndex.getAbbreviations());
+
         String deviceCountry = getDeviceCountry(context);
         String defaultCountry = context.getResources().getString(R.string.new_reg__default_country);
 
-        ArrayList<Country> countries = new ArrayList<>(abbreviationToCountryMap.values());
-
-        for (Country country1 : countries) {
-            if (country1.getAbbreviation().equalsIgnoreCase(deviceCountry)) {
-                country = country1;
-            }
-        }
-
+        country = getCountryForAbbreviation(deviceCountry);
         if (country == null) {
-            for (Country country1 : countries) {
-                if (country1.getAbbreviation().equalsIgnoreCase(defaultCountry)) {
-                    country = country1;
-                }
-            }
+            country = getCountryForAbbreviation(defaultCountry);
         }
     }
 
@@ -75,93 +70,85 @@ public class CountryController {
         if (code == null) {
             return null;
         }
-        return codeToCountryMap.get(code.replace("+", ""));
+        return getCountryForAbbreviation(countryIndex.getAbbreviationForCode(code.replace("+", "")));
     }
 
     public String getCodeForAbbreviation(String abbreviation) {
-        Country country = null;
-        ArrayList<Country> countries = new ArrayList<>(abbreviationToCountryMap.values());
-        for (Country country1 : countries) {
-            if (country1.getAbbreviation().equalsIgnoreCase(abbreviation)) {
-                country = country1;
-                break;
-            }
-        }
-        if (country == null) {
-            return null;
-        }
-        return country.getCountryCode();
+        return countryIndex.getCodeForAbbreviation(abbreviation);
     }
 
-    @SuppressWarnings("PMD.AvoidInstantiatingObjectsInLoops")
-    private void populateCountries(Context context) {
-        List<Country> countries = new ArrayList<>();
-        String deviceLanguage = context.getResources().getConfiguration().locale.getLanguage();
-        PhoneNumberUtil phoneNumberUtil = PhoneNumberUtil.getInstance();
-
-        for (String region : phoneNumberUtil.getSupportedRegions()) {
-            Locale locale = new Locale(deviceLanguage, region);
-            Country country = new Country();
-            country.setAbbreviation(locale.getCountry());
-            country.setCountryCode(Integer.toString(phoneNumberUtil.getCountryCodeForRegion(region)));
-            country.setName(locale.getDisplayCountry());
-            countries.add(country);
-        }
-
-        for (Country country : countries) {
-            codeToCountryMap.put(country.getCountryCode(), country);
-            abbreviationToCountryMap.put(country.getAbbreviation(), country);
-        }
+    /**
+     * Delivers the countries sorted by their localized names on the main thread, once the names are loaded.
+     */
+    public void getSortedCountries(final SortedCountriesCallback callback) {
+        CountryNames.whenReady(countryNames, new Runnable() {
+            @Override
+            public void run() {
+                callback.onSortedCountries(sortCountries(CountryNames.await(countryNames)));
+            }
+        });
     }
 
-    public List<Country> getSortedCountries() {
-        ArrayList<Country> countries = new ArrayList<>(abbreviationToCountryMap.values());
+    private List<Country> sortCountries(Map<String, String> names) {
+        List<String> abbreviations = countryIndex.getAbbreviations();
+        ArrayList<Country> countries = new ArrayList<>(abbreviations.size() + 1);
+        for (String abbreviation : abbreviations) {
+            countries.add(getCountry(abbreviation, names.get(abbreviation)));
+        }
         Collections.sort(countries);
         if (BuildConfig.SHOW_TEST_COUNTRY_CODE) {
             Country qaShortcut = new Country();
             qaShortcut.setAbbreviation("QA-code");
             qaShortcut.setName("QA-Shortcut");
-            qaShortcut.setCountryCode("0");
+            qaShortcut.setCountryCode(CountryIndex.TEST_COUNTRY_CODE);
             countries.add(0, qaShortcut);
         }
         return countries;
     }
 
     public String getPhoneNumberWithoutCountryCode(String phoneNumber) {
-        return getPhoneNumberWithoutCountryCode(phoneNumber, getSortedCountries());
-    }
-
-    public static String getPhoneNumberWithoutCountryCode(String phoneNumber, List<Country> countries) {
         if (TextUtils.isEmpty(phoneNumber)) {
             return "";
         }
 
-        final Set<String> countryCode = new HashSet<>();
-        for (Country c : countries) {
-            countryCode.add(c.getCountryCode());
-        }
-
+        int start = 0;
         if (phoneNumber.charAt(0) == '+') {
             if (phoneNumber.length() > 1) {
-                phoneNumber = phoneNumber.substring(1);
+                start = 1;
             } else {
                 return "";
             }
         }
 
         // All country codes are ISO3 so max length is 3 ==> <4
-        if (phoneNumber.length() < 4) {
-            return phoneNumber;
+        if (phoneNumber.length() - start < 4) {
+            return phoneNumber.substring(start);
         }
 
-        for (int i = 3; i >= 0; i--) {
-            final String code = phoneNumber.substring(0, i + 1);
-            if (countryCode.contains(code)) {
-                return phoneNumber.substring(i + 1);
-            }
+        return phoneNumber.substring(start + countryIndex.matchCodeLength(phoneNumber, start));
+    }
+
+    private Country getCountryForAbbreviation(String abbreviation) {
+        if (abbreviation == null) {
+            return null;
         }
+        abbreviation = abbreviation.toUpperCase(Locale.US);
+        if (countryIndex.getCodeForAbbreviation(abbreviation) == null) {
+            return null;
+        }
+        return getCountry(abbreviation, null);
+    }
 
-        return phoneNumber;
+    private Country getCountry(String abbreviation, String name) {
+        Country country = countries.get(abbreviation);
+        if (country == null) {
+            country = new Country();
+            country.setAbbreviation(abbreviation);
+            country.setCountryCode(countryIndex.getCodeForAbbreviation(abbreviation));
+            country.setName(name != null ? name : CountryNames.getName(countryNames, language, abbreviation));
+            countries.put(abbreviation, country);
+        }
+        return country;
     }
 
     public static String getDeviceCountry(Context context) {
@@ -191,4 +178,8 @@ public class CountryController {
     public interface Observer {
         void onCountryHasChanged(Country country);
     }
+
+    public interface SortedCountriesCallback {
+        void onSortedCountries(List<Country> countries);
+    }
 }
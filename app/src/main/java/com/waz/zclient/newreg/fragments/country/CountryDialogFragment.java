@@ -29,10 +29,13 @@ import com.waz.zclient.R;
 import com.waz.zclient.pages.BaseFragment;
 import com.waz.zclient.utils.ViewUtils;
 
+import java.util.List;
+
 public class CountryDialogFragment extends BaseFragment<CountryDialogFragment.Container> implements AdapterView.OnItemClickListener {
     public static final String TAG = CountryDialogFragment.class.getName();
 
     private CountryCodeAdapter countryAdapter;
+    private CountryController.SortedCountriesCallback countriesCallback;
 
     @Nullable
     @Override
@@ -55,7 +58,24 @@ public class CountryDialogFragment extends BaseFragment<CountryDialogFragment.Co
     @Override
     public void onStart() {
         super.onStart();
-        countryAdapter.setCountryList(getContainer().getCountryController().getSortedCountries());
+        countriesCallback = new CountryController.SortedCountriesCallback() {
+            @Override
+            public void onSortedCountries(List<Country> countries) {
+                if (countriesCallback != this) {
+                    // Stopped before the names were loaded
+                    return;
+                }
+                countriesCallback = null;
+                countryAdapter.setCountryList(countries);
+            }
+        };
+        getContainer().getCountryController().getSortedCountries(countriesCallback);
+    }
+
+    @Override
+    public void onStop() {
+        countriesCallback = null;
+        super.onStop();
     }
 
     @Override
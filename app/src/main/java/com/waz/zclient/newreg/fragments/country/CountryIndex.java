@@ -0,0 +1,156 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.newreg.fragments.country;
+
+import com.google.i18n.phonenumbers.PhoneNumberUtil;
+import com.waz.zclient.BuildConfig;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Dialing codes of all supported regions, indexed by ISO abbreviation and by number prefix.
+ *
+ * The index is built from libphonenumber's calling code to region table only, which is compiled into the
+ * library, so none of the per-region metadata files are loaded. It is immutable and shared process-wide.
+ */
+public class CountryIndex {
+
+    private static final int MAX_CALLING_CODE = 999;
+    private static final String NON_GEOGRAPHICAL_REGION = "001";
+
+    static final String TEST_COUNTRY_CODE = "0";
+
+    private static class Holder {
+        static final CountryIndex INSTANCE = new CountryIndex(loadRegions(PhoneNumberUtil.getInstance()),
+                                                              BuildConfig.SHOW_TEST_COUNTRY_CODE);
+    }
+
+    private final Map<String, String> codeByAbbreviation = new HashMap<>();
+    private final Map<String, String> abbreviationByCode = new HashMap<>();
+    private final List<String> abbreviations;
+    private final TrieNode root = new TrieNode();
+
+    public static CountryIndex getInstance() {
+        return Holder.INSTANCE;
+    }
+
+    /**
+     * @param regionsByCode regions per calling code, the main region of a code first
+     */
+    CountryIndex(SortedMap<Integer, List<String>> regionsByCode, boolean includeTestCode) {
+        List<String> all = new ArrayList<>();
+        for (Map.Entry<Integer, List<String>> entry : regionsByCode.entrySet()) {
+            String code = Integer.toString(entry.getKey());
+            for (String region : entry.getValue()) {
+                String abbreviation = region.toUpperCase(Locale.US);
+                if (NON_GEOGRAPHICAL_REGION.equals(abbreviation) || codeByAbbreviation.containsKey(abbreviation)) {
+                    continue;
+                }
+                codeByAbbreviation.put(abbreviation, code);
+                if (!abbreviationByCode.containsKey(code)) {
+                    abbreviationByCode.put(code, abbreviation);
+                    insert(code);
+                }
+                all.add(abbreviation);
+            }
+        }
+        if (includeTestCode) {
+            insert(TEST_COUNTRY_CODE);
+        }
+        this.abbreviations = Collections.unmodifiableList(all);
+    }
+
+    /**
+     * ISO abbreviations of all regions, grouped by calling code.
+     */
+    public List<String> getAbbreviations() {
+        return abbreviations;
+    }
+
+    public String getCodeForAbbreviation(String abbreviation) {
+        if (abbreviation == null) {
+            return null;
+        }
+        return codeByAbbreviation.get(abbreviation.toUpperCase(Locale.US));
+    }
+
+    /**
+     * Returns the main region of a calling code, e.g. "US" for "1".
+     */
+    public String getAbbreviationForCode(String code) {
+        if (code == null) {
+            return null;
+        }
+        return abbreviationByCode.get(code);
+    }
+
+    /**
+     * Returns the length of the longest calling code {@code number} starts with at {@code start}, or 0.
+     * Runs in time proportional to the length of the code.
+     */
+    public int matchCodeLength(CharSequence number, int start) {
+        TrieNode node = root;
+        int matched = 0;
+        for (int i = start; i < number.length(); i++) {
+            int digit = number.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || node.children[digit] == null) {
+                break;
+            }
+            node = node.children[digit];
+            if (node.terminal) {
+                matched = i - start + 1;
+            }
+        }
+        return matched;
+    }
+
+    private void insert(String code) {
+        TrieNode node = root;
+        for (int i = 0; i < code.length(); i++) {
+            int digit = code.charAt(i) - '0';
+            if (node.children[digit] == null) {
+                node.children[digit] = new TrieNode();
+            }
+            node = node.children[digit];
+        }
+        node.terminal = true;
+    }
+
+    private static SortedMap<Integer, List<String>> loadRegions(PhoneNumberUtil phoneNumberUtil) {
+        SortedMap<Integer, List<String>> regions = new TreeMap<>();
+        for (int code = 1; code <= MAX_CALLING_CODE; code++) {
+            List<String> regionsForCode = phoneNumberUtil.getRegionCodesForCountryCode(code);
+            if (!regionsForCode.isEmpty()) {
+                regions.put(code, regionsForCode);
+            }
+        }
+        return regions;
+    }
+
+    private static class TrieNode {
+        final TrieNode[] children = new TrieNode[10];
+        boolean terminal;
+    }
+}
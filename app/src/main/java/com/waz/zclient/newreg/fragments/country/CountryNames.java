@@ -0,0 +1,209 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.newreg.fragments.country;
+
+import android.os.Handler;
+import android.os.Looper;
+import timber.log.Timber;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Localized country names per language.
+ *
+ * Each table is computed once on a background thread and written to a file, so later launches only read
+ * it back. Tables are shared by all controllers of the process.
+ */
+class CountryNames {
+
+    private static final String FILE_PREFIX = "country_names_";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private static final ExecutorService EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "CountryNames");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    private static final Map<String, Future<Map<String, String>>> TABLES = new HashMap<>();
+
+    private CountryNames() {
+    }
+
+    /**
+     * Starts loading the names for {@code language} if not done yet. Returns immediately.
+     */
+    static Future<Map<String, String>> load(final File cacheDir, final String language, final List<String> abbreviations) {
+        synchronized (TABLES) {
+            Future<Map<String, String>> table = TABLES.get(language);
+            if (table == null) {
+                table = EXECUTOR.submit(new Callable<Map<String, String>>() {
+                    @Override
+                    public Map<String, String> call() {
+                        return Collections.unmodifiableMap(readOrCompute(new File(cacheDir, FILE_PREFIX + language),
+                                                                         language,
+                                                                         abbreviations));
+                    }
+                });
+                TABLES.put(language, table);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Returns the name from the table if it is ready, computes just this one otherwise.
+     */
+    static String getName(Future<Map<String, String>> table, String language, String abbreviation) {
+        if (table.isDone()) {
+            String name = await(table).get(abbreviation);
+            if (name != null) {
+                return name;
+            }
+        }
+        return displayName(language, abbreviation);
+    }
+
+    /**
+     * Runs {@code onReady} on the main thread once the table is ready, right away if it already is.
+     * Call it from the main thread.
+     */
+    static void whenReady(final Future<Map<String, String>> table, final Runnable onReady) {
+        if (table.isDone()) {
+            onReady.run();
+            return;
+        }
+        final Handler mainHandler = new Handler(Looper.getMainLooper());
+        EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Tables are built on this same executor, so this only waits if another language is loading
+                await(table);
+                mainHandler.post(onReady);
+            }
+        });
+    }
+
+    /**
+     * Blocks until the table is ready. Falls back to an empty table if it could not be built.
+     */
+    static Map<String, String> await(Future<Map<String, String>> table) {
+        try {
+            return table.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Collections.emptyMap();
+        } catch (ExecutionException e) {
+            Timber.e(e, "Unable to load country names");
+            return Collections.emptyMap();
+        }
+    }
+
+    private static String displayName(String language, String abbreviation) {
+        return new Locale(language, abbreviation).getDisplayCountry();
+    }
+
+    private static Map<String, String> readOrCompute(File file, String language, List<String> abbreviations) {
+        Map<String, String> names = read(file);
+        if (names.keySet().containsAll(abbreviations)) {
+            return names;
+        }
+
+        names.clear();
+        for (String abbreviation : abbreviations) {
+            names.put(abbreviation, displayName(language, abbreviation));
+        }
+        write(file, names);
+        return names;
+    }
+
+    private static Map<String, String> read(File file) {
+        Map<String, String> names = new HashMap<>();
+        if (!file.exists()) {
+            return names;
+        }
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.indexOf('\t');
+                if (separator > 0) {
+                    names.put(line.substring(0, separator), line.substring(separator + 1));
+                }
+            }
+        } catch (IOException e) {
+            Timber.w(e, "Unable to read %s", file);
+            names.clear();
+        } finally {
+            closeQuietly(reader);
+        }
+        return names;
+    }
+
+    private static void write(File file, Map<String, String> names) {
+        BufferedWriter writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), UTF_8));
+            for (Map.Entry<String, String> entry : names.entrySet()) {
+                writer.write(entry.getKey());
+                writer.write('\t');
+                writer.write(entry.getValue());
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            Timber.w(e, "Unable to write %s", file);
+        } finally {
+            closeQuietly(writer);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+            // nothing to do
+        }
+    }
+}
@@ -128,6 +128,15 @@ public class ExtendedCursorContainer extends FrameLayout implements KeyboardHeig
         emojiKeyboardLayout.setEmojis(recent, unsupported);
     }
 
+    /**
+     * Refreshes the emoji keyboard if it is showing, otherwise the new emojis are picked up on the next open.
+     */
+    public void updateEmojis(List<String> recent, Set<String> unsupported) {
+        if (type == Type.EMOJIS && emojiKeyboardLayout != null) {
+            emojiKeyboardLayout.setEmojis(recent, unsupported);
+        }
+    }
+
     public void openEphemeral(EphemeralLayout.Callback callback, EphemeralExpiration expiration) {
         openWithType(Type.EPHEMERAL);
         ephemeralLayout.setSelectedExpiration(expiration);
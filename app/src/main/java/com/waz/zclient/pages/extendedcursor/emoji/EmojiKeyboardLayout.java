@@ -31,21 +31,18 @@ import android.widget.LinearLayout;
 import com.waz.threading.Threading;
 import com.waz.zclient.R;
 import com.waz.zclient.ui.colorpicker.EmojiAdapter;
+import com.waz.zclient.ui.colorpicker.EmojiLayout;
 import com.waz.zclient.ui.colorpicker.EmojiSize;
 import com.waz.zclient.ui.views.tab.TabIndicatorLayout;
 import com.waz.zclient.utils.Emojis;
 import com.waz.zclient.utils.ViewUtils;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
 public class EmojiKeyboardLayout extends LinearLayout {
 
     private static final int SPAN_COUNT = 4;
-    private static final int CATEGORY_COUNT = 9;
     private static final int TAB_COUNT = 10;
 
     private Callback callback;
@@ -54,10 +51,7 @@ public class EmojiKeyboardLayout extends LinearLayout {
     private GridLayoutManager layoutManager;
     private TabIndicatorLayout tapIndicatorLayout;
     private EmojiSize currentEmojiSize;
-    private int[] categoryPositions;
-
-    private List<String> emojis;
-    private List<Integer> spaces;
+    private EmojiLayout emojiLayout;
 
     public EmojiKeyboardLayout(Context context) {
         this(context, null);
@@ -85,10 +79,12 @@ public class EmojiKeyboardLayout extends LinearLayout {
     }
 
     public void setEmojis(List<String> recent, Set<String> unsupported) {
-        populateEmojis(recent, unsupported);
-        emojiAdapter.setEmojis(emojis, currentEmojiSize);
-        updateCategoryPositions(unsupported);
-        if (recent != null && recent.size() > 0) {
+        // the preferences hand out the same collections until they change, so the layout can usually be kept
+        if (emojiLayout == null || !emojiLayout.matches(recent, unsupported)) {
+            emojiLayout = new EmojiLayout(recent, unsupported);
+            emojiAdapter.setEmojis(emojiLayout.getEmojis(), currentEmojiSize);
+        }
+        if (emojiLayout.hasRecent()) {
             tapIndicatorLayout.setSelected(0);
         } else {
             tapIndicatorLayout.setSelected(1);
@@ -97,7 +93,6 @@ public class EmojiKeyboardLayout extends LinearLayout {
 
     private void init() {
         currentEmojiSize = EmojiSize.MEDIUM;
-        categoryPositions = new int[CATEGORY_COUNT];
 
         emojiAdapter = new EmojiAdapter(getContext());
 
@@ -108,7 +103,7 @@ public class EmojiKeyboardLayout extends LinearLayout {
         layoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
             @Override
             public int getSpanSize(int position) {
-                return spaces.contains(position) ? SPAN_COUNT : 1;
+                return emojiLayout != null && emojiLayout.isSpacer(position) ? SPAN_COUNT : 1;
             }
         });
         layoutManager.setSpanCount(SPAN_COUNT);
@@ -157,31 +152,6 @@ public class EmojiKeyboardLayout extends LinearLayout {
         });
     }
 
-    private List<String> getFilteredList(String[] strings, Set<String> unsupported) {
-        List<String> list = Arrays.asList(strings);
-        if (unsupported == null || unsupported.size() == 0) {
-            return list;
-        }
-        LinkedList<String> filteredList = new LinkedList<>(list);
-        filteredList.removeAll(unsupported);
-        return filteredList;
-    }
-
-    private void populateEmojis(List<String> recent, Set<String> unsupported) {
-        spaces = new ArrayList<>();
-        emojis = new ArrayList<>();
-        if (recent != null && recent.size() > 0) {
-            emojis.addAll(recent);
-            spaces.add(emojis.size());
-            emojis.add(EmojiAdapter.SPACE);
-        }
-        for (String[] emojiArray : Emojis.getAllEmojisSortedByCategory()) {
-            emojis.addAll(getFilteredList(emojiArray, unsupported));
-            spaces.add(emojis.size());
-            emojis.add(EmojiAdapter.SPACE);
-        }
-    }
-
     private void setRecyclerViewPadding(RecyclerView recyclerView) {
         int padding;
         switch (currentEmojiSize) {
@@ -204,70 +174,17 @@ public class EmojiKeyboardLayout extends LinearLayout {
     }
 
     private int getCategoryByTabPosition(int tabPos) {
-        if (tabPos >= categoryPositions.length) {
+        if (emojiLayout == null) {
             return 0;
         }
-        return categoryPositions[tabPos];
+        return emojiLayout.getCategoryPosition(tabPos);
     }
 
     private int getTabByItemPosition(int itemPos) {
-        for (int i = 0; i < categoryPositions.length - 1; i++) {
-            if (itemPos >= categoryPositions[categoryPositions.length - 1]) {
-                return categoryPositions.length - 1;
-            }
-
-            int categoryFirstItem = categoryPositions[i];
-            int nextCategoryFirstItem = categoryPositions[i + 1];
-            if (itemPos >= categoryFirstItem &&
-                itemPos < nextCategoryFirstItem) {
-                return i;
-            }
-        }
-
-        return 0;
-    }
-
-    private void updateCategoryPositions(Set<String> unsupported) {
-        for (int i = 0; i < CATEGORY_COUNT; i++) {
-            int pos = 0;
-            List<String> filteredList = null;
-            switch (i) {
-                case 1:
-                    filteredList = getFilteredList(Emojis.PEOPLE, unsupported);
-                    break;
-                case 2:
-                    filteredList = getFilteredList(Emojis.NATURE, unsupported);
-                    break;
-                case 3:
-                    filteredList = getFilteredList(Emojis.FOOD_AND_DRINK, unsupported);
-                    break;
-                case 4:
-                    filteredList = getFilteredList(Emojis.ACTIVITY, unsupported);
-                    break;
-                case 5:
-                    filteredList = getFilteredList(Emojis.TRAVEL_AND_PLACES, unsupported);
-                    break;
-                case 6:
-                    filteredList = getFilteredList(Emojis.OBJECTS, unsupported);
-                    break;
-                case 7:
-                    filteredList = getFilteredList(Emojis.SYMBOLS, unsupported);
-                    break;
-                case 8:
-                    filteredList = getFilteredList(Emojis.FLAGS, unsupported);
-                    break;
-                default:
-                    pos = 0;
-                    break;
-            }
-            if (filteredList != null && filteredList.size() > 1) {
-                pos = emojis.indexOf(filteredList.get(0));
-                if (pos < 0) {
-                    pos = 0;
-                }
-            }
-            categoryPositions[i] = pos;
+        if (emojiLayout == null) {
+            return 0;
         }
+        return emojiLayout.getCategoryForPosition(itemPos);
     }
 
     private class EmojiScrollListener extends RecyclerView.OnScrollListener {
@@ -29,6 +29,7 @@ import android.content.Intent;
 import android.content.res.Configuration;
 import android.database.DataSetObserver;
 import android.graphics.Color;
+import android.graphics.drawable.Drawable;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
@@ -37,6 +38,7 @@ import android.os.Looper;
 import android.provider.MediaStore;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
+import android.support.annotation.StyleRes;
 import android.support.v4.app.ActivityCompat;
 import android.support.v4.app.FragmentManager;
 import android.support.v4.app.ShareCompat;
@@ -104,6 +106,7 @@ import com.waz.zclient.controllers.navigation.PagerControllerObserver;
 import com.waz.zclient.controllers.permission.RequestPermissionsObserver;
 import com.waz.zclient.controllers.singleimage.SingleImageObserver;
 import com.waz.zclient.controllers.streammediaplayer.StreamMediaBarObserver;
+import com.waz.zclient.controllers.streammediaplayer.VisibleRange;
 import com.waz.zclient.controllers.tracking.events.conversation.CopiedMessageEvent;
 import com.waz.zclient.controllers.tracking.events.conversation.DeletedMessageEvent;
 import com.waz.zclient.controllers.tracking.events.conversation.EditedMessageEvent;
@@ -111,6 +114,7 @@ import com.waz.zclient.controllers.tracking.events.conversation.ForwardedMessage
 import com.waz.zclient.controllers.tracking.events.conversation.OpenedMessageActionEvent;
 import com.waz.zclient.controllers.tracking.events.conversation.ReactedToMessageEvent;
 import com.waz.zclient.controllers.tracking.events.navigation.OpenedMoreActionsEvent;
+import com.waz.zclient.controllers.userpreferences.EmojiPreferencesObserver;
 import com.waz.zclient.controllers.userpreferences.IUserPreferencesController;
 import com.waz.zclient.core.api.scala.ModelObserver;
 import com.waz.zclient.core.controllers.tracking.attributes.RangedAttribute;
@@ -127,6 +131,8 @@ import com.waz.zclient.core.controllers.tracking.events.media.StartedRecordingAu
 import com.waz.zclient.core.stores.IStoreFactory;
 import com.waz.zclient.core.stores.conversation.ConversationChangeRequester;
 import com.waz.zclient.core.stores.conversation.ConversationStoreObserver;
+import com.waz.zclient.core.stores.draft.Draft;
+import com.waz.zclient.core.stores.draft.IDraftStore;
 import com.waz.zclient.core.stores.inappnotification.InAppNotificationStoreObserver;
 import com.waz.zclient.core.stores.inappnotification.KnockingEvent;
 import com.waz.zclient.core.stores.network.DefaultNetworkAction;
@@ -163,7 +169,9 @@ import com.waz.zclient.ui.audiomessage.AudioMessageRecordingView;
 import com.waz.zclient.ui.cursor.CursorCallback;
 import com.waz.zclient.ui.cursor.CursorLayout;
 import com.waz.zclient.ui.cursor.CursorMenuItem;
+import com.waz.zclient.ui.theme.ThemeAttributes;
 import com.waz.zclient.ui.theme.ThemeUtils;
+import com.waz.zclient.ui.theme.ThemedViews;
 import com.waz.zclient.ui.utils.KeyboardUtils;
 import com.waz.zclient.ui.views.e2ee.ShieldView;
 import com.waz.zclient.utils.AssetUtils;
@@ -182,6 +190,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 public class ConversationFragment extends BaseFragment<ConversationFragment.Container> implements ConversationStoreObserver,
                                                                                                   CallingObserver,
@@ -213,12 +222,14 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
                                                                                                   EmojiKeyboardLayout.Callback,
                                                                                                   ExtendedCursorContainer.Callback,
                                                                                                   EphemeralLayout.Callback,
+                                                                                                  EmojiPreferencesObserver,
                                                                                                   TypingIndicatorView.Callback {
     public static final String TAG = ConversationFragment.class.getName();
     private static final String SAVED_STATE_PREVIEW = "SAVED_STATE_PREVIEW";
     private static final int REQUEST_VIDEO_CAPTURE = 911;
     private static final int CAMERA_PERMISSION_REQUEST_ID = 21;
     private static final int BOTTOM_MENU_DISPLAY_DELAY_MS = 200;
+    private static final int MAX_MESSAGES_SEARCHED_FOR_EDIT_DRAFT = 100;
 
     private static final String[] EXTENDED_CURSOR_PERMISSIONS = new String[] {Manifest.permission.CAMERA, Manifest.permission.READ_EXTERNAL_STORAGE};
     private static final int OPEN_EXTENDED_CURSOR_IMAGES = 1254;
@@ -230,6 +241,37 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
     private static final int AUDIO_PERMISSION_REQUEST_ID = 864;
     private static final int AUDIO_FILTER_PERMISSION_REQUEST_ID = 865;
 
+    private static final ThemedViews.Binding TOOLBAR_THEME = new ThemedViews.Binding() {
+        @Override
+        public void bind(View view, ThemeAttributes attributes) {
+            Toolbar toolbar = (Toolbar) view;
+            Drawable background = attributes.getDrawable(R.attr.conversationToolbar, android.R.attr.background);
+            if (background != null) {
+                toolbar.setBackground(background);
+            }
+            // Tablets always use the light theme and have no navigation icon in landscape
+            Drawable navigationIcon = attributes.getDrawable(R.attr.conversationToolbar, R.attr.navigationIcon);
+            if (toolbar.getNavigationIcon() != null && navigationIcon != null) {
+                toolbar.setNavigationIcon(navigationIcon);
+            }
+            MenuItem audioCall = toolbar.getMenu().findItem(R.id.action_audio_call);
+            if (audioCall != null) {
+                audioCall.setIcon(attributes.getDrawable(R.attr.conversationToolbarIconCall));
+            }
+            MenuItem videoCall = toolbar.getMenu().findItem(R.id.action_video_call);
+            if (videoCall != null) {
+                videoCall.setIcon(attributes.getDrawable(R.attr.conversationToolbarIconVideo));
+            }
+        }
+    };
+
+    private static final ThemedViews.Binding CURSOR_THEME = new ThemedViews.Binding() {
+        @Override
+        public void bind(View view, ThemeAttributes attributes) {
+            ((CursorLayout) view).applyTheme(attributes);
+        }
+    };
+
     private static final String[] SAVE_IMAGE_PERMISSIONS = new String[] {android.Manifest.permission.WRITE_EXTERNAL_STORAGE};
     private static final int SAVE_IMAGE_PERMISSION_REQUEST_ID = 6;
 
@@ -237,6 +279,10 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
     private MessageAdapter messageAdapter;
     private MessageStreamManager messageStreamManager;
     private InputStateIndicator inputStateIndicator;
+    // draft of a message edit, restored once the edited message is loaded
+    private Draft pendingEditDraft;
+    // set while the draft of the current conversation is being loaded
+    private IDraftStore.DraftCallback draftCallback;
     private UpdateListener typingListener;
 
     private TypingIndicatorView typingIndicatorView;
@@ -264,6 +310,8 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
     private boolean isVideoMessageButtonClicked;
     private MessageBottomSheetDialog messageBottomSheetDialog;
     private ImageAsset imageAssetToSave;
+    // the theme the rows of the list view were inflated with
+    private @StyleRes int listViewTheme;
 
     public static ConversationFragment newInstance() {
         return new ConversationFragment();
@@ -296,6 +344,7 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
     private final ModelObserver<MessagesList> messagesListModelObserver = new ModelObserver<MessagesList>() {
         @Override
         public void updated(MessagesList messagesList) {
+            restorePendingEdit(messagesList);
             if (LayoutSpec.isPhone(getActivity()) &&
                 getControllerFactory().getNavigationController().getCurrentPage() != Page.MESSAGE_STREAM) {
                 return;
@@ -623,6 +672,7 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
         invisibleFooter.setLayoutParams(params);
 
         listView.addFooterView(invisibleFooter, null, false);
+        listViewTheme = getControllerFactory().getThemeController().getTheme();
 
         cursorLayout.showSendButton(false);
 
@@ -637,9 +687,37 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
             isPreviewShown = savedInstanceState.getBoolean(SAVED_STATE_PREVIEW, false);
         }
 
+        registerThemedViews();
+
         return view;
     }
 
+    /**
+     * Registers the theme dependent properties, a theme change updates them in place.
+     */
+    private void registerThemedViews() {
+        ThemedViews themedViews = getControllerFactory().getThemeController().getThemedViews();
+        ThemedViews.Binding toolbarTextColor = ThemedViews.styleTextColor(R.attr.conversationToolbar);
+        themedViews.register(toolbar, TOOLBAR_THEME);
+        themedViews.register(toolbarTitle, toolbarTextColor);
+        themedViews.register(ViewUtils.getView(toolbar, R.id.gtv__conversation_toolbar__expand), toolbarTextColor);
+        themedViews.register(cursorLayout, CURSOR_THEME);
+
+        ThemedViews.Binding background = ThemedViews.styleBackground(R.attr.wireBackground);
+        ThemedViews.Binding primaryTextColor = ThemedViews.textColor(R.attr.wirePrimaryTextColor);
+        View typingPen = ViewUtils.getView(typingIndicatorView, R.id.gtv__is_typing_pen);
+        themedViews.register(ViewUtils.getView(typingIndicatorView, R.id.v__typing_indicator__divider),
+                             ThemedViews.styleBackground(R.attr.wireDivider));
+        themedViews.register(ViewUtils.getView(typingIndicatorView, R.id.v__typing_indicator__background), background);
+        themedViews.register(ViewUtils.getView(typingIndicatorView, R.id.ll__typing_indicator__box),
+                             ThemedViews.styleBackground(R.attr.typingIndicatorBox));
+        themedViews.register(ViewUtils.getView(typingIndicatorView, R.id.gtv__is_typing_dots), primaryTextColor);
+        themedViews.register(typingPen, primaryTextColor);
+        themedViews.register(typingPen, background);
+        themedViews.register(ViewUtils.getView(typingIndicatorView, R.id.ttv__typing_indicator_names),
+                             ThemedViews.styleTextColor(R.attr.typingIndicatorText));
+    }
+
     @Override
     public void onViewCreated(View view, @Nullable Bundle savedInstanceState) {
         super.onViewCreated(view, savedInstanceState);
@@ -652,12 +730,14 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
         getControllerFactory().getGlobalLayoutController().addKeyboardHeightObserver(extendedCursorContainer);
         getControllerFactory().getGlobalLayoutController().addKeyboardVisibilityObserver(extendedCursorContainer);
         getControllerFactory().getRequestPermissionsController().addObserver(this);
+        getControllerFactory().getUserPreferencesController().addEmojiPreferencesObserver(this);
         cursorLayout.setCursorCallback(this);
-        cursorLayout.showSendButtonAsEnterKey(!getControllerFactory().getUserPreferencesController().isCursorSendButtonEnabled());
+        boolean sendButtonEnabled = getControllerFactory().getUserPreferencesController().isCursorSendButtonEnabled();
+        cursorLayout.setSendButtonEnabled(sendButtonEnabled);
+        cursorLayout.showSendButtonAsEnterKey(!sendButtonEnabled);
         hideSendButtonIfNeeded();
-        final String draftText = getStoreFactory().getDraftStore().getDraft(getStoreFactory().getConversationStore().getCurrentConversation());
-        if (!TextUtils.isEmpty(draftText)) {
-            cursorLayout.setText(draftText);
+        if (!cursorLayout.isEditingMessage()) {
+            restoreDraft(getStoreFactory().getConversationStore().getCurrentConversation());
         }
 
         if (BuildConfig.SHOW_MENTIONING) {
@@ -699,6 +779,16 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
         if (LayoutSpec.isTablet(getContext())) {
             conversationModelObserver.setAndUpdate(getStoreFactory().getConversationStore().getCurrentConversation());
         }
+        @StyleRes int theme = getControllerFactory().getThemeController().getTheme();
+        if (theme != listViewTheme) {
+            // The activity applied the new theme, rows are inflated from it
+            listViewTheme = theme;
+            int position = listView.getFirstVisiblePosition();
+            View firstRow = listView.getChildAt(0);
+            int top = firstRow == null ? 0 : firstRow.getTop();
+            listView.setAdapter(messageAdapter);
+            listView.setSelectionFromTop(position, top);
+        }
     }
 
     @Override
@@ -734,10 +824,9 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
         getControllerFactory().getGiphyController().removeObserver(this);
         getControllerFactory().getSingleImageController().removeSingleImageObserver(this);
 
-        if (!cursorLayout.isEditingMessage()) {
-            getStoreFactory().getDraftStore().setDraft(getStoreFactory().getConversationStore().getCurrentConversation(),
-                                                       cursorLayout.getText().trim());
-        }
+        // Also keeps an ongoing edit, in case the process doesn't survive until the next start
+        saveDraft(getStoreFactory().getConversationStore().getCurrentConversation());
+        draftCallback = null;
         getStoreFactory().getInAppNotificationStore().removeInAppNotificationObserver(this);
         getStoreFactory().getParticipantsStore().removeParticipantsStoreObserver(this);
         getControllerFactory().getStreamMediaPlayerController().removeStreamMediaBarObserver(this);
@@ -756,11 +845,13 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
         getControllerFactory().getSlidingPaneController().removeObserver(this);
         getControllerFactory().getConversationScreenController().setConversationStreamUiReady(false);
         getControllerFactory().getRequestPermissionsController().removeObserver(this);
+        getControllerFactory().getUserPreferencesController().removeEmojiPreferencesObserver(this);
         super.onStop();
     }
 
     @Override
     public void onDestroyView() {
+        getControllerFactory().getThemeController().getThemedViews().unregisterAll(getView());
         containerPreview = null;
         listView = null;
         messageAdapter = null;
@@ -912,7 +1003,7 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
                 // handle draft
                 if (fromConversation != null && changeToDifferentConversation &&
                     !cursorLayout.isEditingMessage()) {
-                    getStoreFactory().getDraftStore().setDraft(fromConversation, cursorLayout.getText().trim());
+                    saveDraft(fromConversation);
                 }
 
                 if (toConversation.getType() == IConversation.Type.WAIT_FOR_CONNECTION) {
@@ -936,12 +1027,8 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
                         resetCursor();
                     }
 
-                    final String draftText = getStoreFactory().getDraftStore().getDraft(toConversation);
-                    if (TextUtils.isEmpty(draftText)) {
-                        resetCursor();
-                    } else {
-                        cursorLayout.setText(draftText);
-                    }
+                    resetCursor();
+                    restoreDraft(toConversation);
                     cursorLayout.setConversation(toConversation);
 
                     hideAudioMessageRecording();
@@ -1137,6 +1224,9 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
     //
     //////////////////////////////////////////////////////////////////////////////////////////
 
+    /**
+     * Called at most once per frame or dispatch interval while typing, the send button is handled by the cursor.
+     */
     @Override
     public void onEditTextHasChanged(int cursorPosition, String text) {
         if (listView == null) {
@@ -1155,10 +1245,6 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
                 inputStateIndicator.textChanged();
             }
         }
-
-        if (getControllerFactory().getUserPreferencesController().isCursorSendButtonEnabled()) {
-            cursorLayout.showSendButton(!TextUtils.isEmpty(text));
-        }
     }
 
     public boolean isKeyboardUp() {
@@ -1193,8 +1279,8 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
     //////////////////////////////////////////////////////////////////////////////////////////
 
     @Override
-    public void onVisibleMessagesChanged(List<String> visibleMessageIds) {
-        getControllerFactory().getStreamMediaPlayerController().informVisibleItems(visibleMessageIds);
+    public void onVisibleMessagesChanged(VisibleRange visibleRange) {
+        getControllerFactory().getStreamMediaPlayerController().informVisibleItems(visibleRange);
     }
 
     //////////////////////////////////////////////////////////////////////////////////////////
@@ -1531,6 +1617,75 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
         cursorLayout.setText("");
     }
 
+    private void saveDraft(IConversation conversation) {
+        if (draftCallback != null ||
+            (pendingEditDraft != null && TextUtils.isEmpty(cursorLayout.getText()))) {
+            // The cursor doesn't show the stored draft yet, keep it
+            return;
+        }
+        String text = cursorLayout.getText();
+        int selectionStart = cursorLayout.getSelectionStart();
+        int selectionEnd = cursorLayout.getSelection();
+        Message editedMessage = cursorLayout.getEditedMessage();
+        Draft draft;
+        if (editedMessage == null) {
+            String trimmed = text.trim();
+            int leading = trimmed.isEmpty() ? 0 : text.indexOf(trimmed);
+            draft = new Draft(trimmed, selectionStart - leading, selectionEnd - leading, null);
+        } else {
+            draft = new Draft(text, selectionStart, selectionEnd, editedMessage.getId());
+        }
+        getStoreFactory().getDraftStore().setDraft(conversation, draft);
+    }
+
+    /**
+     * Restores the draft once the draft store has loaded it, the cursor is left as it is if there is none.
+     * An edit is only restored once its message is loaded.
+     */
+    private void restoreDraft(IConversation conversation) {
+        pendingEditDraft = null;
+        draftCallback = new IDraftStore.DraftCallback() {
+            @Override
+            public void onDraftLoaded(Draft draft) {
+                if (draftCallback != this || cursorLayout == null) {
+                    // Another conversation was opened or the fragment stopped in the meantime
+                    return;
+                }
+                draftCallback = null;
+                if (draft == null) {
+                    return;
+                }
+                if (draft.getEditedMessageId() != null) {
+                    pendingEditDraft = draft;
+                    return;
+                }
+                cursorLayout.setText(draft.getText());
+                cursorLayout.setSelection(draft.getSelectionStart(), draft.getSelectionEnd());
+            }
+        };
+        getStoreFactory().getDraftStore().loadDraftState(conversation, draftCallback);
+    }
+
+    private void restorePendingEdit(MessagesList messages) {
+        if (pendingEditDraft == null || cursorLayout == null || messages.size() == 0) {
+            return;
+        }
+        Draft draft = pendingEditDraft;
+        // Messages are edited shortly after they were sent, so only the end of the list is searched.
+        // Keep the draft until the message shows up, the list may still be loading.
+        int end = Math.max(0, messages.size() - MAX_MESSAGES_SEARCHED_FOR_EDIT_DRAFT);
+        for (int i = messages.size() - 1; i >= end; i--) {
+            Message message = messages.get(i);
+            if (draft.getEditedMessageId().equals(message.getId())) {
+                pendingEditDraft = null;
+                editMessage(message);
+                cursorLayout.setText(draft.getText());
+                cursorLayout.setSelection(draft.getSelectionStart(), draft.getSelectionEnd());
+                return;
+            }
+        }
+    }
+
     @Override
     public void dismissOnBoardingHint(OnBoardingHintType requestedType) {
 
@@ -2540,6 +2695,21 @@ public class ConversationFragment extends BaseFragment<ConversationFragment.Cont
         getControllerFactory().getUserPreferencesController().addRecentEmoji(emoji);
     }
 
+    @Override
+    public void onRecentEmojisChanged(List<String> recentEmojis) {
+        // Only changes while the user is picking from the open keyboard, rebuilding it would make the grid jump.
+        // The keyboard reads the recent emojis again when it is opened the next time.
+    }
+
+    @Override
+    public void onUnsupportedEmojisChanged(Set<String> unsupportedEmojis) {
+        if (extendedCursorContainer == null) {
+            return;
+        }
+        extendedCursorContainer.updateEmojis(getControllerFactory().getUserPreferencesController().getRecentEmojis(),
+                                             unsupportedEmojis);
+    }
+
     @Override
     public void onTypingIndicatorVisibilityChanged(boolean visible) {
         if (visible) {
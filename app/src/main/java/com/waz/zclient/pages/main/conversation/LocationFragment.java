@@ -25,14 +25,11 @@ import android.content.Intent;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Paint;
-import android.location.Address;
-import android.location.Geocoder;
 import android.location.Location;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Bundle;
 import android.os.Handler;
-import android.os.HandlerThread;
 import android.provider.Settings;
 import android.support.annotation.NonNull;
 import android.support.annotation.Nullable;
@@ -66,6 +63,9 @@ import com.waz.api.Verification;
 import com.waz.zclient.OnBackPressedListener;
 import com.waz.zclient.R;
 import com.waz.zclient.controllers.accentcolor.AccentColorObserver;
+import com.waz.zclient.controllers.location.GeocodedPlace;
+import com.waz.zclient.controllers.location.GeocodingScheduler;
+import com.waz.zclient.controllers.location.LocationSamplingPolicy;
 import com.waz.zclient.controllers.permission.RequestPermissionsObserver;
 import com.waz.zclient.controllers.userpreferences.IUserPreferencesController;
 import com.waz.zclient.core.stores.conversation.ConversationChangeRequester;
@@ -80,9 +80,6 @@ import com.waz.zclient.utils.TrackingUtils;
 import com.waz.zclient.utils.ViewUtils;
 import timber.log.Timber;
 
-import java.util.List;
-import java.util.Locale;
-
 public class LocationFragment extends BaseFragment<LocationFragment.Container> implements com.google.android.gms.location.LocationListener,
                                                                                           LocationListener,
                                                                                           TouchRegisteringFrameLayout.TouchCallback,
@@ -124,10 +121,8 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
     private GoogleApiClient googleApiClient;
     private LocationRequest locationRequest;
 
-    private String currentLocationCountryName;
-    private String currentLocationLocality;
-    private String currentLocationSubLocality;
-    private String currentLocationFirstAddressLine;
+    private final LocationSamplingPolicy samplingPolicy = new LocationSamplingPolicy();
+
     private String currentLocationName;
     private LatLng currentLatLng;
 
@@ -136,54 +131,16 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
     private boolean animating;
     private boolean checkIfLocationServicesEnabled;
     private Handler mainHandler;
-    private Handler backgroundHandler;
-    private HandlerThread handlerThread;
-    private Geocoder geocoder;
 
-    private final Runnable updateCurrentLocationBubbleRunnable = new Runnable() {
+    private final GeocodingScheduler.Callback locationNameCallback = new GeocodingScheduler.Callback() {
         @Override
-        public void run() {
-            if (getActivity() == null || getContainer() == null) {
+        public void onPlaceResolved(GeocodedPlace place) {
+            if (getActivity() == null || getContainer() == null || map == null) {
                 return;
             }
-            updateCurrentLocationName((int) map.getCameraPosition().zoom);
-            setTextAddressBubble(currentLocationName);
-        }
-    };
-
-    private final Runnable retrieveCurrentLocationNameRunnable = new Runnable() {
-        @Override
-        public void run() {
-            try {
-                final List<Address> addresses = geocoder.getFromLocation(currentLatLng.latitude,
-                                                                         currentLatLng.longitude,
-                                                                         1);
-                if (addresses != null && addresses.size() > 0) {
-                    Address adr = addresses.get(0);
-                    if (adr.getMaxAddressLineIndex() >= 0) {
-                        currentLocationFirstAddressLine = adr.getAddressLine(0);
-                    } else {
-                        currentLocationFirstAddressLine = "";
-                    }
-                    currentLocationCountryName = adr.getCountryName();
-                    currentLocationLocality =  adr.getLocality();
-                    currentLocationSubLocality = adr.getSubLocality();
-                } else {
-                    currentLocationFirstAddressLine = "";
-                    currentLocationCountryName = "";
-                    currentLocationLocality = "";
-                    currentLocationSubLocality = "";
-                }
-
-            } catch (Exception e) {
-                currentLocationFirstAddressLine = "";
-                currentLocationCountryName = "";
-                currentLocationLocality = "";
-                currentLocationSubLocality = "";
-                Timber.i(e, "Unable to retrieve location name");
-            }
+            currentLocationName = place.getName((int) map.getCameraPosition().zoom);
             mainHandler.removeCallbacksAndMessages(null);
-            mainHandler.post(updateCurrentLocationBubbleRunnable);
+            setTextAddressBubble(currentLocationName);
         }
     };
 
@@ -204,10 +161,6 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
             locationManager = (LocationManager) getActivity().getSystemService(Context.LOCATION_SERVICE);
         }
         mainHandler = new Handler();
-        handlerThread = new HandlerThread("Background handler");
-        handlerThread.start();
-        backgroundHandler = new Handler(handlerThread.getLooper());
-        geocoder = new Geocoder(getContext(), Locale.getDefault());
         zoom = true;
     }
 
@@ -311,6 +264,8 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
 
     @Override
     public void onPause() {
+        getControllerFactory().getLocationController().getGeocodingScheduler().cancel();
+        mainHandler.removeCallbacksAndMessages(null);
         stopLocationManagerListeningForCurrentLocation();
         stopPlayServicesListeningForCurrentLocation();
         if (googleApiClient != null) {
@@ -364,7 +319,10 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
     private void startLocationManagerListeningForCurrentLocation() {
         Timber.i("startLocationManagerListeningForCurrentLocation");
         if (locationManager != null && PermissionUtils.hasSelfPermissions(getContext(), LOCATION_PERMISSIONS)) {
-            locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER, 0, 0, this);
+            locationManager.requestLocationUpdates(LocationManager.GPS_PROVIDER,
+                                                   samplingPolicy.getIntervalMillis(),
+                                                   samplingPolicy.getMinDistanceMeters(),
+                                                   this);
         }
     }
 
@@ -374,8 +332,10 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
             return;
         }
         locationRequest = LocationRequest.create();
-        locationRequest.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY);
-        locationRequest.setInterval(1000);
+        locationRequest.setPriority(samplingPolicy.isHighAccuracy() ? LocationRequest.PRIORITY_HIGH_ACCURACY
+                                                                    : LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY);
+        locationRequest.setInterval(samplingPolicy.getIntervalMillis());
+        locationRequest.setSmallestDisplacement(samplingPolicy.getMinDistanceMeters());
         LocationServices.FusedLocationApi.requestLocationUpdates(googleApiClient, locationRequest, this);
         currentLocation = LocationServices.FusedLocationApi.getLastLocation(googleApiClient);
     }
@@ -440,30 +400,15 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
                                   null);
     }
 
-    private void updateCurrentLocationName(int zoom) {
-        if (zoom >= 12) {
-            // Local address
-            if (!StringUtils.isBlank(currentLocationFirstAddressLine)) {
-                currentLocationName = currentLocationFirstAddressLine;
-            } else if (!StringUtils.isBlank(currentLocationSubLocality)) {
-                currentLocationName = currentLocationSubLocality;
-            } else if (!StringUtils.isBlank(currentLocationLocality)) {
-                currentLocationName = currentLocationLocality;
-            } else {
-                currentLocationName = currentLocationCountryName;
-            }
-        } else if (zoom >= 6) {
-            // City-ish
-            if (!StringUtils.isBlank(currentLocationSubLocality)) {
-                currentLocationName = currentLocationSubLocality;
-            } else if (!StringUtils.isBlank(currentLocationLocality)) {
-                currentLocationName = currentLocationLocality;
-            } else {
-                currentLocationName = currentLocationCountryName;
-            }
-        } else {
-            // Country
-            currentLocationName = currentLocationCountryName;
+    /**
+     * Registers the location listener again after the sampling policy changed its interval.
+     */
+    private void updateLocationSampling() {
+        if (locationRequest != null) {
+            stopPlayServicesListeningForCurrentLocation();
+            startPlayServicesListeningForCurrentLocation();
+        } else if (locationManager != null) {
+            startLocationManagerListeningForCurrentLocation();
         }
     }
 
@@ -479,6 +424,11 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
                 animateTocurrentLocation = true;
                 zoom = true;
                 if (PermissionUtils.hasSelfPermissions(getActivity(), LOCATION_PERMISSIONS)) {
+                    long interval = samplingPolicy.getIntervalMillis();
+                    samplingPolicy.reset();
+                    if (interval != samplingPolicy.getIntervalMillis()) {
+                        updateLocationSampling();
+                    }
                     updateLastKnownLocation();
                 } else {
                     ActivityCompat.requestPermissions(getActivity(), LOCATION_PERMISSIONS, LOCATION_PERMISSION_REQUEST_ID);
@@ -508,7 +458,7 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
             currentLocation = LocationServices.FusedLocationApi.getLastLocation(googleApiClient);
         }
         if (currentLocation != null) {
-            onLocationChanged(currentLocation);
+            showLocation(currentLocation);
         }
     }
 
@@ -525,8 +475,10 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
                 selectedLocationAddress.setVisibility(View.INVISIBLE);
             }
         }, LOCATION_REQUEST_TIMEOUT_MS);
-        backgroundHandler.removeCallbacksAndMessages(null);
-        backgroundHandler.post(retrieveCurrentLocationNameRunnable);
+        getControllerFactory().getLocationController().getGeocodingScheduler().request(currentLatLng.latitude,
+                                                                                       currentLatLng.longitude,
+                                                                                       (int) cameraPosition.zoom,
+                                                                                       locationNameCallback);
     }
 
     @Override
@@ -538,7 +490,7 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
         if (currentLocation != null) {
             map.animateCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(currentLocation.getLatitude(), currentLocation.getLongitude()), DEFAULT_MAP_ZOOM_LEVEL));
             animateTocurrentLocation = false;
-            onLocationChanged(currentLocation);
+            showLocation(currentLocation);
         }
         map.setOnCameraChangeListener(this);
     }
@@ -546,6 +498,20 @@ public class LocationFragment extends BaseFragment<LocationFragment.Container> i
     @Override
     public void onLocationChanged(Location location) {
         Timber.i("onLocationChanged, lat=%f, lon=%f, accuracy=%f, distanceToCurrent=%f", location.getLatitude(), location.getLongitude(), location.getAccuracy(), (currentLocation == null) ? 0 : location.distanceTo(currentLocation));
+        long interval = samplingPolicy.getIntervalMillis();
+        boolean show = samplingPolicy.onLocationFix(location.getLatitude(),
+                                                    location.getLongitude(),
+                                                    location.hasAccuracy() ? location.getAccuracy() : Float.MAX_VALUE,
+                                                    location.getTime());
+        if (interval != samplingPolicy.getIntervalMillis()) {
+            updateLocationSampling();
+        }
+        if (show) {
+            showLocation(location);
+        }
+    }
+
+    private void showLocation(Location location) {
 
         float distanceFromCenterOfScreen = Float.MAX_VALUE;
         if (currentLatLng != null) {
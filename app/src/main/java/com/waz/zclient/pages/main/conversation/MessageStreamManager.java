@@ -19,26 +19,30 @@ package com.waz.zclient.pages.main.conversation;
 
 import android.content.Context;
 import android.os.Parcelable;
-import android.view.View;
+import android.util.Log;
 import com.waz.api.IConversation;
 import com.waz.api.Message;
 import com.waz.api.MessagesList;
 import com.waz.zclient.core.api.scala.ModelObserver;
 import com.waz.zclient.pages.main.conversation.views.listview.ConversationListView;
-import com.waz.zclient.pages.main.conversation.views.row.message.MessageAndSeparatorViewController;
+import com.waz.zclient.pages.main.conversation.views.listview.ScrollAnchor;
 import com.waz.zclient.utils.LayoutSpec;
+import com.waz.zclient.utils.WireLoggerTree;
 import timber.log.Timber;
 
 public class MessageStreamManager {
 
+    private static final String TAG = MessageStreamManager.class.getName();
+
     private final MessageAdapter adapter;
     private final ConversationListView listView;
+    private final ScrollAnchor scrollAnchor = new ScrollAnchor();
     private boolean scrollToLastRead;
 
     private final ModelObserver<IConversation> conversationObserver = new ModelObserver<IConversation>() {
         @Override
         public void updated(IConversation model, Reason reason) {
-            Timber.i("Conversation updated: %s, update reason: %s", model, reason);
+            Timber.tag(TAG).i("Conversation updated: %s, update reason: %s", model, reason);
             switch (reason) {
                 case NEW_MODEL:
                     adapter.resetState();
@@ -47,14 +51,16 @@ public class MessageStreamManager {
                 default:
             }
             messagesObserver.setAndUpdate(model.getMessages());
-            Timber.i("MessagesObserver listening to: %s", messagesObserver.debugCurentModels());
+            if (WireLoggerTree.isEnabled(Log.INFO)) {
+                Timber.tag(TAG).i("MessagesObserver listening to: %s", messagesObserver.debugCurentModels());
+            }
         }
     };
 
     private final ModelObserver<MessagesList> messagesObserver = new ModelObserver<MessagesList>() {
         @Override
         public void updated(MessagesList messages) {
-            Timber.i("MessagesList with size: %d updated: %s", messages.size(), messages);
+            Timber.tag(TAG).i("MessagesList with size: %d updated: %s", messages.size(), messages);
             if (messages.size() < 1) {
                 return;
             }
@@ -121,22 +127,21 @@ public class MessageStreamManager {
         });
     }
 
+    /**
+     * Applies the new list in place and keeps the top visible message where it is. The adapter is not re-attached,
+     * so the list view keeps its recycled rows, and the anchor is restored before the layout pass triggered by the
+     * data change runs.
+     */
     private void maintainScrollPosition(MessagesList messages) {
-        final int newScrollPosition = adapter.getIndexOfMessage(getTopVisibleMessage());
-        final int topItemOffset = getTopItemOffset();
-
-        Timber.i("Scrolling to last visible - setting scroll position from %d to %d", listView.getFirstVisiblePosition(), newScrollPosition);
-        listView.setBlockLayoutChildren(true);
+        boolean anchored = scrollAnchor.record(listView);
         adapter.setMessages(messages);
-        listView.setAdapter(adapter);
-        // Need to post to set the message position selection: https://code.google.com/p/android/issues/detail?id=6741
-        listView.post(new Runnable() {
-            @Override
-            public void run() {
-                listView.setSelectionFromTop(newScrollPosition, topItemOffset);
-                listView.setBlockLayoutChildren(false);
-            }
-        });
+        if (!anchored) {
+            return;
+        }
+        int newScrollPosition = adapter.getIndexOfMessage(scrollAnchor.getMessage());
+        if (!scrollAnchor.restore(listView, newScrollPosition)) {
+            Timber.tag(TAG).w("Top visible message %s not found in updated list", scrollAnchor.getMessageId());
+        }
     }
 
     public void onScrolledToBottom(boolean isScrolledToBottom) {
@@ -154,22 +159,4 @@ public class MessageStreamManager {
         conversationObserver.forceUpdate();
         messagesObserver.forceUpdate();
     }
-
-    private Message getTopVisibleMessage() {
-        View first = listView.getChildAt(0);
-        if (first == null) {
-            return null;
-        }
-
-        return first.getTag() == null ? null : ((MessageAndSeparatorViewController) first.getTag()).getMessage();
-    }
-
-    private int getTopItemOffset() {
-        View first = listView.getChildAt(0);
-        int topOffset = 0;
-        if (first != null) {
-            topOffset = first.getTop();
-        }
-        return topOffset;
-    }
 }
@@ -20,12 +20,16 @@ package com.waz.zclient.pages.main.conversation;
 import android.animation.ObjectAnimator;
 import android.annotation.TargetApi;
 import android.app.Activity;
+import android.content.ContentResolver;
 import android.content.pm.ActivityInfo;
 import android.content.res.Configuration;
 import android.graphics.Bitmap;
+import android.graphics.BitmapRegionDecoder;
 import android.graphics.Point;
 import android.graphics.PointF;
 import android.graphics.drawable.BitmapDrawable;
+import android.net.Uri;
+import android.os.AsyncTask;
 import android.os.Build;
 import android.os.Bundle;
 import android.view.LayoutInflater;
@@ -36,6 +40,7 @@ import android.view.ViewPropertyAnimator;
 import android.view.animation.Interpolator;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
+import com.waz.api.Asset;
 import com.waz.api.ImageAsset;
 import com.waz.api.LoadHandle;
 import com.waz.zclient.OnBackPressedListener;
@@ -49,7 +54,12 @@ import com.waz.zclient.ui.utils.KeyboardUtils;
 import com.waz.zclient.ui.utils.MathUtils;
 import com.waz.zclient.utils.LayoutSpec;
 import com.waz.zclient.utils.ViewUtils;
+import com.waz.zclient.views.images.RegionTileRenderer;
 import com.waz.zclient.views.images.TouchImageView;
+import timber.log.Timber;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 public abstract class SingleImageFragment extends BaseFragment<SingleImageFragment.Container> implements ImageDragViewContainer.Callback,
                                                                                                OnBackPressedListener {
@@ -61,6 +71,8 @@ public abstract class SingleImageFragment extends BaseFragment<SingleImageFragme
     private TouchImageView animatingImageView;
     private TouchImageView messageTouchImageView;
     private LoadHandle bitmapLoadHandle;
+    private AsyncTask<Uri, Void, BitmapRegionDecoder> regionDecoderTask;
+    private boolean originalImageRequested;
     private int clickedImageWidth;
     private int clickedImageHeight;
     private Point clickedImageLocation;
@@ -158,6 +170,13 @@ public abstract class SingleImageFragment extends BaseFragment<SingleImageFragme
 
     protected abstract ImageView.ScaleType getScaleType();
 
+    /**
+     * Subclasses that can reach the original file of the image pass its uri to the callback, which
+     * enables full-resolution tiles when zooming in. By default only the display-sized bitmap is shown.
+     */
+    protected void loadOriginalImageUri(Asset.LoadCallback<Uri> callback) {
+    }
+
     @Override
     public void onStop() {
         restoreRotation();
@@ -165,6 +184,11 @@ public abstract class SingleImageFragment extends BaseFragment<SingleImageFragme
             bitmapLoadHandle.cancel();
             bitmapLoadHandle = null;
         }
+        if (regionDecoderTask != null) {
+            regionDecoderTask.cancel(false);
+            regionDecoderTask = null;
+        }
+        originalImageRequested = false;
 
         super.onStop();
     }
@@ -206,6 +230,9 @@ public abstract class SingleImageFragment extends BaseFragment<SingleImageFragme
                                                             if (getActivity() == null || messageTouchImageView == null) {
                                                                 return;
                                                             }
+                                                            if (!isPreview) {
+                                                                loadOriginalImage();
+                                                            }
                                                             if (!isPreview &&
                                                                 messageTouchImageView.getDrawable() != null) {
                                                                 // means we display the preview
@@ -234,8 +261,82 @@ public abstract class SingleImageFragment extends BaseFragment<SingleImageFragme
     }
 
     private void showBitmap(Bitmap bitmap) {
-        messageTouchImageView.setImageDrawable(new BitmapDrawable(getResources(), bitmap));
-        animatingImageView.setImageDrawable(new BitmapDrawable(getResources(), bitmap));
+        BitmapDrawable drawable = new BitmapDrawable(getResources(), bitmap);
+        messageTouchImageView.setImageDrawable(drawable);
+        // A drawable can only have one callback, but both views can share its state
+        animatingImageView.setImageDrawable(drawable.getConstantState().newDrawable(getResources()));
+    }
+
+    private void loadOriginalImage() {
+        if (originalImageRequested) {
+            return;
+        }
+        originalImageRequested = true;
+        loadOriginalImageUri(new Asset.LoadCallback<Uri>() {
+            @Override
+            public void onLoaded(Uri uri) {
+                if (getActivity() == null || messageTouchImageView == null || uri == null) {
+                    return;
+                }
+                openRegionDecoder(uri);
+            }
+
+            @Override
+            public void onLoadFailed() {
+                Timber.w("Original image not available, zooming is limited to the display-sized bitmap");
+            }
+        });
+    }
+
+    private void openRegionDecoder(Uri uri) {
+        final ContentResolver resolver = getActivity().getContentResolver();
+        regionDecoderTask = new AsyncTask<Uri, Void, BitmapRegionDecoder>() {
+            @Override
+            protected BitmapRegionDecoder doInBackground(Uri... params) {
+                InputStream in = null;
+                try {
+                    in = resolver.openInputStream(params[0]);
+                    return in == null ? null : BitmapRegionDecoder.newInstance(in, false);
+                } catch (IOException e) {
+                    Timber.w(e, "Unable to open region decoder for %s", params[0]);
+                    return null;
+                } finally {
+                    if (in != null) {
+                        try {
+                            in.close();
+                        } catch (IOException ignored) {
+                        }
+                    }
+                }
+            }
+
+            @Override
+            protected void onPostExecute(BitmapRegionDecoder decoder) {
+                regionDecoderTask = null;
+                if (decoder == null) {
+                    return;
+                }
+                if (messageTouchImageView == null) {
+                    decoder.recycle();
+                    return;
+                }
+                messageTouchImageView.setRegionTileRenderer(new RegionTileRenderer(decoder, new RegionTileRenderer.Callback() {
+                    @Override
+                    public void onTileDecoded() {
+                        if (messageTouchImageView != null) {
+                            messageTouchImageView.invalidate();
+                        }
+                    }
+                }));
+            }
+
+            @Override
+            protected void onCancelled(BitmapRegionDecoder decoder) {
+                if (decoder != null) {
+                    decoder.recycle();
+                }
+            }
+        }.execute(uri);
     }
 
     private void loadClickedImageSizeAndPosition() {
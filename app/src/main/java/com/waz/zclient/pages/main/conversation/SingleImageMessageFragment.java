@@ -17,11 +17,14 @@
  */
 package com.waz.zclient.pages.main.conversation;
 
+import android.net.Uri;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
+import com.waz.api.Asset;
+import com.waz.api.AssetStatus;
 import com.waz.api.ImageAsset;
 import com.waz.api.Message;
 
@@ -59,6 +62,16 @@ public class SingleImageMessageFragment extends SingleImageFragment {
         return message.getImage();
     }
 
+    @Override
+    protected void loadOriginalImageUri(Asset.LoadCallback<Uri> callback) {
+        Asset asset = message.getAsset();
+        // Only use files that are already on the device, zooming shouldn't trigger a download
+        if (asset != null &&
+            (asset.getStatus() == AssetStatus.UPLOAD_DONE || asset.getStatus() == AssetStatus.DOWNLOAD_DONE)) {
+            asset.getContentUri(callback);
+        }
+    }
+
     @Override
     protected ImageView.ScaleType getScaleType() {
         return ImageView.ScaleType.FIT_CENTER;
@@ -0,0 +1,82 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversation.views;
+
+import android.content.Context;
+import android.text.format.Formatter;
+import com.waz.zclient.utils.StringUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Formatted durations and file sizes of the message stream, so that rows refreshing their labels on
+ * every playback or progress update don't format the same values again. Main thread only.
+ */
+public final class MediaLabelCache {
+
+    private static final int MAX_ENTRIES = 128;
+
+    private static final Map<Long, String> durations = new LruMap<>();
+    private static final Map<Long, String> fileSizes = new LruMap<>();
+    private static Locale locale;
+
+    private MediaLabelCache() {
+    }
+
+    public static String formatDuration(long seconds) {
+        checkLocale();
+        String label = durations.get(seconds);
+        if (label == null) {
+            label = StringUtils.formatTimeSeconds(seconds);
+            durations.put(seconds, label);
+        }
+        return label;
+    }
+
+    public static String formatFileSize(Context context, long bytes) {
+        checkLocale();
+        String label = fileSizes.get(bytes);
+        if (label == null) {
+            label = Formatter.formatFileSize(context, bytes);
+            fileSizes.put(bytes, label);
+        }
+        return label;
+    }
+
+    private static void checkLocale() {
+        Locale current = Locale.getDefault();
+        if (!current.equals(locale)) {
+            durations.clear();
+            fileSizes.clear();
+            locale = current;
+        }
+    }
+
+    private static class LruMap<K, V> extends LinkedHashMap<K, V> {
+        LruMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    }
+}
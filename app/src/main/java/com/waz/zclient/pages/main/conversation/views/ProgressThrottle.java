@@ -0,0 +1,73 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversation.views;
+
+import android.os.SystemClock;
+
+/**
+ * Passes upload and download progress of a row on at most once per interval, on a {@link StreamClock}
+ * frame. Progress set in between replaces the pending value.
+ */
+public class ProgressThrottle implements StreamClock.Subscriber {
+
+    public interface Callback {
+        void onProgress(float progress);
+    }
+
+    private final long minIntervalMillis;
+    private final Callback callback;
+
+    private float pendingProgress;
+    private boolean scheduled;
+    private boolean delivered;
+    private long lastDeliveryMillis;
+
+    public ProgressThrottle(long minIntervalMillis, Callback callback) {
+        this.minIntervalMillis = minIntervalMillis;
+        this.callback = callback;
+    }
+
+    public void setProgress(float progress) {
+        pendingProgress = progress;
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        long now = SystemClock.uptimeMillis();
+        StreamClock.getInstance().requestTick(this, delivered ? Math.max(now, lastDeliveryMillis + minIntervalMillis) : now);
+    }
+
+    /**
+     * Drops the pending progress, e.g. when the row is recycled.
+     */
+    public void cancel() {
+        if (scheduled) {
+            StreamClock.getInstance().unsubscribe(this);
+            scheduled = false;
+        }
+        delivered = false;
+    }
+
+    @Override
+    public void onTick(long uptimeMillis) {
+        scheduled = false;
+        delivered = true;
+        lastDeliveryMillis = uptimeMillis;
+        callback.onProgress(pendingProgress);
+    }
+}
@@ -0,0 +1,90 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversation.views;
+
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * The one clock that drives progress and playback animations of the message stream.
+ *
+ * Rows subscribe instead of running their own animators or posting their own runnables. The clock
+ * posts a single vsync callback for the next due subscriber and sleeps while nothing is due, so the
+ * number of wakeups does not grow with the number of animated rows. Main thread only.
+ */
+public class StreamClock {
+
+    public interface Subscriber {
+        void onTick(long uptimeMillis);
+    }
+
+    private static StreamClock instance;
+
+    private final TickSchedule schedule = new TickSchedule();
+    private long postedForMillis = TickSchedule.NONE;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            postedForMillis = TickSchedule.NONE;
+            post(schedule.dispatch(SystemClock.uptimeMillis()));
+        }
+    };
+
+    public static StreamClock getInstance() {
+        if (instance == null) {
+            instance = new StreamClock();
+        }
+        return instance;
+    }
+
+    /**
+     * Ticks the subscriber every interval until it unsubscribes. Subscribing again changes the interval.
+     */
+    public void subscribe(Subscriber subscriber, long intervalMillis) {
+        schedule.addRepeating(subscriber, intervalMillis, SystemClock.uptimeMillis());
+        post(schedule.getNextDueMillis());
+    }
+
+    /**
+     * Ticks the subscriber once, on the first frame at or after the given uptime.
+     */
+    public void requestTick(Subscriber subscriber, long uptimeMillis) {
+        schedule.addOnce(subscriber, uptimeMillis);
+        post(schedule.getNextDueMillis());
+    }
+
+    public void unsubscribe(Subscriber subscriber) {
+        if (schedule.remove(subscriber) && schedule.isEmpty() && postedForMillis != TickSchedule.NONE) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            postedForMillis = TickSchedule.NONE;
+        }
+    }
+
+    private void post(long dueMillis) {
+        if (dueMillis >= postedForMillis) {
+            return;
+        }
+        Choreographer choreographer = Choreographer.getInstance();
+        if (postedForMillis != TickSchedule.NONE) {
+            choreographer.removeFrameCallback(frameCallback);
+        }
+        postedForMillis = dueMillis;
+        choreographer.postFrameCallbackDelayed(frameCallback, Math.max(0, dueMillis - SystemClock.uptimeMillis()));
+    }
+}
@@ -0,0 +1,149 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversation.views;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Due times of the {@link StreamClock} subscribers.
+ *
+ * Repeating subscribers tick on multiples of their interval, so all rows with the same interval share
+ * one wakeup no matter when they subscribed. One-shot requests tick once at or after their due time.
+ */
+class TickSchedule {
+
+    static final long NONE = Long.MAX_VALUE;
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final List<Entry> due = new ArrayList<>();
+
+    void addRepeating(StreamClock.Subscriber subscriber, long intervalMillis, long nowMillis) {
+        Entry entry = find(subscriber);
+        if (entry == null) {
+            entry = new Entry(subscriber);
+            entries.add(entry);
+        }
+        entry.intervalMillis = Math.max(1, intervalMillis);
+        entry.dueMillis = nextAligned(nowMillis, entry.intervalMillis);
+    }
+
+    /**
+     * Requests a single tick, an earlier pending request of the same subscriber wins. A repeating
+     * subscriber keeps its schedule.
+     */
+    void addOnce(StreamClock.Subscriber subscriber, long dueMillis) {
+        Entry entry = find(subscriber);
+        if (entry == null) {
+            entry = new Entry(subscriber);
+            entry.dueMillis = dueMillis;
+            entries.add(entry);
+        } else if (entry.intervalMillis == 0) {
+            entry.dueMillis = Math.min(entry.dueMillis, dueMillis);
+        }
+    }
+
+    boolean remove(StreamClock.Subscriber subscriber) {
+        // A one-shot tick that is being dispatched is no longer in the entries
+        for (int i = 0; i < due.size(); i++) {
+            if (due.get(i).subscriber == subscriber) {
+                due.get(i).removed = true;
+            }
+        }
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.subscriber == subscriber) {
+                entry.removed = true;
+                entries.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long getNextDueMillis() {
+        long next = NONE;
+        for (int i = 0; i < entries.size(); i++) {
+            next = Math.min(next, entries.get(i).dueMillis);
+        }
+        return next;
+    }
+
+    /**
+     * Ticks all subscribers that are due. Subscribers may subscribe and unsubscribe from their tick.
+     *
+     * @return the next due time, {@link #NONE} if nothing is scheduled
+     */
+    long dispatch(long nowMillis) {
+        due.clear();
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            if (entry.dueMillis > nowMillis) {
+                continue;
+            }
+            due.add(entry);
+            if (entry.intervalMillis == 0) {
+                entries.remove(i);
+            } else {
+                entry.dueMillis = nextAligned(nowMillis, entry.intervalMillis);
+            }
+        }
+        for (int i = due.size() - 1; i >= 0; i--) {
+            Entry entry = due.get(i);
+            // Unsubscribed by an earlier subscriber of this tick
+            if (!entry.removed) {
+                entry.subscriber.onTick(nowMillis);
+            }
+        }
+        due.clear();
+        return getNextDueMillis();
+    }
+
+    private Entry find(StreamClock.Subscriber subscriber) {
+        for (int i = 0; i < entries.size(); i++) {
+            Entry entry = entries.get(i);
+            if (entry.subscriber == subscriber) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private static long nextAligned(long nowMillis, long intervalMillis) {
+        return (nowMillis / intervalMillis + 1) * intervalMillis;
+    }
+
+    private static class Entry {
+        final StreamClock.Subscriber subscriber;
+        long intervalMillis;
+        long dueMillis;
+        boolean removed;
+
+        Entry(StreamClock.Subscriber subscriber) {
+            this.subscriber = subscriber;
+        }
+    }
+}
@@ -27,7 +27,6 @@ import android.widget.ListView;
 public class ConversationListView extends ListView {
 
     private ConversationScrollListener conversationScrollListener = new ConversationScrollListener();
-    private boolean blockLayoutChildren;
 
     public ConversationListView(Context context) {
         super(context);
@@ -39,17 +38,6 @@ public class ConversationListView extends ListView {
         setOnScrollListener(conversationScrollListener);
     }
 
-    public void setBlockLayoutChildren(boolean block) {
-        blockLayoutChildren = block;
-    }
-
-    @Override
-    protected void layoutChildren() {
-        if (!blockLayoutChildren) {
-            super.layoutChildren();
-        }
-    }
-
     public void registerScrolledToBottomListener(ConversationScrollListener.ScrolledToBottomListener listener) {
         conversationScrollListener.registerScrolledToBottomListener(listener);
     }
@@ -72,6 +60,12 @@ public class ConversationListView extends ListView {
         conversationScrollListener.unregisterVisibleMessagesChangedListener(listener);
     }
 
+    @Override
+    protected void onDetachedFromWindow() {
+        conversationScrollListener.cancelPendingFrame();
+        super.onDetachedFromWindow();
+    }
+
     public void registerScrollStateChangeListener(ConversationScrollListener.ScrollStateChangeListener listener) {
         conversationScrollListener.registerScrollStateChangeListener(listener);
     }
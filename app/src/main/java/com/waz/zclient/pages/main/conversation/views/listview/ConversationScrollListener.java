@@ -17,25 +17,35 @@
  */
 package com.waz.zclient.pages.main.conversation.views.listview;
 
+import android.view.Choreographer;
 import android.widget.AbsListView;
-import android.widget.ListAdapter;
-import com.waz.api.Message;
+import com.waz.zclient.controllers.streammediaplayer.VisibleRange;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
 
-public class ConversationScrollListener implements AbsListView.OnScrollListener {
+/**
+ * Scroll callbacks only record the latest state, the listeners are notified once per frame from a
+ * {@link Choreographer} callback. Listener lists are iterated by index so dispatching does not allocate.
+ */
+public class ConversationScrollListener implements AbsListView.OnScrollListener, Choreographer.FrameCallback {
 
     public static final int UNSET_ITEM_POSITION = -1;
-    List<ScrolledToBottomListener> scrolledToBottomListeners = new LinkedList<>();
-    List<VisibleMessagesChangesListener> visibleMessagesChangedListeners = new LinkedList<>();
-    List<ScrollStateChangeListener> scrollStateChangeListeners = new LinkedList<>();
+    List<ScrolledToBottomListener> scrolledToBottomListeners = new ArrayList<>();
+    List<VisibleMessagesChangesListener> visibleMessagesChangedListeners = new ArrayList<>();
+    List<ScrollStateChangeListener> scrollStateChangeListeners = new ArrayList<>();
 
     private static final int MAX_OFFSET = 400;
 
     private int scrollState;
 
+    private final VisibleRange visibleRange = new VisibleRange();
+    private AbsListView pendingListView;
+    private int pendingFirstVisibleItem = UNSET_ITEM_POSITION;
+    private int pendingLastVisibleItem = UNSET_ITEM_POSITION;
+    private int pendingTotalItemCount;
+    private boolean frameScheduled;
+
     @Override
     public void onScrollStateChanged(AbsListView view, int scrollState) {
         this.scrollState = scrollState;
@@ -48,9 +58,28 @@ public class ConversationScrollListener implements AbsListView.OnScrollListener
             return;
         }
 
-        notifyOffsetFromFirstElement(listView, totalItemCount);
-        notifyScrollPosition(listView, totalItemCount);
-        notifyVisibleMessagesChanged(listView, firstVisibleItem, firstVisibleItem + visibleItemCount - 1);
+        pendingListView = listView;
+        pendingFirstVisibleItem = firstVisibleItem;
+        pendingLastVisibleItem = firstVisibleItem + visibleItemCount - 1;
+        pendingTotalItemCount = totalItemCount;
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+
+    @Override
+    public void doFrame(long frameTimeNanos) {
+        frameScheduled = false;
+        AbsListView listView = pendingListView;
+        pendingListView = null;
+        if (listView == null || listView.getChildCount() == 0 || pendingTotalItemCount == 0) {
+            return;
+        }
+
+        notifyOffsetFromFirstElement(listView, pendingTotalItemCount);
+        notifyScrollPosition(listView, pendingTotalItemCount);
+        notifyVisibleMessagesChanged(listView, pendingFirstVisibleItem, pendingLastVisibleItem);
     }
 
     public void registerScrollStateChangeListener(ScrollStateChangeListener listener) {
@@ -77,9 +106,20 @@ public class ConversationScrollListener implements AbsListView.OnScrollListener
         visibleMessagesChangedListeners.remove(listener);
     }
 
+    /**
+     * Drops a frame callback that is still pending, the list view it would report on is going away.
+     */
+    public void cancelPendingFrame() {
+        if (frameScheduled) {
+            frameScheduled = false;
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+        pendingListView = null;
+    }
+
     private void notifyScrollStateChanged(boolean idle) {
-        for (ScrollStateChangeListener listener : scrollStateChangeListeners) {
-            listener.onScrollStateChanged(idle);
+        for (int i = 0; i < scrollStateChangeListeners.size(); i++) {
+            scrollStateChangeListeners.get(i).onScrollStateChanged(idle);
         }
     }
 
@@ -95,8 +135,8 @@ public class ConversationScrollListener implements AbsListView.OnScrollListener
         int offset = !isLastItemVisible(listView, totalItemCount) ? MAX_OFFSET :
                      getBottomOfLastItemView(listView) - listView.getHeight();
 
-        for (ScrolledToBottomListener scrolledToBottomListener : scrolledToBottomListeners) {
-            scrolledToBottomListener.onScrollOffsetFromFirstElement(offset);
+        for (int i = 0; i < scrolledToBottomListeners.size(); i++) {
+            scrolledToBottomListeners.get(i).onScrollOffsetFromFirstElement(offset);
         }
     }
 
@@ -108,52 +148,34 @@ public class ConversationScrollListener implements AbsListView.OnScrollListener
         return listView.getChildAt(listView.getChildCount() - 1).getBottom();
     }
 
-    private int lastFirstVisibleItem = UNSET_ITEM_POSITION;
-    private int lastLastVisibleItem = UNSET_ITEM_POSITION;
-
     private void notifyVisibleMessagesChanged(AbsListView listView, int firstVisibleItem, int lastVisibleItem) {
         if (firstVisibleItem == -1 ||
-            visibleMessagesChangedListeners.size() == 0 ||
             listView == null ||
             listView.getAdapter() == null) {
             return;
         }
-        if (lastFirstVisibleItem != UNSET_ITEM_POSITION &&
-            lastFirstVisibleItem == firstVisibleItem &&
-            lastLastVisibleItem != UNSET_ITEM_POSITION &&
-            lastLastVisibleItem == lastVisibleItem) {
+        if (visibleRange.isSame(firstVisibleItem, lastVisibleItem)) {
             return;
         }
 
-        lastFirstVisibleItem = firstVisibleItem;
-        lastLastVisibleItem = lastVisibleItem;
-
-        List<String> messageIds = new ArrayList<>();
-        ListAdapter adapter = listView.getAdapter();
-        Message message;
-        for (int i = firstVisibleItem; i <= lastVisibleItem; i++) {
-            message = (Message) adapter.getItem(i);
-            if (message != null) {
-                messageIds.add(message.getId());
-            }
-        }
-        if (messageIds.size() == 0) {
+        visibleRange.update(listView.getAdapter(), firstVisibleItem, lastVisibleItem);
+        if (visibleRange.isEmpty() || visibleMessagesChangedListeners.size() == 0) {
             return;
         }
-        for (VisibleMessagesChangesListener listener : visibleMessagesChangedListeners) {
-            listener.onVisibleMessagesChanged(messageIds);
+        for (int i = 0; i < visibleMessagesChangedListeners.size(); i++) {
+            visibleMessagesChangedListeners.get(i).onVisibleMessagesChanged(visibleRange);
         }
     }
 
     private void triggerScrolledToBottomNotifications() {
-        for (ScrolledToBottomListener listener : scrolledToBottomListeners) {
-            listener.onScrolledToBottom();
+        for (int i = 0; i < scrolledToBottomListeners.size(); i++) {
+            scrolledToBottomListeners.get(i).onScrolledToBottom();
         }
     }
 
     private void triggerScrolledAwayFromBottomNotifications() {
-        for (ScrolledToBottomListener listener : scrolledToBottomListeners) {
-            listener.onScrolledAwayFromBottom();
+        for (int i = 0; i < scrolledToBottomListeners.size(); i++) {
+            scrolledToBottomListeners.get(i).onScrolledAwayFromBottom();
         }
     }
 
@@ -170,7 +192,10 @@ public class ConversationScrollListener implements AbsListView.OnScrollListener
     }
 
     public interface VisibleMessagesChangesListener {
-        void onVisibleMessagesChanged(List<String> visibleMessageIds);
+        /**
+         * @param visibleRange reused for every frame, only valid during this call
+         */
+        void onVisibleMessagesChanged(VisibleRange visibleRange);
     }
 
 }
@@ -0,0 +1,77 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversation.views.listview;
+
+import android.view.View;
+import com.waz.api.Message;
+import com.waz.zclient.pages.main.conversation.views.row.message.MessageAndSeparatorViewController;
+
+/**
+ * Remembers which message is at the top of the stream and how far it is scrolled, so the same message can be
+ * put back at the same pixel offset after the list contents changed.
+ *
+ * Restoring goes through {@link android.widget.ListView#setSelectionFromTop(int, int)} before the layout that the
+ * data change requested has run, so the new list is laid out directly at the anchored position and the existing
+ * rows (and the recycler's scrap views) are rebound instead of re-created.
+ */
+public class ScrollAnchor {
+
+    private Message message;
+    private String messageId;
+    private int offset;
+
+    /**
+     * @return true if there was a visible message to anchor to
+     */
+    public boolean record(ConversationListView listView) {
+        View first = listView.getChildAt(0);
+        message = null;
+        messageId = null;
+        offset = 0;
+        if (first == null) {
+            return false;
+        }
+        offset = first.getTop();
+        Object tag = first.getTag();
+        if (tag instanceof MessageAndSeparatorViewController) {
+            message = ((MessageAndSeparatorViewController) tag).getMessage();
+            messageId = message == null ? null : message.getId();
+        }
+        return true;
+    }
+
+    public Message getMessage() {
+        return message;
+    }
+
+    public String getMessageId() {
+        return messageId;
+    }
+
+    /**
+     * @param position the anchored message's position in the new list
+     * @return false if the anchored message is no longer part of the list
+     */
+    public boolean restore(ConversationListView listView, int position) {
+        if (position < 0) {
+            return false;
+        }
+        listView.setSelectionFromTop(position, offset);
+        return true;
+    }
+}
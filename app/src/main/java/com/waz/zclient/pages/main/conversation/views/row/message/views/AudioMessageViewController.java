@@ -39,11 +39,11 @@ import com.waz.zclient.controllers.userpreferences.IUserPreferencesController;
 import com.waz.zclient.core.api.scala.ModelObserver;
 import com.waz.zclient.core.controllers.tracking.events.media.PlayedAudioMessageEvent;
 import com.waz.zclient.core.stores.network.DefaultNetworkAction;
+import com.waz.zclient.pages.main.conversation.views.MediaLabelCache;
 import com.waz.zclient.pages.main.conversation.views.MessageViewsContainer;
 import com.waz.zclient.pages.main.conversation.views.row.message.MessageViewController;
 import com.waz.zclient.pages.main.conversation.views.row.separator.Separator;
 import com.waz.zclient.ui.views.EphemeralDotAnimationView;
-import com.waz.zclient.utils.StringUtils;
 import com.waz.zclient.utils.ViewUtils;
 import com.waz.zclient.views.AssetActionButton;
 import com.waz.zclient.ui.views.OnDoubleClickListener;
@@ -81,7 +81,7 @@ public class AudioMessageViewController extends MessageViewController implements
     private final ModelObserver<Asset> assetModelObserver = new ModelObserver<Asset>() {
         @Override
         public void updated(Asset model) {
-            audioDurationText.setText(StringUtils.formatTimeSeconds(asset.getDuration().getSeconds()));
+            audioDurationText.setText(MediaLabelCache.formatDuration(asset.getDuration().getSeconds()));
             setProgressDotsVisible(receivingMessage(model));
             if (playbackControls == null && asset.getStatus() == AssetStatus.DOWNLOAD_DONE) {
                 setPlaybackControls(false);
@@ -95,9 +95,9 @@ public class AudioMessageViewController extends MessageViewController implements
             actionButton.setPlaybackControls(playbackControls);
             String time;
             if (playbackControls.getDuration().equals(playbackControls.getPlayhead()) || playbackControls.getPlayhead().isZero()) {
-                time = StringUtils.formatTimeSeconds(playbackControls.getDuration().getSeconds());
+                time = MediaLabelCache.formatDuration(playbackControls.getDuration().getSeconds());
             } else {
-                time = StringUtils.formatTimeSeconds(playbackControls.getPlayhead().getSeconds());
+                time = MediaLabelCache.formatDuration(playbackControls.getPlayhead().getSeconds());
             }
             audioDurationText.setText(time);
 
@@ -219,7 +219,7 @@ public class AudioMessageViewController extends MessageViewController implements
         asset = null;
         actionButton.setOnClickListener(null);
         actionButton.clearProgress();
-        audioDurationText.setText(StringUtils.formatTimeSeconds(0));
+        audioDurationText.setText(MediaLabelCache.formatDuration(0));
         audioSeekBar.setEnabled(false);
         progressDotsView.setExpired(false);
         super.recycle();
@@ -23,7 +23,6 @@ import android.content.Intent;
 import android.net.Uri;
 import android.support.v4.content.ContextCompat;
 import android.text.TextUtils;
-import android.text.format.Formatter;
 import android.view.View;
 import android.webkit.MimeTypeMap;
 import android.widget.LinearLayout;
@@ -39,6 +38,7 @@ import com.waz.zclient.controllers.userpreferences.IUserPreferencesController;
 import com.waz.zclient.core.api.scala.ModelObserver;
 import com.waz.zclient.core.controllers.tracking.events.filetransfer.OpenedFileEvent;
 import com.waz.zclient.core.controllers.tracking.events.filetransfer.SavedFileEvent;
+import com.waz.zclient.pages.main.conversation.views.MediaLabelCache;
 import com.waz.zclient.pages.main.conversation.views.MessageViewsContainer;
 import com.waz.zclient.pages.main.conversation.views.row.message.MessageViewController;
 import com.waz.zclient.pages.main.conversation.views.row.separator.Separator;
@@ -363,7 +363,7 @@ public class FileMessageViewController extends MessageViewController implements
                    context.getString(infoStringId) :
                    context.getString(infoStringId, fileExtension.toUpperCase(Locale.getDefault()));
         } else {
-            String fileSize = Formatter.formatFileSize(context, asset.getSizeInBytes());
+            String fileSize = MediaLabelCache.formatFileSize(context, asset.getSizeInBytes());
             return TextUtils.isEmpty(fileExtension) ?
                    context.getString(infoStringId, fileSize) :
                    context.getString(infoStringId, fileSize, fileExtension.toUpperCase(Locale.getDefault()));
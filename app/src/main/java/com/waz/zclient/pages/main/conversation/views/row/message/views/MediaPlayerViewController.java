@@ -48,6 +48,7 @@ import com.waz.zclient.core.api.scala.ModelObserver;
 import com.waz.zclient.core.stores.network.DefaultNetworkAction;
 import com.waz.zclient.core.stores.network.NetworkStoreObserver;
 import com.waz.zclient.pages.main.conversation.views.MessageViewsContainer;
+import com.waz.zclient.pages.main.conversation.views.StreamClock;
 import com.waz.zclient.pages.main.conversation.views.row.message.MessageViewController;
 import com.waz.zclient.pages.main.conversation.views.row.separator.Separator;
 import com.waz.zclient.ui.utils.ResourceUtils;
@@ -128,22 +129,20 @@ public abstract class MediaPlayerViewController extends MessageViewController im
         }
     };
 
-    private final Runnable timeUpdateRunnable = new Runnable() {
+    private final StreamClock.Subscriber timeUpdateSubscriber = new StreamClock.Subscriber() {
         @Override
-        public void run() {
+        public void onTick(long uptimeMillis) {
             if (mediaAsset == null ||
-                getPlayerController() == null) {
-                return;
-            }
-            if (mediaPlayerView == null ||
+                getPlayerController() == null ||
+                mediaPlayerView == null ||
                 message == null ||
                 !getPlayerController().isSelectedMessage(message) ||
                 !getPlayerController().getMediaPlayerState(message).isTimeUpdateScheduleAllowed() ||
                 mediaAsset.getDuration() == null) {
+                StreamClock.getInstance().unsubscribe(this);
                 return;
             }
             updateTime();
-            mediaPlayerView.postDelayed(this, refreshRate);
         }
     };
 
@@ -254,16 +253,15 @@ public abstract class MediaPlayerViewController extends MessageViewController im
     }
 
     public void scheduleTimeUpdate() {
-        unscheduleTimeUpdate();
-        mediaPlayerView.postDelayed(timeUpdateRunnable, refreshRate);
+        StreamClock.getInstance().subscribe(timeUpdateSubscriber, refreshRate);
     }
 
     public void unscheduleTimeUpdate() {
+        StreamClock.getInstance().unsubscribe(timeUpdateSubscriber);
         if (mediaPlayerView == null ||
             mediaPlayerView.getHandler() == null) {
             return;
         }
-        mediaPlayerView.removeCallbacks(timeUpdateRunnable);
         updateTime();
     }
 
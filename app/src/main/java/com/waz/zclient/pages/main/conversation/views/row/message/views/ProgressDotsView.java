@@ -17,7 +17,6 @@
  */
 package com.waz.zclient.pages.main.conversation.views.row.message.views;
 
-import android.animation.ValueAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Paint;
@@ -25,10 +24,12 @@ import android.graphics.drawable.Drawable;
 import android.util.AttributeSet;
 import android.view.View;
 import com.waz.zclient.R;
+import com.waz.zclient.pages.main.conversation.views.StreamClock;
 
-public class ProgressDotsView extends View {
+public class ProgressDotsView extends View implements StreamClock.Subscriber {
 
-    private final static int ANIMATION_DURATION = 350 * 3; //350ms between dots
+    private final static int DOT_DURATION = 350;
+    private final static int DOT_COUNT = 3;
 
     private final Paint lightPaint = new Paint();
     private final Paint darkPaint = new Paint();
@@ -37,9 +38,9 @@ public class ProgressDotsView extends View {
     private final int dotRadius;
 
     private boolean expired;
+    private boolean attached;
+    private boolean animating;
 
-    //seems as though the animator never actually reaches the last value you set, so we go to 3 instead of just to 2
-    private final ValueAnimator animator = ValueAnimator.ofInt(0, 1, 2, 3).setDuration(ANIMATION_DURATION);
     private int darkDotIndex = 0;
 
     private final Drawable defaultBackground;
@@ -59,29 +60,37 @@ public class ProgressDotsView extends View {
         darkPaint.setColor(context.getResources().getColor(R.color.graphite_40));
         dotSpacing = context.getResources().getDimensionPixelSize(R.dimen.progress_dot_spacing_and_width);
         dotRadius = dotSpacing / 2;
-
-        animator.setRepeatCount(ValueAnimator.INFINITE);
-        animator.setInterpolator(null);
-        animator.addUpdateListener(new ValueAnimator.AnimatorUpdateListener() {
-            @Override
-            public void onAnimationUpdate(ValueAnimator animation) {
-                darkDotIndex = (int) animation.getAnimatedValue();
-                invalidate();
-            }
-        });
         defaultBackground = getBackground();
     }
 
     @Override
     protected void onAttachedToWindow() {
         super.onAttachedToWindow();
-        animator.start();
+        attached = true;
+        updateAnimating();
     }
 
     @Override
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
-        animator.cancel();
+        attached = false;
+        updateAnimating();
+    }
+
+    @Override
+    protected void onVisibilityChanged(View changedView, int visibility) {
+        super.onVisibilityChanged(changedView, visibility);
+        updateAnimating();
+    }
+
+    @Override
+    public void onTick(long uptimeMillis) {
+        // Derived from the shared clock, so all dots in the stream step together
+        int index = (int) (uptimeMillis / DOT_DURATION % DOT_COUNT);
+        if (index != darkDotIndex) {
+            darkDotIndex = index;
+            invalidate();
+        }
     }
 
     public void setExpired(boolean expired) {
@@ -91,9 +100,26 @@ public class ProgressDotsView extends View {
         } else {
             setBackground(defaultBackground);
         }
+        updateAnimating();
         invalidate();
     }
 
+    /**
+     * The dots only animate while they can be seen.
+     */
+    private void updateAnimating() {
+        boolean animate = attached && !expired && isShown();
+        if (animate == animating) {
+            return;
+        }
+        animating = animate;
+        if (animate) {
+            StreamClock.getInstance().subscribe(this, DOT_DURATION);
+        } else {
+            StreamClock.getInstance().unsubscribe(this);
+        }
+    }
+
     @Override
     protected void onDraw(Canvas canvas) {
         if (expired) {
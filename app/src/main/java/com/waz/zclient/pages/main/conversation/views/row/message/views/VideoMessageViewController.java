@@ -22,7 +22,6 @@ import android.content.Intent;
 import android.graphics.Bitmap;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
-import android.text.format.Formatter;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
@@ -42,12 +41,13 @@ import com.waz.zclient.controllers.userpreferences.IUserPreferencesController;
 import com.waz.zclient.core.api.scala.ModelObserver;
 import com.waz.zclient.core.controllers.tracking.events.media.PlayedVideoMessageEvent;
 import com.waz.zclient.core.stores.network.DefaultNetworkAction;
+import com.waz.zclient.pages.main.conversation.views.MediaLabelCache;
 import com.waz.zclient.pages.main.conversation.views.MessageViewsContainer;
+import com.waz.zclient.pages.main.conversation.views.ProgressThrottle;
 import com.waz.zclient.pages.main.conversation.views.row.message.MessageViewController;
 import com.waz.zclient.pages.main.conversation.views.row.separator.Separator;
 import com.waz.zclient.ui.views.EphemeralDotAnimationView;
 import com.waz.zclient.utils.AssetUtils;
-import com.waz.zclient.utils.StringUtils;
 import com.waz.zclient.utils.ViewUtils;
 import com.waz.zclient.views.GlyphProgressView;
 import com.waz.zclient.ui.views.OnDoubleClickListener;
@@ -63,6 +63,7 @@ public class VideoMessageViewController extends MessageViewController implements
     private static final String INFO_DIVIDER = " · ";
     private static final int DEFAULT_ASPECT_RATIO_WIDTH = 4;
     private static final int DEFAULT_ASPECT_RATIO_HEIGHT = 3;
+    private static final int PROGRESS_UPDATE_INTERVAL_MS = 100;
 
     private View view;
     private ImageView previewImage;
@@ -77,6 +78,15 @@ public class VideoMessageViewController extends MessageViewController implements
     private Drawable normalButtonBackground;
     private Drawable errorButtonBackground;
     private LoadHandle previewImageLoadHandle;
+    private ProgressIndicator.State progressState;
+    private String videoInfo;
+
+    private final ProgressThrottle progressThrottle = new ProgressThrottle(PROGRESS_UPDATE_INTERVAL_MS, new ProgressThrottle.Callback() {
+        @Override
+        public void onProgress(float progress) {
+            actionButton.setProgress(progress);
+        }
+    });
 
     private final ModelObserver<Message> messageObserver = new ModelObserver<Message>() {
         @Override
@@ -105,19 +115,24 @@ public class VideoMessageViewController extends MessageViewController implements
     private final ModelObserver<ProgressIndicator> progressIndicatorObserver = new ModelObserver<ProgressIndicator>() {
         @Override
         public void updated(ProgressIndicator progressIndicator) {
-            Timber.i("ProgressIndicator state: %s, indefinite: %b", progressIndicator.getState(), progressIndicator.isIndefinite());
+            if (progressIndicator.getState() != progressState) {
+                progressState = progressIndicator.getState();
+                Timber.i("ProgressIndicator state: %s, indefinite: %b", progressIndicator.getState(), progressIndicator.isIndefinite());
+            }
             switch (progressIndicator.getState()) {
                 case CANCELLED:
                 case FAILED:
                 case COMPLETED:
+                    progressThrottle.cancel();
                     actionButton.clearProgress();
                     break;
                 case RUNNING:
                     if (progressIndicator.isIndefinite()) {
+                        progressThrottle.cancel();
                         actionButton.startEndlessProgress();
                     } else {
                         float progress = progressIndicator.getTotalSize() == 0 ? 0 : (float) progressIndicator.getProgress() / (float) progressIndicator.getTotalSize();
-                        actionButton.setProgress(progress);
+                        progressThrottle.setProgress(progress);
                     }
                     break;
                 case UNKNOWN:
@@ -218,12 +233,15 @@ public class VideoMessageViewController extends MessageViewController implements
         messageObserver.clear();
         assetObserver.clear();
         progressIndicatorObserver.clear();
+        progressThrottle.cancel();
+        progressState = null;
         placeHolderDots.setExpired(false);
         imageAssetModelObserver.clear();
         actionButton.clearProgress();
         previewImage.setImageResource(R.drawable.shape_video_message_no_preview);
         previewImage.setVisibility(VISIBLE);
         videoInfoText.setText("");
+        videoInfo = null;
         videoInfoText.setBackground(null);
         if (previewImageLoadHandle != null) {
             previewImageLoadHandle.cancel();
@@ -319,19 +337,22 @@ public class VideoMessageViewController extends MessageViewController implements
         actionButton.setText(action);
         actionButton.setBackground(background);
         if (progressIndicator == null) {
+            progressThrottle.cancel();
             actionButton.clearProgress();
             progressIndicatorObserver.clear();
         } else {
             progressIndicatorObserver.addAndUpdate(progressIndicator);
         }
 
-        StringBuilder info = new StringBuilder(StringUtils.formatTimeSeconds(asset.getDuration().getSeconds()));
+        String info = MediaLabelCache.formatDuration(asset.getDuration().getSeconds());
         long size = asset.getSizeInBytes();
         if (size > 0 && asset.getStatus() != AssetStatus.DOWNLOAD_DONE) {
-            info.append(INFO_DIVIDER)
-                .append(Formatter.formatFileSize(context, asset.getSizeInBytes()));
+            info = info + INFO_DIVIDER + MediaLabelCache.formatFileSize(context, size);
+        }
+        if (!info.equals(videoInfo)) {
+            videoInfo = info;
+            videoInfoText.setText(info);
         }
-        videoInfoText.setText(info.toString());
     }
 
 
@@ -20,8 +20,6 @@ package com.waz.zclient.pages.main.conversation.views.row.separator;
 import android.content.Context;
 import android.content.res.Resources;
 import android.graphics.Color;
-import android.graphics.drawable.BitmapDrawable;
-import android.graphics.drawable.Drawable;
 import android.text.format.DateFormat;
 import android.view.View;
 import android.widget.ImageView;
@@ -35,7 +33,7 @@ import com.waz.zclient.pages.main.conversation.views.row.message.ConversationIte
 import com.waz.zclient.pages.main.participants.dialog.DialogLaunchMode;
 import com.waz.zclient.ui.text.TypefaceTextView;
 import com.waz.zclient.ui.theme.ThemeUtils;
-import com.waz.zclient.ui.utils.BitmapUtils;
+import com.waz.zclient.ui.utils.UnreadMarkerDrawable;
 import com.waz.zclient.utils.DateConvertUtils;
 import com.waz.zclient.utils.ViewUtils;
 import com.waz.zclient.utils.ZTimeFormatter;
@@ -58,6 +56,7 @@ public class SeparatorViewController implements ConversationItemViewController,
     private View messageRecalledGlyph;
     private View messageEditedGlyph;
     private ImageView unreadDot;
+    private UnreadMarkerDrawable unreadDotDrawable;
     private ChatheadImageView userChatheadImageView;
     private View userLayout;
 
@@ -299,15 +298,16 @@ public class SeparatorViewController implements ConversationItemViewController,
 
     private void setUnreadDot(Separator separator) {
         if (SeparatorRules.shouldHaveUnreadDot(separator, messageViewsContainer.getUnreadMessageCount())) {
-            int radius = resources.getDimensionPixelSize(R.dimen.conversation__unread_dot__radius);
-            int width = resources.getDimensionPixelSize(R.dimen.list_menu_unread_width);
-
-            Drawable dotDrawable = new BitmapDrawable(resources,
-                                                      BitmapUtils.getUnreadMarker(width,
-                                                                                  radius,
-                                                                                  messageViewsContainer.getControllerFactory().getAccentColorController().getColor()));
+            int color = messageViewsContainer.getControllerFactory().getAccentColorController().getColor();
+            if (unreadDotDrawable == null) {
+                int radius = resources.getDimensionPixelSize(R.dimen.conversation__unread_dot__radius);
+                int width = resources.getDimensionPixelSize(R.dimen.list_menu_unread_width);
+                unreadDotDrawable = new UnreadMarkerDrawable(width, radius, color);
+                unreadDot.setImageDrawable(unreadDotDrawable);
+            } else {
+                unreadDotDrawable.setColor(color);
+            }
             unreadDot.setVisibility(View.VISIBLE);
-            unreadDot.setImageDrawable(dotDrawable);
         } else {
             unreadDot.setVisibility(View.GONE);
         }
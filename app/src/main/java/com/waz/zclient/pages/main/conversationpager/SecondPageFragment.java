@@ -46,7 +46,9 @@ import com.waz.zclient.pages.main.connect.ConnectRequestInboxManagerFragment;
 import com.waz.zclient.pages.main.connect.ConnectRequestLoadMode;
 import com.waz.zclient.pages.main.connect.PendingConnectRequestManagerFragment;
 import com.waz.zclient.pages.main.conversation.ConversationManagerFragment;
+import com.waz.zclient.ui.theme.ThemedViews;
 import com.waz.zclient.ui.utils.MathUtils;
+import com.waz.zclient.utils.ViewUtils;
 import timber.log.Timber;
 
 public class SecondPageFragment extends BaseFragment<SecondPageFragment.Container> implements OnBackPressedListener,
@@ -94,7 +96,10 @@ public class SecondPageFragment extends BaseFragment<SecondPageFragment.Containe
             int pos = savedInstanceState.getInt(SECOND_PAGE_POSITION);
             currentPage = Page.values()[pos];
         }
-        return inflater.inflate(R.layout.fragment_pager_second, container, false);
+        View view = inflater.inflate(R.layout.fragment_pager_second, container, false);
+        getControllerFactory().getThemeController().getThemedViews().register(ViewUtils.getView(view, R.id.fl__second_page_container),
+                                                                             ThemedViews.styleBackground(R.attr.wireBackground));
+        return view;
     }
 
     @Override
@@ -119,6 +124,7 @@ public class SecondPageFragment extends BaseFragment<SecondPageFragment.Containe
 
     @Override
     public void onDestroyView() {
+        getControllerFactory().getThemeController().getThemedViews().unregisterAll(getView());
         if (selectedConversation != null) {
             selectedConversation.removeUpdateListener(this);
         }
@@ -0,0 +1,67 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversationpager;
+
+import android.graphics.ColorFilter;
+import android.graphics.PorterDuff;
+import android.graphics.PorterDuffColorFilter;
+
+/**
+ * The dim filters of one fade color for every slide fraction.
+ *
+ * A fraction maps to one of the alpha levels of the fade color, each level's filter is created once and
+ * reused, so dimming a pane while it slides doesn't allocate.
+ */
+final class SlideDimRamp {
+
+    private final int fadeColor;
+    private final PorterDuffColorFilter[] filters;
+
+    SlideDimRamp(int fadeColor) {
+        this.fadeColor = fadeColor;
+        this.filters = new PorterDuffColorFilter[(fadeColor >>> 24) + 1];
+    }
+
+    int getFadeColor() {
+        return fadeColor;
+    }
+
+    /**
+     * @return the filter for the fraction in [0, 1], null if it doesn't dim
+     */
+    ColorFilter getFilter(float fraction) {
+        int alpha = alphaFor(fadeColor, fraction);
+        if (alpha == 0) {
+            return null;
+        }
+        PorterDuffColorFilter filter = filters[alpha];
+        if (filter == null) {
+            filter = new PorterDuffColorFilter(alpha << 24 | (fadeColor & 0xffffff), PorterDuff.Mode.SRC_OVER);
+            filters[alpha] = filter;
+        }
+        return filter;
+    }
+
+    static int alphaFor(int fadeColor, float fraction) {
+        if (fraction <= 0) {
+            return 0;
+        }
+        int baseAlpha = fadeColor >>> 24;
+        return fraction >= 1 ? baseAlpha : (int) (baseAlpha * fraction);
+    }
+}
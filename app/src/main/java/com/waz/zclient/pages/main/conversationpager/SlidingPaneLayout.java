@@ -40,10 +40,9 @@ import android.content.res.Configuration;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
+import android.graphics.ColorFilter;
 import android.graphics.Paint;
 import android.graphics.PixelFormat;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffColorFilter;
 import android.graphics.Rect;
 import android.graphics.drawable.Drawable;
 import android.os.Build;
@@ -133,6 +132,7 @@ public class SlidingPaneLayout extends ViewGroup {
      * The fade color used for the sliding panel. 0 = no fading.
      */
     private int sliderFadeColor = DEFAULT_FADE_COLOR;
+    private SlideDimRamp sliderDimRamp = new SlideDimRamp(DEFAULT_FADE_COLOR);
 
     /**
      * Minimum velocity that will be detected as a fling
@@ -143,6 +143,7 @@ public class SlidingPaneLayout extends ViewGroup {
      * The fade color used for the panel covered by the slider. 0 = no fading.
      */
     private int coveredFadeColor;
+    private SlideDimRamp coveredDimRamp = new SlideDimRamp(0);
 
     /**
      * Drawable used to draw the shadow between panes by default.
@@ -183,6 +184,11 @@ public class SlidingPaneLayout extends ViewGroup {
      */
     private float parallaxOffset;
 
+    /**
+     * True while a drag or settle holds the dimmed panes on hardware layers.
+     */
+    private boolean layersPromoted;
+
     /**
      * How far in pixels the slideable panel may move.
      */
@@ -303,6 +309,9 @@ public class SlidingPaneLayout extends ViewGroup {
      */
     public void setSliderFadeColor(int color) {
         sliderFadeColor = color;
+        if (sliderDimRamp.getFadeColor() != color) {
+            sliderDimRamp = new SlideDimRamp(color);
+        }
     }
 
     /**
@@ -320,6 +329,9 @@ public class SlidingPaneLayout extends ViewGroup {
      */
     public void setCoveredFadeColor(int color) {
         coveredFadeColor = color;
+        if (coveredDimRamp.getFadeColor() != color) {
+            coveredDimRamp = new SlideDimRamp(color);
+        }
     }
 
     /**
@@ -435,10 +447,11 @@ public class SlidingPaneLayout extends ViewGroup {
     protected void onDetachedFromWindow() {
         super.onDetachedFromWindow();
         firstLayout = true;
+        layersPromoted = false;
 
-        for (int i = 0, count = postedRunnables.size(); i < count; i++) {
-            final DisableLayerRunnable dlr = postedRunnables.get(i);
-            dlr.run();
+        // Running a runnable removes it from the list
+        for (int i = postedRunnables.size() - 1; i >= 0; i--) {
+            postedRunnables.get(i).run();
         }
         postedRunnables.clear();
     }
@@ -704,7 +717,7 @@ public class SlidingPaneLayout extends ViewGroup {
                 xStart += pos + lpMargin;
                 slideOffset = (float) pos / slideRange;
             } else if (canSlide && parallaxBy != 0) {
-                offset = (int) ((1 - slideOffset) * parallaxBy);
+                offset = parallaxPixels(slideOffset);
                 xStart = nextXStart;
             } else {
                 xStart = nextXStart;
@@ -733,12 +746,12 @@ public class SlidingPaneLayout extends ViewGroup {
                     parallaxOtherViews(slideOffset);
                 }
                 if (((LayoutParams) slideableView.getLayoutParams()).dimWhenOffset) {
-                    dimChildView(slideableView, slideOffset, sliderFadeColor);
+                    dimChildView(slideableView, slideOffset, sliderDimRamp);
                 }
             } else {
                 // Reset the dim level of all children; it's irrelevant when nothing moves.
                 for (int i = 0; i < childCount; i++) {
-                    dimChildView(getChildAt(i), 0, sliderFadeColor);
+                    dimChildView(getChildAt(i), 0, sliderDimRamp);
                 }
             }
             updateObscuredViewsVisibility(slideableView);
@@ -971,36 +984,107 @@ public class SlidingPaneLayout extends ViewGroup {
         }
 
         if (lp.dimWhenOffset) {
-            dimChildView(slideableView, slideOffset, sliderFadeColor);
+            dimChildView(slideableView, slideOffset, sliderDimRamp);
         }
         dispatchOnPanelSlide(slideableView);
     }
 
-    private void dimChildView(View v, float mag, int fadeColor) {
+    /**
+     * Keeps the panes that may be dimmed on hardware layers from the start of a drag until it settles,
+     * so every frame of the drag only swaps the layer paint's filter.
+     */
+    private void promoteLayers() {
+        if (layersPromoted || !isDimmingEnabled || slideableView == null) {
+            return;
+        }
+        layersPromoted = true;
+        final LayoutParams slideLp = (LayoutParams) slideableView.getLayoutParams();
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            final View child = getChildAt(i);
+            final boolean dims = child == slideableView ?
+                                 slideLp.dimWhenOffset && sliderFadeColor != 0 :
+                                 parallaxBy != 0 && slideLp.dimWhenOffset && coveredFadeColor != 0;
+            if (!dims) {
+                continue;
+            }
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (lp.dimPaint == null) {
+                lp.dimPaint = new Paint();
+            }
+            cancelLayerDisable(lp);
+            if (ViewCompat.getLayerType(child) != ViewCompat.LAYER_TYPE_HARDWARE) {
+                ViewCompat.setLayerType(child, ViewCompat.LAYER_TYPE_HARDWARE, lp.dimPaint);
+            }
+        }
+    }
+
+    /**
+     * Drops the layers of the panes that came to rest undimmed, dimmed panes keep theirs.
+     */
+    private void demoteLayers() {
+        if (!layersPromoted) {
+            return;
+        }
+        layersPromoted = false;
+        for (int i = 0, childCount = getChildCount(); i < childCount; i++) {
+            final View child = getChildAt(i);
+            final LayoutParams lp = (LayoutParams) child.getLayoutParams();
+            if (lp.dimFilter == null && ViewCompat.getLayerType(child) != ViewCompat.LAYER_TYPE_NONE) {
+                scheduleLayerDisable(child, lp);
+            }
+        }
+    }
+
+    private void dimChildView(View v, float mag, SlideDimRamp ramp) {
         if (!isDimmingEnabled) {
             return;
         }
         final LayoutParams lp = (LayoutParams) v.getLayoutParams();
+        final ColorFilter filter = ramp.getFilter(mag);
 
-        if (mag > 0 && fadeColor != 0) {
-            final int baseAlpha = (fadeColor & 0xff000000) >>> 24;
-            int imag = (int) (baseAlpha * mag);
-            int color = imag << 24 | (fadeColor & 0xffffff);
+        if (filter != null) {
             if (lp.dimPaint == null) {
                 lp.dimPaint = new Paint();
             }
-            lp.dimPaint.setColorFilter(new PorterDuffColorFilter(color, PorterDuff.Mode.SRC_OVER));
-            if (ViewCompat.getLayerType(v) != ViewCompat.LAYER_TYPE_HARDWARE) {
+            cancelLayerDisable(lp);
+            final boolean promote = ViewCompat.getLayerType(v) != ViewCompat.LAYER_TYPE_HARDWARE;
+            if (filter == lp.dimFilter && !promote) {
+                // Same dim level as the last frame
+                return;
+            }
+            lp.dimFilter = filter;
+            lp.dimPaint.setColorFilter(filter);
+            if (promote) {
                 ViewCompat.setLayerType(v, ViewCompat.LAYER_TYPE_HARDWARE, lp.dimPaint);
             }
             invalidateChildRegion(v);
-        } else if (ViewCompat.getLayerType(v) != ViewCompat.LAYER_TYPE_NONE) {
-            if (lp.dimPaint != null) {
+        } else if (lp.dimFilter != null || ViewCompat.getLayerType(v) != ViewCompat.LAYER_TYPE_NONE) {
+            if (lp.dimPaint != null && lp.dimFilter != null) {
+                lp.dimFilter = null;
                 lp.dimPaint.setColorFilter(null);
             }
-            final DisableLayerRunnable dlr = new DisableLayerRunnable(v);
-            postedRunnables.add(dlr);
-            ViewCompat.postOnAnimation(this, dlr);
+            if (layersPromoted) {
+                // The layer stays until the drag settles
+                invalidateChildRegion(v);
+            } else {
+                scheduleLayerDisable(v, lp);
+            }
+        }
+    }
+
+    private void scheduleLayerDisable(View v, LayoutParams lp) {
+        if (lp.disableLayerRunnable == null || lp.disableLayerRunnable.childView != v) {
+            lp.disableLayerRunnable = new DisableLayerRunnable(v);
+        }
+        if (!postedRunnables.contains(lp.disableLayerRunnable)) {
+            postedRunnables.add(lp.disableLayerRunnable);
+            ViewCompat.postOnAnimation(this, lp.disableLayerRunnable);
+        }
+    }
+
+    private void cancelLayerDisable(LayoutParams lp) {
+        if (lp.disableLayerRunnable != null && postedRunnables.remove(lp.disableLayerRunnable)) {
+            removeCallbacks(lp.disableLayerRunnable);
         }
     }
 
@@ -1203,27 +1287,34 @@ public class SlidingPaneLayout extends ViewGroup {
         final LayoutParams slideLp = (LayoutParams) slideableView.getLayoutParams();
         final boolean dimViews = slideLp.dimWhenOffset &&
                 (isLayoutRtl ? slideLp.rightMargin : slideLp.leftMargin) <= 0;
+
+        // All covered panes move by the same distance and share one dim level
+        final int dx = parallaxPixels(parallaxOffset) - parallaxPixels(slideOffset);
+        parallaxOffset = slideOffset;
+        final float dim = isLayoutRtl ? parallaxOffset - 1 : 1 - parallaxOffset;
+
         final int childCount = getChildCount();
         for (int i = 0; i < childCount; i++) {
             final View v = getChildAt(i);
             if (v == slideableView) {
                 continue;
             }
-
-            final int oldOffset = (int) ((1 - parallaxOffset) * parallaxBy);
-            parallaxOffset = slideOffset;
-            final int newOffset = (int) ((1 - slideOffset) * parallaxBy);
-            final int dx = oldOffset - newOffset;
-
-            v.offsetLeftAndRight(isLayoutRtl ? -dx : dx);
-
+            if (dx != 0) {
+                v.offsetLeftAndRight(isLayoutRtl ? -dx : dx);
+            }
             if (dimViews) {
-                dimChildView(v, isLayoutRtl ? parallaxOffset - 1 :
-                        1 - parallaxOffset, coveredFadeColor);
+                dimChildView(v, dim, coveredDimRamp);
             }
         }
     }
 
+    /**
+     * How far in pixels the covered panes are parallaxed at the slide offset.
+     */
+    private int parallaxPixels(float slideOffset) {
+        return (int) ((1 - slideOffset) * parallaxBy);
+    }
+
     /**
      * Tests scrollability within child views of v given a delta of dx.
      *
@@ -1332,7 +1423,11 @@ public class SlidingPaneLayout extends ViewGroup {
 
         @Override
         public void onViewDragStateChanged(int state) {
+            if (state != ViewDragHelper.STATE_IDLE) {
+                promoteLayers();
+            }
             if (dragHelper.getViewDragState() == ViewDragHelper.STATE_IDLE) {
+                demoteLayers();
                 if (MathUtils.floatEqual(slideOffset, 0f)) {
                     updateObscuredViewsVisibility(slideableView);
                     dispatchOnPanelClosed(slideableView);
@@ -1438,6 +1533,13 @@ public class SlidingPaneLayout extends ViewGroup {
 
         Paint dimPaint;
 
+        /**
+         * The filter currently set on {@link #dimPaint}, null if the view isn't dimmed.
+         */
+        ColorFilter dimFilter;
+
+        DisableLayerRunnable disableLayerRunnable;
+
         public LayoutParams() {
             super(FILL_PARENT, FILL_PARENT);
         }
@@ -1570,7 +1672,9 @@ public class SlidingPaneLayout extends ViewGroup {
 
         @Override
         public void run() {
-            if (childView.getParent() == SlidingPaneLayout.this) {
+            // Dimmed again since this was posted
+            if (childView.getParent() == SlidingPaneLayout.this &&
+                ((LayoutParams) childView.getLayoutParams()).dimFilter == null) {
                 ViewCompat.setLayerType(childView, ViewCompat.LAYER_TYPE_NONE, null);
                 invalidateChildRegion(childView);
             }
@@ -0,0 +1,114 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.giphy;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hands decoded GIF frames to the playing cells within an aggregate frame budget.
+ *
+ * Cells hold on to their latest decoded frame; on each vsync the dispatcher lets cells draw it in
+ * round-robin order while the budget lasts, so no cell starves and frames that arrive faster than
+ * the budget allows are simply replaced by newer ones.
+ */
+class GifFrameDispatcher {
+
+    interface Cell {
+        boolean hasPendingFrame();
+
+        void drawPendingFrame();
+    }
+
+    private static final float NANOS_PER_SECOND = 1000 * 1000 * 1000f;
+
+    private final List<Cell> cells = new ArrayList<>();
+    private final int maxFramesPerVsync;
+    private float framesPerNano;
+    private float budget;
+    private long lastFrameTimeNanos;
+    private int cursor;
+
+    GifFrameDispatcher(int framesPerSecond, int maxFramesPerVsync) {
+        this.maxFramesPerVsync = maxFramesPerVsync;
+        setFramesPerSecond(framesPerSecond);
+    }
+
+    void setFramesPerSecond(int framesPerSecond) {
+        framesPerNano = framesPerSecond / NANOS_PER_SECOND;
+    }
+
+    void add(Cell cell) {
+        cells.add(cell);
+    }
+
+    boolean remove(Cell cell) {
+        int index = cells.indexOf(cell);
+        if (index < 0) {
+            return false;
+        }
+        cells.remove(index);
+        if (cursor > index) {
+            cursor--;
+        }
+        return true;
+    }
+
+    boolean contains(Cell cell) {
+        return cells.contains(cell);
+    }
+
+    List<Cell> getCells() {
+        return cells;
+    }
+
+    /**
+     * Draws as many pending frames as the budget allows.
+     *
+     * @return true if some cell still has a frame to draw and another vsync is needed
+     */
+    boolean dispatch(long frameTimeNanos) {
+        if (lastFrameTimeNanos == 0) {
+            budget = 1;
+        } else {
+            // Idle time only ever adds up to one vsync's worth of frames
+            budget = Math.min(maxFramesPerVsync, budget + (frameTimeNanos - lastFrameTimeNanos) * framesPerNano);
+        }
+        lastFrameTimeNanos = frameTimeNanos;
+
+        int count = cells.size();
+        boolean pending = false;
+        int next = cursor;
+        for (int i = 0; i < count; i++) {
+            int index = (cursor + i) % count;
+            Cell cell = cells.get(index);
+            if (!cell.hasPendingFrame()) {
+                continue;
+            }
+            if (budget < 1) {
+                pending = true;
+                continue;
+            }
+            cell.drawPendingFrame();
+            budget--;
+            next = index + 1;
+        }
+        cursor = count == 0 ? 0 : next % count;
+        return pending;
+    }
+}
@@ -0,0 +1,203 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.giphy;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.Choreographer;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decides which cells of the Giphy grid animate and when their frames are drawn.
+ *
+ * Only cells that are completely inside the grid play; all others show their first frame. Decoded
+ * frames are drawn on vsync through a {@link GifFrameDispatcher}, with a lower aggregate frame rate
+ * while the grid scrolls so that scrolling keeps its frame budget.
+ */
+public class GifPlaybackScheduler {
+
+    public interface PlaybackCell extends GifFrameDispatcher.Cell {
+        void setPlaying(boolean playing);
+    }
+
+    private static final int IDLE_FRAMES_PER_SECOND = 60;
+    private static final int SCROLLING_FRAMES_PER_SECOND = 20;
+    private static final int MAX_FRAMES_PER_VSYNC = 2;
+
+    private final GifFrameDispatcher dispatcher = new GifFrameDispatcher(IDLE_FRAMES_PER_SECOND, MAX_FRAMES_PER_VSYNC);
+    private final List<PlaybackCell> fullyVisible = new ArrayList<>();
+    private final List<GifFrameDispatcher.Cell> stopped = new ArrayList<>();
+
+    private RecyclerView recyclerView;
+    private boolean paused;
+    private boolean framePosted;
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            framePosted = false;
+            if (!paused && dispatcher.dispatch(frameTimeNanos)) {
+                postFrame();
+            }
+        }
+    };
+
+    private final RecyclerView.OnScrollListener scrollListener = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            dispatcher.setFramesPerSecond(newState == RecyclerView.SCROLL_STATE_IDLE ? IDLE_FRAMES_PER_SECOND
+                                                                                     : SCROLLING_FRAMES_PER_SECOND);
+        }
+
+        @Override
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
+            updatePlayingCells();
+        }
+    };
+
+    private final RecyclerView.OnChildAttachStateChangeListener childAttachListener = new RecyclerView.OnChildAttachStateChangeListener() {
+        @Override
+        public void onChildViewAttachedToWindow(View view) {
+            // Picked up by the next layout
+        }
+
+        @Override
+        public void onChildViewDetachedFromWindow(View view) {
+            RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(view);
+            if (holder instanceof PlaybackCell && dispatcher.remove((PlaybackCell) holder)) {
+                ((PlaybackCell) holder).setPlaying(false);
+            }
+        }
+    };
+
+    private final ViewTreeObserver.OnGlobalLayoutListener layoutListener = new ViewTreeObserver.OnGlobalLayoutListener() {
+        @Override
+        public void onGlobalLayout() {
+            updatePlayingCells();
+        }
+    };
+
+    public void attach(RecyclerView recyclerView) {
+        detach();
+        this.recyclerView = recyclerView;
+        recyclerView.addOnScrollListener(scrollListener);
+        recyclerView.addOnChildAttachStateChangeListener(childAttachListener);
+        recyclerView.getViewTreeObserver().addOnGlobalLayoutListener(layoutListener);
+    }
+
+    public void detach() {
+        if (recyclerView == null) {
+            return;
+        }
+        stopAll();
+        recyclerView.removeOnScrollListener(scrollListener);
+        recyclerView.removeOnChildAttachStateChangeListener(childAttachListener);
+        recyclerView.getViewTreeObserver().removeOnGlobalLayoutListener(layoutListener);
+        recyclerView = null;
+    }
+
+    /**
+     * Stops all cells, e.g. while the grid is hidden behind the preview.
+     */
+    public void setPaused(boolean paused) {
+        if (this.paused == paused) {
+            return;
+        }
+        this.paused = paused;
+        if (paused) {
+            stopAll();
+        } else {
+            updatePlayingCells();
+        }
+    }
+
+    /**
+     * Called by a playing cell when it has a new frame to draw.
+     */
+    public void onFrameAvailable() {
+        if (!paused) {
+            postFrame();
+        }
+    }
+
+    private void postFrame() {
+        if (framePosted) {
+            return;
+        }
+        framePosted = true;
+        Choreographer.getInstance().postFrameCallback(frameCallback);
+    }
+
+    private void updatePlayingCells() {
+        if (recyclerView == null || paused) {
+            return;
+        }
+        int top = recyclerView.getPaddingTop();
+        int bottom = recyclerView.getHeight() - recyclerView.getPaddingBottom();
+        int left = recyclerView.getPaddingLeft();
+        int right = recyclerView.getWidth() - recyclerView.getPaddingRight();
+
+        fullyVisible.clear();
+        for (int i = 0; i < recyclerView.getChildCount(); i++) {
+            View child = recyclerView.getChildAt(i);
+            if (child.getTop() < top || child.getBottom() > bottom || child.getLeft() < left || child.getRight() > right) {
+                continue;
+            }
+            RecyclerView.ViewHolder holder = recyclerView.getChildViewHolder(child);
+            if (holder instanceof PlaybackCell) {
+                fullyVisible.add((PlaybackCell) holder);
+            }
+        }
+
+        stopped.clear();
+        for (GifFrameDispatcher.Cell cell : dispatcher.getCells()) {
+            if (!fullyVisible.contains(cell)) {
+                stopped.add(cell);
+            }
+        }
+        for (GifFrameDispatcher.Cell cell : stopped) {
+            dispatcher.remove(cell);
+            ((PlaybackCell) cell).setPlaying(false);
+        }
+        for (PlaybackCell cell : fullyVisible) {
+            if (!dispatcher.contains(cell)) {
+                dispatcher.add(cell);
+                cell.setPlaying(true);
+            }
+        }
+        stopped.clear();
+        fullyVisible.clear();
+    }
+
+    private void stopAll() {
+        stopped.clear();
+        stopped.addAll(dispatcher.getCells());
+        for (GifFrameDispatcher.Cell cell : stopped) {
+            dispatcher.remove(cell);
+            ((PlaybackCell) cell).setPlaying(false);
+        }
+        stopped.clear();
+        if (framePosted) {
+            Choreographer.getInstance().removeFrameCallback(frameCallback);
+            framePosted = false;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.giphy;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.support.v4.util.LruCache;
+import com.waz.zclient.R;
+
+/**
+ * Everything the Giphy grid cells need at bind time, resolved once per grid.
+ *
+ * Also holds the first frames of the results shown so far, shared by all grids, so cells scrolled back
+ * into view show their poster right away. The cache is bounded in bytes.
+ */
+public class GiphyGridResources {
+
+    private static final int MAX_POSTER_CACHE_BYTES = 8 * 1024 * 1024;
+
+    private static LruCache<String, Bitmap> posterCache;
+
+    private final int[] placeholderColors;
+    private final int crossfadeDuration;
+
+    public GiphyGridResources(Context context) {
+        placeholderColors = context.getResources().getIntArray(R.array.accents_color);
+        crossfadeDuration = context.getResources().getInteger(R.integer.framework_animation_duration_short);
+    }
+
+    public int getPlaceholderColor(int position) {
+        return placeholderColors[position % (placeholderColors.length - 1)];
+    }
+
+    public int getCrossfadeDuration() {
+        return crossfadeDuration;
+    }
+
+    public Bitmap getPoster(String assetId, int width) {
+        return getPosterCache().get(posterKey(assetId, width));
+    }
+
+    public void putPoster(String assetId, int width, Bitmap poster) {
+        getPosterCache().put(posterKey(assetId, width), poster);
+    }
+
+    private static String posterKey(String assetId, int width) {
+        return assetId + '@' + width;
+    }
+
+    private static synchronized LruCache<String, Bitmap> getPosterCache() {
+        if (posterCache == null) {
+            int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, MAX_POSTER_CACHE_BYTES);
+            posterCache = new LruCache<String, Bitmap>(maxBytes) {
+                @Override
+                protected int sizeOf(String key, Bitmap value) {
+                    return value.getByteCount();
+                }
+            };
+        }
+        return posterCache;
+    }
+}
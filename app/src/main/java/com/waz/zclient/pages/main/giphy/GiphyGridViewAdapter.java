@@ -38,19 +38,30 @@ import com.waz.zclient.utils.ViewUtils;
 public class GiphyGridViewAdapter extends RecyclerView.Adapter<GiphyGridViewAdapter.ViewHolder> {
 
     private ScrollGifCallback scrollGifCallback;
-    private Context context;
+    private final Context context;
+    private final GiphyGridResources resources;
+    private final GifPlaybackScheduler playbackScheduler;
     private GiphyResults giphyResults;
 
 
-    public GiphyGridViewAdapter(Context context) {
+    public GiphyGridViewAdapter(Context context, GifPlaybackScheduler playbackScheduler) {
         this.context = context;
+        this.resources = new GiphyGridResources(context);
+        this.playbackScheduler = playbackScheduler;
     }
 
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         final View rootView = LayoutInflater.from(parent.getContext()).inflate(R.layout.row_giphy_image, parent, false);
 
-        return new ViewHolder(context, rootView, scrollGifCallback);
+        return new ViewHolder(context, rootView, resources, playbackScheduler, new ScrollGifCallback() {
+            @Override
+            public void setSelectedGifFromGridView(ImageAsset gifAsset) {
+                if (scrollGifCallback != null) {
+                    scrollGifCallback.setSelectedGifFromGridView(gifAsset);
+                }
+            }
+        });
     }
 
     public void setScrollGifCallback(ScrollGifCallback scrollGifCallback) {
@@ -63,6 +74,11 @@ public class GiphyGridViewAdapter extends RecyclerView.Adapter<GiphyGridViewAdap
         holder.setImageAsset(imageAsset, position);
     }
 
+    @Override
+    public void onViewRecycled(ViewHolder holder) {
+        holder.setPlaying(false);
+    }
+
     @Override
     public int getItemCount() {
         return giphyResults != null ? giphyResults.size() : 0;
@@ -73,19 +89,65 @@ public class GiphyGridViewAdapter extends RecyclerView.Adapter<GiphyGridViewAdap
         notifyDataSetChanged();
     }
 
-    public static class ViewHolder extends RecyclerView.ViewHolder implements ImageAsset.BitmapCallback {
+    public static class ViewHolder extends RecyclerView.ViewHolder implements GifPlaybackScheduler.PlaybackCell {
 
         private final Context context;
-        private int animationDuration;
+        private final GiphyGridResources resources;
+        private final GifPlaybackScheduler playbackScheduler;
         private AspectRatioImageView gifPreview;
-        private LoadHandle bitmapLoadHandle;
+        private LoadHandle posterLoadHandle;
+        private LoadHandle animationLoadHandle;
         private ImageAsset imageAsset;
+        private int requestedWidth;
+        private boolean playing;
+        private Bitmap pendingFrame;
+
+        private final ImageAsset.BitmapCallback posterCallback = new ImageAsset.BitmapCallback() {
+            @Override
+            public void onBitmapLoaded(Bitmap bitmap, boolean isPreview) {
+                if (!isPreview) {
+                    resources.putPoster(imageAsset.getId(), requestedWidth, bitmap);
+                }
+                if (playing && animationLoadHandle != null) {
+                    // Frames are already on their way
+                    return;
+                }
+                final Drawable[] images = new Drawable[2];
+                images[0] = gifPreview.getDrawable();
+                images[1] = new BitmapDrawable(context.getResources(), bitmap);
+                TransitionDrawable crossfader = new TransitionDrawable(images);
+                gifPreview.setImageDrawable(crossfader);
+                crossfader.startTransition(resources.getCrossfadeDuration());
+            }
+
+            @Override
+            public void onBitmapLoadingFailed() {}
+        };
+
+        private final ImageAsset.BitmapCallback frameCallback = new ImageAsset.BitmapCallback() {
+            @Override
+            public void onBitmapLoaded(Bitmap bitmap, boolean isPreview) {
+                if (!playing || isPreview) {
+                    return;
+                }
+                // Only the latest frame is kept, the scheduler decides when it is drawn
+                pendingFrame = bitmap;
+                playbackScheduler.onFrameAvailable();
+            }
 
+            @Override
+            public void onBitmapLoadingFailed() {}
+        };
 
-        public ViewHolder(Context context, View itemView, final ScrollGifCallback scrollGifCallback) {
+        public ViewHolder(Context context,
+                          View itemView,
+                          GiphyGridResources resources,
+                          GifPlaybackScheduler playbackScheduler,
+                          final ScrollGifCallback scrollGifCallback) {
             super(itemView);
-            animationDuration = context.getResources().getInteger(R.integer.framework_animation_duration_short);
             this.context = context;
+            this.resources = resources;
+            this.playbackScheduler = playbackScheduler;
             this.gifPreview = ViewUtils.getView(itemView, R.id.iv__row_giphy_image);
             this.gifPreview.setOnClickListener(new View.OnClickListener() {
                 @Override
@@ -101,8 +163,10 @@ public class GiphyGridViewAdapter extends RecyclerView.Adapter<GiphyGridViewAdap
             if (this.imageAsset == imageAsset) {
                 return;
             }
-            if (gifPreview != null) {
-                gifPreview.setImageBitmap(null);
+            setPlaying(false);
+            if (posterLoadHandle != null) {
+                posterLoadHandle.cancel();
+                posterLoadHandle = null;
             }
             this.imageAsset = imageAsset;
             float imageAssetHeight = imageAsset.getHeight();
@@ -110,32 +174,55 @@ public class GiphyGridViewAdapter extends RecyclerView.Adapter<GiphyGridViewAdap
             if (MathUtils.floatEqual(imageAssetHeight, 0)) {
                 aspectRatio = 1f;
             }
-            int[] colorArray = context.getResources().getIntArray(R.array.accents_color);
-            gifPreview.setImageDrawable(new ColorDrawable(colorArray[position % (colorArray.length - 1)]));
             gifPreview.setAspectRatio(aspectRatio);
-            if (bitmapLoadHandle != null) {
-                bitmapLoadHandle.cancel();
+            requestedWidth = gifPreview.getMeasuredWidth();
+            if (requestedWidth == 0) {
+                requestedWidth = imageAsset.getWidth();
             }
-            int width = gifPreview.getMeasuredWidth();
-            if (width == 0) {
-                width = imageAsset.getWidth();
+
+            Bitmap poster = resources.getPoster(imageAsset.getId(), requestedWidth);
+            if (poster != null) {
+                gifPreview.setImageBitmap(poster);
+                return;
+            }
+            gifPreview.setImageDrawable(new ColorDrawable(resources.getPlaceholderColor(position)));
+            posterLoadHandle = imageAsset.getSingleBitmap(requestedWidth, posterCallback);
+        }
+
+        @Override
+        public void setPlaying(boolean playing) {
+            if (this.playing == playing) {
+                return;
+            }
+            this.playing = playing;
+            pendingFrame = null;
+            if (animationLoadHandle != null) {
+                animationLoadHandle.cancel();
+                animationLoadHandle = null;
+            }
+            if (imageAsset == null) {
+                return;
+            }
+            if (playing) {
+                animationLoadHandle = imageAsset.getBitmap(requestedWidth, frameCallback);
+            } else {
+                Bitmap poster = resources.getPoster(imageAsset.getId(), requestedWidth);
+                if (poster != null) {
+                    gifPreview.setImageBitmap(poster);
+                }
             }
-            bitmapLoadHandle = imageAsset.getSingleBitmap(width, this);
         }
 
         @Override
-        public void onBitmapLoaded(final Bitmap bitmap, boolean b) {
-            final Drawable[] images = new Drawable[2];
-            images[0] = gifPreview.getDrawable();
-            images[1] = new BitmapDrawable(context.getResources(), bitmap);
-            TransitionDrawable crossfader = new TransitionDrawable(images);
-            gifPreview.setImageDrawable(crossfader);
-            crossfader.startTransition(animationDuration);
-            gifPreview.setImageBitmap(bitmap);
+        public boolean hasPendingFrame() {
+            return pendingFrame != null;
         }
 
         @Override
-        public void onBitmapLoadingFailed() {}
+        public void drawPendingFrame() {
+            gifPreview.setImageBitmap(pendingFrame);
+            pendingFrame = null;
+        }
     }
 
     public interface ScrollGifCallback {
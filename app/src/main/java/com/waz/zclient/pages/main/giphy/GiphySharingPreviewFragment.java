@@ -71,6 +71,7 @@ public class GiphySharingPreviewFragment extends BaseFragment<GiphySharingPrevie
     private TextView errorView;
     private RecyclerView recyclerView;
     private GiphyGridViewAdapter giphyGridViewAdapter;
+    private GifPlaybackScheduler gifPlaybackScheduler;
     private GiphyResults giphyResults;
     private Handler giphySearchHandler;
 
@@ -157,9 +158,11 @@ public class GiphySharingPreviewFragment extends BaseFragment<GiphySharingPrevie
 
         previewImageAssetView.setShowPreview(true);
 
-        giphyGridViewAdapter = new GiphyGridViewAdapter(getActivity());
+        gifPlaybackScheduler = new GifPlaybackScheduler();
+        giphyGridViewAdapter = new GiphyGridViewAdapter(getActivity(), gifPlaybackScheduler);
         recyclerView.setLayoutManager(new StaggeredGridLayoutManager(2, StaggeredGridLayoutManager.VERTICAL));
         recyclerView.setAdapter(giphyGridViewAdapter);
+        gifPlaybackScheduler.attach(recyclerView);
 
         closeButton.setOnClickListener(this);
 
@@ -200,6 +203,7 @@ public class GiphySharingPreviewFragment extends BaseFragment<GiphySharingPrevie
         super.onStart();
         KeyboardUtils.hideKeyboard(getActivity());
         giphyGridViewAdapter.setScrollGifCallback(this);
+        gifPlaybackScheduler.setPaused(previewImageAssetView.getVisibility() == View.VISIBLE);
         getControllerFactory().getAccentColorController().addAccentColorObserver(this);
         getStoreFactory().getInAppNotificationStore().setUserSendingPicture(true);
         getStoreFactory().getNetworkStore().addNetworkStoreObserver(this);
@@ -230,6 +234,7 @@ public class GiphySharingPreviewFragment extends BaseFragment<GiphySharingPrevie
         getStoreFactory().getNetworkStore().removeNetworkStoreObserver(this);
 
         giphyGridViewAdapter.setScrollGifCallback(null);
+        gifPlaybackScheduler.setPaused(true);
         if (giphyResults != null) {
             giphyResults.removeUpdateListener(giphyResultUpdateListener);
         }
@@ -254,6 +259,8 @@ public class GiphySharingPreviewFragment extends BaseFragment<GiphySharingPrevie
         giphyTitle = null;
         confirmationMenu = null;
         foundImage = null;
+        gifPlaybackScheduler.detach();
+        gifPlaybackScheduler = null;
         recyclerView = null;
         giphyGridViewAdapter = null;
         giphyResults = null;
@@ -301,6 +308,7 @@ public class GiphySharingPreviewFragment extends BaseFragment<GiphySharingPrevie
         ViewUtils.fadeOutView(recyclerView);
         ViewUtils.fadeOutView(giphySearchEditText);
         ViewUtils.fadeOutView(errorView);
+        gifPlaybackScheduler.setPaused(true);
     }
 
     @Override
@@ -388,6 +396,7 @@ public class GiphySharingPreviewFragment extends BaseFragment<GiphySharingPrevie
         ViewUtils.fadeInView(recyclerView);
         ViewUtils.fadeInView(giphySearchEditText);
         giphySearchEditText.requestFocus();
+        gifPlaybackScheduler.setPaused(false);
     }
 
     private void sendGif() {
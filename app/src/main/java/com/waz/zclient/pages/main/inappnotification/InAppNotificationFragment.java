@@ -21,6 +21,7 @@ import android.app.Activity;
 import android.os.Bundle;
 import android.os.Handler;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.support.v4.app.Fragment;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -36,6 +37,7 @@ import com.waz.zclient.core.stores.conversation.ConversationChangeRequester;
 import com.waz.zclient.core.stores.conversation.OnConversationLoadedListener;
 import com.waz.zclient.core.stores.inappnotification.InAppNotificationStoreObserver;
 import com.waz.zclient.core.stores.inappnotification.KnockingEvent;
+import com.waz.zclient.core.stores.inappnotification.NotificationBundler;
 import com.waz.zclient.pages.BaseFragment;
 import com.waz.zclient.pages.main.conversationlist.ConfirmationFragment;
 import com.waz.zclient.ui.utils.MathUtils;
@@ -48,11 +50,34 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
     public static final String TAG = InAppNotificationFragment.class.getName();
 
     private Handler hideChatheadHandler;
+    private Handler showChatheadHandler;
     private boolean chatheadNotificationIsVisible;
-    private NotificationDisplayPrioritizer notificationDisplayPrioritizer;
+    private NotificationBundler<Message> notificationBundler;
     private MessageNotificationChatheadView chatheadView;
     private int chatheadVisibleDuration;
 
+    private static final NotificationBundler.Clock UPTIME_CLOCK = new NotificationBundler.Clock() {
+        @Override
+        public long now() {
+            return SystemClock.uptimeMillis();
+        }
+    };
+
+    private final Runnable showChatheadRunnable = new Runnable() {
+        @Override
+        public void run() {
+            if (notificationBundler == null || !canShowChathead()) {
+                // Leave the bundles queued, the chathead hide schedules the next poll
+                return;
+            }
+            NotificationBundler.Bundle<Message> bundle = notificationBundler.poll();
+            if (bundle != null) {
+                showChathead(bundle.getLatest());
+            }
+            scheduleNextChathead();
+        }
+    };
+
     public static InAppNotificationFragment newInstance() {
         return new InAppNotificationFragment();
     }
@@ -68,7 +93,14 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
     protected void onPostAttach(Activity activity) {
         super.onPostAttach(activity);
         hideChatheadHandler = new Handler(Looper.getMainLooper());
-        notificationDisplayPrioritizer = new NotificationDisplayPrioritizer();
+        showChatheadHandler = new Handler(Looper.getMainLooper());
+        int animationDuration = getResources().getInteger(R.integer.notification__chathead_animation__duration);
+        notificationBundler = new NotificationBundler<>(UPTIME_CLOCK,
+                                                        getResources().getInteger(R.integer.notification__timespan_messages_considered_arriving_simultaneously),
+                                                        // a new chathead only shows once the previous one is gone
+                                                        getResources().getInteger(R.integer.notification__chathead__show_duration) + 2 * animationDuration,
+                                                        getResources().getInteger(R.integer.notification__bundle__max_age),
+                                                        getResources().getInteger(R.integer.notification__bundle__backlog_size));
     }
 
     @Override
@@ -101,7 +133,11 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
             hideChatheadHandler.removeCallbacks(null);
             hideChatheadHandler = null;
         }
-        notificationDisplayPrioritizer = null;
+        if (showChatheadHandler != null) {
+            showChatheadHandler.removeCallbacks(showChatheadRunnable);
+            showChatheadHandler = null;
+        }
+        notificationBundler = null;
         super.onDestroyView();
     }
 
@@ -122,8 +158,22 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
         }
 
         IConversation currentConversation = getStoreFactory().getConversationStore().getCurrentConversation();
-        if (getStoreFactory().getInAppNotificationStore().shouldShowChatheads(currentConversation, message)) {
-            notificationDisplayPrioritizer.onNewIncomingMessage(message);
+        if (notificationBundler != null &&
+            getStoreFactory().getInAppNotificationStore().shouldShowChatheads(currentConversation, message)) {
+            getStoreFactory().getConversationStore().loadConversation(message.getConversation().getId(),
+                                                                      new OnConversationLoadedListener() {
+                @Override
+                public void onConversationLoaded(IConversation conversation) {
+                    if (notificationBundler == null) {
+                        return;
+                    }
+                    notificationBundler.offer(conversation.getId(),
+                                              conversation.getType() == IConversation.Type.ONE_TO_ONE ? NotificationBundler.PRIORITY_HIGH
+                                                                                                       : NotificationBundler.PRIORITY_NORMAL,
+                                              message);
+                    scheduleNextChathead();
+                }
+            });
         }
 
         // Play sound for incoming connect request
@@ -221,11 +271,12 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
         return false;
     }
 
+    private boolean canShowChathead() {
+        return !isDetached() && !chatheadNotificationIsVisible && chatheadView != null;
+    }
+
     private void showChathead(Message message) {
-        if (isDetached()) {
-            return;
-        }
-        if (chatheadNotificationIsVisible || chatheadView == null) {
+        if (!canShowChathead()) {
             return;
         }
 
@@ -271,6 +322,17 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
         }
     }
 
+    private void scheduleNextChathead() {
+        if (showChatheadHandler == null) {
+            return;
+        }
+        showChatheadHandler.removeCallbacks(showChatheadRunnable);
+        long deadline = notificationBundler.getNextDeadline();
+        if (deadline != NotificationBundler.NO_DEADLINE) {
+            showChatheadHandler.postAtTime(showChatheadRunnable, deadline);
+        }
+    }
+
     private void scheduleChatheadHide() {
         if (isDetached() || hideChatheadHandler == null) {
             return;
@@ -289,6 +351,7 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
                                 @Override
                                 public void run() {
                                     chatheadNotificationIsVisible = false;
+                                    scheduleNextChathead();
                                 }
                             })
                             .start();
@@ -325,65 +388,4 @@ public class InAppNotificationFragment extends BaseFragment<InAppNotificationFra
 
     public interface Container {
     }
-
-    /**
-     * Helper class to bundle messages that arrive within a given time span, at the end one is shown
-     * Priority order: 1:1 conversation messages over group, newer messages over older ones.
-     */
-    private class NotificationDisplayPrioritizer {
-        private Message currentNextMessage;
-        private Message newIncomingMessage;
-        private IConversation.Type currentNextMessageConversationType;
-        private Handler showMessageHandler;
-
-        private Runnable showChatheadRunnable = new Runnable() {
-            public void run() {
-                showChathead(currentNextMessage);
-                reset();
-            }
-        };
-
-        private OnConversationLoadedListener currentNextMessageConversationListener = new OnConversationLoadedListener() {
-            @Override
-            public void onConversationLoaded(IConversation conversation) {
-                currentNextMessageConversationType = conversation.getType();
-                getStoreFactory().getConversationStore().loadConversation(newIncomingMessage.getConversation().getId(),
-                                                                  newMessageConversationListener);
-            }
-        };
-
-        private OnConversationLoadedListener newMessageConversationListener = new OnConversationLoadedListener() {
-            @Override
-            public void onConversationLoaded(IConversation conversation) {
-                IConversation.Type newIncomingMessageConversationType = conversation.getType();
-                if (currentNextMessageConversationType != IConversation.Type.ONE_TO_ONE ||
-                    newIncomingMessageConversationType != IConversation.Type.GROUP) {
-                    currentNextMessage = newIncomingMessage;
-                }
-            }
-        };
-
-        private NotificationDisplayPrioritizer() {
-            showMessageHandler = new Handler();
-        }
-
-        public void onNewIncomingMessage(Message newIncomingMessage) {
-            if (currentNextMessage == null) {
-                currentNextMessage = newIncomingMessage;
-                showMessageHandler.removeCallbacksAndMessages(null);
-                showMessageHandler.postDelayed(showChatheadRunnable,
-                                               getResources().getInteger(R.integer.notification__timespan_messages_considered_arriving_simultaneously));
-            } else {
-                this.newIncomingMessage = newIncomingMessage;
-                getStoreFactory().getConversationStore().loadConversation(currentNextMessage.getConversation().getId(),
-                                                                  currentNextMessageConversationListener);
-            }
-        }
-
-        public void reset() {
-            currentNextMessage = null;
-            currentNextMessageConversationType = null;
-            newIncomingMessage = null;
-        }
-    }
 }
@@ -20,13 +20,12 @@ package com.waz.zclient.pages.main.participants;
 import android.os.Bundle;
 import android.os.Handler;
 import android.support.v4.app.Fragment;
+import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.animation.AlphaAnimation;
 import android.view.animation.Animation;
-import android.widget.AbsListView;
-import android.widget.AdapterView;
 import android.widget.LinearLayout;
 import com.waz.api.CommonConnections;
 import com.waz.api.IConversation;
@@ -66,7 +65,7 @@ public class ParticipantBodyFragment extends BaseFragment<ParticipantBodyFragmen
                                                                                    ConversationScreenControllerObserver,
                                                                                    ParticipantsStoreObserver,
                                                                                    AccentColorObserver,
-                                                                                   AdapterView.OnItemClickListener,
+                                                                                   ParticipantsChatheadAdapter.Callback,
                                                                                    ConnectStoreObserver {
     public static final String TAG = ParticipantBodyFragment.class.getName();
     private static final String ARG_USER_REQUESTER = "ARG_USER_REQUESTER";
@@ -133,12 +132,11 @@ public class ParticipantBodyFragment extends BaseFragment<ParticipantBodyFragmen
 
         participantsAdapter = new ParticipantsChatheadAdapter();
         participantsGridView = ViewUtils.getView(view, R.id.pgv__participants);
-        participantsGridView.setAdapter(participantsAdapter);
-        participantsGridView.setOnItemClickListener(this);
-        participantsGridView.setSelector(getResources().getDrawable(R.drawable.transparent));
-        participantsGridView.setOnScrollListener(participantsGridOnScrollListener);
         numberOfColumns = getResources().getInteger(R.integer.participant_column__count);
         participantsGridView.setNumColumns(numberOfColumns);
+        participantsAdapter.setCallback(this);
+        participantsGridView.setAdapter(participantsAdapter);
+        participantsGridView.addOnScrollListener(participantsGridOnScrollListener);
 
         // Hide footer until conversation is loaded
         footerMenu.setVisibility(View.GONE);
@@ -198,8 +196,7 @@ public class ParticipantBodyFragment extends BaseFragment<ParticipantBodyFragmen
     //////////////////////////////////////////////////////////////////////////////////////////
 
     @Override
-    public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
-        User user = participantsAdapter.getItem(position);
+    public void onUserClicked(User user) {
         getControllerFactory().getConversationScreenController().showUser(user);
     }
 
@@ -462,23 +459,23 @@ public class ParticipantBodyFragment extends BaseFragment<ParticipantBodyFragmen
     //
     //////////////////////////////////////////////////////////////////////////////////////////
 
-    private AbsListView.OnScrollListener participantsGridOnScrollListener = new AbsListView.OnScrollListener() {
+    private RecyclerView.OnScrollListener participantsGridOnScrollListener = new RecyclerView.OnScrollListener() {
 
-        int currentScrollState = SCROLL_STATE_IDLE;
+        int currentScrollState = RecyclerView.SCROLL_STATE_IDLE;
 
         @Override
-        public void onScrollStateChanged(AbsListView absListView, int i) {
-            currentScrollState = i;
+        public void onScrollStateChanged(RecyclerView recyclerView, int newState) {
+            currentScrollState = newState;
         }
 
         @Override
-        public void onScroll(AbsListView absListView, int firstVisibleItem, int visibleItemCount, int totalItemCount) {
+        public void onScrolled(RecyclerView recyclerView, int dx, int dy) {
 
-            if (currentScrollState != SCROLL_STATE_IDLE) {
+            if (currentScrollState != RecyclerView.SCROLL_STATE_IDLE) {
 
                 boolean scrolledToBottom = false;
 
-                if (firstVisibleItem + visibleItemCount == totalItemCount) {
+                if (participantsGridView.getLastVisiblePosition() == participantsAdapter.getItemCount() - 1) {
                     scrolledToBottom = lastParticipantAboveFooter();
                 }
 
@@ -493,16 +490,21 @@ public class ParticipantBodyFragment extends BaseFragment<ParticipantBodyFragmen
             return false;
         }
 
-        if (participantsGridView.getLastVisiblePosition() < participantsGridView.getCount() - 1) {
+        final int lastVisiblePosition = participantsGridView.getLastVisiblePosition();
+        if (lastVisiblePosition == RecyclerView.NO_POSITION) {
+            return true;
+        }
+
+        if (lastVisiblePosition < participantsAdapter.getItemCount() - 1) {
             return false;
         }
 
-        final int lastViewIndex = participantsGridView.getLastVisiblePosition() - participantsGridView.getFirstVisiblePosition();
-        if (lastViewIndex == -1) {
+        View lastView = participantsGridView.getViewForPosition(lastVisiblePosition);
+        if (lastView == null) {
             return true;
         }
 
-        int lastItemBottom = participantsGridView.getChildAt(lastViewIndex).getBottom();
+        int lastItemBottom = lastView.getBottom();
         int footerTop = footerWrapper.getTop();
 
         return lastItemBottom <= footerTop;
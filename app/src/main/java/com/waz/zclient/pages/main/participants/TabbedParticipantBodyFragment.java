@@ -45,6 +45,8 @@ import com.waz.zclient.pages.main.conversation.controller.IConversationScreenCon
 import com.waz.zclient.pages.main.participants.views.ParticipantDetailsTab;
 import com.waz.zclient.pages.main.participants.views.ParticipantOtrDeviceAdapter;
 import com.waz.zclient.pages.main.participants.views.TabbedParticipantPagerAdapter;
+import com.waz.zclient.ui.theme.ThemeAttributes;
+import com.waz.zclient.ui.theme.ThemedViews;
 import com.waz.zclient.ui.views.tab.TabIndicatorLayout;
 import com.waz.zclient.utils.ViewUtils;
 import com.waz.zclient.views.menus.FooterMenuCallback;
@@ -62,7 +64,15 @@ public class TabbedParticipantBodyFragment extends BaseFragment<TabbedParticipan
     public static final int USER_PAGE = 0;
     public static final int DEVICE_PAGE = 1;
 
+    private static final ThemedViews.Binding TAB_INDICATOR_COLOR = new ThemedViews.Binding() {
+        @Override
+        public void bind(View view, ThemeAttributes attributes) {
+            ((TabIndicatorLayout) view).setPrimaryColor(attributes.getColor(R.attr.wireSecondaryTextColor));
+        }
+    };
+
     private ViewPager viewPager;
+    private TabIndicatorLayout tabIndicatorLayout;
     private final ParticipantOtrDeviceAdapter participantOtrDeviceAdapter;
 
     private CallbackImpl callbacks;
@@ -125,14 +135,8 @@ public class TabbedParticipantBodyFragment extends BaseFragment<TabbedParticipan
     @Override
     public View onCreateView(LayoutInflater inflater, ViewGroup viewGroup, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_participants_single_tabbed, viewGroup, false);
-        TabIndicatorLayout tabIndicatorLayout = ViewUtils.getView(view, R.id.til_single_participant_tabs);
-        int color;
-        if (getControllerFactory().getThemeController().isDarkTheme()) {
-            color = getResources().getColor(R.color.text__secondary_dark);
-        } else {
-            color = getResources().getColor(R.color.text__secondary_light);
-        }
-        tabIndicatorLayout.setPrimaryColor(color);
+        tabIndicatorLayout = ViewUtils.getView(view, R.id.til_single_participant_tabs);
+        getControllerFactory().getThemeController().getThemedViews().register(tabIndicatorLayout, TAB_INDICATOR_COLOR);
         viewPager = ViewUtils.getView(view, R.id.vp_single_participant_viewpager);
         viewPager.setAdapter(new TabbedParticipantPagerAdapter(getActivity(), participantOtrDeviceAdapter, this));
         viewPager.addOnPageChangeListener(this);
@@ -170,6 +174,8 @@ public class TabbedParticipantBodyFragment extends BaseFragment<TabbedParticipan
     public void onDestroyView() {
         viewPager.removeOnPageChangeListener(this);
         viewPager = null;
+        getControllerFactory().getThemeController().getThemedViews().unregister(tabIndicatorLayout);
+        tabIndicatorLayout = null;
         super.onDestroyView();
     }
 
@@ -17,208 +17,413 @@
  */
 package com.waz.zclient.pages.main.participants.views;
 
+import android.support.v7.widget.RecyclerView;
+import android.view.Gravity;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.AbsListView;
-import android.widget.BaseAdapter;
 import com.waz.api.CoreList;
 import com.waz.api.UpdateListener;
 import com.waz.api.User;
+import com.waz.api.Verification;
 import com.waz.zclient.R;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
-public class ParticipantsChatheadAdapter extends BaseAdapter implements UpdateListener {
-    private static final int VIEW_TYPE_COUNT = 3;
+/**
+ * Shows unverified participants first, then a separator row and the verified participants.
+ *
+ * Each participant has its own listener, so a verification change only moves that participant
+ * between the two partitions. Changes are reported as positional notifications computed from the
+ * previous and the new item keys; name and picture updates are handled by the cells themselves.
+ */
+public class ParticipantsChatheadAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> implements UpdateListener {
     public static final int VIEW_TYPE_CHATHEAD = 0;
     public static final int VIEW_TYPE_SEPARATOR = 1;
     public static final int VIEW_TYPE_EMPTY = 2;
 
-    private CoreList<User> usersList;
-    private int numOfColumns;
+    private static final String KEY_PADDING = "\u0000padding";
+    private static final String KEY_SEPARATOR = "\u0000separator";
+    private static final String KEY_EMPTY = "\u0000empty";
+    private static final String KEY_PLACEHOLDER = "\u0000placeholder";
 
-    private List<User> userListVerified = new ArrayList<>();
-    private List<User> userListUnverified = new ArrayList<>();
+    private CoreList<User> usersList;
+    private int numOfColumns = 1;
+    private Callback callback;
 
-    private int separatorPos;
+    // Both partitions keep the order of usersList, see memberIndex
+    private final List<User> userListVerified = new ArrayList<>();
+    private final List<User> userListUnverified = new ArrayList<>();
+    private final Map<String, Integer> memberIndex = new HashMap<>();
+    private final Map<String, UserListener> userListeners = new HashMap<>();
+    private List<String> itemKeys = new ArrayList<>();
+    private boolean attachedToRecyclerView;
 
     public ParticipantsChatheadAdapter() {
-        separatorPos = -1;
+        itemKeys = buildItemKeys();
+    }
+
+    public void setCallback(Callback callback) {
+        this.callback = callback;
     }
 
     public void setUsersList(CoreList<User> usersList, int numOfColumns) {
+        boolean columnsChanged = this.numOfColumns != numOfColumns;
         this.numOfColumns = numOfColumns;
 
-        if (this.usersList != null) {
-            this.usersList.removeUpdateListener(this);
+        if (this.usersList != usersList) {
+            if (this.usersList != null) {
+                this.usersList.removeUpdateListener(this);
+            }
+            this.usersList = usersList;
+            if (this.usersList != null) {
+                this.usersList.addUpdateListener(this);
+            }
         }
 
-
-        this.usersList = usersList;
-        if (this.usersList != null) {
-            this.usersList.addUpdateListener(this);
-            for (User user : usersList) {
-                user.addUpdateListener(this);
+        rebuildPartitions();
+        if (columnsChanged) {
+            itemKeys = buildItemKeys();
+            if (attachedToRecyclerView) {
+                notifyDataSetChanged();
             }
+        } else {
+            dispatchItemChanges(null);
         }
-        updated();
     }
 
     public void tearDown() {
+        for (UserListener listener : userListeners.values()) {
+            listener.user.removeUpdateListener(listener);
+        }
+        userListeners.clear();
         if (usersList != null) {
-            for (User user : usersList) {
-                user.removeUpdateListener(this);
-            }
             usersList.removeUpdateListener(this);
+            usersList = null;
         }
     }
 
     @Override
-    public int getCount() {
-        // Hack to make it overscrollable
-        if (userListUnverified.isEmpty() && userListVerified.isEmpty()) {
-            return 1;
-        }
-
-        int count = userListVerified.size() + userListUnverified.size();
-
-        if (separatorPos != -1) {
-            count += numOfColumns;
-        }
+    public void onAttachedToRecyclerView(RecyclerView recyclerView) {
+        super.onAttachedToRecyclerView(recyclerView);
+        attachedToRecyclerView = true;
+    }
 
-        return count;
+    @Override
+    public void onDetachedFromRecyclerView(RecyclerView recyclerView) {
+        attachedToRecyclerView = false;
+        super.onDetachedFromRecyclerView(recyclerView);
     }
 
     @Override
-    public User getItem(int position) {
+    public int getItemCount() {
+        return itemKeys.size();
+    }
 
-        if (position < userListUnverified.size()) {
+    public User getItem(int position) {
+        int unverifiedCount = userListUnverified.size();
+        if (position < unverifiedCount) {
             return userListUnverified.get(position);
         }
-
-        int unverifiedSize = position - userListUnverified.size();
-
-        if (separatorPos != -1) {
-            if (position < separatorPos + numOfColumns) {
-                return null;
-            }
-
-            unverifiedSize -= numOfColumns;
-        }
-        if (userListVerified.size() <= unverifiedSize) {
+        int verifiedPosition = position - getVerifiedStart();
+        if (userListVerified.isEmpty() || verifiedPosition < 0 || verifiedPosition >= userListVerified.size()) {
             return null;
         }
-
-        return userListVerified.get(unverifiedSize);
-    }
-
-    @Override
-    public long getItemId(int position) {
-        return position;
-    }
-
-    @Override
-    public int getViewTypeCount() {
-        return VIEW_TYPE_COUNT;
+        return userListVerified.get(verifiedPosition);
     }
 
     @Override
     public int getItemViewType(int position) {
-        if (position < userListUnverified.size()) {
+        int paddedUnverifiedCount = getPaddedUnverifiedCount();
+        if (position < paddedUnverifiedCount) {
             return VIEW_TYPE_CHATHEAD;
         }
-
-        if (position == separatorPos) {
+        if (userListVerified.isEmpty()) {
+            // Only the placeholder that keeps an empty grid overscrollable
+            return VIEW_TYPE_EMPTY;
+        }
+        if (position == paddedUnverifiedCount) {
             return VIEW_TYPE_SEPARATOR;
         }
-
-        if (position < separatorPos + numOfColumns) {
+        if (position < paddedUnverifiedCount + numOfColumns) {
             return VIEW_TYPE_EMPTY;
         }
-
         return VIEW_TYPE_CHATHEAD;
     }
 
     @Override
-    public View getView(int position, View convertView, ViewGroup parent) {
-        switch (getItemViewType(position)) {
+    public RecyclerView.ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        switch (viewType) {
             case VIEW_TYPE_CHATHEAD:
-                return getChatheadLabel(position, convertView, parent);
+                return new ChatheadViewHolder(new ChatheadWithTextFooter(parent.getContext()));
             case VIEW_TYPE_SEPARATOR:
-                return getSeparatorView(parent);
+                View separator = LayoutInflater.from(parent.getContext()).inflate(R.layout.participants_separator_row, parent, false);
+                separator.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                                        parent.getResources().getDimensionPixelSize(R.dimen.participants__verified_row__height)));
+                return new SpacerViewHolder(separator);
             default:
             case VIEW_TYPE_EMPTY:
-                View view = new View(parent.getContext());
-                view.setLayoutParams(new AbsListView.LayoutParams(0,
-                        parent.getResources().getDimensionPixelSize(R.dimen.participants__verified_row__height)));
-                view.setVisibility(View.GONE);
-                return view;
-
+                // The separator spans the whole row, its empty cells collapse into a zero-height row
+                View empty = new View(parent.getContext());
+                empty.setLayoutParams(new RecyclerView.LayoutParams(0, 0));
+                empty.setVisibility(View.GONE);
+                return new SpacerViewHolder(empty);
         }
     }
 
-    private View getChatheadLabel(int position, View convertView, ViewGroup parent) {
-        ChatheadWithTextFooter view;
-        if (convertView == null) {
-            view = new ChatheadWithTextFooter(parent.getContext());
-        } else {
-            view = (ChatheadWithTextFooter) convertView;
-        }
-        User user = getItem(position);
-        if (user != null) {
-            view.setUser(user);
-            view.setVisibility(View.VISIBLE);
-        } else {
-            //TODO https://wearezeta.atlassian.net/browse/AN-4276
-            view.setVisibility(View.INVISIBLE);
+    @Override
+    public void onBindViewHolder(RecyclerView.ViewHolder holder, int position) {
+        if (holder instanceof ChatheadViewHolder) {
+            ((ChatheadViewHolder) holder).bind(getItem(position));
         }
-        return view;
-    }
-
-    public View getSeparatorView(ViewGroup parent) {
-        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
-        View view = inflater.inflate(R.layout.participants_separator_row, parent, false);
-        view.setLayoutParams(new AbsListView.LayoutParams(parent.getMeasuredWidth(),
-                parent.getResources().getDimensionPixelSize(R.dimen.participants__verified_row__height)));
-        return view;
     }
 
     @Override
     public void updated() {
+        rebuildPartitions();
+        dispatchItemChanges(null);
+    }
+
+    private void rebuildPartitions() {
         userListVerified.clear();
         userListUnverified.clear();
+        memberIndex.clear();
+
+        Map<String, UserListener> previousListeners = new HashMap<>(userListeners);
+        userListeners.clear();
         if (usersList != null) {
+            int index = 0;
             for (User user : usersList) {
-                switch (user.getVerified()) {
-                    case VERIFIED:
-                        userListVerified.add(user);
-                        break;
-                    default:
-                        userListUnverified.add(user);
-                        break;
+                memberIndex.put(user.getId(), index++);
+                boolean verified = user.getVerified() == Verification.VERIFIED;
+                if (verified) {
+                    userListVerified.add(user);
+                } else {
+                    userListUnverified.add(user);
+                }
+
+                UserListener listener = previousListeners.remove(user.getId());
+                if (listener != null && listener.user != user) {
+                    listener.user.removeUpdateListener(listener);
+                    listener = null;
+                }
+                if (listener == null) {
+                    listener = new UserListener(user);
+                    user.addUpdateListener(listener);
                 }
+                listener.verified = verified;
+                userListeners.put(user.getId(), listener);
             }
         }
+        for (UserListener listener : previousListeners.values()) {
+            listener.user.removeUpdateListener(listener);
+        }
+    }
+
+    private void onVerificationChanged(UserListener listener) {
+        User user = listener.user;
+        Integer index = memberIndex.get(user.getId());
+        if (index == null) {
+            return;
+        }
+        List<User> from = listener.verified ? userListVerified : userListUnverified;
+        List<User> to = listener.verified ? userListUnverified : userListVerified;
+        int fromPosition = indexOfMember(from, index);
+        if (fromPosition >= from.size() || from.get(fromPosition) != user) {
+            return;
+        }
+        from.remove(fromPosition);
+        to.add(indexOfMember(to, index), user);
+        listener.verified = !listener.verified;
+
+        dispatchItemChanges(user.getId());
+    }
 
-        // fill up with empty spaces
-        if (userListUnverified.size() > 0) {
-            int rest = userListUnverified.size() % numOfColumns;
-            if (rest != 0) {
-                int fillupCount = numOfColumns - rest;
-                for (int i = 0; i < fillupCount; i++) {
-                    userListUnverified.add(null);
+    /**
+     * Binary search for the position of the member at {@code index} in a partition, or the position
+     * it has to be inserted at.
+     */
+    private int indexOfMember(List<User> partition, int index) {
+        int low = 0;
+        int high = partition.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            Integer midIndex = memberIndex.get(partition.get(mid).getId());
+            if (midIndex != null && midIndex < index) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Replaces the item keys and notifies the difference. Apart from {@code movedKey}, items that
+     * are in both lists are expected to keep their order, which holds for a single verification change
+     * and for members joining or leaving. Otherwise the whole grid is refreshed.
+     */
+    private void dispatchItemChanges(String movedKey) {
+        List<String> oldKeys = itemKeys;
+        List<String> newKeys = buildItemKeys();
+        itemKeys = newKeys;
+        if (!attachedToRecyclerView) {
+            // The grid reads the whole state once the adapter is attached
+            return;
+        }
+
+        Set<String> oldSet = new HashSet<>(oldKeys);
+        Set<String> newSet = new HashSet<>(newKeys);
+        List<String> working = new ArrayList<>(oldKeys);
+        int i = 0;
+        int j = 0;
+        while (true) {
+            if (i < working.size() && working.get(i).equals(movedKey)) {
+                i++;
+                continue;
+            }
+            if (j < newKeys.size() && newKeys.get(j).equals(movedKey)) {
+                j++;
+                continue;
+            }
+            boolean hasOld = i < working.size();
+            boolean hasNew = j < newKeys.size();
+            if (!hasOld && !hasNew) {
+                break;
+            }
+            if (hasOld && hasNew && working.get(i).equals(newKeys.get(j))) {
+                i++;
+                j++;
+                continue;
+            }
+            if (hasOld && !newSet.contains(working.get(i))) {
+                int count = 0;
+                while (i < working.size() && !newSet.contains(working.get(i))) {
+                    working.remove(i);
+                    count++;
                 }
+                notifyItemRangeRemoved(i, count);
+                continue;
             }
+            if (hasNew && !oldSet.contains(newKeys.get(j))) {
+                int start = i;
+                while (j < newKeys.size() && !oldSet.contains(newKeys.get(j))) {
+                    working.add(i++, newKeys.get(j++));
+                }
+                notifyItemRangeInserted(start, i - start);
+                continue;
+            }
+            notifyDataSetChanged();
+            return;
         }
 
+        if (movedKey != null) {
+            int fromPosition = working.indexOf(movedKey);
+            int toPosition = newKeys.indexOf(movedKey);
+            if (fromPosition != toPosition) {
+                notifyItemMoved(fromPosition, toPosition);
+            }
+        }
+    }
+
+    private List<String> buildItemKeys() {
+        List<String> keys = new ArrayList<>(getPaddedUnverifiedCount() + numOfColumns + userListVerified.size());
+        for (User user : userListUnverified) {
+            keys.add(user.getId());
+        }
+        for (int i = userListUnverified.size(); i < getPaddedUnverifiedCount(); i++) {
+            keys.add(KEY_PADDING + i);
+        }
         if (!userListVerified.isEmpty()) {
-            separatorPos = userListUnverified.size();
-        } else {
-            separatorPos = -1;
+            keys.add(KEY_SEPARATOR);
+            for (int i = 1; i < numOfColumns; i++) {
+                keys.add(KEY_EMPTY + i);
+            }
+            for (User user : userListVerified) {
+                keys.add(user.getId());
+            }
+        }
+        if (keys.isEmpty()) {
+            // Hack to make it overscrollable
+            keys.add(KEY_PLACEHOLDER);
+        }
+        return keys;
+    }
+
+    /**
+     * Unverified participants are filled up with invisible cells to a full row, so the separator
+     * always starts a new row.
+     */
+    private int getPaddedUnverifiedCount() {
+        int count = userListUnverified.size();
+        int rest = count % numOfColumns;
+        return rest == 0 ? count : count + numOfColumns - rest;
+    }
+
+    private int getVerifiedStart() {
+        return getPaddedUnverifiedCount() + numOfColumns;
+    }
+
+    public interface Callback {
+        void onUserClicked(User user);
+    }
+
+    private class UserListener implements UpdateListener {
+        private final User user;
+        private boolean verified;
+
+        UserListener(User user) {
+            this.user = user;
+        }
+
+        @Override
+        public void updated() {
+            if ((user.getVerified() == Verification.VERIFIED) != verified) {
+                onVerificationChanged(this);
+            }
         }
+    }
 
-        notifyDataSetChanged();
+    private class ChatheadViewHolder extends RecyclerView.ViewHolder implements View.OnClickListener {
+        private final ChatheadWithTextFooter view;
+        private User user;
+
+        ChatheadViewHolder(ChatheadWithTextFooter view) {
+            super(view);
+            this.view = view;
+            view.setGravity(Gravity.CENTER_HORIZONTAL);
+            view.setLayoutParams(new RecyclerView.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
+                                                               ViewGroup.LayoutParams.WRAP_CONTENT));
+            view.setOnClickListener(this);
+        }
+
+        void bind(User user) {
+            this.user = user;
+            if (user != null) {
+                view.setUser(user);
+                view.setVisibility(View.VISIBLE);
+            } else {
+                //TODO https://wearezeta.atlassian.net/browse/AN-4276
+                view.setVisibility(View.INVISIBLE);
+            }
+        }
+
+        @Override
+        public void onClick(View v) {
+            if (user != null && callback != null) {
+                callback.onUserClicked(user);
+            }
+        }
+    }
+
+    private static class SpacerViewHolder extends RecyclerView.ViewHolder {
+        SpacerViewHolder(View itemView) {
+            super(itemView);
+        }
     }
 }
@@ -19,21 +19,20 @@ package com.waz.zclient.pages.main.participants.views;
 
 
 import android.content.Context;
+import android.graphics.Rect;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
 import android.view.View;
-import android.widget.GridView;
 import com.waz.zclient.R;
-import com.waz.zclient.ui.pullforaction.OverScrollListener;
-import com.waz.zclient.ui.pullforaction.OverScrollMode;
-import com.waz.zclient.ui.pullforaction.PullForActionView;
 
-public class ParticipantsGridView extends GridView implements PullForActionView, View.OnTouchListener {
+public class ParticipantsGridView extends RecyclerView implements View.OnTouchListener {
     private static final float CLICK_EVENT_MAX_MOVE_DISTANCE = 10;
-    private OverScrollListener overScrollListener;
     private Callback callback;
     private float actionDownX;
     private float actionDownY;
+    private GridLayoutManager layoutManager;
 
     public ParticipantsGridView(Context context) {
         super(context);
@@ -52,9 +51,18 @@ public class ParticipantsGridView extends GridView implements PullForActionView,
     }
 
     private void init() {
-        setColumnWidth(getResources().getDimensionPixelSize(R.dimen.participants__chathead__width));
-        setVerticalSpacing(getResources().getDimensionPixelSize(R.dimen.participants__chathead__vertical_spacing));
-        setStretchMode(GridView.STRETCH_SPACING);
+        final int verticalSpacing = getResources().getDimensionPixelSize(R.dimen.participants__chathead__vertical_spacing);
+        addItemDecoration(new ItemDecoration() {
+            @Override
+            public void getItemOffsets(Rect outRect, View view, RecyclerView parent, State state) {
+                ViewHolder holder = parent.getChildViewHolder(view);
+                if (holder.getItemViewType() == ParticipantsChatheadAdapter.VIEW_TYPE_EMPTY) {
+                    outRect.setEmpty();
+                } else {
+                    outRect.set(0, 0, 0, verticalSpacing);
+                }
+            }
+        });
 
         setPadding(
             getResources().getDimensionPixelSize(R.dimen.participants__left_margin),
@@ -63,47 +71,42 @@ public class ParticipantsGridView extends GridView implements PullForActionView,
             0);
         setOverScrollMode(OVER_SCROLL_NEVER);
         setVerticalScrollBarEnabled(false);
+        setNumColumns(1);
 
         setOnTouchListener(this);
     }
 
-    public void setCallback(Callback callback) {
-        this.callback = callback;
+    public void setNumColumns(final int numColumns) {
+        layoutManager = new GridLayoutManager(getContext(), numColumns);
+        layoutManager.setSpanSizeLookup(new GridLayoutManager.SpanSizeLookup() {
+            @Override
+            public int getSpanSize(int position) {
+                Adapter adapter = getAdapter();
+                if (adapter != null &&
+                    adapter.getItemViewType(position) == ParticipantsChatheadAdapter.VIEW_TYPE_SEPARATOR) {
+                    return numColumns;
+                }
+                return 1;
+            }
+        });
+        layoutManager.setSmoothScrollbarEnabled(true);
+        setLayoutManager(layoutManager);
     }
 
-    @Override
-    @SuppressWarnings("PMD.UselessOverridingMethod")
-    public int computeVerticalScrollOffset() {
-        return super.computeVerticalScrollOffset();
+    public int getFirstVisiblePosition() {
+        return layoutManager.findFirstVisibleItemPosition();
     }
 
-    //////////////////////////////////////////////////////////////////////////////////////////
-    //
-    //  Overscroll stuff
-    //
-    //////////////////////////////////////////////////////////////////////////////////////////
-
-    /**
-     * Sets the overscroll listener from the PullToRefreshContainer.
-     */
-    public void setOverScrollListener(OverScrollListener listener) {
-        overScrollListener = listener;
+    public int getLastVisiblePosition() {
+        return layoutManager.findLastVisibleItemPosition();
     }
 
-    /**
-     * The BouncingListVieContainer is notified from this spot.
-     * At this place the default MaxOverscrollY can be overwritten.
-     */
-    @Override
-    protected boolean overScrollBy(int deltaX, int deltaY, int scrollX, int scrollY, int scrollRangeX, int scrollRangeY, int maxOverScrollX, int maxOverScrollY, boolean isTouchEvent) {
-        if (overScrollListener != null) {
-            if (deltaY < 0) {
-                overScrollListener.onOverScrolled(OverScrollMode.TOP);
-            } else {
-                overScrollListener.onOverScrolled(OverScrollMode.BOTTOM);
-            }
-        }
-        return super.overScrollBy(deltaX, deltaY, scrollX, scrollY, scrollRangeX, scrollRangeY, maxOverScrollX, 0, isTouchEvent);
+    public View getViewForPosition(int position) {
+        return layoutManager.findViewByPosition(position);
+    }
+
+    public void setCallback(Callback callback) {
+        this.callback = callback;
     }
 
     @Override
@@ -162,6 +162,7 @@ public class ZetaPreferencesActivity extends BasePreferenceActivity implements A
     @Override
     public void onLogout() {
         Timber.i("onLogout");
+        getStoreFactory().getDraftStore().onLogout();
         getStoreFactory().reset();
         getControllerFactory().getPickUserController().hideUserProfile();
         getControllerFactory().getUserPreferencesController().reset();
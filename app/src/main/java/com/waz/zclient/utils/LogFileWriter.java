@@ -0,0 +1,330 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.utils;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Appends log entries to a rotating, memory-mapped file in the background.
+ *
+ * Callers only claim a slot in a fixed-size ring buffer; formatting, encoding and
+ * file I/O happen on the writer thread. When the buffer is full, entries are
+ * dropped rather than blocking the caller, and the number of dropped entries is
+ * written to the file once there is room again.
+ */
+public class LogFileWriter {
+
+    private static final String TAG = LogFileWriter.class.getName();
+
+    private static final String FILE_NAME = "wire.log";
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final long IDLE_PARK_NANOS = 500 * 1000 * 1000L;
+    private static final long CLOSE_TIMEOUT_MS = 1000;
+
+    private final File directory;
+    private final int fileSize;
+    private final int maxFiles;
+
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile long tail;
+    private volatile boolean running = true;
+
+    private final Thread writerThread;
+
+    // Only touched by the writer thread
+    private final SimpleDateFormat timeFormat = new SimpleDateFormat("MM-dd HH:mm:ss.SSS", Locale.US);
+    private final StringBuilder line = new StringBuilder(256);
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    /**
+     * @param directory folder for the log files, created if needed
+     * @param fileSize  size in bytes of a single log file
+     * @param maxFiles  number of rotated files kept next to the current one
+     * @param capacity  ring buffer capacity, rounded up to a power of two
+     */
+    public LogFileWriter(File directory, int fileSize, int maxFiles, int capacity) {
+        this.directory = directory;
+        this.fileSize = fileSize;
+        this.maxFiles = maxFiles;
+        int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                drainLoop();
+            }
+        }, "LogFileWriter");
+        writerThread.setPriority(Thread.MIN_PRIORITY);
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Queues an entry without blocking. Returns false if the ring buffer was full
+     * and the entry was dropped.
+     */
+    public boolean append(int priority, String tag, String message) {
+        if (!running) {
+            return false;
+        }
+        long seq;
+        do {
+            seq = head.get();
+            if (seq - tail >= slots.length()) {
+                dropped.incrementAndGet();
+                return false;
+            }
+        } while (!head.compareAndSet(seq, seq + 1));
+
+        slots.lazySet((int) (seq & mask), new Entry(System.currentTimeMillis(), priority, tag, message));
+
+        if (priority >= Log.ERROR || seq - tail >= (slots.length() >> 1)) {
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    /**
+     * Asks the writer thread to write out everything queued so far, e.g. before a
+     * crash report is collected.
+     */
+    public void flush() {
+        LockSupport.unpark(writerThread);
+    }
+
+    /**
+     * Writes out everything queued so far, syncs and releases the mapped file. Waits up to
+     * {@value #CLOSE_TIMEOUT_MS} ms for the writer thread, later entries are rejected.
+     */
+    public void close() {
+        running = false;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join(CLOSE_TIMEOUT_MS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public File getCurrentFile() {
+        return new File(directory, FILE_NAME);
+    }
+
+    private void drainLoop() {
+        try {
+            openFile();
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to open log file, file logging disabled", e);
+            running = false;
+            return;
+        }
+
+        while (running) {
+            drain();
+            LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+        }
+        drain();
+        closeFile();
+    }
+
+    private void drain() {
+        long current = tail;
+        while (current < head.get()) {
+            int index = (int) (current & mask);
+            Entry entry = slots.get(index);
+            if (entry == null) {
+                // Slot claimed but not yet published, pick it up on the next pass
+                break;
+            }
+            slots.lazySet(index, null);
+            current++;
+            tail = current;
+            write(entry);
+        }
+
+        long lost = dropped.getAndSet(0);
+        if (lost > 0) {
+            write(new Entry(System.currentTimeMillis(), Log.WARN, TAG, lost + " log entries dropped"));
+        }
+        // No force() here: the mapped pages survive a process crash, only close() needs to sync them
+    }
+
+    private void write(Entry entry) {
+        if (buffer == null) {
+            return;
+        }
+        line.setLength(0);
+        line.append(timeFormat.format(new Date(entry.time)))
+            .append(' ')
+            .append(priorityChar(entry.priority))
+            .append('/')
+            .append(entry.tag == null ? "Wire" : entry.tag)
+            .append(": ")
+            .append(entry.message)
+            .append('\n');
+
+        // NUL bytes mark the unused tail of a mapped file, keep them out of the content
+        byte[] bytes = line.toString().replace('\0', ' ').getBytes(UTF_8);
+        if (bytes.length > fileSize) {
+            return;
+        }
+        try {
+            if (bytes.length > buffer.remaining()) {
+                rotate();
+            }
+            buffer.put(bytes);
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to rotate log file, file logging disabled", e);
+            closeFile();
+        }
+    }
+
+    private void openFile() throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        File current = getCurrentFile();
+        if (current.exists()) {
+            // Left over from the previous process; trim its unused mapped tail and keep it as history
+            trimMappedFile(current);
+            shiftFiles();
+        }
+        file = new RandomAccessFile(current, "rw");
+        channel = file.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+    }
+
+    private void rotate() throws IOException {
+        int written = buffer.position();
+        closeMapping(written);
+        shiftFiles();
+        file = new RandomAccessFile(getCurrentFile(), "rw");
+        channel = file.getChannel();
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+    }
+
+    private void shiftFiles() {
+        File oldest = new File(directory, FILE_NAME + "." + maxFiles);
+        if (oldest.exists() && !oldest.delete()) {
+            Log.w(TAG, "Unable to delete " + oldest);
+        }
+        for (int i = maxFiles - 1; i >= 0; i--) {
+            File from = i == 0 ? getCurrentFile() : new File(directory, FILE_NAME + "." + i);
+            if (from.exists() && !from.renameTo(new File(directory, FILE_NAME + "." + (i + 1)))) {
+                Log.w(TAG, "Unable to rotate " + from);
+            }
+        }
+    }
+
+    private void closeFile() {
+        if (buffer == null) {
+            return;
+        }
+        try {
+            closeMapping(buffer.position());
+        } catch (IOException e) {
+            Log.e(TAG, "Unable to close log file", e);
+        }
+    }
+
+    private void closeMapping(int written) throws IOException {
+        buffer.force();
+        buffer = null;
+        // Truncate before closing, closing the channel also closes the file
+        file.setLength(written);
+        file.close();
+        channel = null;
+        file = null;
+    }
+
+    /**
+     * Content is written front to back and never contains NUL, so the first NUL of
+     * the trailing run marks the end of the data and can be found by binary search.
+     */
+    private static void trimMappedFile(File target) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(target, "rw");
+        try {
+            long low = 0;
+            long high = raf.length();
+            while (low < high) {
+                long mid = (low + high) >>> 1;
+                raf.seek(mid);
+                if (raf.read() == 0) {
+                    high = mid;
+                } else {
+                    low = mid + 1;
+                }
+            }
+            raf.setLength(low);
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static char priorityChar(int priority) {
+        switch (priority) {
+            case Log.VERBOSE:
+                return 'V';
+            case Log.DEBUG:
+                return 'D';
+            case Log.INFO:
+                return 'I';
+            case Log.WARN:
+                return 'W';
+            case Log.ERROR:
+                return 'E';
+            case Log.ASSERT:
+                return 'A';
+            default:
+                return '?';
+        }
+    }
+
+    private static class Entry {
+        final long time;
+        final int priority;
+        final String tag;
+        final String message;
+
+        Entry(long time, int priority, String tag, String message) {
+            this.time = time;
+            this.priority = priority;
+            this.tag = tag;
+            this.message = message;
+        }
+    }
+}
@@ -17,22 +17,91 @@
  */
 package com.waz.zclient.utils;
 
+import android.util.Log;
 import com.waz.zclient.BuildConfig;
 import timber.log.Timber;
 
-public class WireLoggerTree extends Timber.DebugTree {
+/**
+ * Release logging tree. Tags are only taken from {@code Timber.tag(...)} instead of being derived
+ * from a stack trace. Enabled entries go to logcat and, if given, to a {@link LogFileWriter}.
+ *
+ * Disabled levels are dropped in {@link #log(int, String, String, Throwable)}, not in
+ * {@code isLoggable}: Timber 4.1.1 returns from a rejected call before it consumes the tag set with
+ * {@code Timber.tag(...)}, which would then stick to the next entry. Call sites with expensive
+ * arguments check {@link #isEnabled(int)} first.
+ */
+public class WireLoggerTree extends Timber.Tree {
+
+    private static final String DEFAULT_TAG = "Wire";
+    private static final int MAX_LOG_LENGTH = 4000;
+
+    private static volatile WireLoggerTree planted;
 
     private final int minLogLevel;
+    private final LogFileWriter fileWriter;
 
     public WireLoggerTree() {
-        minLogLevel = BuildConfig.LOG_LEVEL_UI;
+        this(BuildConfig.LOG_LEVEL_UI, null);
+    }
+
+    public WireLoggerTree(int minLogLevel, LogFileWriter fileWriter) {
+        this.minLogLevel = minLogLevel;
+        this.fileWriter = fileWriter;
+    }
+
+    /**
+     * Plants the tree in Timber and makes its level the one {@link #isEnabled(int)} checks against.
+     */
+    public static void plant(WireLoggerTree tree) {
+        Timber.plant(tree);
+        planted = tree;
+    }
+
+    /**
+     * For call sites whose arguments are expensive to build (e.g. {@code toString()} of large
+     * lists), as Timber evaluates varargs before any tree gets to reject them. Without a planted
+     * tree only debug builds log, through Timber's debug tree.
+     */
+    public static boolean isEnabled(int priority) {
+        WireLoggerTree tree = planted;
+        if (tree == null) {
+            return BuildConfig.DEBUG;
+        }
+        return tree.isEnabledFor(priority);
+    }
+
+    private boolean isEnabledFor(int priority) {
+        return priority >= minLogLevel;
+    }
+
+    /**
+     * Writes out and releases the log file, if there is one. Entries logged afterwards only go to logcat.
+     */
+    public void close() {
+        if (fileWriter != null) {
+            fileWriter.close();
+        }
     }
 
     @Override
     protected void log(int priority, String tag, String message, Throwable t) {
-        if (priority < minLogLevel) {
+        if (!isEnabledFor(priority)) {
             return;
         }
-        super.log(priority, tag, message, t);
+        if (tag == null) {
+            tag = DEFAULT_TAG;
+        }
+        if (fileWriter != null) {
+            // Timber has already appended the stack trace of t to the message
+            fileWriter.append(priority, tag, message);
+        }
+
+        if (message.length() <= MAX_LOG_LENGTH) {
+            Log.println(priority, tag, message);
+            return;
+        }
+        for (int start = 0; start < message.length(); start += MAX_LOG_LENGTH) {
+            Log.println(priority, tag, message.substring(start, Math.min(message.length(), start + MAX_LOG_LENGTH)));
+        }
     }
 }
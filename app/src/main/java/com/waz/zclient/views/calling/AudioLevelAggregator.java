@@ -0,0 +1,304 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.views.calling;
+
+import android.view.Choreographer;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Collects the audio levels of all call participants and hands them to the gain views once per frame.
+ *
+ * Volume updates may arrive on any thread and at any rate; per participant only the loudest value
+ * since the last frame is kept. On each vsync the pending peaks are folded into a decaying envelope
+ * stored in one float array, and each participant's {@link LevelListener} is called at most once,
+ * only if its level changed. Frames are requested only while some level is non-zero.
+ *
+ * Slots are handed out as handles that carry the slot's generation, which changes every time the slot is
+ * acquired. A volume submitted with the handle of a view that has released its slot in the meantime is
+ * dropped instead of ending up at the slot's next owner.
+ */
+public class AudioLevelAggregator {
+
+    public interface LevelListener {
+        /**
+         * @param level smoothed gain between 0 and 1, on the main thread
+         */
+        void onLevelChanged(float level);
+    }
+
+    interface FrameCallback {
+        void doFrame(long frameTimeNanos);
+    }
+
+    interface FrameScheduler {
+        /**
+         * Runs {@code callback} on the next frame. May be called from any thread.
+         */
+        void postFrame(FrameCallback callback);
+    }
+
+    public static final int DEFAULT_CAPACITY = 64;
+
+    // A full level fades out within about a second, comparable to the previous 700ms alpha fade
+    private static final float DECAY_TIME_CONSTANT_NANOS = 250 * 1000 * 1000f;
+    private static final long DEFAULT_FRAME_NANOS = 16666667L;
+    private static final long MAX_FRAME_NANOS = 100 * 1000 * 1000L;
+    private static final float MIN_LEVEL = 0.01f;
+    private static final float MIN_CHANGE = 0.002f;
+    // handle = generation << SLOT_BITS | slot
+    private static final int SLOT_BITS = 16;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+    private static final int GENERATION_MASK = 0x7FFF;
+    // pending peaks are stored as handle << 32 | gain bits, both never negative
+    private static final long NO_UPDATE = -1L;
+
+    private final FrameScheduler scheduler;
+    private final int capacity;
+
+    // Written by any thread, drained on the frame callback
+    private final AtomicLongArray pendingPeaks;
+    private final AtomicBoolean framePosted = new AtomicBoolean();
+
+    // Main thread only
+    private final float[] levels;
+    private final LevelListener[] listeners;
+    private final int[] handles;
+    private final int[] generations;
+    private long lastFrameTimeNanos;
+    private int frameCount;
+
+    private final FrameCallback frameCallback = new FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            onFrame(frameTimeNanos);
+        }
+    };
+
+    public AudioLevelAggregator() {
+        this(new ChoreographerScheduler(), DEFAULT_CAPACITY);
+    }
+
+    AudioLevelAggregator(FrameScheduler scheduler, int capacity) {
+        if (capacity > SLOT_MASK + 1) {
+            throw new IllegalArgumentException("capacity must not exceed " + (SLOT_MASK + 1));
+        }
+        this.scheduler = scheduler;
+        this.capacity = capacity;
+        this.pendingPeaks = new AtomicLongArray(capacity);
+        this.levels = new float[capacity];
+        this.listeners = new LevelListener[capacity];
+        this.handles = new int[capacity];
+        this.generations = new int[capacity];
+        for (int i = 0; i < capacity; i++) {
+            pendingPeaks.set(i, NO_UPDATE);
+            handles[i] = -1;
+        }
+    }
+
+    /**
+     * Returns the handle of a free slot, or -1 if all slots are taken. Each gain view holds one slot while
+     * attached.
+     */
+    public int acquireSlot() {
+        for (int i = 0; i < capacity; i++) {
+            if (handles[i] < 0) {
+                generations[i] = (generations[i] + 1) & GENERATION_MASK;
+                handles[i] = generations[i] << SLOT_BITS | i;
+                resetSlot(handles[i]);
+                return handles[i];
+            }
+        }
+        return -1;
+    }
+
+    public void releaseSlot(int handle) {
+        int slot = ownedSlot(handle);
+        if (slot < 0) {
+            return;
+        }
+        handles[slot] = -1;
+        listeners[slot] = null;
+        levels[slot] = 0;
+        pendingPeaks.set(slot, NO_UPDATE);
+    }
+
+    /**
+     * Drops the level of a slot, e.g. when its view is bound to another participant.
+     */
+    public void resetSlot(int handle) {
+        int slot = ownedSlot(handle);
+        if (slot < 0) {
+            return;
+        }
+        levels[slot] = 0;
+        pendingPeaks.set(slot, NO_UPDATE);
+        if (listeners[slot] != null) {
+            listeners[slot].onLevelChanged(0);
+        }
+    }
+
+    public void setListener(int handle, LevelListener listener) {
+        int slot = ownedSlot(handle);
+        if (slot < 0) {
+            return;
+        }
+        listeners[slot] = listener;
+        if (listener != null) {
+            listener.onLevelChanged(levels[slot]);
+        }
+    }
+
+    /**
+     * Records a raw AVS volume for a slot. Safe to call from any thread, volumes for a released handle are
+     * dropped on the next frame.
+     */
+    public void submitVolume(int handle, float volume) {
+        int slot = slotOf(handle);
+        if (slot < 0 || slot >= capacity) {
+            return;
+        }
+        float gain = toGain(volume);
+        long update = (long) handle << 32 | (Float.floatToIntBits(gain) & 0xFFFFFFFFL);
+        while (true) {
+            long current = pendingPeaks.get(slot);
+            if (current != NO_UPDATE && handleOf(current) == handle && gainOf(current) >= gain) {
+                break;
+            }
+            if (pendingPeaks.compareAndSet(slot, current, update)) {
+                break;
+            }
+        }
+        requestFrame();
+    }
+
+    /**
+     * Levels as of the last frame, indexed by {@link #slotOf(int)}. The array is reused and must not be modified.
+     */
+    public float[] getLevels() {
+        return levels;
+    }
+
+    public int getFrameCount() {
+        return frameCount;
+    }
+
+    /**
+     * AVS provides linear volume values, apply a logarithmic scale to get the perceived gain, clamped to (0, 1).
+     */
+    public static float toGain(float volume) {
+        if (volume <= 0) {
+            return 0;
+        }
+        return (float) Math.min(Math.max(0.5 * Math.log10((double) volume * 2.5) + 1, 0), 1);
+    }
+
+    static int slotOf(int handle) {
+        return handle < 0 ? -1 : handle & SLOT_MASK;
+    }
+
+    /**
+     * Main thread only
+     *
+     * @return the slot of the handle, or -1 if the handle has been released
+     */
+    private int ownedSlot(int handle) {
+        int slot = slotOf(handle);
+        if (slot < 0 || slot >= capacity || handles[slot] != handle) {
+            return -1;
+        }
+        return slot;
+    }
+
+    private static int handleOf(long pendingPeak) {
+        return (int) (pendingPeak >>> 32);
+    }
+
+    private static float gainOf(long pendingPeak) {
+        return Float.intBitsToFloat((int) pendingPeak);
+    }
+
+    private void requestFrame() {
+        if (framePosted.compareAndSet(false, true)) {
+            scheduler.postFrame(frameCallback);
+        }
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        framePosted.set(false);
+        frameCount++;
+
+        long frameNanos = lastFrameTimeNanos == 0 ? DEFAULT_FRAME_NANOS : frameTimeNanos - lastFrameTimeNanos;
+        frameNanos = Math.max(0, Math.min(frameNanos, MAX_FRAME_NANOS));
+        lastFrameTimeNanos = frameTimeNanos;
+        float decay = (float) Math.exp(-frameNanos / DECAY_TIME_CONSTANT_NANOS);
+
+        boolean active = false;
+        for (int i = 0; i < capacity; i++) {
+            long peak = pendingPeaks.getAndSet(i, NO_UPDATE);
+            if (handles[i] < 0) {
+                continue;
+            }
+            float previous = levels[i];
+            float level = previous * decay;
+            if (peak != NO_UPDATE && handleOf(peak) == handles[i]) {
+                level = Math.max(level, gainOf(peak));
+            }
+            if (level < MIN_LEVEL) {
+                level = 0;
+            }
+            levels[i] = level;
+            if (level > 0) {
+                active = true;
+            }
+            LevelListener listener = listeners[i];
+            if (listener != null && (Math.abs(level - previous) >= MIN_CHANGE || (level == 0 && previous != 0))) {
+                listener.onLevelChanged(level);
+            }
+        }
+
+        if (active) {
+            requestFrame();
+        } else {
+            lastFrameTimeNanos = 0;
+        }
+    }
+
+    private static class ChoreographerScheduler implements FrameScheduler {
+        // Must be created on the main thread; posting to it is thread safe
+        private final Choreographer choreographer = Choreographer.getInstance();
+        private volatile Choreographer.FrameCallback wrapper;
+
+        @Override
+        public void postFrame(final FrameCallback callback) {
+            Choreographer.FrameCallback frameCallback = wrapper;
+            if (frameCallback == null) {
+                // The aggregator always posts the same callback, so one wrapper is enough
+                frameCallback = new Choreographer.FrameCallback() {
+                    @Override
+                    public void doFrame(long frameTimeNanos) {
+                        callback.doFrame(frameTimeNanos);
+                    }
+                };
+                wrapper = frameCallback;
+            }
+            choreographer.postFrameCallback(frameCallback);
+        }
+    }
+}
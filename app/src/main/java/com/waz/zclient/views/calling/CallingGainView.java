@@ -17,33 +17,26 @@
  */
 package com.waz.zclient.views.calling;
 
-import android.animation.ObjectAnimator;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
 import android.util.AttributeSet;
 import android.view.View;
-import com.waz.zclient.ui.animation.interpolators.penner.Back;
-import com.waz.zclient.ui.animation.interpolators.penner.Quart;
-import com.waz.zclient.ui.views.properties.PositionAnimatable;
 
-public class CallingGainView extends View implements PositionAnimatable {
+/**
+ * Glow behind a call participant's chathead. The level is driven per frame by an
+ * {@link AudioLevelAggregator}, which already smooths and decays it, so the view only draws.
+ */
+public class CallingGainView extends View implements AudioLevelAggregator.LevelListener {
     public static final String TAG = CallingGainView.class.getName();
-    private static final int DEFAULT_DURATION = 700;
-    private static final int DEFAULT_ALPHA_DELAY = 100;
     private static final int DEFAULT_COLOR = Color.BLACK;
-    private static final float MIN_ALPHA = 0.0f;
     private static final float MAX_ALPHA = 0.5f;
 
-    private float gain;
-    private int duration;
+    private float level;
 
     private Paint paint;
 
-    private ObjectAnimator scale;
-    private float animationPosition;
-
     private int outerRadius;
 
     private int centerX;
@@ -67,52 +60,25 @@ public class CallingGainView extends View implements PositionAnimatable {
 
     public void setGainColor(int color) {
         paint.setColor(color);
-    }
-
-    @Override
-    public void setAnimationPosition(float animationPosition) {
-        this.animationPosition = animationPosition;
         invalidate();
     }
 
-    @Override
-    public float getAnimationPosition() {
-        return animationPosition;
-    }
-
     private void init() {
-        duration = DEFAULT_DURATION;
         paint = new Paint(Paint.ANTI_ALIAS_FLAG);
         paint.setColor(DEFAULT_COLOR);
         paint.setStyle(Paint.Style.FILL);
-        setAlpha(0);
-        scale = ObjectAnimator.ofFloat(this, ANIMATION_POSITION, 0, 1);
-        scale.setDuration(duration);
     }
 
-
     /**
-     * Changing the radius of the glow.
-     *
-     * @param volume Should be a value between 0.0f - 1.0f.
-     *               However, currently AVS is providing linear values, so we currently
-     *               apply a logarithmic function to the incoming values to get the true gain.
+     * @param level smoothed gain between 0.0f - 1.0f, see {@link AudioLevelAggregator#toGain(float)}
      */
-    public void onGainHasChanged(float volume) {
-
-        //Apply logarithmic scale to linear volume values, clamping between (0, 1)
-        float gain = (float) Math.min(Math.max(0.5 * Math.log10((double) volume * 2.5) + 1, 0), 1);
-
-        scale.cancel();
-        this.gain = gain;
-        setAlpha(MAX_ALPHA);
-        scale.setInterpolator(new Back.EaseOut(2 * gain + 1));
-        scale.start();
-        animate().alpha(MIN_ALPHA)
-                 .setDuration(duration)
-                 .setStartDelay(DEFAULT_ALPHA_DELAY)
-                 .setInterpolator(new Quart.EaseOut())
-                 .start();
+    @Override
+    public void onLevelChanged(float level) {
+        if (this.level == level) {
+            return;
+        }
+        this.level = level;
+        invalidate();
     }
 
     @Override
@@ -131,8 +97,12 @@ public class CallingGainView extends View implements PositionAnimatable {
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
+        if (level <= 0) {
+            return;
+        }
 
-        int radius = (int) (animationPosition * (0.8f + 0.2f *  gain) * outerRadius);
+        int radius = (int) ((0.8f + 0.2f * level) * outerRadius);
+        paint.setAlpha((int) (255 * MAX_ALPHA * level));
         // Bump up the radius a bit, but make sure circle stays within bounds of the view
         canvas.drawCircle(centerX, centerY, Math.min(radius * 1.2f, getWidth() / 2), paint);
     }
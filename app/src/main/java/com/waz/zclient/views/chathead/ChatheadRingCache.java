@@ -0,0 +1,114 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.views.chathead;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.support.v4.util.LruCache;
+import timber.log.Timber;
+
+import java.util.Arrays;
+
+/**
+ * Multi-colored chathead rings, composed once per size, border width and color set and shared by all views.
+ *
+ * Each color is one stroked arc of the ring, so no transparent cutout (and no software layer) is needed.
+ */
+class ChatheadRingCache {
+
+    private static final int MAX_CACHE_BYTES = 2 * 1024 * 1024;
+
+    private static final LruCache<String, Bitmap> RINGS = new LruCache<String, Bitmap>(MAX_CACHE_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap value) {
+            return value.getByteCount();
+        }
+    };
+
+    private ChatheadRingCache() {
+    }
+
+    /**
+     * Returns the composed ring, or null if it could not be allocated.
+     */
+    static Bitmap getRing(RingGeometry geometry) {
+        String key = geometry.key;
+        Bitmap ring = RINGS.get(key);
+        if (ring != null) {
+            return ring;
+        }
+        try {
+            ring = Bitmap.createBitmap(geometry.width, geometry.height, Bitmap.Config.ARGB_8888);
+        } catch (OutOfMemoryError e) {
+            Timber.w(e, "Unable to allocate chathead ring %s", key);
+            return null;
+        }
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setStyle(Paint.Style.STROKE);
+        geometry.draw(new Canvas(ring), paint);
+        RINGS.put(key, ring);
+        return ring;
+    }
+
+    /**
+     * Arc geometry of a ring for one size, border width and color set.
+     */
+    static class RingGeometry {
+        final int width;
+        final int height;
+        final String key;
+        private final RectF oval;
+        private final float strokeWidth;
+        private final int[] colors;
+        private final float[] startAngles;
+        private final float sweepAngle;
+
+        RingGeometry(int width, int height, int borderWidth, int[] colors) {
+            this.width = width;
+            this.height = height;
+            this.colors = colors;
+            this.key = width + "x" + height + "/" + borderWidth + "/" + Arrays.toString(colors);
+
+            // The ring is the band between the bounds and the inner circle of radius min(width, height) / 2 - borderWidth
+            float innerRadius = Math.max(0, Math.min(width, height) / 2f - borderWidth);
+            float inset = (Math.min(width, height) / 2f - innerRadius) / 2f;
+            this.strokeWidth = inset * 2;
+            this.oval = new RectF(inset, inset, width - inset, height - inset);
+
+            // Slight overlap so no seams show between the sections
+            this.sweepAngle = 360f / colors.length + 1;
+            this.startAngles = new float[colors.length];
+            for (int i = 0; i < colors.length; i++) {
+                startAngles[i] = -90f + i * 360f / colors.length;
+            }
+        }
+
+        /**
+         * Draws the arcs directly, also used as a fallback when the ring bitmap can't be allocated.
+         */
+        void draw(Canvas canvas, Paint strokePaint) {
+            strokePaint.setStrokeWidth(strokeWidth);
+            for (int i = 0; i < colors.length; i++) {
+                strokePaint.setColor(colors[i]);
+                canvas.drawArc(oval, startAngles[i], sweepAngle, false, strokePaint);
+            }
+        }
+    }
+}
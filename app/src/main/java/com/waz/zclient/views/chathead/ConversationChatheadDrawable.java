@@ -18,36 +18,38 @@
 package com.waz.zclient.views.chathead;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.ColorFilter;
 import android.graphics.Paint;
-import android.graphics.PorterDuff;
-import android.graphics.PorterDuffXfermode;
+import android.graphics.PixelFormat;
 import android.graphics.Rect;
-import android.graphics.RectF;
 import android.graphics.drawable.Drawable;
 import com.waz.zclient.R;
 
+/**
+ * Ring of accent colors around the conversation chathead. The ring is composed once per size in
+ * {@link ChatheadRingCache} and drawn as a single bitmap, which works on hardware accelerated canvases.
+ */
 public class ConversationChatheadDrawable extends Drawable {
 
     private final int smallBorderWidth;
     private final int largeBorderWidth;
     private final int minSizeForLargeBorderWidth;
-    private Paint paint;
-    private Paint clearPaint;
+    private final Paint bitmapPaint;
+    private final Paint strokePaint;
     private int[] accentColors;
     int borderWidth;
 
+    private ChatheadRingCache.RingGeometry geometry;
+    private Bitmap ring;
+
     public ConversationChatheadDrawable(Context context) {
-        paint = new Paint();
-        paint.setAntiAlias(true);
-        paint.setStyle(Paint.Style.FILL_AND_STROKE);
+        bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
 
-        clearPaint = new Paint();
-        clearPaint.setColor(Color.TRANSPARENT);
-        clearPaint.setAntiAlias(true);
-        clearPaint.setXfermode(new PorterDuffXfermode(PorterDuff.Mode.SRC_OUT));
+        strokePaint = new Paint();
+        strokePaint.setAntiAlias(true);
+        strokePaint.setStyle(Paint.Style.STROKE);
 
         accentColors = context.getResources().getIntArray(R.array.accents_color);
 
@@ -63,28 +65,32 @@ public class ConversationChatheadDrawable extends Drawable {
         } else {
             borderWidth = smallBorderWidth;
         }
+        if (bounds.width() > 0 && bounds.height() > 0) {
+            geometry = new ChatheadRingCache.RingGeometry(bounds.width(), bounds.height(), borderWidth, accentColors);
+        } else {
+            geometry = null;
+        }
+        ring = null;
         invalidateSelf();
     }
 
     @Override
     public void draw(Canvas canvas) {
-        int height = getBounds().height();
-        int width = getBounds().width();
-        int radius = Math.min(height, width) / 2 - borderWidth;
-
-        RectF rectF = new RectF(0, 0, width, height);
-
-        // Draw circle sections in different colors
-        float startAngle = -90f;
-        float sweepAngle = (360f / accentColors.length) + 1;
-        for (int color : accentColors) {
-            paint.setColor(color);
-            canvas.drawArc(rectF, startAngle, sweepAngle, true, paint);
-            startAngle += sweepAngle;
+        if (geometry == null) {
+            return;
         }
-
-        // Cut out transparent center
-        canvas.drawCircle(width / 2, height / 2, radius, clearPaint);
+        if (ring == null || ring.isRecycled()) {
+            ring = ChatheadRingCache.getRing(geometry);
+        }
+        Rect bounds = getBounds();
+        if (ring != null) {
+            canvas.drawBitmap(ring, bounds.left, bounds.top, bitmapPaint);
+            return;
+        }
+        int save = canvas.save();
+        canvas.translate(bounds.left, bounds.top);
+        geometry.draw(canvas, strokePaint);
+        canvas.restoreToCount(save);
     }
 
     @Override
@@ -99,6 +105,6 @@ public class ConversationChatheadDrawable extends Drawable {
 
     @Override
     public int getOpacity() {
-        return 0;
+        return PixelFormat.TRANSLUCENT;
     }
 }
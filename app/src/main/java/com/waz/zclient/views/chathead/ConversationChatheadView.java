@@ -40,8 +40,5 @@ public class ConversationChatheadView extends View {
     private void init(Context context) {
         Drawable bgDrawable = new ConversationChatheadDrawable(context);
         setBackground(bgDrawable);
-
-        // Enable for transparent cutout
-        setLayerType(View.LAYER_TYPE_SOFTWARE, null);
     }
 }
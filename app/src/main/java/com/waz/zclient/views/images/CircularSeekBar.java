@@ -49,8 +49,6 @@ import android.graphics.BlurMaskFilter;
 import android.graphics.Canvas;
 import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.PathMeasure;
 import android.graphics.PorterDuff;
 import android.graphics.RectF;
 import android.os.Bundle;
@@ -227,14 +225,9 @@ public class CircularSeekBar extends RoundedImageView {
     private float progressDegrees;
 
     /**
-     * {@code Path} used to draw the circle/semi-circle.
+     * Pointer and touch geometry of the circle, only changes with the size.
      */
-    protected Path circlePath;
-
-    /**
-     * {@code Path} used to draw the progress on the circle.
-     */
-    private Path circleProgressPath;
+    private final SeekArcGeometry geometry = new SeekArcGeometry();
 
     /**
      * Max value that this CircularSeekBar is representing.
@@ -582,10 +575,7 @@ public class CircularSeekBar extends RoundedImageView {
      * to this value.
      */
     private void calculateTotalDegrees() {
-        totalCircleDegrees = (360f - (startAngle - endAngle)) % 360f; // Length of the entire circle/arc
-        if (totalCircleDegrees <= 0f) {
-            totalCircleDegrees = 360f;
-        }
+        totalCircleDegrees = SeekArcGeometry.totalDegrees(startAngle, endAngle);
     }
 
     /**
@@ -593,8 +583,7 @@ public class CircularSeekBar extends RoundedImageView {
      * Sets progressDegrees to that value.
      */
     private void calculateProgressDegrees() {
-        progressDegrees = pointerPosition - startAngle; // Verified
-        progressDegrees = (progressDegrees < 0 ? 360f + progressDegrees : progressDegrees); // Verified
+        progressDegrees = SeekArcGeometry.clockwiseDegrees(startAngle, pointerPosition);
     }
 
     /**
@@ -602,29 +591,16 @@ public class CircularSeekBar extends RoundedImageView {
      * Sets pointerPosition to that value.
      */
     private void calculatePointerAngle() {
-        float progressPercent = ((float) progress / (float) max);
-        pointerPosition = (progressPercent * totalCircleDegrees) + startAngle;
-        pointerPosition = pointerPosition % 360f;
-    }
-
-    private void calculatePointerXYPosition() {
-        PathMeasure pm = new PathMeasure(circleProgressPath, false);
-        boolean returnValue = pm.getPosTan(pm.getLength(), pointerPositionXY, null);
-        if (!returnValue) {
-            pm = new PathMeasure(circlePath, false);
-            returnValue = pm.getPosTan(0, pointerPositionXY, null);
-        }
+        pointerPosition = SeekArcGeometry.pointerAngle(progress, max, startAngle, totalCircleDegrees);
     }
 
     /**
-     * Initialize the {@code Path} objects with the appropriate values.
+     * The pointer sits on the end of the progress arc, or on its start if there is no progress.
      */
-    private void initPaths() {
-        circlePath = new Path();
-        circlePath.addArc(circleRectF, startAngle, totalCircleDegrees);
-
-        circleProgressPath = new Path();
-        circleProgressPath.addArc(circleRectF, startAngle, progressDegrees);
+    private void calculatePointerXYPosition() {
+        float angle = startAngle + progressDegrees;
+        pointerPositionXY[0] = geometry.getX(angle);
+        pointerPositionXY[1] = geometry.getY(angle);
     }
 
     /**
@@ -640,11 +616,13 @@ public class CircularSeekBar extends RoundedImageView {
 
         canvas.translate(this.getWidth() / 2f, this.getHeight() / 2f);
 
-        canvas.drawPath(circlePath, circlePaint);
-        canvas.drawPath(circleProgressPath, circleProgressGlowPaint);
-        canvas.drawPath(circleProgressPath, circleProgressPaint);
+        canvas.drawArc(circleRectF, startAngle, totalCircleDegrees, false, circlePaint);
+        if (progressDegrees > 0) {
+            canvas.drawArc(circleRectF, startAngle, progressDegrees, false, circleProgressGlowPaint);
+            canvas.drawArc(circleRectF, startAngle, progressDegrees, false, circleProgressPaint);
+        }
 
-        canvas.drawPath(circlePath, circleFillPaint);
+        canvas.drawArc(circleRectF, startAngle, totalCircleDegrees, false, circleFillPaint);
 
         if (showPointer) {
             canvas.drawCircle(pointerPositionXY[0], pointerPositionXY[1], pointerRadius + pointerHaloWidth,
@@ -690,18 +668,31 @@ public class CircularSeekBar extends RoundedImageView {
         progress = Math.round((float) max * progressDegrees / totalCircleDegrees);
     }
 
+    /**
+     * Updates the progress arc and the pointer, runs on every progress change so it must not allocate.
+     */
     private void recalculateAll() {
         calculateTotalDegrees();
         calculatePointerAngle();
         calculateProgressDegrees();
 
-        initRects();
+        calculatePointerXYPosition();
+    }
 
-        initPaths();
+    /**
+     * Updates everything that depends on the size of the circle.
+     */
+    private void recalculateGeometry() {
+        initRects();
 
-        calculatePointerXYPosition();
+        final float minimumTouchTarget = MIN_TOUCH_TARGET_DP * dpToPxScale; // Convert minimum touch target into px
+        // Either uses the minimumTouchTarget size or larger if the ring/pointer is larger
+        final float additionalRadius = Math.max(circleStrokeWidth, minimumTouchTarget) / 2;
+        geometry.set(circleWidth, circleHeight, additionalRadius, pointerRadius);
 
         setCornerRadius(circleRectF.width() / 2f + circleStrokeWidth);
+
+        recalculateAll();
     }
 
     public void setProgressEnabled(boolean enabled) {
@@ -755,7 +746,7 @@ public class CircularSeekBar extends RoundedImageView {
             circleWidth = min;
         }
 
-        recalculateAll();
+        recalculateGeometry();
     }
 
     public boolean isLockEnabled() {
@@ -772,22 +763,10 @@ public class CircularSeekBar extends RoundedImageView {
         final float x = event.getX() - getWidth() / 2;
         final float y = event.getY() - getHeight() / 2;
 
-        // Get the distance from the center of the circle in terms of x and y
-        final float distanceX = circleRectF.centerX() - x;
-        final float distanceY = circleRectF.centerY() - y;
-
         // Get the distance from the center of the circle in terms of a radius
-        final float touchEventRadius = (float) Math.sqrt((Math.pow(distanceX, 2) + Math.pow(distanceY, 2)));
-        final float minimumTouchTarget = MIN_TOUCH_TARGET_DP * dpToPxScale; // Convert minimum touch target into px
-        final float additionalRadius; // Either uses the minimumTouchTarget size or larger if the ring/pointer is larger
-
-        if (circleStrokeWidth < minimumTouchTarget) { // If the width is less than the minimumTouchTarget, use the minimumTouchTarget
-            additionalRadius = minimumTouchTarget / 2;
-        } else {
-            additionalRadius = circleStrokeWidth / 2; // Otherwise use the width
-        }
+        final float touchEventRadius = SeekArcGeometry.distanceOf(x, y);
 
-        final float innerRadius = Math.min(circleHeight, circleWidth) - additionalRadius; // Min inner radius of the circle, including the minimumTouchTarget or wheel width
+        final float innerRadius = geometry.getInnerTouchRadius(); // Min inner radius of the circle, including the minimumTouchTarget or wheel width
         if (touchEventRadius <= innerRadius) {
             gestureDetector.onTouchEvent(event);
             userIsMovingPointer = false;
@@ -799,26 +778,20 @@ public class CircularSeekBar extends RoundedImageView {
         }
 
 
-        final float outerRadius = Math.max(circleHeight, circleWidth) + additionalRadius; // Max outer radius of the circle, including the minimumTouchTarget or wheel width
-        float touchAngle;
-        touchAngle = (float) ((java.lang.Math.atan2(y, x) / Math.PI * 180) % 360); // Verified
-        touchAngle = (touchAngle < 0 ? 360 + touchAngle : touchAngle); // Verified
+        final float outerRadius = geometry.getOuterTouchRadius(); // Max outer radius of the circle, including the minimumTouchTarget or wheel width
+        final float touchAngle = SeekArcGeometry.angleOf(x, y);
 
-        cwDistanceFromStart = touchAngle - startAngle; // Verified
-        cwDistanceFromStart = (cwDistanceFromStart < 0 ? 360f + cwDistanceFromStart : cwDistanceFromStart); // Verified
-        ccwDistanceFromStart = 360f - cwDistanceFromStart; // Verified
+        cwDistanceFromStart = SeekArcGeometry.clockwiseDegrees(startAngle, touchAngle);
+        ccwDistanceFromStart = 360f - cwDistanceFromStart;
 
-        cwDistanceFromEnd = touchAngle - endAngle; // Verified
-        cwDistanceFromEnd = (cwDistanceFromEnd < 0 ? 360f + cwDistanceFromEnd : cwDistanceFromEnd); // Verified
-        ccwDistanceFromEnd = 360f - cwDistanceFromEnd; // Verified
+        cwDistanceFromEnd = SeekArcGeometry.clockwiseDegrees(endAngle, touchAngle);
+        ccwDistanceFromEnd = 360f - cwDistanceFromEnd;
 
         switch (event.getAction()) {
             case MotionEvent.ACTION_DOWN:
                 // These are only used for ACTION_DOWN for handling if the pointer was the part that was touched
-                float pointerRadiusDegrees = (float) ((pointerRadius * 180) / (Math.PI * Math.max(circleHeight,
-                                                                                                  circleWidth)));
-                cwDistanceFromPointer = touchAngle - pointerPosition;
-                cwDistanceFromPointer = (cwDistanceFromPointer < 0 ? 360f + cwDistanceFromPointer : cwDistanceFromPointer);
+                final float pointerRadiusDegrees = geometry.getPointerRadiusDegrees();
+                cwDistanceFromPointer = SeekArcGeometry.clockwiseDegrees(pointerPosition, touchAngle);
                 ccwDistanceFromPointer = 360f - cwDistanceFromPointer;
                 // This is for if the first touch is on the actual pointer.
                 if (((touchEventRadius >= innerRadius) && (touchEventRadius <= outerRadius)) &&
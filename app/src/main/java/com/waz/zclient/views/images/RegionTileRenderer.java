@@ -0,0 +1,247 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.views.images;
+
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.BitmapRegionDecoder;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.LruCache;
+import timber.log.Timber;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decodes the visible part of a large image in fixed-size tiles with {@link BitmapRegionDecoder}.
+ *
+ * Tiles are addressed in source pixels and decoded at the sample size the current zoom needs, so
+ * memory stays bounded by the tile cache no matter how large the source is. Decoding runs on a single
+ * background thread; requests that are no longer visible by the time they run are skipped.
+ */
+public class RegionTileRenderer {
+
+    public interface Callback {
+        void onTileDecoded();
+    }
+
+    private static final int TILE_SIZE = 512;
+    private static final int MAX_CACHE_BYTES = 32 * 1024 * 1024;
+
+    private static final ExecutorService DECODE_EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "RegionTileDecoder");
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    });
+
+    private final BitmapRegionDecoder decoder;
+    private final int sourceWidth;
+    private final int sourceHeight;
+    private final Callback callback;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<Long, Bitmap> tiles;
+    private final Set<Long> pending = new HashSet<>();
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Rect tileRect = new Rect();
+    private final RectF tileDst = new RectF();
+
+    // Written on the main thread, read by decode tasks to drop stale requests
+    private volatile int currentSample;
+    private volatile int visibleLeft;
+    private volatile int visibleTop;
+    private volatile int visibleRight;
+    private volatile int visibleBottom;
+    private volatile boolean recycled;
+
+    public RegionTileRenderer(BitmapRegionDecoder decoder, Callback callback) {
+        this.decoder = decoder;
+        this.sourceWidth = decoder.getWidth();
+        this.sourceHeight = decoder.getHeight();
+        this.callback = callback;
+        int cacheBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 8, MAX_CACHE_BYTES);
+        this.tiles = new LruCache<Long, Bitmap>(cacheBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    public int getSourceWidth() {
+        return sourceWidth;
+    }
+
+    public int getSourceHeight() {
+        return sourceHeight;
+    }
+
+    /**
+     * Returns the power-of-two sample size that gives at least one source pixel per screen pixel
+     * when the source is shown {@code displayedWidth} pixels wide.
+     */
+    public int getSampleSize(float displayedWidth) {
+        int sample = 1;
+        float sourcePerScreenPixel = sourceWidth / displayedWidth;
+        while (sample * 2 <= sourcePerScreenPixel) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    /**
+     * Draws all cached tiles intersecting {@code visible} (normalized 0..1 coordinates of the source)
+     * and requests the missing ones. The canvas must already map source pixels to view pixels.
+     *
+     * @return true if every visible tile was available
+     */
+    public boolean draw(Canvas canvas, RectF visible, int sample) {
+        if (recycled) {
+            return false;
+        }
+        currentSample = sample;
+        visibleLeft = (int) (visible.left * sourceWidth);
+        visibleTop = (int) (visible.top * sourceHeight);
+        visibleRight = (int) Math.ceil(visible.right * sourceWidth);
+        visibleBottom = (int) Math.ceil(visible.bottom * sourceHeight);
+
+        int span = TILE_SIZE * sample;
+        int firstCol = visibleLeft / span;
+        int firstRow = visibleTop / span;
+        int lastCol = Math.min((visibleRight - 1) / span, (sourceWidth - 1) / span);
+        int lastRow = Math.min((visibleBottom - 1) / span, (sourceHeight - 1) / span);
+
+        boolean complete = true;
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstCol; col <= lastCol; col++) {
+                long key = key(sample, col, row);
+                Bitmap tile = tiles.get(key);
+                if (tile == null) {
+                    complete = false;
+                    request(key, sample, col, row);
+                    continue;
+                }
+                tileBounds(sample, col, row, tileRect);
+                tileDst.set(tileRect);
+                canvas.drawBitmap(tile, null, tileDst, paint);
+            }
+        }
+        return complete;
+    }
+
+    /**
+     * Drops all decoded tiles, e.g. when the view is zoomed out below the tiling threshold.
+     */
+    public void trim() {
+        tiles.evictAll();
+    }
+
+    public void recycle() {
+        recycled = true;
+        tiles.evictAll();
+        DECODE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                // Queued after any running decode, so the decoder is no longer in use
+                decoder.recycle();
+            }
+        });
+    }
+
+    private void request(final long key, final int sample, final int col, final int row) {
+        if (!pending.add(key)) {
+            return;
+        }
+        DECODE_EXECUTOR.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap tile = isWanted(sample, col, row) ? decode(sample, col, row) : null;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        pending.remove(key);
+                        if (tile == null) {
+                            return;
+                        }
+                        if (recycled) {
+                            tile.recycle();
+                            return;
+                        }
+                        tiles.put(key, tile);
+                        callback.onTileDecoded();
+                    }
+                });
+            }
+        });
+    }
+
+    private boolean isWanted(int sample, int col, int row) {
+        if (recycled || sample != currentSample) {
+            return false;
+        }
+        int span = TILE_SIZE * sample;
+        int left = col * span;
+        int top = row * span;
+        return left < visibleRight && left + span > visibleLeft &&
+               top < visibleBottom && top + span > visibleTop;
+    }
+
+    private Bitmap decode(int sample, int col, int row) {
+        Rect region = new Rect();
+        tileBounds(sample, col, row, region);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sample;
+        try {
+            return decoder.decodeRegion(region, options);
+        } catch (OutOfMemoryError e) {
+            Timber.w(e, "Out of memory decoding tile %d/%d at sample %d", col, row, sample);
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    tiles.evictAll();
+                }
+            });
+            return null;
+        } catch (IllegalArgumentException e) {
+            Timber.w(e, "Unable to decode tile %d/%d at sample %d", col, row, sample);
+            return null;
+        }
+    }
+
+    private void tileBounds(int sample, int col, int row, Rect out) {
+        int span = TILE_SIZE * sample;
+        out.set(col * span,
+                row * span,
+                Math.min((col + 1) * span, sourceWidth),
+                Math.min((row + 1) * span, sourceHeight));
+    }
+
+    private static long key(int sample, int col, int row) {
+        return ((long) sample << 48) | ((long) (col & 0xFFFFFF) << 24) | (row & 0xFFFFFF);
+    }
+}
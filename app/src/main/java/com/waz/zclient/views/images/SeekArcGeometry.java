@@ -0,0 +1,109 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.views.images;
+
+/**
+ * Closed form geometry of the {@link CircularSeekBar} arc, centered on the origin.
+ *
+ * Angles are geometric degrees, clockwise from 3 o'clock, as used by {@code Canvas.drawArc}. Points on the
+ * ellipse use the same parametric angle as the canvas does for arcs, so the pointer sits exactly on the
+ * end of the progress arc. The touch radii only change with the size and are kept until the next
+ * {@link #set(float, float, float, float)}.
+ */
+final class SeekArcGeometry {
+
+    private float radiusX;
+    private float radiusY;
+    private float innerTouchRadius;
+    private float outerTouchRadius;
+    private float pointerRadiusDegrees;
+
+    /**
+     * @param touchMargin   distance from the arc that still counts as touching it
+     * @param pointerRadius radius of the pointer, in pixels
+     */
+    void set(float radiusX, float radiusY, float touchMargin, float pointerRadius) {
+        this.radiusX = radiusX;
+        this.radiusY = radiusY;
+        float maxRadius = Math.max(radiusX, radiusY);
+        innerTouchRadius = Math.min(radiusX, radiusY) - touchMargin;
+        outerTouchRadius = maxRadius + touchMargin;
+        pointerRadiusDegrees = maxRadius > 0 ? (float) (pointerRadius * 180 / (Math.PI * maxRadius)) : 0;
+    }
+
+    float getInnerTouchRadius() {
+        return innerTouchRadius;
+    }
+
+    float getOuterTouchRadius() {
+        return outerTouchRadius;
+    }
+
+    /**
+     * The angle the pointer covers on the arc, touches within it grab the pointer.
+     */
+    float getPointerRadiusDegrees() {
+        return pointerRadiusDegrees;
+    }
+
+    float getX(float angle) {
+        return (float) (radiusX * Math.cos(Math.toRadians(angle)));
+    }
+
+    float getY(float angle) {
+        return (float) (radiusY * Math.sin(Math.toRadians(angle)));
+    }
+
+    /**
+     * Length of the arc from start to end, a full circle if both are the same.
+     */
+    static float totalDegrees(float startAngle, float endAngle) {
+        float total = (360f - (startAngle - endAngle)) % 360f;
+        return total <= 0f ? 360f : total;
+    }
+
+    /**
+     * Angle of the end of the progress arc, in [0, 360).
+     */
+    static float pointerAngle(int progress, int max, float startAngle, float totalDegrees) {
+        if (max <= 0) {
+            return startAngle % 360f;
+        }
+        return ((float) progress / max * totalDegrees + startAngle) % 360f;
+    }
+
+    /**
+     * Clockwise distance from {@code fromAngle} to {@code toAngle}, in [0, 360).
+     */
+    static float clockwiseDegrees(float fromAngle, float toAngle) {
+        float degrees = toAngle - fromAngle;
+        return degrees < 0 ? 360f + degrees : degrees;
+    }
+
+    /**
+     * Angle of a point relative to the center, in [0, 360).
+     */
+    static float angleOf(float x, float y) {
+        float angle = (float) (Math.atan2(y, x) / Math.PI * 180) % 360;
+        return angle < 0 ? 360 + angle : angle;
+    }
+
+    static float distanceOf(float x, float y) {
+        return (float) Math.sqrt(x * x + y * y);
+    }
+}
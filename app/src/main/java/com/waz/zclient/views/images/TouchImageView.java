@@ -86,6 +86,9 @@ public class TouchImageView extends ImageView {
     private static final float SUPER_MIN_MULTIPLIER = .75f;
     private static final float SUPER_MAX_MULTIPLIER = 1.25f;
 
+    // Below this zoom the preview bitmap is detailed enough and no tiles are decoded
+    private static final float TILE_ZOOM_THRESHOLD = 1.5f;
+
     //
     // Scale of image ranges from minScale to maxScale, where minScale == 1
     // when the image is stretched to fit view.
@@ -144,6 +147,10 @@ public class TouchImageView extends ImageView {
     private OnTouchListener userTouchListener = null;
     private OnTouchImageViewListener touchImageViewListener = null;
 
+    private RegionTileRenderer tileRenderer;
+    private final RectF visibleSourceRect = new RectF();
+    private final PointF zoomedCorner = new PointF();
+
     public TouchImageView(Context context) {
         super(context);
         sharedConstructing(context);
@@ -211,6 +218,9 @@ public class TouchImageView extends ImageView {
 
     @Override
     public void setImageDrawable(Drawable drawable) {
+        if (drawable == null && tileRenderer != null) {
+            setRegionTileRenderer(null);
+        }
         super.setImageDrawable(drawable);
         savePreviousImageValues();
         fitImageToView();
@@ -263,15 +273,27 @@ public class TouchImageView extends ImageView {
      * @return rect representing zoomed image
      */
     public RectF getZoomedRect() {
+        RectF zoomedRect = new RectF();
+        getZoomedRect(zoomedRect);
+        return zoomedRect;
+    }
+
+    /**
+     * Same as {@link #getZoomedRect()}, but fills the given rect instead of allocating one.
+     */
+    private void getZoomedRect(RectF out) {
         if (scaleType == ScaleType.FIT_XY) {
             throw new UnsupportedOperationException("getZoomedRect() not supported with FIT_XY");
         }
-        PointF topLeft = transformCoordTouchToBitmap(0, 0, true);
-        PointF bottomRight = transformCoordTouchToBitmap(viewWidth, viewHeight, true);
-
         float w = getDrawable().getIntrinsicWidth();
         float h = getDrawable().getIntrinsicHeight();
-        return new RectF(topLeft.x / w, topLeft.y / h, bottomRight.x / w, bottomRight.y / h);
+
+        transformCoordTouchToBitmap(0, 0, true, zoomedCorner);
+        out.left = zoomedCorner.x / w;
+        out.top = zoomedCorner.y / h;
+        transformCoordTouchToBitmap(viewWidth, viewHeight, true, zoomedCorner);
+        out.right = zoomedCorner.x / w;
+        out.bottom = zoomedCorner.y / h;
     }
 
     /**
@@ -335,6 +357,48 @@ public class TouchImageView extends ImageView {
             delayedZoomVariables = null;
         }
         super.onDraw(canvas);
+        drawTiles(canvas);
+    }
+
+    /**
+     * Shows full-resolution detail from {@code renderer} on top of the current drawable once the
+     * user zooms in past what the drawable can resolve. Pass null to go back to the drawable only.
+     */
+    public void setRegionTileRenderer(RegionTileRenderer renderer) {
+        if (tileRenderer != null) {
+            tileRenderer.recycle();
+        }
+        tileRenderer = renderer;
+        invalidate();
+    }
+
+    private void drawTiles(Canvas canvas) {
+        Drawable drawable = getDrawable();
+        if (tileRenderer == null ||
+            drawable == null ||
+            drawable.getIntrinsicWidth() <= 0 ||
+            scaleType == ScaleType.FIT_XY) {
+            return;
+        }
+        if (normalizedScale < TILE_ZOOM_THRESHOLD) {
+            tileRenderer.trim();
+            return;
+        }
+        float displayedWidth = getImageWidth();
+        int sample = tileRenderer.getSampleSize(displayedWidth);
+        if (sample * drawable.getIntrinsicWidth() >= tileRenderer.getSourceWidth()) {
+            // The drawable already has as many pixels as tiles at this sample would
+            return;
+        }
+
+        getZoomedRect(visibleSourceRect);
+        float sourceToDrawable = drawable.getIntrinsicWidth() / (float) tileRenderer.getSourceWidth();
+        int saveCount = canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        canvas.concat(matrix);
+        canvas.scale(sourceToDrawable, sourceToDrawable);
+        tileRenderer.draw(canvas, visibleSourceRect, sample);
+        canvas.restoreToCount(saveCount);
     }
 
     @Override
@@ -1158,6 +1222,10 @@ public class TouchImageView extends ImageView {
      * @return Coordinates of the point touched, in the coordinate system of the original drawable.
      */
     private PointF transformCoordTouchToBitmap(float x, float y, boolean clipToBitmap) {
+        return transformCoordTouchToBitmap(x, y, clipToBitmap, new PointF());
+    }
+
+    private PointF transformCoordTouchToBitmap(float x, float y, boolean clipToBitmap, PointF out) {
         matrix.getValues(m);
         float origW = getDrawable().getIntrinsicWidth();
         float origH = getDrawable().getIntrinsicHeight();
@@ -1171,7 +1239,8 @@ public class TouchImageView extends ImageView {
             finalY = Math.min(Math.max(finalY, 0), origH);
         }
 
-        return new PointF(finalX, finalY);
+        out.set(finalX, finalY);
+        return out;
     }
 
     /**
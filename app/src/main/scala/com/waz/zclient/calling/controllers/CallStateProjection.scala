@@ -0,0 +1,120 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.calling.controllers
+
+import android.util.Log
+import com.waz.model.VoiceChannelData.ConnectionState
+import com.waz.model.{ConvId, UserId, VoiceChannelData, VoiceParticipantData}
+import com.waz.utils.events.ClockSignal
+import com.waz.zclient.utils.WireLoggerTree
+import timber.log.Timber
+
+import scala.concurrent.duration._
+
+/**
+  * One-second clock shared by all calling views. It only ticks while something is subscribed to it,
+  * so there's no timer left behind once the call UI is gone.
+  */
+object CallClock {
+  lazy val ticks = new ClockSignal(1.second)
+}
+
+/**
+  * Debug logging for the calling signals, the message is only built if debug logging is enabled.
+  */
+object CallLog {
+  def debug(msg: => String): Unit = if (WireLoggerTree.isEnabled(Log.DEBUG)) Timber.d(msg)
+}
+
+/**
+  * @param self         the self participant, if part of the channel
+  * @param others       connected participants other than self, in channel order
+  * @param sendingVideo ids of the connected others that are sending video
+  */
+case class CallParticipants(self: Option[VoiceParticipantData], others: Vector[VoiceParticipantData], sendingVideo: Set[UserId])
+
+object CallParticipants {
+  val Empty = CallParticipants(None, Vector.empty, Set.empty)
+}
+
+/**
+  * The participants of the current channel, partitioned, plus what the next update needs to diff against.
+  *
+  * An update compares the channel's participants with the previous ones by reference (zms keeps unchanged
+  * entries when it updates a channel) and only touches the partitions for the entries that changed:
+  * changed connected participants are patched in place by their index in `others`, and only joins, leaves
+  * and connection changes filter `others` again, in a single pass over the channel order. Immutable, fold
+  * it over the channel signal with `scan`.
+  */
+case class ParticipantPartitions(convId: Option[ConvId],
+                                 known: Map[UserId, VoiceParticipantData],
+                                 othersIndex: Map[UserId, Int],
+                                 participants: CallParticipants) {
+  import ParticipantPartitions._
+
+  def update(channel: VoiceChannelData): ParticipantPartitions = {
+    val byId = channel.participantsById
+    if (!convId.contains(channel.id)) ParticipantPartitions(channel)
+    else if (byId eq known) this
+    else {
+      val changed = byId.valuesIterator.filter(p => known.get(p.userId).forall(previous => !(previous eq p) && previous != p)).toVector
+      val left =
+        if (byId.size == known.size && changed.forall(p => known.contains(p.userId))) Vector.empty
+        else known.keysIterator.filterNot(byId.contains).toVector
+
+      if (changed.isEmpty && left.isEmpty) copy(known = byId)
+      else {
+        val selfId = channel.selfId
+        val self =
+          if (left.contains(selfId) || changed.exists(_.userId == selfId)) byId.get(selfId)
+          else participants.self
+        val membershipChanged = left.exists(othersIndex.contains) ||
+          changed.exists(p => p.userId != selfId && othersIndex.contains(p.userId) != isConnected(p))
+        val (others, index) =
+          if (membershipChanged) partitionOthers(channel)
+          else (changed.foldLeft(participants.others) { (others, p) =>
+            othersIndex.get(p.userId).fold(others)(others.updated(_, p))
+          }, othersIndex)
+        val sendingVideo = changed.foldLeft(participants.sendingVideo -- left) { (ids, p) =>
+          if (p.userId != selfId && isConnected(p) && p.sendsVideo) ids + p.userId else ids - p.userId
+        }
+        ParticipantPartitions(convId, byId, index, CallParticipants(self, others, sendingVideo))
+      }
+    }
+  }
+}
+
+object ParticipantPartitions {
+  val Empty = ParticipantPartitions(None, Map.empty, Map.empty, CallParticipants.Empty)
+
+  def apply(channel: VoiceChannelData): ParticipantPartitions = {
+    val (others, index) = partitionOthers(channel)
+    val participants = CallParticipants(
+      channel.participantsById.get(channel.selfId),
+      others,
+      others.iterator.filter(_.sendsVideo).map(_.userId).toSet)
+    ParticipantPartitions(Some(channel.id), channel.participantsById, index, participants)
+  }
+
+  private def isConnected(p: VoiceParticipantData) = p.state == ConnectionState.Connected
+
+  private def partitionOthers(channel: VoiceChannelData): (Vector[VoiceParticipantData], Map[UserId, Int]) = {
+    val others = channel.participants.filter(p => p.userId != channel.selfId && isConnected(p))
+    (others, others.iterator.map(_.userId).zipWithIndex.toMap)
+  }
+}
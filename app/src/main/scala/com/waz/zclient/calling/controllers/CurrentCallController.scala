@@ -29,18 +29,16 @@ import com.waz.model._
 import com.waz.service.call.FlowManagerService.{StateAndReason, UnknownState}
 import com.waz.threading.Threading
 import com.waz.utils._
-import com.waz.utils.events.{ClockSignal, EventStream, EventStreamWithAuxSignal, Signal}
+import com.waz.utils.events.{EventStream, EventStreamWithAuxSignal, Signal}
 import com.waz.zclient._
 import com.waz.zclient.utils.events.ButtonSignal
-import org.threeten.bp.Duration
 import org.threeten.bp.Duration._
 import org.threeten.bp.Instant._
-import timber.log.Timber
 
 
 class CurrentCallController(implicit inj: Injector, cxt: WireContext) extends Injectable { self =>
 
-  Timber.d(s"CurrentCallController starting in context: $cxt")
+  CallLog.debug(s"CurrentCallController starting in context: $cxt")
 
   val globController = inject[GlobalCallingController]
 
@@ -119,9 +117,14 @@ class CurrentCallController(implicit inj: Injector, cxt: WireContext) extends In
 
   val callerData = userStorage.zip(callerId).flatMap { case (storage, id) => storage.signal(id) }
 
-  val duration = currentChannel flatMap {
-    case ch if ch.deviceState == ConnectionState.Connected => new ClockSignal(Duration.ofSeconds(1).asScala).map(_ => ch.tracking.established.fold2(ZERO, between(_, now)))
-    case _ => Signal.const(ZERO)
+  val establishedAt = currentChannel map {
+    case ch if ch.deviceState == ConnectionState.Connected => ch.tracking.established
+    case _ => None
+  }
+
+  val duration = establishedAt flatMap {
+    case Some(established) => CallClock.ticks map (_ => between(established, now))
+    case None => Signal.const(ZERO)
   } map { duration =>
     val seconds = ((duration.toMillis / 1000) % 60).toInt
     val minutes = ((duration.toMillis / 1000) / 60).toInt
@@ -138,13 +141,15 @@ class CurrentCallController(implicit inj: Injector, cxt: WireContext) extends In
     case _ => ""
   }
 
-  val otherParticipants = currentChannel.zip(selfUser) map {
-    case (ch, selfUser) if (ch.state == SELF_CONNECTED) => for (p <- ch.participants if selfUser.id != p.userId && p.state == ConnectionState.Connected) yield p
-    case _ => Vector.empty
-  }
+  val participants = currentChannel.scan(ParticipantPartitions.Empty) {
+    case (partitions, ch) if ch.state == SELF_CONNECTED => partitions.update(ch)
+    case _ => ParticipantPartitions.Empty
+  } map (_.participants)
+
+  val otherParticipants = participants map (_.others)
 
-  val otherSendingVideo = otherParticipants map {
-    case Vector(other) => other.sendsVideo
+  val otherSendingVideo = participants map {
+    case CallParticipants(_, Vector(other), sendingVideo) => sendingVideo.contains(other.userId)
     case _ => false
   }
 
@@ -154,7 +159,7 @@ class CurrentCallController(implicit inj: Injector, cxt: WireContext) extends In
   val cameraFailed = flowManager.flatMap(_.cameraFailedSig)
 
   val stateMessageText = Signal(callState, cameraFailed, avsStateAndChangeReason, conversationName, otherSendingVideo) map { values =>
-    Timber.d(s"(callState, avsStateAndChangeReason, conversationName, otherSending): $values")
+    CallLog.debug(s"(callState, avsStateAndChangeReason, conversationName, otherSending): $values")
     values match {
       case (SELF_CALLING, true, _, _, _) => Option(cxt.getString(R.string.calling__self_preview_unavailable_long))
       case (SELF_JOINING, _, _, _, _) => Option(cxt.getString(R.string.ongoing__connecting))
@@ -166,7 +171,7 @@ class CurrentCallController(implicit inj: Injector, cxt: WireContext) extends In
   }
 
   val participantIdsToDisplay = Signal(otherParticipants, groupCall, callerData, otherUser).map { values =>
-    Timber.d(s"(otherParticipants, groupCall, callerData, otherUser): $values")
+    CallLog.debug(s"(otherParticipants, groupCall, callerData, otherUser): $values")
     values match {
       case (parts, true, callerData, _) if parts.isEmpty => Vector(callerData.id)
       case (parts, false, _, Some(otherUser)) if parts.isEmpty => Vector(otherUser.id)
@@ -185,7 +190,7 @@ class CurrentCallController(implicit inj: Injector, cxt: WireContext) extends In
 
   def setVideoPreview(view: Option[VideoPreview]): Unit = {
     flowManager.on(Threading.Ui) { fm =>
-      Timber.d(s"Setting VideoPreview on Flowmanager, view: $view")
+      CallLog.debug(s"Setting VideoPreview on Flowmanager, view: $view")
       fm.setVideoPreview(view.getOrElse(null))
     }
   }
@@ -196,7 +201,7 @@ class CurrentCallController(implicit inj: Injector, cxt: WireContext) extends In
       (rConvId, userId) <- flowId
     } yield (fm, rConvId, userId)).on(Threading.Ui) {
       case (fm, rConvId, userId) =>
-        Timber.d(s"Setting ViewRenderer on Flowmanager, rConvId: $rConvId, userId: $userId, view: $view")
+        CallLog.debug(s"Setting ViewRenderer on Flowmanager, rConvId: $rConvId, userId: $userId, view: $view")
         view.foreach(fm.setVideoView(rConvId, userId, _))
     }
   }
@@ -32,7 +32,7 @@ import com.waz.threading.Threading
 import com.waz.utils.events.Signal
 import com.waz.zclient.calling.controllers.CurrentCallController
 import com.waz.zclient.ui.text.TypefaceTextView
-import com.waz.zclient.views.calling.CallingGainView
+import com.waz.zclient.views.calling.{AudioLevelAggregator, CallingGainView}
 import com.waz.zclient.common.views.ChatheadView
 import com.waz.zclient.{R, ViewHelper}
 import timber.log.Timber
@@ -45,6 +45,9 @@ class AudioParticipantsView(val context: Context, val attrs: AttributeSet, val d
 
   val controller = inject[CurrentCallController]
 
+  // Shared by all chatheads, so volume updates reach the gain views at most once per frame
+  val audioLevels = new AudioLevelAggregator()
+
   val layoutManager = new LinearLayoutManager(context, HORIZONTAL, false)
   setLayoutManager(layoutManager)
   setAdapter(new AudioParticipantsAdapter(context))
@@ -98,7 +101,9 @@ class AudioParticipantsView(val context: Context, val attrs: AttributeSet, val d
     }
 
     override def onCreateViewHolder(parent: ViewGroup, viewType: Int): ViewHolder = {
-      new ViewHolder(new AudioParticipantChatheadView(parent.getContext))
+      val view = new AudioParticipantChatheadView(parent.getContext)
+      view.setAudioLevels(audioLevels)
+      new ViewHolder(view)
     }
   }
 }
@@ -118,6 +123,10 @@ protected class AudioParticipantChatheadView(val context: Context, val attrs: At
 
   val userId = Signal[UserId]
 
+  private var audioLevels = Option.empty[AudioLevelAggregator]
+  // Handle of the aggregator slot while attached, read by the volume updates on a background thread
+  @volatile private var levelSlot = -1
+
   LayoutInflater.from(context).inflate(R.layout.calling__participants__chathead, this, true)
   setOrientation(LinearLayout.VERTICAL)
 
@@ -136,6 +145,7 @@ protected class AudioParticipantChatheadView(val context: Context, val attrs: At
     Timber.d(s"Setting userId: $userId")
     nameView.setUserId(userId)
     chatheadView.setUserId(userId)
+    audioLevels.foreach(_.resetSlot(levelSlot))
   }
 
   controller.callEstablished.zip(controller.participantIdsToDisplay).map {
@@ -143,11 +153,31 @@ protected class AudioParticipantChatheadView(val context: Context, val attrs: At
     case _ => View.GONE
   }.on(Threading.Ui)(nameView.setVisibility)
 
+  // Volumes only go into the aggregator, which is safe from any thread, so they needn't hop to the UI thread.
+  // A volume read with the handle of a slot released in the meantime is dropped by the aggregator
   (for {
     (vcs, convId) <- controller.voiceServiceAndCurrentConvId
     userId <- userId
     volume <- vcs.volumeChanged(convId, userId)
-  } yield volume).on(Threading.Ui)(gainView.onGainHasChanged(_))
+  } yield volume).on(Threading.Background) { volume =>
+    audioLevels.foreach(_.submitVolume(levelSlot, volume))
+  }
+
+  def setAudioLevels(levels: AudioLevelAggregator): Unit = audioLevels = Option(levels)
+
+  override def onAttachedToWindow(): Unit = {
+    super.onAttachedToWindow()
+    audioLevels.foreach { levels =>
+      levelSlot = levels.acquireSlot()
+      levels.setListener(levelSlot, gainView)
+    }
+  }
+
+  override def onDetachedFromWindow(): Unit = {
+    audioLevels.foreach(_.releaseSlot(levelSlot))
+    levelSlot = -1
+    super.onDetachedFromWindow()
+  }
 
   def setSize(size: Int, isFirst: Boolean, isLast: Boolean): Unit = {
     val params = new RecyclerView.LayoutParams(WRAP_CONTENT, WRAP_CONTENT)
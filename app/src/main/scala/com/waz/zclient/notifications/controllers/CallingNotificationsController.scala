@@ -19,11 +19,13 @@ package com.waz.zclient.notifications.controllers
 
 import android.app.{Notification, NotificationManager, PendingIntent}
 import android.content.Intent
+import android.graphics.Bitmap
 import android.support.v4.app.NotificationCompat
+import android.support.v4.util.LruCache
 import com.waz.api.VoiceChannelState._
 import com.waz.api.{KindOfCall, VoiceChannelState}
 import com.waz.bitmap.BitmapUtils
-import com.waz.model.{ConvId, ImageAssetData}
+import com.waz.model.{AssetId, ConvId, ImageAssetData}
 import com.waz.service.ZMessaging
 import com.waz.service.assets.AssetService.BitmapRequest.Regular
 import com.waz.service.assets.AssetService.BitmapResult
@@ -53,10 +55,16 @@ class CallingNotificationsController(cxt: WireContext)(implicit inj: Injector) e
   val convs = zms.map(_.convsStorage)
   val callCtrler = inject[GlobalCallingController]
 
+  // Cropped caller pictures by (picture id, size), so re-emitted bitmaps don't get cropped again
+  private val callerImages = new LruCache[(AssetId, Int), Bitmap](CallerImageCacheSize)
+
+  private var postedContent = Option.empty[NotificationContent]
+
   callCtrler.currentChannel.on(Threading.Ui) {
     case Some(data) if data.ongoing => notificationManager.cancel(ZETA_CALL_INCOMING_NOTIFICATION_ID)
     case Some(data) if !data.ongoing => notificationManager.cancel(ZETA_CALL_ONGOING_NOTIFICATION_ID)
     case None =>
+      postedContent = None
       notificationManager.cancel(ZETA_CALL_ONGOING_NOTIFICATION_ID)
       notificationManager.cancel(ZETA_CALL_INCOMING_NOTIFICATION_ID)
   }
@@ -73,56 +81,80 @@ class CallingNotificationsController(cxt: WireContext)(implicit inj: Injector) e
 
   //TODO use image controller when available from messages rewrite branch
   val bitmap = zms.zip(caller.map(_.picture)).flatMap {
-    case (zms, Some(imageId)) => zms.assetsStorage.signal(imageId).flatMap {
-      case data: ImageAssetData => BitmapSignal(data, Regular(callImageSizePx), zms.imageLoader, zms.imageCache)
-      case _ => Signal.empty[BitmapResult]
+    case (zms, Some(imageId)) => Option(callerImages.get((imageId, callImageSizePx))) match {
+      case Some(cropped) => Signal.const(Option((imageId, cropped)))
+      case None => zms.assetsStorage.signal(imageId).flatMap {
+        case data: ImageAssetData => BitmapSignal(data, Regular(callImageSizePx), zms.imageLoader, zms.imageCache)
+        case _ => Signal.empty[BitmapResult]
+      }.map {
+        case BitmapLoaded(bmp, _, _) => Option((imageId, cropCallerImage(imageId, bmp)))
+        case _ => None
+      }
     }
-    case _ => Signal.empty[BitmapResult]
-  }.map {
-    case BitmapLoaded(bmp, _, _) => Option(BitmapUtils.cropRect(bmp, callImageSizePx))
-    case _ => None
+    case _ => Signal.empty[Option[(AssetId, Bitmap)]]
   }
 
-  Signal(conv.map(_.displayName), caller.map(_.name), currentChannel, bitmap).on(Threading.Ui) {
+  /**
+    * Everything the posted notification depends on. Voice channel data also changes on participant and
+    * device state churn, which doesn't show up here, so the notification is only rebuilt when this changes.
+    */
+  val notificationContent = Signal(conv.map(_.displayName), caller.map(_.name), currentChannel, bitmap).map {
     case (conv, caller, data, bitmap) =>
-      val message = getCallStateMessage(data.state, data.video.isVideoCall)
       val title = if (data.tracking.kindOfCall == KindOfCall.GROUP) getString(R.string.system_notification__group_call_title, caller, conv) else conv
+      NotificationContent(data.id, data.state, data.video.isVideoCall, data.ongoing, conv, title, bitmap.map(_._1))(bitmap.map(_._2))
+  }
 
-      val bigTextStyle = new NotificationCompat.BigTextStyle()
-        .setBigContentTitle(conv)
-        .bigText(message)
-      val builder = new NotificationCompat.Builder(context)
-        .setSmallIcon(R.drawable.ic_menu_logo)
-        .setLargeIcon(bitmap.orNull)
-        .setContentTitle(title)
-        .setContentText(message)
-        .setContentIntent(getNotificationAppLaunchIntent(context))
-        .setStyle(bigTextStyle)
-        .setCategory(NotificationCompat.CATEGORY_CALL)
-        .setPriority(NotificationCompat.PRIORITY_MAX)
-
-      data.state match {
-        case OTHER_CALLING |
-             OTHERS_CONNECTED => //not in a call, silence or join
-          val silence = silenceIntent(data.id)
-          builder
-            .addAction(R.drawable.ic_menu_silence_call_w, getString(R.string.system_notification__silence_call), silence)
-            .addAction(R.drawable.ic_menu_join_call_w, getString(R.string.system_notification__join_call), joinIntent(data.id))
-            .setDeleteIntent(silence)
-
-        case SELF_CONNECTED |
-             SELF_CALLING |
-             SELF_JOINING => //in a call, leave
-          builder.addAction(R.drawable.ic_menu_end_call_w, getString(R.string.system_notification__leave_call), leaveIntent(data.id))
-
-        case _ => //no available action
-      }
+  notificationContent.on(Threading.Ui) { content =>
+    if (!postedContent.contains(content)) {
+      postedContent = Some(content)
+      val id = if (content.ongoing) ZETA_CALL_ONGOING_NOTIFICATION_ID else ZETA_CALL_INCOMING_NOTIFICATION_ID
+      notificationManager.notify(id, buildNotification(content))
+    }
+  }
 
+  private def buildNotification(content: NotificationContent) = {
+    val message = getCallStateMessage(content.state, content.video)
+
+    val bigTextStyle = new NotificationCompat.BigTextStyle()
+      .setBigContentTitle(content.conv)
+      .bigText(message)
+    val builder = new NotificationCompat.Builder(context)
+      .setSmallIcon(R.drawable.ic_menu_logo)
+      .setLargeIcon(content.picture.orNull)
+      .setContentTitle(content.title)
+      .setContentText(message)
+      .setContentIntent(getNotificationAppLaunchIntent(context))
+      .setStyle(bigTextStyle)
+      .setCategory(NotificationCompat.CATEGORY_CALL)
+      .setPriority(NotificationCompat.PRIORITY_MAX)
+
+    content.state match {
+      case OTHER_CALLING |
+           OTHERS_CONNECTED => //not in a call, silence or join
+        val silence = silenceIntent(content.convId)
+        builder
+          .addAction(R.drawable.ic_menu_silence_call_w, getString(R.string.system_notification__silence_call), silence)
+          .addAction(R.drawable.ic_menu_join_call_w, getString(R.string.system_notification__join_call), joinIntent(content.convId))
+          .setDeleteIntent(silence)
+
+      case SELF_CONNECTED |
+           SELF_CALLING |
+           SELF_JOINING => //in a call, leave
+        builder.addAction(R.drawable.ic_menu_end_call_w, getString(R.string.system_notification__leave_call), leaveIntent(content.convId))
+
+      case _ => //no available action
+    }
 
-      val notification = builder.build
-      notification.priority = Notification.PRIORITY_MAX
-      if (data.ongoing) notification.flags |= Notification.FLAG_NO_CLEAR
-      notificationManager.notify(if (data.ongoing) ZETA_CALL_ONGOING_NOTIFICATION_ID else ZETA_CALL_INCOMING_NOTIFICATION_ID, notification)
+    val notification = builder.build
+    notification.priority = Notification.PRIORITY_MAX
+    if (content.ongoing) notification.flags |= Notification.FLAG_NO_CLEAR
+    notification
+  }
+
+  private def cropCallerImage(imageId: AssetId, bmp: Bitmap) = {
+    val cropped = BitmapUtils.cropRect(bmp, callImageSizePx)
+    callerImages.put((imageId, callImageSizePx), cropped)
+    cropped
   }
 
   private def getCallStateMessage(state: VoiceChannelState, isVideoCall: Boolean): String = state match {
@@ -151,4 +183,17 @@ object CallingNotificationsController {
   val JoinRequestCode = 8912
   val LeaveRequestCode = 8913
   val SilenceRequestCode = 8914
+
+  val CallerImageCacheSize = 4
+
+  /**
+    * Content key of the call notification. The caller picture is compared by its asset id only.
+    */
+  case class NotificationContent(convId: ConvId,
+                                 state: VoiceChannelState,
+                                 video: Boolean,
+                                 ongoing: Boolean,
+                                 conv: String,
+                                 title: String,
+                                 pictureId: Option[AssetId])(val picture: Option[Bitmap])
 }
@@ -0,0 +1,253 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.location;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class GeocodingSchedulerTest {
+
+    private static final long DEBOUNCE_MS = 50;
+    private static final long MAX_AGE_MS = 60 * 60 * 1000;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private FakeGeocoder geocoder;
+    private ScheduledExecutorService worker;
+    private File cacheFile;
+
+    @Before
+    public void setUp() throws IOException {
+        geocoder = new FakeGeocoder();
+        worker = Executors.newSingleThreadScheduledExecutor();
+        cacheFile = File.createTempFile("geocoding", ".cache");
+        Assert.assertTrue(cacheFile.delete());
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        worker.shutdownNow();
+        worker.awaitTermination(1, TimeUnit.SECONDS);
+        cacheFile.delete();
+    }
+
+    @Test
+    public void burstOfRequestsIsGeocodedOnce() throws Exception {
+        GeocodingScheduler scheduler = newScheduler(null);
+        RecordingCallback callback = new RecordingCallback(1);
+
+        // A pan across the map, one camera change per frame
+        for (int i = 0; i < 30; i++) {
+            scheduler.request(52.5200 + i * 0.001, 13.4050, 15, callback);
+        }
+
+        Assert.assertTrue(callback.await());
+        Assert.assertEquals(1, geocoder.calls.get());
+        Assert.assertEquals(Collections.singletonList(FakeGeocoder.nameOf(52.5200 + 29 * 0.001, 13.4050)),
+                            callback.addresses());
+    }
+
+    @Test
+    public void requestsWithinACellAreServedFromTheCache() throws Exception {
+        GeocodingScheduler scheduler = newScheduler(null);
+        RecordingCallback first = new RecordingCallback(1);
+        scheduler.request(52.52000, 13.40500, 15, first);
+        Assert.assertTrue(first.await());
+
+        // A few meters away, still in the same ~38 x 19 m cell
+        RecordingCallback second = new RecordingCallback(1);
+        scheduler.request(52.52001, 13.40502, 15, second);
+        Assert.assertEquals(first.addresses(), second.addresses());
+        Assert.assertEquals(1, geocoder.calls.get());
+        Assert.assertEquals(1, scheduler.getLookupCount());
+    }
+
+    @Test
+    public void coarseZoomLevelsShareLargerCells() {
+        // Two streets in the same district, about 100 m apart
+        String a = GeocodingCache.cellOf(52.5200, 13.4050, 8);
+        String b = GeocodingCache.cellOf(52.5190, 13.4040, 8);
+        Assert.assertEquals(a, b);
+        Assert.assertNotEquals(GeocodingCache.cellOf(52.5200, 13.4050, 15), GeocodingCache.cellOf(52.5190, 13.4040, 15));
+        Assert.assertEquals(GeocodingCache.COUNTRY_PRECISION, GeocodingCache.cellOf(52.5200, 13.4050, 3).length());
+    }
+
+    @Test
+    public void geohashMatchesReferenceValues() {
+        Assert.assertEquals("u4pruydqqvj", Geohash.encode(57.64911, 10.40744, 11));
+        Assert.assertEquals("ezs42", Geohash.encode(42.6, -5.6, 5));
+    }
+
+    @Test
+    public void failedLookupIsNotCached() throws Exception {
+        geocoder.failing = true;
+        GeocodingScheduler scheduler = newScheduler(null);
+        RecordingCallback failed = new RecordingCallback(1);
+        scheduler.request(48.8566, 2.3522, 15, failed);
+        Assert.assertTrue(failed.await());
+        Assert.assertEquals(GeocodedPlace.UNKNOWN, failed.places.get(0));
+
+        geocoder.failing = false;
+        RecordingCallback retried = new RecordingCallback(1);
+        scheduler.request(48.8566, 2.3522, 15, retried);
+        Assert.assertTrue(retried.await());
+        Assert.assertEquals(2, geocoder.calls.get());
+        Assert.assertNotEquals(GeocodedPlace.UNKNOWN, retried.places.get(0));
+    }
+
+    @Test
+    public void cancelledRequestIsNotDelivered() throws Exception {
+        GeocodingScheduler scheduler = newScheduler(null);
+        RecordingCallback callback = new RecordingCallback(1);
+        scheduler.request(40.4168, -3.7038, 15, callback);
+        scheduler.cancel();
+
+        Assert.assertFalse(callback.latch.await(DEBOUNCE_MS * 4, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(0, geocoder.calls.get());
+    }
+
+    @Test
+    public void cacheSurvivesARestart() throws Exception {
+        GeocodingScheduler scheduler = newScheduler(cacheFile);
+        RecordingCallback callback = new RecordingCallback(1);
+        scheduler.request(51.5074, -0.1278, 15, callback);
+        Assert.assertTrue(callback.await());
+        scheduler.shutdown();
+        Assert.assertTrue(worker.awaitTermination(1, TimeUnit.SECONDS));
+        Assert.assertTrue(cacheFile.exists());
+
+        worker = Executors.newSingleThreadScheduledExecutor();
+        geocoder = new FakeGeocoder();
+        scheduler = newScheduler(cacheFile);
+        // The cache is loaded on the worker, wait for it before asking
+        worker.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get();
+
+        RecordingCallback restored = new RecordingCallback(1);
+        scheduler.request(51.5074, -0.1278, 15, restored);
+        Assert.assertEquals(callback.addresses(), restored.addresses());
+        Assert.assertEquals(0, geocoder.calls.get());
+    }
+
+    @Test
+    public void expiredEntriesAreNotLoaded() throws Exception {
+        GeocodingCache cache = new GeocodingCache(10, MAX_AGE_MS);
+        cache.put("u33dc0", new GeocodedPlace("Old street", "", "Berlin", "Germany"), 0);
+        cache.put("u33dc1", new GeocodedPlace("New street", "", "Berlin", "Germany"), MAX_AGE_MS);
+        cache.save(cacheFile);
+
+        GeocodingCache loaded = new GeocodingCache(10, MAX_AGE_MS);
+        loaded.load(cacheFile, MAX_AGE_MS + 1);
+        Assert.assertEquals(1, loaded.size());
+        Assert.assertNull(loaded.get("u33dc0", MAX_AGE_MS + 1));
+        Assert.assertEquals("New street", loaded.get("u33dc1", MAX_AGE_MS + 1).getFirstAddressLine());
+    }
+
+    @Test
+    public void leastRecentlyUsedCellIsEvicted() {
+        GeocodingCache cache = new GeocodingCache(2, MAX_AGE_MS);
+        cache.put("a", new GeocodedPlace("A", "", "", ""), 0);
+        cache.put("b", new GeocodedPlace("B", "", "", ""), 0);
+        cache.get("a", 0);
+        cache.put("c", new GeocodedPlace("C", "", "", ""), 0);
+
+        Assert.assertNotNull(cache.get("a", 0));
+        Assert.assertNull(cache.get("b", 0));
+        Assert.assertNotNull(cache.get("c", 0));
+    }
+
+    @Test
+    public void nameFollowsTheZoomLevel() {
+        GeocodedPlace place = new GeocodedPlace("Unter den Linden 1", "Mitte", "Berlin", "Germany");
+        Assert.assertEquals("Unter den Linden 1", place.getName(15));
+        Assert.assertEquals("Mitte", place.getName(8));
+        Assert.assertEquals("Germany", place.getName(3));
+        Assert.assertEquals("Berlin", new GeocodedPlace("", null, "Berlin", "Germany").getName(15));
+    }
+
+    private GeocodingScheduler newScheduler(File file) {
+        return new GeocodingScheduler(geocoder, new GeocodingCache(100, MAX_AGE_MS), file, worker, DIRECT, DEBOUNCE_MS);
+    }
+
+    private static class FakeGeocoder implements ReverseGeocoder {
+        final AtomicInteger calls = new AtomicInteger();
+        volatile boolean failing;
+
+        static String nameOf(double latitude, double longitude) {
+            return String.format("%.5f,%.5f", latitude, longitude);
+        }
+
+        @Override
+        public GeocodedPlace getPlace(double latitude, double longitude) throws IOException {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new IOException("offline");
+            }
+            return new GeocodedPlace(nameOf(latitude, longitude), "", "", "");
+        }
+    }
+
+    private static class RecordingCallback implements GeocodingScheduler.Callback {
+        final List<GeocodedPlace> places = Collections.synchronizedList(new ArrayList<GeocodedPlace>());
+        final CountDownLatch latch;
+
+        RecordingCallback(int expected) {
+            latch = new CountDownLatch(expected);
+        }
+
+        @Override
+        public void onPlaceResolved(GeocodedPlace place) {
+            places.add(place);
+            latch.countDown();
+        }
+
+        boolean await() throws InterruptedException {
+            return latch.await(2, TimeUnit.SECONDS);
+        }
+
+        List<String> addresses() {
+            List<String> addresses = new ArrayList<>();
+            for (GeocodedPlace place : places) {
+                addresses.add(place.getFirstAddressLine());
+            }
+            return addresses;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.location;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LocationSamplingPolicyTest {
+
+    private static final double LAT = 52.5200;
+    private static final double LON = 13.4050;
+    // Roughly one meter of latitude
+    private static final double METER = 1.0 / 111320;
+
+    private LocationSamplingPolicy policy;
+    private long time;
+
+    @Before
+    public void setUp() {
+        policy = new LocationSamplingPolicy();
+        time = 0;
+    }
+
+    @Test
+    public void startsFastAndAccurate() {
+        Assert.assertEquals(LocationSamplingPolicy.FAST_INTERVAL_MS, policy.getIntervalMillis());
+        Assert.assertEquals(LocationSamplingPolicy.FAST_MIN_DISTANCE_M, policy.getMinDistanceMeters(), 0);
+        Assert.assertTrue(policy.isHighAccuracy());
+    }
+
+    @Test
+    public void stationaryTraceBacksOffInTwoSteps() {
+        // GPS jitter of a couple of meters around a fixed point
+        for (int i = 0; i < LocationSamplingPolicy.AGREEING_FIXES_TO_SETTLE + 1; i++) {
+            fix((i % 3) * METER, 8);
+        }
+        Assert.assertEquals(LocationSamplingPolicy.SETTLED_INTERVAL_MS, policy.getIntervalMillis());
+        Assert.assertFalse(policy.isHighAccuracy());
+
+        for (int i = 0; i < LocationSamplingPolicy.AGREEING_FIXES_TO_IDLE; i++) {
+            fix((i % 3) * METER, 8);
+        }
+        Assert.assertEquals(LocationSamplingPolicy.IDLE_INTERVAL_MS, policy.getIntervalMillis());
+        Assert.assertEquals(LocationSamplingPolicy.IDLE_MIN_DISTANCE_M, policy.getMinDistanceMeters(), 0);
+    }
+
+    @Test
+    public void inaccurateFixesDoNotBackOff() {
+        for (int i = 0; i < 20; i++) {
+            fix(0, 150);
+        }
+        Assert.assertEquals(LocationSamplingPolicy.FAST_INTERVAL_MS, policy.getIntervalMillis());
+    }
+
+    @Test
+    public void movementGoesBackToFastSampling() {
+        for (int i = 0; i < LocationSamplingPolicy.AGREEING_FIXES_TO_IDLE + 1; i++) {
+            fix(0, 5);
+        }
+        Assert.assertEquals(LocationSamplingPolicy.IDLE_INTERVAL_MS, policy.getIntervalMillis());
+
+        // Walking off, 50 m further
+        Assert.assertTrue(fix(50 * METER, 5));
+        Assert.assertEquals(LocationSamplingPolicy.FAST_INTERVAL_MS, policy.getIntervalMillis());
+        Assert.assertTrue(policy.isHighAccuracy());
+    }
+
+    @Test
+    public void worseFixAtTheSamePlaceIsDropped() {
+        Assert.assertTrue(fix(0, 10));
+        // A network fix arriving after GPS, within the GPS accuracy
+        Assert.assertFalse(fix(5 * METER, 40));
+        // A better fix is always shown
+        Assert.assertTrue(fix(2 * METER, 4));
+    }
+
+    @Test
+    public void redundantFixIsDropped() {
+        Assert.assertTrue(fix(0, 10));
+        Assert.assertFalse(fix(0.2 * METER, 10));
+        Assert.assertTrue(fix(3 * METER, 10));
+    }
+
+    @Test
+    public void staleFixIsReplacedEvenIfWorse() {
+        Assert.assertTrue(fix(0, 10));
+        time += LocationSamplingPolicy.STALE_FIX_MS;
+        Assert.assertTrue(fix(5 * METER, 40));
+    }
+
+    @Test
+    public void resetGoesBackToFastSampling() {
+        for (int i = 0; i < LocationSamplingPolicy.AGREEING_FIXES_TO_IDLE + 1; i++) {
+            fix(0, 5);
+        }
+        policy.reset();
+        Assert.assertEquals(LocationSamplingPolicy.FAST_INTERVAL_MS, policy.getIntervalMillis());
+        Assert.assertTrue(fix(0, 5));
+    }
+
+    @Test
+    public void distanceIsInMeters() {
+        // Paris to London, about 344 km
+        double distance = LocationSamplingPolicy.distanceMeters(48.8566, 2.3522, 51.5074, -0.1278);
+        Assert.assertEquals(343500, distance, 1500);
+        Assert.assertEquals(100, LocationSamplingPolicy.distanceMeters(LAT, LON, LAT + 100 * METER, LON), 1);
+    }
+
+    private boolean fix(double latitudeOffset, float accuracy) {
+        time += 1000;
+        return policy.onLocationFix(LAT + latitudeOffset, LON, accuracy, time);
+    }
+}
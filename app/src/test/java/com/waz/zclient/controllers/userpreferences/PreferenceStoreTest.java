@@ -0,0 +1,157 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.userpreferences;
+
+import com.waz.zclient.testutils.MockSharedPreferences;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class PreferenceStoreTest {
+
+    private static final long WRITE_BEHIND_DELAY_MS = 100;
+
+    private MockSharedPreferences sharedPreferences;
+    private ScheduledExecutorService writer;
+
+    @Before
+    public void setUp() {
+        sharedPreferences = new MockSharedPreferences();
+        writer = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        writer.shutdownNow();
+        writer.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void valuesAreLoadedOnceAndReadFromMemory() throws Exception {
+        sharedPreferences.putExternally("string", "value");
+        sharedPreferences.putExternally("int", 42);
+        sharedPreferences.putExternally("boolean", true);
+        PreferenceStore store = newStore();
+
+        store.load(null);
+        store.awaitLoaded();
+
+        Assert.assertTrue(store.isLoaded());
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("value", store.getString("string", null));
+            Assert.assertEquals(42, store.getInt("int", 0));
+            Assert.assertTrue(store.getBoolean("boolean", false));
+            Assert.assertEquals(7L, store.getLong("missing", 7L));
+            Assert.assertFalse(store.contains("missing"));
+        }
+        Assert.assertEquals(1, sharedPreferences.getAllCount.get());
+        Assert.assertEquals(0, sharedPreferences.getCount.get());
+    }
+
+    @Test
+    public void valuesWrittenBeforeLoadingFinishedAreKept() throws Exception {
+        sharedPreferences.putExternally("key", "old");
+        PreferenceStore store = newStore();
+
+        store.putString("key", "new");
+        store.load(null);
+        store.awaitLoaded();
+
+        Assert.assertEquals("new", store.getString("key", null));
+    }
+
+    @Test
+    public void writesAreBatchedBehindTheDelay() throws Exception {
+        sharedPreferences.putExternally("removed", "value");
+        PreferenceStore store = newStore();
+        store.load(null);
+        store.awaitLoaded();
+
+        store.putString("string", "value");
+        store.putInt("int", 1);
+        store.putInt("int", 2);
+        store.putBoolean("boolean", true);
+        store.remove("removed");
+
+        // applied to memory right away, not written yet
+        Assert.assertEquals(2, store.getInt("int", 0));
+        Assert.assertFalse(store.contains("removed"));
+        Assert.assertEquals(0, sharedPreferences.commitCount.get());
+
+        awaitWriteBehind();
+
+        Assert.assertEquals(1, sharedPreferences.commitCount.get());
+        Assert.assertEquals("value", sharedPreferences.getValue("string"));
+        Assert.assertEquals(2, sharedPreferences.getValue("int"));
+        Assert.assertEquals(true, sharedPreferences.getValue("boolean"));
+        Assert.assertNull(sharedPreferences.getValue("removed"));
+
+        store.putInt("int", 3);
+        awaitWriteBehind();
+
+        Assert.assertEquals(2, sharedPreferences.commitCount.get());
+        Assert.assertEquals(3, sharedPreferences.getValue("int"));
+    }
+
+    @Test
+    public void externalChangesArePickedUp() throws Exception {
+        sharedPreferences.putExternally("key", "old");
+        PreferenceStore store = newStore();
+        store.load(null);
+        store.awaitLoaded();
+
+        sharedPreferences.putExternally("key", "new");
+
+        Assert.assertEquals("new", store.getString("key", null));
+    }
+
+    @Test
+    public void tearDownWritesPendingValuesAndKeepsTheSharedWriter() throws Exception {
+        PreferenceStore store = newStore();
+        store.load(null);
+        store.awaitLoaded();
+
+        store.putString("key", "value");
+        store.tearDown();
+        writer.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(1, TimeUnit.SECONDS);
+
+        Assert.assertEquals("value", sharedPreferences.getValue("key"));
+        Assert.assertFalse(writer.isShutdown());
+    }
+
+    private PreferenceStore newStore() {
+        return new PreferenceStore(sharedPreferences, writer, WRITE_BEHIND_DELAY_MS);
+    }
+
+    private void awaitWriteBehind() throws Exception {
+        writer.schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 2 * WRITE_BEHIND_DELAY_MS, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.controllers.userpreferences;
+
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import com.waz.zclient.testutils.MockSharedPreferences;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class UserPreferencesControllerTest {
+
+    private static final long WRITE_BEHIND_DELAY_MS = 50;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private MockSharedPreferences sharedPreferences;
+    private ScheduledExecutorService writer;
+    private Context context;
+    private RecordingObserver observer;
+
+    @Before
+    public void setUp() throws Exception {
+        sharedPreferences = new MockSharedPreferences();
+        writer = Executors.newSingleThreadScheduledExecutor();
+        context = mock(Context.class);
+        PackageManager packageManager = mock(PackageManager.class);
+        when(context.getPackageManager()).thenReturn(packageManager);
+        when(packageManager.getPackageInfo(anyString(), anyInt())).thenReturn(new PackageInfo());
+        observer = new RecordingObserver();
+    }
+
+    @After
+    public void tearDown() throws InterruptedException {
+        writer.shutdownNow();
+        writer.awaitTermination(1, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void storedEmojisAreParsedOnce() throws Exception {
+        sharedPreferences.putExternally("USER_PREF_RECENT_EMOJIS", "[\"a\",\"b\"]");
+        sharedPreferences.putExternally("USER_PREF_UNSUPPORTED_EMOJIS", "[\"x\",\"y\"]");
+        UserPreferencesController controller = newController();
+
+        List<String> recent = controller.getRecentEmojis();
+        Set<String> unsupported = controller.getUnsupportedEmojis();
+
+        Assert.assertEquals(Arrays.asList("a", "b"), recent);
+        Assert.assertEquals(new HashSet<>(Arrays.asList("x", "y")), unsupported);
+        Assert.assertSame(recent, controller.getRecentEmojis());
+        Assert.assertSame(unsupported, controller.getUnsupportedEmojis());
+    }
+
+    @Test
+    public void missingOrBrokenEmojisAreEmpty() throws Exception {
+        sharedPreferences.putExternally("USER_PREF_UNSUPPORTED_EMOJIS", "not json");
+        UserPreferencesController controller = newController();
+
+        Assert.assertTrue(controller.getRecentEmojis().isEmpty());
+        Assert.assertTrue(controller.getUnsupportedEmojis().isEmpty());
+    }
+
+    @Test
+    public void recentEmojiMovesToTheFrontAndIsWrittenBehind() throws Exception {
+        sharedPreferences.putExternally("USER_PREF_RECENT_EMOJIS", "[\"a\",\"b\"]");
+        UserPreferencesController controller = newController();
+        controller.addEmojiPreferencesObserver(observer);
+
+        controller.addRecentEmoji("b");
+
+        List<String> expected = Arrays.asList("b", "a");
+        Assert.assertEquals(expected, controller.getRecentEmojis());
+        Assert.assertEquals(Collections.singletonList(expected), observer.recent);
+        Assert.assertTrue(observer.unsupported.isEmpty());
+
+        awaitWriteBehind();
+        Assert.assertEquals("[\"b\",\"a\"]", sharedPreferences.getValue("USER_PREF_RECENT_EMOJIS"));
+    }
+
+    @Test
+    public void unsupportedEmojisAreReplacedAndVersionIsRemembered() throws Exception {
+        sharedPreferences.putExternally("USER_PREF_UNSUPPORTED_EMOJIS", "[\"x\"]");
+        UserPreferencesController controller = newController();
+        controller.addEmojiPreferencesObserver(observer);
+
+        controller.setUnsupportedEmoji(Arrays.asList("y", "z"), 3);
+
+        Set<String> expected = new HashSet<>(Arrays.asList("y", "z"));
+        Assert.assertEquals(expected, controller.getUnsupportedEmojis());
+        Assert.assertTrue(controller.hasCheckedForUnsupportedEmojis(3));
+        Assert.assertFalse(controller.hasCheckedForUnsupportedEmojis(4));
+        Assert.assertEquals(Collections.singletonList(expected), observer.unsupported);
+        Assert.assertTrue(observer.recent.isEmpty());
+    }
+
+    @Test
+    public void removedObserverIsNotNotified() throws Exception {
+        UserPreferencesController controller = newController();
+        controller.addEmojiPreferencesObserver(observer);
+        controller.removeEmojiPreferencesObserver(observer);
+
+        controller.addRecentEmoji("a");
+        controller.setUnsupportedEmoji(Collections.singletonList("x"), 1);
+
+        Assert.assertTrue(observer.recent.isEmpty());
+        Assert.assertTrue(observer.unsupported.isEmpty());
+    }
+
+    private UserPreferencesController newController() throws Exception {
+        PreferenceStore store = new PreferenceStore(sharedPreferences, writer, WRITE_BEHIND_DELAY_MS);
+        UserPreferencesController controller = new UserPreferencesController(context, store, DIRECT);
+        // the load callback runs on the writer, wait until it is done
+        writer.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }).get(1, TimeUnit.SECONDS);
+        return controller;
+    }
+
+    private void awaitWriteBehind() throws Exception {
+        writer.schedule(new Runnable() {
+            @Override
+            public void run() {
+            }
+        }, 2 * WRITE_BEHIND_DELAY_MS, TimeUnit.MILLISECONDS).get(1, TimeUnit.SECONDS);
+    }
+
+    private static class RecordingObserver implements EmojiPreferencesObserver {
+
+        final List<List<String>> recent = new ArrayList<>();
+        final List<Set<String>> unsupported = new ArrayList<>();
+
+        @Override
+        public void onRecentEmojisChanged(List<String> recentEmojis) {
+            recent.add(recentEmojis);
+        }
+
+        @Override
+        public void onUnsupportedEmojisChanged(Set<String> unsupportedEmojis) {
+            unsupported.add(unsupportedEmojis);
+        }
+    }
+}
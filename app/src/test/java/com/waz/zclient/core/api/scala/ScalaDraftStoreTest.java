@@ -0,0 +1,330 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.api.scala;
+
+import com.waz.zclient.core.stores.draft.Draft;
+import com.waz.zclient.core.stores.draft.DraftJournal;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+public class ScalaDraftStoreTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("drafts", "");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void draftsSurviveARestart() throws Exception {
+        Draft edit = new Draft("fixed typo", 3, 5, "message-1");
+
+        ScalaDraftStore store = new ScalaDraftStore(directory, 0, DIRECT);
+        store.setDraft("a", Draft.of("hello"));
+        store.setDraft("b", edit);
+        store.setDraft("c", Draft.of("gone soon"));
+        store.setDraft("c", Draft.of(""));
+        restart(store);
+
+        store = new ScalaDraftStore(directory, 0, DIRECT);
+        Assert.assertEquals(Draft.of("hello"), load(store, "a"));
+        Assert.assertEquals(edit, store.getDraftState("b"));
+        Assert.assertNull(store.getDraftState("c"));
+        restart(store);
+    }
+
+    @Test
+    public void changesMadeBeforeTheRecoveryWin() throws Exception {
+        ScalaDraftStore store = new ScalaDraftStore(directory, 0, DIRECT);
+        store.setDraft("a", Draft.of("stored"));
+        store.setDraft("b", Draft.of("stored"));
+        store.setDraft("c", Draft.of("stored"));
+        restart(store);
+
+        store = new ScalaDraftStore(directory, 0, DIRECT);
+        store.setDraft("a", Draft.of("newer"));
+        store.setDraft("b", Draft.of(""));
+        Assert.assertEquals(Draft.of("stored"), load(store, "c"));
+        Assert.assertEquals(Draft.of("newer"), store.getDraftState("a"));
+        Assert.assertNull(store.getDraftState("b"));
+        restart(store);
+
+        store = new ScalaDraftStore(directory, 0, DIRECT);
+        Assert.assertEquals(Draft.of("newer"), load(store, "a"));
+        Assert.assertNull(store.getDraftState("b"));
+        restart(store);
+    }
+
+    @Test
+    public void storeCreatedRightAfterATearDownSeesItsChanges() throws Exception {
+        ScalaDraftStore store = new ScalaDraftStore(directory, 60 * 1000, DIRECT);
+        store.setDraft("a", Draft.of("written on tear down"));
+        store.tearDown();
+
+        ScalaDraftStore next = new ScalaDraftStore(directory, 0, DIRECT);
+        Assert.assertEquals(Draft.of("written on tear down"), load(next, "a"));
+        restart(next);
+    }
+
+    @Test
+    public void logoutDeletesTheStoredDrafts() throws Exception {
+        ScalaDraftStore store = new ScalaDraftStore(directory, 0, DIRECT);
+        store.setDraft("a", Draft.of("of the old account"));
+        restart(store);
+
+        store = new ScalaDraftStore(directory, 60 * 1000, DIRECT);
+        store.setDraft("b", Draft.of("not written yet"));
+        store.onLogout();
+        Assert.assertNull(store.getDraftState("b"));
+        Assert.assertNull(load(store, "a"));
+        restart(store);
+        Assert.assertFalse(new File(directory, DraftJournal.FILE_NAME).exists());
+
+        ScalaDraftStore next = new ScalaDraftStore(directory, 0, DIRECT);
+        Assert.assertNull(load(next, "a"));
+        Assert.assertNull(next.getDraftState("b"));
+        restart(next);
+    }
+
+    @Test
+    public void draftsOfRemovedConversationsArePruned() throws Exception {
+        ScalaDraftStore store = new ScalaDraftStore(directory, 0, DIRECT);
+        store.setDraft("a", Draft.of("kept"));
+        store.setDraft("b", Draft.of("deleted before the start"));
+        store.setDraft("c", Draft.of("deleted later"));
+        restart(store);
+
+        // Conversations known before the recovery finishes are applied to the recovered drafts
+        store = new ScalaDraftStore(directory, 0, DIRECT);
+        store.retainDrafts(Arrays.asList("a", "c"));
+        Assert.assertEquals(Draft.of("kept"), load(store, "a"));
+        Assert.assertNull(store.getDraftState("b"));
+        store.retainDrafts(Collections.singletonList("a"));
+        Assert.assertNull(store.getDraftState("c"));
+        restart(store);
+
+        DraftJournal journal = new DraftJournal(directory);
+        Map<String, Draft> drafts = journal.recover();
+        journal.close();
+        Assert.assertEquals(Collections.singletonMap("a", Draft.of("kept")), drafts);
+    }
+
+    @Test
+    public void oversizedDraftIsSkippedWithoutLosingTheBatch() throws Exception {
+        ScalaDraftStore store = new ScalaDraftStore(directory, 0, DIRECT);
+        store.setDraft("b", Draft.of("older"));
+        restart(store);
+
+        char[] text = new char[9 * 1024 * 1024];
+        Arrays.fill(text, 'x');
+        Draft oversized = Draft.of(new String(text));
+        store = new ScalaDraftStore(directory, 60 * 1000, DIRECT);
+        load(store, "a");
+        store.setDraft("a", Draft.of("before"));
+        store.setDraft("b", oversized);
+        store.setDraft("c", Draft.of("after"));
+        Assert.assertEquals(oversized, store.getDraftState("b"));
+        restart(store);
+
+        store = new ScalaDraftStore(directory, 0, DIRECT);
+        Assert.assertEquals(Draft.of("before"), load(store, "a"));
+        // The older version doesn't come back either
+        Assert.assertNull(store.getDraftState("b"));
+        Assert.assertEquals(Draft.of("after"), store.getDraftState("c"));
+        restart(store);
+    }
+
+    @Test
+    public void changesAreVisibleBeforeTheyAreWritten() throws Exception {
+        ScalaDraftStore store = new ScalaDraftStore(directory, 60 * 1000, DIRECT);
+        load(store, "a");
+        store.setDraft("a", Draft.of("typing"));
+
+        Assert.assertEquals("typing", store.getDraftState("a").getText());
+        DraftJournal journal = new DraftJournal(directory);
+        Assert.assertEquals(0, journal.recover().size());
+        journal.close();
+        restart(store);
+    }
+
+    @Test
+    public void tornRecordIsDroppedOnRecovery() throws Exception {
+        DraftJournal journal = new DraftJournal(directory);
+        journal.recover();
+        journal.append("a", Draft.of("complete"));
+        journal.append("b", Draft.of("torn"));
+        journal.sync();
+        journal.close();
+
+        File file = new File(directory, DraftJournal.FILE_NAME);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(raf.length() - 3);
+        raf.close();
+
+        journal = new DraftJournal(directory);
+        Map<String, Draft> drafts = journal.recover();
+        Assert.assertEquals(1, drafts.size());
+        Assert.assertEquals("complete", drafts.get("a").getText());
+
+        // Appending continues after the last complete record
+        journal.append("c", Draft.of("after recovery"));
+        journal.sync();
+        journal.close();
+        drafts = new DraftJournal(directory).recover();
+        Assert.assertEquals(2, drafts.size());
+        Assert.assertEquals("after recovery", drafts.get("c").getText());
+    }
+
+    @Test
+    public void corruptRecordEndsRecovery() throws Exception {
+        DraftJournal journal = new DraftJournal(directory);
+        journal.recover();
+        journal.append("a", Draft.of("first"));
+        journal.append("b", Draft.of("second"));
+        journal.sync();
+        journal.close();
+
+        File file = new File(directory, DraftJournal.FILE_NAME);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(raf.length() - 1);
+        raf.write('X');
+        raf.close();
+
+        Map<String, Draft> drafts = new DraftJournal(directory).recover();
+        Assert.assertEquals(1, drafts.size());
+        Assert.assertEquals("first", drafts.get("a").getText());
+    }
+
+    @Test
+    public void unfinishedCompactionIsIgnored() throws Exception {
+        DraftJournal journal = new DraftJournal(directory);
+        journal.recover();
+        journal.append("a", Draft.of("kept"));
+        journal.sync();
+        journal.close();
+
+        FileOutputStream leftover = new FileOutputStream(new File(directory, DraftJournal.FILE_NAME + ".tmp"));
+        leftover.write(new byte[] {1, 2, 3});
+        leftover.close();
+
+        Map<String, Draft> drafts = new DraftJournal(directory).recover();
+        Assert.assertEquals("kept", drafts.get("a").getText());
+        Assert.assertFalse(new File(directory, DraftJournal.FILE_NAME + ".tmp").exists());
+    }
+
+    @Test
+    public void compactionKeepsOnlyLiveDrafts() throws Exception {
+        DraftJournal journal = new DraftJournal(directory);
+        journal.recover();
+        Map<String, Draft> live = new HashMap<>();
+        for (int i = 0; i < 500; i++) {
+            Draft draft = Draft.of("draft " + i);
+            journal.append("conv " + (i % 5), draft);
+            live.put("conv " + (i % 5), draft);
+        }
+        journal.sync();
+        long before = new File(directory, DraftJournal.FILE_NAME).length();
+
+        journal.compact(live);
+        Assert.assertEquals(5, journal.getRecordCount());
+        journal.close();
+
+        Assert.assertTrue(new File(directory, DraftJournal.FILE_NAME).length() < before / 50);
+        Assert.assertEquals(live, new DraftJournal(directory).recover());
+    }
+
+    @Test
+    public void storeCompactsItsJournal() throws Exception {
+        ScalaDraftStore store = new ScalaDraftStore(directory, 0, DIRECT);
+        for (int i = 0; i < 1000; i++) {
+            store.setDraft("conv", Draft.of("text " + i));
+        }
+        restart(store);
+
+        DraftJournal journal = new DraftJournal(directory);
+        Map<String, Draft> drafts = journal.recover();
+        Assert.assertEquals("text 999", drafts.get("conv").getText());
+        Assert.assertTrue(journal.getRecordCount() < 1000);
+    }
+
+    @Test
+    public void selectionIsClampedToTheText() {
+        Draft draft = new Draft("abc", -1, 10, null);
+        Assert.assertEquals(0, draft.getSelectionStart());
+        Assert.assertEquals(3, draft.getSelectionEnd());
+        Assert.assertTrue(Draft.of("").isEmpty());
+        Assert.assertFalse(new Draft("", 0, 0, "message").isEmpty());
+    }
+
+    private static void restart(ScalaDraftStore store) throws Exception {
+        store.tearDown();
+        store.awaitTornDown();
+    }
+
+    /**
+     * Waits for the recovery, like a caller that needs the stored draft.
+     */
+    private static Draft load(ScalaDraftStore store, String conversationId) throws InterruptedException {
+        final Draft[] loaded = new Draft[1];
+        final CountDownLatch latch = new CountDownLatch(1);
+        store.loadDraftState(conversationId, new ScalaDraftStore.DraftCallback() {
+            @Override
+            public void onDraftLoaded(Draft draft) {
+                loaded[0] = draft;
+                latch.countDown();
+            }
+        });
+        Assert.assertTrue(latch.await(10, TimeUnit.SECONDS));
+        return loaded[0];
+    }
+}
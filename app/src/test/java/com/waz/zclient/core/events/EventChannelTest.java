@@ -0,0 +1,216 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.events;
+
+import android.view.Choreographer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class EventChannelTest {
+
+    private interface Observer {
+        void onEvent(String event);
+    }
+
+    private List<Choreographer.FrameCallback> frameCallbacks;
+    private List<Runnable> backgroundTasks;
+    private EventBus bus;
+    private List<String> received;
+
+    @Before
+    public void setUp() {
+        frameCallbacks = new ArrayList<>();
+        backgroundTasks = new ArrayList<>();
+        bus = new EventBus(new FrameScheduler() {
+            @Override
+            public void postFrameCallback(Choreographer.FrameCallback callback) {
+                frameCallbacks.add(callback);
+            }
+        }, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                backgroundTasks.add(command);
+            }
+        });
+        received = new ArrayList<>();
+    }
+
+    @Test
+    public void immediateChannelNotifiesObserversInRegistrationOrder() {
+        EventChannel<Observer> channel = bus.channel("test", Observer.class);
+        channel.add(new RecordingObserver("a"));
+        channel.add(new RecordingObserver("b"));
+        channel.add(new RecordingObserver("c"));
+
+        channel.publish(event("1"));
+
+        Assert.assertEquals(3, received.size());
+        Assert.assertEquals("a:1", received.get(0));
+        Assert.assertEquals("b:1", received.get(1));
+        Assert.assertEquals("c:1", received.get(2));
+        Assert.assertTrue(frameCallbacks.isEmpty());
+    }
+
+    @Test
+    public void observerRemovedDuringDispatchStillGetsTheCurrentEvent() {
+        final EventChannel<Observer> channel = bus.channel("test", Observer.class);
+        final RecordingObserver second = new RecordingObserver("b");
+        channel.add(new Observer() {
+            @Override
+            public void onEvent(String event) {
+                received.add("a:" + event);
+                channel.remove(second);
+            }
+        });
+        channel.add(second);
+
+        channel.publish(event("1"));
+        channel.publish(event("2"));
+
+        Assert.assertEquals(3, received.size());
+        Assert.assertEquals("b:1", received.get(1));
+        Assert.assertEquals("a:2", received.get(2));
+    }
+
+    @Test
+    public void coalescedChannelDeliversOnlyTheLastEventOnTheNextFrame() {
+        EventChannel<Observer> channel = bus.channel("test", Observer.class, EventChannel.Delivery.MAIN_COALESCED);
+        channel.add(new RecordingObserver("a"));
+
+        channel.publish(event("1"));
+        channel.publish(event("2"));
+        channel.publish(event("3"));
+
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertEquals(1, frameCallbacks.size());
+        runFrame();
+        Assert.assertEquals(1, received.size());
+        Assert.assertEquals("a:3", received.get(0));
+
+        // The next publication schedules a new frame
+        channel.publish(event("4"));
+        Assert.assertEquals(1, frameCallbacks.size());
+        runFrame();
+        Assert.assertEquals("a:4", received.get(1));
+    }
+
+    @Test
+    public void clearingACoalescedChannelDropsThePendingEvent() {
+        EventChannel<Observer> channel = bus.channel("test", Observer.class, EventChannel.Delivery.MAIN_COALESCED);
+        channel.add(new RecordingObserver("a"));
+
+        channel.publish(event("1"));
+        channel.clear();
+        runFrame();
+
+        Assert.assertTrue(received.isEmpty());
+    }
+
+    @Test
+    public void backgroundChannelDeliversEveryEventInOrderOffTheCallingThread() {
+        EventChannel<Observer> channel = bus.channel("test", Observer.class, EventChannel.Delivery.BACKGROUND);
+        channel.add(new RecordingObserver("a"));
+        channel.add(new RecordingObserver("b"));
+
+        channel.publish(event("1"));
+        channel.publish(event("2"));
+
+        Assert.assertTrue(received.isEmpty());
+        Assert.assertEquals(2, backgroundTasks.size());
+        runBackgroundTasks();
+        Assert.assertEquals(4, received.size());
+        Assert.assertEquals("a:1", received.get(0));
+        Assert.assertEquals("b:1", received.get(1));
+        Assert.assertEquals("a:2", received.get(2));
+        Assert.assertEquals("b:2", received.get(3));
+        Assert.assertEquals(0, channel.getStats().getCoalescedCount());
+        Assert.assertEquals(4, channel.getStats().getDeliveryCount());
+        Assert.assertTrue(frameCallbacks.isEmpty());
+    }
+
+    @Test
+    public void statsAreKeptPerEventType() {
+        EventChannel<Observer> first = bus.channel("layout", Observer.class, EventChannel.Delivery.MAIN_COALESCED);
+        EventChannel<Observer> second = bus.channel("layout", Observer.class, EventChannel.Delivery.MAIN_COALESCED);
+        EventChannel<Observer> other = bus.channel("other", Observer.class);
+        first.add(new RecordingObserver("a"));
+        first.add(new RecordingObserver("b"));
+        second.add(new RecordingObserver("c"));
+
+        first.publish(event("1"));
+        first.publish(event("2"));
+        second.publish(event("3"));
+        other.publish(event("4"));
+        runFrame();
+
+        DispatchStats layout = bus.getStats("layout");
+        Assert.assertSame(layout, first.getStats());
+        Assert.assertSame(layout, second.getStats());
+        Assert.assertEquals(3, layout.getPublishCount());
+        Assert.assertEquals(1, layout.getCoalescedCount());
+        Assert.assertEquals(3, layout.getDeliveryCount());
+
+        // Published without observers, nothing delivered
+        Assert.assertEquals(1, bus.getStats("other").getPublishCount());
+        Assert.assertEquals(0, bus.getStats("other").getDeliveryCount());
+        Assert.assertEquals(2, bus.getAllStats().size());
+    }
+
+    private void runFrame() {
+        List<Choreographer.FrameCallback> callbacks = new ArrayList<>(frameCallbacks);
+        frameCallbacks.clear();
+        for (Choreographer.FrameCallback callback : callbacks) {
+            callback.doFrame(0);
+        }
+    }
+
+    private void runBackgroundTasks() {
+        List<Runnable> tasks = new ArrayList<>(backgroundTasks);
+        backgroundTasks.clear();
+        for (Runnable task : tasks) {
+            task.run();
+        }
+    }
+
+    private static Dispatch<Observer> event(final String event) {
+        return new Dispatch<Observer>() {
+            @Override
+            public void dispatch(Observer observer) {
+                observer.onEvent(event);
+            }
+        };
+    }
+
+    private class RecordingObserver implements Observer {
+        private final String name;
+
+        RecordingObserver(String name) {
+            this.name = name;
+        }
+
+        @Override
+        public void onEvent(String event) {
+            received.add(name + ":" + event);
+        }
+    }
+}
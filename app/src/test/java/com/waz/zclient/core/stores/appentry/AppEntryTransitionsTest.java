@@ -0,0 +1,156 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.appentry;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.EnumSet;
+import java.util.List;
+
+public class AppEntryTransitionsTest {
+
+    private final AppEntryTransitions transitions = AppEntryTransitions.getDefault();
+
+    @Test
+    public void resumeFallsBackToRegistrationForTheLayout() {
+        Assert.assertEquals(AppEntryState.PHONE_REGISTER, target(null, AppEntryEvent.RESUME, facts(AppEntryCondition.PHONE_LAYOUT)));
+        Assert.assertEquals(AppEntryState.EMAIL_WELCOME, target(null, AppEntryEvent.RESUME, facts()));
+        // Not logged in yet, start over
+        Assert.assertEquals(AppEntryState.EMAIL_WELCOME, target(AppEntryState.PHONE_SIGN_IN, AppEntryEvent.RESUME, facts()));
+    }
+
+    @Test
+    public void resumeContinuesAnInterruptedPhoneFlow() {
+        Assert.assertEquals(AppEntryState.PHONE_SET_PICTURE,
+                            target(AppEntryState.PHONE_REGISTER, AppEntryEvent.RESUME, facts(AppEntryCondition.LOGGED_IN)));
+        Assert.assertEquals(AppEntryState.LOGGED_IN,
+                            target(AppEntryState.PHONE_REGISTER, AppEntryEvent.RESUME, facts(AppEntryCondition.LOGGED_IN,
+                                                                                             AppEntryCondition.HAS_PICTURE)));
+        Assert.assertEquals(AppEntryState.PHONE_SIGNED_IN_RESUMING,
+                            target(AppEntryState.PHONE_SIGN_IN, AppEntryEvent.RESUME, facts(AppEntryCondition.LOGGED_IN)));
+    }
+
+    @Test
+    public void resumedEmailRegistrationTagsSuccessOnlyWhenDone() {
+        Conditions activated = facts(AppEntryCondition.LOGGED_IN, AppEntryCondition.ACCOUNT_ACTIVATED);
+        AppEntryTransitions.Transition transition = transitions.find(AppEntryState.EMAIL_REGISTER, AppEntryEvent.RESUME, activated);
+        Assert.assertEquals(AppEntryState.EMAIL_SET_PICTURE, transition.getTarget(null));
+        Assert.assertNull(transition.getEffect());
+
+        activated.add(AppEntryCondition.HAS_PICTURE);
+        transition = transitions.find(AppEntryState.EMAIL_REGISTER, AppEntryEvent.RESUME, activated);
+        Assert.assertEquals(AppEntryState.LOGGED_IN, transition.getTarget(null));
+        Assert.assertEquals(AppEntryEffect.TAG_EMAIL_REGISTRATION_SUCCEEDED, transition.getEffect());
+
+        Assert.assertEquals(AppEntryState.EMAIL_VERIFY_EMAIL,
+                            target(AppEntryState.EMAIL_REGISTER, AppEntryEvent.RESUME, facts(AppEntryCondition.LOGGED_IN)));
+    }
+
+    @Test
+    public void selfUpdatesOnlyMatterOnceActivated() {
+        Assert.assertNull(transitions.find(AppEntryState.PHONE_SIGN_IN, AppEntryEvent.SELF_UPDATED, facts(AppEntryCondition.LOGGED_IN)));
+        Assert.assertNull(transitions.find(null, AppEntryEvent.SELF_UPDATED, facts(AppEntryCondition.ACCOUNT_ACTIVATED)));
+
+        AppEntryTransitions.Transition transition = transitions.find(AppEntryState.PHONE_SIGN_IN,
+                                                                     AppEntryEvent.SELF_UPDATED,
+                                                                     facts(AppEntryCondition.ACCOUNT_ACTIVATED));
+        Assert.assertEquals(AppEntryState.PHONE_SET_PICTURE, transition.getTarget(null));
+        Assert.assertEquals(AppEntryEffect.TAG_POST_LOGIN_EMAIL_VERIFIED, transition.getEffect());
+    }
+
+    @Test
+    public void backNavigation() {
+        Assert.assertEquals(AppEntryState.PHONE_REGISTER, target(AppEntryState.EMAIL_SIGN_IN, AppEntryEvent.BACK, facts(AppEntryCondition.PHONE_LAYOUT)));
+        Assert.assertEquals(AppEntryState.EMAIL_WELCOME, target(AppEntryState.PHONE_INVITATION, AppEntryEvent.BACK, facts()));
+        Assert.assertEquals(AppEntryState.PHONE_SET_NAME, target(AppEntryState.PHONE_SET_PICTURE, AppEntryEvent.BACK, facts()));
+        Assert.assertNull(transitions.find(AppEntryState.EMAIL_WELCOME, AppEntryEvent.BACK, facts()));
+        Assert.assertNull(transitions.find(AppEntryState.LOGGED_IN, AppEntryEvent.BACK, facts()));
+    }
+
+    @Test
+    public void backFromTheCodeReturnsToTheEntryPoint() {
+        AppEntryTransitions.Transition transition = transitions.find(AppEntryState.PHONE_SET_CODE, AppEntryEvent.BACK, facts());
+        Assert.assertEquals(AppEntryState.PHONE_SIGN_IN, transition.getTarget(AppEntryState.PHONE_SIGN_IN));
+        Assert.assertEquals(AppEntryState.EMAIL_SET_PHONE,
+                            target(AppEntryState.PHONE_SET_CODE, AppEntryEvent.BACK, facts(AppEntryCondition.EMAIL_SIGN_IN_ENTRY_POINT)));
+    }
+
+    @Test
+    public void routingStatesAskForWhatIsMissing() {
+        Conditions self = facts();
+        Assert.assertEquals(AppEntryState.EMAIL_VERIFY_EMAIL, target(AppEntryState.EMAIL_SIGNED_IN, AppEntryEvent.ENTER, self));
+        self.add(AppEntryCondition.ACCOUNT_ACTIVATED);
+        Assert.assertEquals(AppEntryState.EMAIL_SET_PICTURE, target(AppEntryState.EMAIL_SIGNED_IN, AppEntryEvent.ENTER, self));
+        self.add(AppEntryCondition.HAS_PICTURE);
+        Assert.assertEquals(AppEntryState.EMAIL_SET_PHONE, target(AppEntryState.EMAIL_SIGNED_IN, AppEntryEvent.ENTER, self));
+        self.add(AppEntryCondition.HAS_PHONE);
+        Assert.assertEquals(AppEntryState.FIRST_LOGIN, target(AppEntryState.EMAIL_SIGNED_IN, AppEntryEvent.ENTER, self));
+
+        Assert.assertEquals(AppEntryState.PHONE_EMAIL_PASSWORD, target(AppEntryState.PHONE_SIGNED_IN_RESUMING, AppEntryEvent.ENTER, facts()));
+        Assert.assertEquals(AppEntryState.LOGGED_IN,
+                            target(AppEntryState.PHONE_SIGNED_IN, AppEntryEvent.ENTER, facts(AppEntryCondition.HAS_EMAIL,
+                                                                                             AppEntryCondition.HAS_PICTURE)));
+    }
+
+    @Test
+    public void traceKeepsTheLatestSteps() {
+        AppEntryTrace trace = new AppEntryTrace(2);
+        trace.record(null, AppEntryEvent.RESUME, AppEntryState.PHONE_REGISTER, 0, 10);
+        trace.record(AppEntryState.PHONE_REGISTER, AppEntryEvent.SET, AppEntryState.PHONE_SET_CODE, 2000010, 2000020);
+        trace.record(AppEntryState.PHONE_SET_CODE, AppEntryEvent.SET, AppEntryState.PHONE_SET_NAME, 5000020, 5000050);
+
+        List<AppEntryTrace.Step> steps = trace.getSteps();
+        Assert.assertEquals(2, steps.size());
+        Assert.assertEquals(AppEntryState.PHONE_SET_CODE, steps.get(0).getTo());
+        Assert.assertEquals(2000000, steps.get(0).getDwellNanos());
+        Assert.assertEquals(AppEntryState.PHONE_SET_NAME, steps.get(1).getTo());
+        Assert.assertEquals(3000000, steps.get(1).getDwellNanos());
+        Assert.assertEquals(30, steps.get(1).getApplyNanos());
+
+        trace.clear();
+        Assert.assertTrue(trace.getSteps().isEmpty());
+    }
+
+    private AppEntryState target(AppEntryState from, AppEntryEvent event, Conditions conditions) {
+        AppEntryTransitions.Transition transition = transitions.find(from, event, conditions);
+        Assert.assertNotNull(transition);
+        return transition.getTarget(null);
+    }
+
+    private static Conditions facts(AppEntryCondition... conditions) {
+        Conditions facts = new Conditions();
+        for (AppEntryCondition condition : conditions) {
+            facts.add(condition);
+        }
+        return facts;
+    }
+
+    private static class Conditions implements AppEntryTransitions.Conditions {
+        private final EnumSet<AppEntryCondition> holding = EnumSet.noneOf(AppEntryCondition.class);
+
+        void add(AppEntryCondition condition) {
+            holding.add(condition);
+        }
+
+        @Override
+        public boolean holds(AppEntryCondition condition) {
+            return holding.contains(condition);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.inappnotification;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class NotificationBundlerTest {
+
+    private static final long WINDOW = 1000;
+    private static final long DISPLAY_INTERVAL = 4300;
+    private static final long MAX_AGE = 10000;
+    private static final int CAPACITY = 3;
+
+    private FakeClock clock;
+    private NotificationBundler<String> bundler;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        bundler = new NotificationBundler<>(clock, WINDOW, DISPLAY_INTERVAL, MAX_AGE, CAPACITY);
+    }
+
+    @Test
+    public void burstFromOneConversationIsShownOnce() {
+        for (int i = 0; i < 500; i++) {
+            bundler.offer("group", NotificationBundler.PRIORITY_NORMAL, "message " + i);
+            clock.time += 1;
+        }
+
+        Assert.assertEquals(WINDOW, bundler.getNextDeadline());
+        clock.time = bundler.getNextDeadline();
+        NotificationBundler.Bundle<String> bundle = bundler.poll();
+
+        Assert.assertEquals("group", bundle.getConversationId());
+        Assert.assertEquals("message 499", bundle.getLatest());
+        Assert.assertEquals(500, bundle.getCount());
+        Assert.assertNull(bundler.poll());
+        Assert.assertEquals(NotificationBundler.NO_DEADLINE, bundler.getNextDeadline());
+    }
+
+    @Test
+    public void nothingIsShownBeforeTheWindowCloses() {
+        bundler.offer("conv", NotificationBundler.PRIORITY_NORMAL, "hello");
+        clock.time = WINDOW - 1;
+
+        Assert.assertNull(bundler.poll());
+        Assert.assertEquals(1, bundler.getPendingCount());
+    }
+
+    @Test
+    public void oneToOneWinsOverNewerGroupMessage() {
+        bundler.offer("one-to-one", NotificationBundler.PRIORITY_HIGH, "direct");
+        clock.time = 10;
+        bundler.offer("group", NotificationBundler.PRIORITY_NORMAL, "group");
+
+        clock.time = WINDOW + 10;
+        Assert.assertEquals("direct", bundler.poll().getLatest());
+    }
+
+    @Test
+    public void newerWinsWithinTheSamePriority() {
+        bundler.offer("a", NotificationBundler.PRIORITY_NORMAL, "a");
+        clock.time = 10;
+        bundler.offer("b", NotificationBundler.PRIORITY_NORMAL, "b");
+        clock.time = 20;
+        bundler.offer("a", NotificationBundler.PRIORITY_NORMAL, "a2");
+
+        clock.time = WINDOW + 10;
+        Assert.assertEquals("a2", bundler.poll().getLatest());
+    }
+
+    @Test
+    public void displayRateIsCapped() {
+        bundler.offer("a", NotificationBundler.PRIORITY_NORMAL, "a");
+        bundler.offer("b", NotificationBundler.PRIORITY_NORMAL, "b");
+
+        clock.time = WINDOW;
+        Assert.assertNotNull(bundler.poll());
+        Assert.assertNull(bundler.poll());
+        Assert.assertEquals(WINDOW + DISPLAY_INTERVAL, bundler.getNextDeadline());
+
+        clock.time = WINDOW + DISPLAY_INTERVAL - 1;
+        Assert.assertNull(bundler.poll());
+
+        clock.time = WINDOW + DISPLAY_INTERVAL;
+        Assert.assertNotNull(bundler.poll());
+    }
+
+    @Test
+    public void messagesKeepCoalescingWhileThrottled() {
+        bundler.offer("a", NotificationBundler.PRIORITY_NORMAL, "a");
+        clock.time = WINDOW;
+        bundler.poll();
+
+        // A busy group during the display interval still yields a single bundle
+        for (int i = 0; i < 200; i++) {
+            bundler.offer("group", NotificationBundler.PRIORITY_NORMAL, "g" + i);
+            clock.time += 10;
+        }
+        clock.time = bundler.getNextDeadline();
+        NotificationBundler.Bundle<String> bundle = bundler.poll();
+
+        Assert.assertEquals(200, bundle.getCount());
+        Assert.assertEquals("g199", bundle.getLatest());
+        Assert.assertEquals(0, bundler.getPendingCount());
+    }
+
+    @Test
+    public void backlogEvictsLowestPriorityThenOldest() {
+        bundler.offer("direct", NotificationBundler.PRIORITY_HIGH, "direct");
+        clock.time = 1;
+        bundler.offer("old group", NotificationBundler.PRIORITY_NORMAL, "old");
+        clock.time = 2;
+        bundler.offer("new group", NotificationBundler.PRIORITY_NORMAL, "new");
+        clock.time = 3;
+        bundler.offer("newest group", NotificationBundler.PRIORITY_NORMAL, "newest");
+
+        Assert.assertEquals(CAPACITY, bundler.getPendingCount());
+        Assert.assertEquals(1, bundler.getEvictedCount());
+
+        clock.time = WINDOW + 3;
+        Assert.assertEquals("direct", bundler.poll().getLatest());
+        clock.time += DISPLAY_INTERVAL;
+        Assert.assertEquals("newest", bundler.poll().getLatest());
+        clock.time += DISPLAY_INTERVAL;
+        Assert.assertEquals("new", bundler.poll().getLatest());
+        Assert.assertEquals(0, bundler.getPendingCount());
+    }
+
+    @Test
+    public void newLowPriorityBundleIsEvictedWhenBacklogIsFullOfHigherOnes() {
+        for (int i = 0; i < CAPACITY; i++) {
+            bundler.offer("direct " + i, NotificationBundler.PRIORITY_HIGH, "direct " + i);
+        }
+        clock.time = 1;
+        bundler.offer("group", NotificationBundler.PRIORITY_NORMAL, "group");
+
+        Assert.assertEquals(CAPACITY, bundler.getPendingCount());
+        clock.time = WINDOW + 1;
+        for (int i = 0; i < CAPACITY; i++) {
+            Assert.assertTrue(bundler.poll().getLatest().startsWith("direct"));
+            clock.time += DISPLAY_INTERVAL;
+        }
+        Assert.assertNull(bundler.poll());
+    }
+
+    @Test
+    public void staleBundlesAreDropped() {
+        bundler.offer("a", NotificationBundler.PRIORITY_NORMAL, "a");
+        bundler.offer("b", NotificationBundler.PRIORITY_NORMAL, "b");
+        clock.time = WINDOW;
+        bundler.poll();
+
+        clock.time = MAX_AGE + 1;
+        Assert.assertNull(bundler.poll());
+        Assert.assertEquals(0, bundler.getPendingCount());
+        Assert.assertEquals(1, bundler.getEvictedCount());
+    }
+
+    private static class FakeClock implements NotificationBundler.Clock {
+        long time;
+
+        @Override
+        public long now() {
+            return time;
+        }
+    }
+}
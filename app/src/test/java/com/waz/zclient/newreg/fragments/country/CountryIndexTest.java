@@ -0,0 +1,82 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.newreg.fragments.country;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+public class CountryIndexTest {
+
+    private CountryIndex index;
+
+    @Before
+    public void setUp() {
+        SortedMap<Integer, List<String>> regions = new TreeMap<>();
+        regions.put(1, Arrays.asList("US", "CA", "BS"));
+        regions.put(41, Arrays.asList("CH"));
+        regions.put(49, Arrays.asList("DE"));
+        regions.put(352, Arrays.asList("LU"));
+        regions.put(800, Arrays.asList("001"));
+        index = new CountryIndex(regions, false);
+    }
+
+    @Test
+    public void abbreviationLookupIsCaseInsensitive() {
+        Assert.assertEquals("49", index.getCodeForAbbreviation("de"));
+        Assert.assertEquals("1", index.getCodeForAbbreviation("CA"));
+        Assert.assertNull(index.getCodeForAbbreviation("XX"));
+        Assert.assertNull(index.getCodeForAbbreviation(null));
+    }
+
+    @Test
+    public void codeResolvesToMainRegion() {
+        Assert.assertEquals("US", index.getAbbreviationForCode("1"));
+        Assert.assertEquals("LU", index.getAbbreviationForCode("352"));
+        Assert.assertNull(index.getAbbreviationForCode("35"));
+    }
+
+    @Test
+    public void nonGeographicalCodesAreSkipped() {
+        Assert.assertEquals(Arrays.asList("US", "CA", "BS", "CH", "DE", "LU"), index.getAbbreviations());
+        Assert.assertEquals(0, index.matchCodeLength("800123456", 0));
+    }
+
+    @Test
+    public void longestCodePrefixIsMatched() {
+        Assert.assertEquals(1, index.matchCodeLength("15551234", 0));
+        Assert.assertEquals(2, index.matchCodeLength("+491701234", 1));
+        Assert.assertEquals(3, index.matchCodeLength("352621234", 0));
+        Assert.assertEquals(0, index.matchCodeLength("351621234", 0));
+        Assert.assertEquals(0, index.matchCodeLength("4", 1));
+    }
+
+    @Test
+    public void testCodeIsOnlyMatchedWhenIncluded() {
+        SortedMap<Integer, List<String>> regions = new TreeMap<>();
+        regions.put(49, Arrays.asList("DE"));
+
+        Assert.assertEquals(0, new CountryIndex(regions, false).matchCodeLength("0123", 0));
+        Assert.assertEquals(1, new CountryIndex(regions, true).matchCodeLength("0123", 0));
+    }
+}
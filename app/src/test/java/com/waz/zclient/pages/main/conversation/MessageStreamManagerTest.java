@@ -18,17 +18,23 @@
 package com.waz.zclient.pages.main.conversation;
 
 import android.view.View;
+import android.widget.ListAdapter;
 import com.waz.api.Message;
 import com.waz.zclient.pages.main.conversation.views.listview.ConversationListView;
+import com.waz.zclient.pages.main.conversation.views.row.message.MessageAndSeparatorViewController;
 import com.waz.zclient.testutils.MockConversation;
 import com.waz.zclient.testutils.MockMessagesList;
+import junit.framework.Assert;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.InOrder;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 
 import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -118,5 +124,64 @@ public class MessageStreamManagerTest {
 
 
     }
-}
 
+    @Test
+    public void whenNotScrolledToBottom_appendBelowViewport_updatesInPlaceAndRestoresAnchor() {
+        MockConversation conversation = new MockConversation(1);
+        MockMessagesList messages = (MockMessagesList) conversation.getMessages();
+        messages.setMessages(20);
+        messages.setLastReadMessageIndex(19);
+
+        manager.setConversation(conversation, false);
+        manager.onScrolledToBottom(false);
+
+        Message topMessage = messages.get(7);
+        mockTopRow(topMessage, -42);
+        when(adapter.getIndexOfMessage(topMessage)).thenReturn(7);
+
+        messages.addExtraMessage(false);
+
+        // the anchor is taken before the new list is applied and restored right after, before any layout pass
+        InOrder inOrder = inOrder(listView, adapter);
+        inOrder.verify(listView).getChildAt(0);
+        inOrder.verify(adapter).setMessages(messages);
+        inOrder.verify(adapter).getIndexOfMessage(topMessage);
+        inOrder.verify(listView).setSelectionFromTop(7, -42);
+
+        // setMessages is the only change notification, the adapter is neither invalidated nor re-attached
+        verify(adapter, times(2)).setMessages(messages);
+        verify(adapter, never()).notifyDataSetChanged();
+        verify(adapter, never()).notifyDataSetInvalidated();
+        verify(listView, never()).setAdapter(any(ListAdapter.class));
+        // the only post is the initial scroll to the last read message
+        verify(listView, times(1)).post(any(Runnable.class));
+    }
+
+    @Test
+    public void whenAnchoredMessageIsGone_positionIsLeftToListView() {
+        MockConversation conversation = new MockConversation(1);
+        MockMessagesList messages = (MockMessagesList) conversation.getMessages();
+        messages.setMessages(20);
+        messages.setLastReadMessageIndex(19);
+
+        manager.setConversation(conversation, false);
+        manager.onScrolledToBottom(false);
+
+        Message topMessage = messages.get(7);
+        mockTopRow(topMessage, -42);
+        when(adapter.getIndexOfMessage(topMessage)).thenReturn(-1);
+
+        messages.addExtraMessage(false);
+
+        verify(listView, times(0)).setSelectionFromTop(-1, -42);
+    }
+
+    private void mockTopRow(Message message, int top) {
+        View row = mock(View.class);
+        MessageAndSeparatorViewController controller = mock(MessageAndSeparatorViewController.class);
+        when(controller.getMessage()).thenReturn(message);
+        when(row.getTag()).thenReturn(controller);
+        when(row.getTop()).thenReturn(top);
+        when(listView.getChildAt(0)).thenReturn(row);
+    }
+}
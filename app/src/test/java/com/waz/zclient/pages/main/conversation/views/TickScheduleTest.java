@@ -0,0 +1,144 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversation.views;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TickScheduleTest {
+
+    private final TickSchedule schedule = new TickSchedule();
+
+    @Test
+    public void rowsWithTheSameIntervalShareWakeups() {
+        List<RecordingSubscriber> rows = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            RecordingSubscriber row = new RecordingSubscriber();
+            rows.add(row);
+            // Rows bind at different times
+            schedule.addRepeating(row, 200, 1000 + i * 7);
+        }
+
+        int wakeups = 0;
+        long next = schedule.getNextDueMillis();
+        while (next <= 3000) {
+            next = schedule.dispatch(next);
+            wakeups++;
+        }
+
+        // One wakeup per interval, independent of the number of rows
+        Assert.assertEquals(10, wakeups);
+        for (RecordingSubscriber row : rows) {
+            Assert.assertEquals(10, row.ticks.size());
+        }
+    }
+
+    @Test
+    public void repeatingTicksAreAlignedToTheInterval() {
+        RecordingSubscriber dots = new RecordingSubscriber();
+        schedule.addRepeating(dots, 350, 1000);
+        Assert.assertEquals(1050, schedule.getNextDueMillis());
+
+        // A late frame does not shift the phase
+        Assert.assertEquals(1400, schedule.dispatch(1060));
+        Assert.assertEquals(1750, schedule.dispatch(1400));
+    }
+
+    @Test
+    public void oneShotTicksOnceAndEarlierRequestWins() {
+        RecordingSubscriber progress = new RecordingSubscriber();
+        schedule.addOnce(progress, 500);
+        schedule.addOnce(progress, 300);
+        schedule.addOnce(progress, 800);
+
+        Assert.assertEquals(300, schedule.getNextDueMillis());
+        Assert.assertEquals(TickSchedule.NONE, schedule.dispatch(310));
+        Assert.assertEquals(1, progress.ticks.size());
+        Assert.assertTrue(schedule.isEmpty());
+    }
+
+    @Test
+    public void nothingIsDueBeforeItsTime() {
+        RecordingSubscriber row = new RecordingSubscriber();
+        schedule.addOnce(row, 500);
+        Assert.assertEquals(500, schedule.dispatch(499));
+        Assert.assertTrue(row.ticks.isEmpty());
+    }
+
+    @Test
+    public void subscriberUnsubscribedDuringATickIsNotTicked() {
+        final RecordingSubscriber second = new RecordingSubscriber();
+        StreamClock.Subscriber first = new StreamClock.Subscriber() {
+            @Override
+            public void onTick(long uptimeMillis) {
+                schedule.remove(second);
+            }
+        };
+        schedule.addRepeating(first, 100, 0);
+        schedule.addRepeating(second, 100, 0);
+
+        schedule.dispatch(100);
+        Assert.assertTrue(second.ticks.isEmpty());
+        Assert.assertEquals(1, schedule.size());
+    }
+
+    @Test
+    public void subscriberCanResubscribeFromItsTick() {
+        final List<Long> ticks = new ArrayList<>();
+        StreamClock.Subscriber throttle = new StreamClock.Subscriber() {
+            @Override
+            public void onTick(long uptimeMillis) {
+                ticks.add(uptimeMillis);
+                if (ticks.size() < 3) {
+                    schedule.addOnce(this, uptimeMillis + 100);
+                }
+            }
+        };
+        schedule.addOnce(throttle, 0);
+
+        long next = 0;
+        while (next != TickSchedule.NONE) {
+            next = schedule.dispatch(next);
+        }
+        Assert.assertEquals(3, ticks.size());
+        Assert.assertEquals(Long.valueOf(200), ticks.get(2));
+    }
+
+    @Test
+    public void unsubscribedRowStopsTicking() {
+        RecordingSubscriber row = new RecordingSubscriber();
+        schedule.addRepeating(row, 200, 0);
+        schedule.dispatch(200);
+        Assert.assertTrue(schedule.remove(row));
+        Assert.assertFalse(schedule.remove(row));
+        Assert.assertEquals(TickSchedule.NONE, schedule.dispatch(400));
+        Assert.assertEquals(1, row.ticks.size());
+    }
+
+    private static class RecordingSubscriber implements StreamClock.Subscriber {
+        final List<Long> ticks = new ArrayList<>();
+
+        @Override
+        public void onTick(long uptimeMillis) {
+            ticks.add(uptimeMillis);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.conversationpager;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SlideDimRampTest {
+
+    @Test
+    public void alphaScalesWithTheFraction() {
+        Assert.assertEquals(0, SlideDimRamp.alphaFor(0xcccccccc, 0f));
+        Assert.assertEquals(0, SlideDimRamp.alphaFor(0xcccccccc, -0.5f));
+        Assert.assertEquals(0x66, SlideDimRamp.alphaFor(0xcccccccc, 0.5f));
+        Assert.assertEquals(0xcc, SlideDimRamp.alphaFor(0xcccccccc, 1f));
+        Assert.assertEquals(0xcc, SlideDimRamp.alphaFor(0xcccccccc, 1.5f));
+        Assert.assertEquals(0, SlideDimRamp.alphaFor(0x00ffffff, 0.8f));
+    }
+
+    @Test
+    public void undimmedFractionsHaveNoFilter() {
+        SlideDimRamp ramp = new SlideDimRamp(0xcccccccc);
+        Assert.assertNull(ramp.getFilter(0f));
+        Assert.assertNull(ramp.getFilter(0.001f));
+        Assert.assertNull(new SlideDimRamp(0).getFilter(1f));
+    }
+
+    @Test
+    public void filtersAreReusedPerAlphaLevel() {
+        SlideDimRamp ramp = new SlideDimRamp(0xcccccccc);
+        Assert.assertNotNull(ramp.getFilter(0.5f));
+        Assert.assertSame(ramp.getFilter(0.5f), ramp.getFilter(0.501f));
+        Assert.assertNotSame(ramp.getFilter(0.5f), ramp.getFilter(0.6f));
+        Assert.assertSame(ramp.getFilter(1f), ramp.getFilter(2f));
+    }
+}
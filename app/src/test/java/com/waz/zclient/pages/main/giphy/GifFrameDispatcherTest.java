@@ -0,0 +1,142 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.pages.main.giphy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GifFrameDispatcherTest {
+
+    private static final long VSYNC_NANOS = 16666667L;
+
+    @Test
+    public void aggregateFrameRateIsCapped() {
+        GifFrameDispatcher dispatcher = new GifFrameDispatcher(20, 2);
+        FakeCell[] cells = addCells(dispatcher, 6);
+
+        int frames = 0;
+        for (int vsync = 1; vsync <= 60; vsync++) {
+            offerFrames(cells);
+            int before = drawnFrames(cells);
+            Assert.assertTrue(dispatcher.dispatch(vsync * VSYNC_NANOS));
+            int drawn = drawnFrames(cells) - before;
+            Assert.assertTrue(drawn <= 2);
+            frames += drawn;
+        }
+
+        // One second at 20 frames per second, plus the first frame
+        Assert.assertTrue("drew " + frames, frames >= 19 && frames <= 21);
+    }
+
+    @Test
+    public void cellsAreServedRoundRobin() {
+        GifFrameDispatcher dispatcher = new GifFrameDispatcher(20, 2);
+        FakeCell[] cells = addCells(dispatcher, 6);
+
+        for (int vsync = 1; vsync <= 60; vsync++) {
+            offerFrames(cells);
+            dispatcher.dispatch(vsync * VSYNC_NANOS);
+        }
+
+        for (FakeCell cell : cells) {
+            Assert.assertTrue(cell.drawn >= 3 && cell.drawn <= 4);
+        }
+    }
+
+    @Test
+    public void idleCellsDontUseTheBudget() {
+        GifFrameDispatcher dispatcher = new GifFrameDispatcher(60, 2);
+        FakeCell[] cells = addCells(dispatcher, 4);
+
+        cells[2].pending = true;
+        Assert.assertFalse(dispatcher.dispatch(VSYNC_NANOS));
+
+        Assert.assertEquals(1, cells[2].drawn);
+        Assert.assertEquals(0, cells[0].drawn + cells[1].drawn + cells[3].drawn);
+        Assert.assertFalse(dispatcher.dispatch(2 * VSYNC_NANOS));
+    }
+
+    @Test
+    public void longPauseOnlyAllowsOneBurst() {
+        GifFrameDispatcher dispatcher = new GifFrameDispatcher(60, 2);
+        FakeCell[] cells = addCells(dispatcher, 4);
+
+        offerFrames(cells);
+        dispatcher.dispatch(VSYNC_NANOS);
+        offerFrames(cells);
+        dispatcher.dispatch(VSYNC_NANOS * 600);
+
+        Assert.assertEquals(3, drawnFrames(cells));
+    }
+
+    @Test
+    public void removedCellIsSkippedWithoutLosingPosition() {
+        GifFrameDispatcher dispatcher = new GifFrameDispatcher(60, 1);
+        FakeCell[] cells = addCells(dispatcher, 3);
+
+        offerFrames(cells);
+        dispatcher.dispatch(VSYNC_NANOS);
+        Assert.assertEquals(1, cells[0].drawn);
+
+        Assert.assertTrue(dispatcher.remove(cells[0]));
+        Assert.assertFalse(dispatcher.contains(cells[0]));
+        dispatcher.dispatch(2 * VSYNC_NANOS);
+
+        Assert.assertEquals(1, cells[1].drawn);
+        Assert.assertEquals(0, cells[2].drawn);
+    }
+
+    private static FakeCell[] addCells(GifFrameDispatcher dispatcher, int count) {
+        FakeCell[] cells = new FakeCell[count];
+        for (int i = 0; i < count; i++) {
+            cells[i] = new FakeCell();
+            dispatcher.add(cells[i]);
+        }
+        return cells;
+    }
+
+    private static void offerFrames(FakeCell[] cells) {
+        for (FakeCell cell : cells) {
+            cell.pending = true;
+        }
+    }
+
+    private static int drawnFrames(FakeCell[] cells) {
+        int drawn = 0;
+        for (FakeCell cell : cells) {
+            drawn += cell.drawn;
+        }
+        return drawn;
+    }
+
+    private static class FakeCell implements GifFrameDispatcher.Cell {
+        boolean pending;
+        int drawn;
+
+        @Override
+        public boolean hasPendingFrame() {
+            return pending;
+        }
+
+        @Override
+        public void drawPendingFrame() {
+            pending = false;
+            drawn++;
+        }
+    }
+}
@@ -17,6 +17,7 @@
  */
 package com.waz.zclient.pages.main.participants.views;
 
+import com.waz.api.UpdateListener;
 import com.waz.api.User;
 import com.waz.api.Verification;
 
@@ -24,11 +25,15 @@ import com.waz.zclient.testutils.MockCoreList;
 import junit.framework.Assert;
 
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 
@@ -45,7 +50,7 @@ public class TestParticipantChatheadAdapter {
         adapter.setUsersList(mockUserList, column);
 
         // assertions
-        Assert.assertEquals(expectedSize, adapter.getCount());
+        Assert.assertEquals(expectedSize, adapter.getItemCount());
     }
 
     @Test
@@ -62,7 +67,7 @@ public class TestParticipantChatheadAdapter {
         adapter.setUsersList(mockUserList, column);
 
         // assertions
-        Assert.assertEquals(expectedSize, adapter.getCount());
+        Assert.assertEquals(expectedSize, adapter.getItemCount());
     }
 
     @Test
@@ -80,7 +85,7 @@ public class TestParticipantChatheadAdapter {
         adapter.setUsersList(mockUserList, column);
 
         // assertions
-        Assert.assertEquals(expectedSize, adapter.getCount());
+        Assert.assertEquals(expectedSize, adapter.getItemCount());
 
         int pos = 0;
         // unverified users
@@ -170,7 +175,7 @@ public class TestParticipantChatheadAdapter {
         adapter.setUsersList(mockUserList, column);
 
         // assertions
-        Assert.assertEquals(expectedSize, adapter.getCount());
+        Assert.assertEquals(expectedSize, adapter.getItemCount());
 
         int pos = 0;
         // unverified users
@@ -220,7 +225,7 @@ public class TestParticipantChatheadAdapter {
         adapter.setUsersList(mockUserList, column);
 
         // assertions
-        Assert.assertEquals(expectedSize, adapter.getCount());
+        Assert.assertEquals(expectedSize, adapter.getItemCount());
 
         int pos = 0;
         // separator
@@ -263,6 +268,61 @@ public class TestParticipantChatheadAdapter {
         Assert.assertEquals("6", adapter.getItem(pos).getId());
     }
 
+    @Test
+    public void testVerificationChangeMovesOnlyThatUser() {
+        MockCoreList<User> mockUserList = new MockCoreList<>();
+
+        int column = 5;
+        List<User> unverified = mockUsers(3, false, 0);
+        List<User> verified = mockUsers(2, true, 3);
+        mockUserList.add(unverified);
+        mockUserList.add(verified);
+
+        ParticipantsChatheadAdapter adapter = new ParticipantsChatheadAdapter();
+        adapter.setUsersList(mockUserList, column);
+
+        User changedUser = unverified.get(1);
+        ArgumentCaptor<UpdateListener> listener = ArgumentCaptor.forClass(UpdateListener.class);
+        verify(changedUser).addUpdateListener(listener.capture());
+        when(changedUser.getVerified()).thenReturn(Verification.VERIFIED);
+        listener.getValue().updated();
+
+        // unverified: 0, 2, padding; separator row; verified in list order: 1, 3, 4
+        Assert.assertEquals(column + column + 3, adapter.getItemCount());
+        Assert.assertEquals("0", adapter.getItem(0).getId());
+        Assert.assertEquals("2", adapter.getItem(1).getId());
+        Assert.assertNull(adapter.getItem(2));
+        Assert.assertEquals(ParticipantsChatheadAdapter.VIEW_TYPE_SEPARATOR, adapter.getItemViewType(column));
+        Assert.assertEquals("1", adapter.getItem(column * 2).getId());
+        Assert.assertEquals("3", adapter.getItem(column * 2 + 1).getId());
+        Assert.assertEquals("4", adapter.getItem(column * 2 + 2).getId());
+        verify(changedUser, never()).removeUpdateListener(listener.getValue());
+    }
+
+    @Test
+    public void testUserListenersFollowMembership() {
+        MockCoreList<User> mockUserList = new MockCoreList<>();
+
+        int column = 5;
+        List<User> users = mockUsers(3, false, 0);
+        mockUserList.add(users);
+
+        ParticipantsChatheadAdapter adapter = new ParticipantsChatheadAdapter();
+        adapter.setUsersList(mockUserList, column);
+
+        User leavingUser = users.get(2);
+        ArgumentCaptor<UpdateListener> listener = ArgumentCaptor.forClass(UpdateListener.class);
+        verify(leavingUser).addUpdateListener(listener.capture());
+
+        MockCoreList<User> remainingUsers = new MockCoreList<>();
+        remainingUsers.add(users.subList(0, 2));
+        adapter.setUsersList(remainingUsers, column);
+
+        verify(leavingUser).removeUpdateListener(listener.getValue());
+        verify(users.get(0), never()).removeUpdateListener(any(UpdateListener.class));
+        Assert.assertEquals(column, adapter.getItemCount());
+    }
+
     public List<User> mockUsers(int count, boolean verified, int start) {
         List<User> users = new ArrayList<>();
         for (int i = 0; i < count; i++) {
@@ -0,0 +1,212 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.testutils;
+
+import android.content.SharedPreferences;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * In-memory {@link SharedPreferences} that counts how often it is read and written.
+ */
+public class MockSharedPreferences implements SharedPreferences {
+
+    public final AtomicInteger getAllCount = new AtomicInteger();
+    public final AtomicInteger getCount = new AtomicInteger();
+    public final AtomicInteger commitCount = new AtomicInteger();
+
+    private final Map<String, Object> values = new HashMap<>();
+    private final List<OnSharedPreferenceChangeListener> listeners = new ArrayList<>();
+
+    public synchronized Object getValue(String key) {
+        return values.get(key);
+    }
+
+    /**
+     * Writes behind the back of any store, like the preference screens do.
+     */
+    public void putExternally(String key, Object value) {
+        List<OnSharedPreferenceChangeListener> toNotify;
+        synchronized (this) {
+            values.put(key, value);
+            toNotify = new ArrayList<>(listeners);
+        }
+        for (OnSharedPreferenceChangeListener listener : toNotify) {
+            listener.onSharedPreferenceChanged(this, key);
+        }
+    }
+
+    @Override
+    public synchronized Map<String, ?> getAll() {
+        getAllCount.incrementAndGet();
+        return new HashMap<>(values);
+    }
+
+    @Override
+    public String getString(String key, String defValue) {
+        Object value = get(key);
+        return value == null ? defValue : (String) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Set<String> getStringSet(String key, Set<String> defValues) {
+        Object value = get(key);
+        return value == null ? defValues : (Set<String>) value;
+    }
+
+    @Override
+    public int getInt(String key, int defValue) {
+        Object value = get(key);
+        return value == null ? defValue : (Integer) value;
+    }
+
+    @Override
+    public long getLong(String key, long defValue) {
+        Object value = get(key);
+        return value == null ? defValue : (Long) value;
+    }
+
+    @Override
+    public float getFloat(String key, float defValue) {
+        Object value = get(key);
+        return value == null ? defValue : (Float) value;
+    }
+
+    @Override
+    public boolean getBoolean(String key, boolean defValue) {
+        Object value = get(key);
+        return value == null ? defValue : (Boolean) value;
+    }
+
+    @Override
+    public synchronized boolean contains(String key) {
+        getCount.incrementAndGet();
+        return values.containsKey(key);
+    }
+
+    @Override
+    public Editor edit() {
+        return new MockEditor();
+    }
+
+    @Override
+    public synchronized void registerOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public synchronized void unregisterOnSharedPreferenceChangeListener(OnSharedPreferenceChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    private synchronized Object get(String key) {
+        getCount.incrementAndGet();
+        return values.get(key);
+    }
+
+    private class MockEditor implements Editor {
+
+        // null values are removals
+        private final Map<String, Object> changes = new HashMap<>();
+        private boolean clear;
+
+        @Override
+        public Editor putString(String key, String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putStringSet(String key, Set<String> values) {
+            changes.put(key, values);
+            return this;
+        }
+
+        @Override
+        public Editor putInt(String key, int value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putLong(String key, long value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putFloat(String key, float value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor putBoolean(String key, boolean value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        @Override
+        public Editor remove(String key) {
+            changes.put(key, null);
+            return this;
+        }
+
+        @Override
+        public Editor clear() {
+            clear = true;
+            return this;
+        }
+
+        @Override
+        public boolean commit() {
+            List<OnSharedPreferenceChangeListener> toNotify;
+            synchronized (MockSharedPreferences.this) {
+                commitCount.incrementAndGet();
+                if (clear) {
+                    values.clear();
+                }
+                for (Map.Entry<String, Object> entry : changes.entrySet()) {
+                    if (entry.getValue() == null) {
+                        values.remove(entry.getKey());
+                    } else {
+                        values.put(entry.getKey(), entry.getValue());
+                    }
+                }
+                toNotify = new ArrayList<>(listeners);
+            }
+            for (OnSharedPreferenceChangeListener listener : toNotify) {
+                for (String key : changes.keySet()) {
+                    listener.onSharedPreferenceChanged(MockSharedPreferences.this, key);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void apply() {
+            commit();
+        }
+    }
+}
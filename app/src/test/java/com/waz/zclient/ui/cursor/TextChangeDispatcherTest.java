@@ -0,0 +1,164 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.cursor;
+
+import android.view.View;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TextChangeDispatcherTest {
+
+    private static final long MIN_INTERVAL = 300;
+
+    private Host host;
+    private long now;
+    private int dispatches;
+    private TextChangeDispatcher dispatcher;
+
+    @Before
+    public void setUp() {
+        host = new Host();
+        now = 10000;
+        dispatches = 0;
+        dispatcher = new TextChangeDispatcher(host, MIN_INTERVAL, new TextChangeDispatcher.Listener() {
+            @Override
+            public void onTextChangesSettled() {
+                dispatches++;
+            }
+        }) {
+            @Override
+            long now() {
+                return now;
+            }
+        };
+    }
+
+    @Test
+    public void changesWithinAFrameAreDispatchedOnce() {
+        dispatcher.onTextChanged();
+        dispatcher.onTextChanged();
+        dispatcher.onTextChanged();
+
+        Assert.assertEquals(1, host.animationPosts);
+        Assert.assertEquals(0, host.delayedPosts);
+        host.runPending();
+        Assert.assertEquals(1, dispatches);
+    }
+
+    @Test
+    public void changeWithinTheMinimumIntervalIsDelayed() {
+        dispatcher.onTextChanged();
+        host.runPending();
+
+        now += 100;
+        dispatcher.onTextChanged();
+        dispatcher.onTextChanged();
+
+        Assert.assertEquals(1, host.delayedPosts);
+        Assert.assertEquals(MIN_INTERVAL - 100, host.lastDelay);
+        host.runPending();
+        Assert.assertEquals(2, dispatches);
+    }
+
+    @Test
+    public void changeAfterTheMinimumIntervalWaitsForTheNextFrameOnly() {
+        dispatcher.onTextChanged();
+        host.runPending();
+
+        now += MIN_INTERVAL;
+        dispatcher.onTextChanged();
+
+        Assert.assertEquals(2, host.animationPosts);
+        Assert.assertEquals(0, host.delayedPosts);
+    }
+
+    @Test
+    public void flushDispatchesPendingChangeRightAway() {
+        dispatcher.onTextChanged();
+        host.runPending();
+        now += 100;
+        dispatcher.onTextChanged();
+
+        dispatcher.flush();
+
+        Assert.assertEquals(2, dispatches);
+        Assert.assertNull(host.pending);
+        dispatcher.flush();
+        Assert.assertEquals(2, dispatches);
+    }
+
+    @Test
+    public void flushWithoutPendingChangeDoesNothing() {
+        dispatcher.flush();
+
+        Assert.assertEquals(0, dispatches);
+    }
+
+    @Test
+    public void cancelDropsPendingChange() {
+        dispatcher.onTextChanged();
+        dispatcher.cancel();
+
+        Assert.assertNull(host.pending);
+        dispatcher.flush();
+        Assert.assertEquals(0, dispatches);
+
+        dispatcher.onTextChanged();
+        Assert.assertEquals(2, host.animationPosts);
+    }
+
+    private static class Host extends View {
+        Runnable pending;
+        int animationPosts;
+        int delayedPosts;
+        long lastDelay;
+
+        Host() {
+            super(null);
+        }
+
+        @Override
+        public void postOnAnimation(Runnable action) {
+            animationPosts++;
+            pending = action;
+        }
+
+        @Override
+        public boolean postDelayed(Runnable action, long delayMillis) {
+            delayedPosts++;
+            lastDelay = delayMillis;
+            pending = action;
+            return true;
+        }
+
+        @Override
+        public boolean removeCallbacks(Runnable action) {
+            if (pending == action) {
+                pending = null;
+            }
+            return true;
+        }
+
+        void runPending() {
+            Runnable action = pending;
+            pending = null;
+            action.run();
+        }
+    }
+}
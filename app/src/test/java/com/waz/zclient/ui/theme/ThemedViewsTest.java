@@ -0,0 +1,95 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.theme;
+
+import android.view.View;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ThemedViewsTest {
+
+    private final List<View> bound = new ArrayList<>();
+
+    private final ThemedViews.Binding recordingBinding = new ThemedViews.Binding() {
+        @Override
+        public void bind(View view, ThemeAttributes attributes) {
+            bound.add(view);
+        }
+    };
+
+    @Test
+    public void registeredViewIsBoundRightAway() {
+        ThemedViews themedViews = new ThemedViews(null);
+        View view = new View(null);
+        themedViews.register(view, recordingBinding);
+
+        Assert.assertEquals(1, bound.size());
+        Assert.assertSame(view, bound.get(0));
+    }
+
+    @Test
+    public void applyRebindsEveryRegisteredProperty() {
+        ThemedViews themedViews = new ThemedViews(null);
+        View first = new View(null);
+        View second = new View(null);
+        themedViews.register(first, recordingBinding);
+        themedViews.register(second, recordingBinding);
+        themedViews.register(second, recordingBinding);
+        bound.clear();
+
+        themedViews.apply(null);
+        Assert.assertEquals(3, bound.size());
+        Assert.assertTrue(bound.contains(first));
+        Assert.assertTrue(bound.contains(second));
+    }
+
+    @Test
+    public void unregisteredViewIsNotRebound() {
+        ThemedViews themedViews = new ThemedViews(null);
+        View kept = new View(null);
+        View removed = new View(null);
+        themedViews.register(kept, recordingBinding);
+        themedViews.register(removed, recordingBinding);
+        themedViews.unregister(removed);
+        bound.clear();
+
+        themedViews.apply(null);
+        Assert.assertEquals(1, themedViews.size());
+        Assert.assertEquals(1, bound.size());
+        Assert.assertSame(kept, bound.get(0));
+    }
+
+    @Test
+    public void unregisterAllDropsTheRootView() {
+        ThemedViews themedViews = new ThemedViews(null);
+        View kept = new View(null);
+        View root = new View(null);
+        themedViews.register(kept, recordingBinding);
+        themedViews.register(root, recordingBinding);
+        themedViews.unregisterAll(root);
+        bound.clear();
+
+        themedViews.apply(null);
+        Assert.assertEquals(1, themedViews.size());
+        Assert.assertEquals(1, bound.size());
+        Assert.assertSame(kept, bound.get(0));
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.utils;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OverlayAtlasTest {
+
+    @Test
+    public void keysSeparateEveryDimension() {
+        long base = OverlayAtlas.key(1, 20, 5, 0xFF00FF00);
+        Assert.assertEquals(base, OverlayAtlas.key(1, 20, 5, 0xFF00FF00));
+        Assert.assertNotEquals(base, OverlayAtlas.key(2, 20, 5, 0xFF00FF00));
+        Assert.assertNotEquals(base, OverlayAtlas.key(1, 21, 5, 0xFF00FF00));
+        Assert.assertNotEquals(base, OverlayAtlas.key(1, 20, 6, 0xFF00FF00));
+        Assert.assertNotEquals(base, OverlayAtlas.key(1, 20, 5, 0xFF00FF01));
+    }
+
+    @Test
+    public void colorDoesNotLeakIntoTheSize() {
+        // A negative color must not sign extend over the width and radius bits
+        Assert.assertNotEquals(OverlayAtlas.key(1, 0, 0, -1), OverlayAtlas.key(1, 1, 1, -1));
+        Assert.assertEquals(1L << 60 | 0xFFFFFFFFL, OverlayAtlas.key(1, 0, 0, -1));
+    }
+
+    @Test
+    public void emptyUnreadMarkerIsNotCreated() {
+        OverlayAtlas atlas = new OverlayAtlas(1024);
+        Assert.assertNull(atlas.getUnreadMarker(0, 5, 0xFF00FF00));
+        Assert.assertNull(atlas.getUnreadMarker(-1, 5, 0xFF00FF00));
+    }
+}
@@ -0,0 +1,141 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.utils;
+
+import android.util.Log;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class LogFileWriterTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final String FILE_NAME = "wire.log";
+
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("logs", "");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdirs());
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void rotationKeepsOnlyMaxFiles() throws Exception {
+        LogFileWriter writer = new LogFileWriter(directory, 256, 2, 1024);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(writer.append(Log.INFO, "Test", "message-" + i));
+        }
+        writer.close();
+
+        Assert.assertTrue(new File(directory, FILE_NAME).exists());
+        Assert.assertTrue(new File(directory, FILE_NAME + ".1").exists());
+        Assert.assertTrue(new File(directory, FILE_NAME + ".2").exists());
+        Assert.assertFalse(new File(directory, FILE_NAME + ".3").exists());
+        for (int i = 0; i <= 2; i++) {
+            File file = new File(directory, i == 0 ? FILE_NAME : FILE_NAME + "." + i);
+            Assert.assertTrue(file.length() > 0);
+            Assert.assertTrue(file.length() <= 256);
+            Assert.assertEquals(-1, read(file).indexOf('\0'));
+        }
+    }
+
+    @Test
+    public void fullMappingIsRemappedWithoutLosingEntries() throws Exception {
+        LogFileWriter writer = new LogFileWriter(directory, 512, 100, 1024);
+        for (int i = 0; i < 60; i++) {
+            Assert.assertTrue(writer.append(Log.INFO, "Test", "message-" + i));
+        }
+        writer.close();
+
+        List<String> messages = new ArrayList<>();
+        for (int i = 100; i >= 0; i--) {
+            File file = new File(directory, i == 0 ? FILE_NAME : FILE_NAME + "." + i);
+            if (!file.exists()) {
+                continue;
+            }
+            for (String line : read(file).split("\n")) {
+                messages.add(line.substring(line.indexOf(": ") + 2));
+            }
+        }
+        Assert.assertEquals(60, messages.size());
+        for (int i = 0; i < 60; i++) {
+            Assert.assertEquals("message-" + i, messages.get(i));
+        }
+        Assert.assertTrue(new File(directory, FILE_NAME + ".1").exists());
+        Assert.assertTrue(read(new File(directory, FILE_NAME)).endsWith("message-59\n"));
+    }
+
+    @Test
+    public void partiallyWrittenFileIsTrimmedAndKept() throws Exception {
+        FileOutputStream leftover = new FileOutputStream(new File(directory, FILE_NAME));
+        leftover.write("previous\n".getBytes(UTF_8));
+        leftover.write(new byte[100]);
+        leftover.close();
+
+        LogFileWriter writer = new LogFileWriter(directory, 256, 2, 16);
+        writer.append(Log.INFO, "Test", "next");
+        writer.close();
+
+        Assert.assertEquals("previous\n", read(new File(directory, FILE_NAME + ".1")));
+        Assert.assertTrue(read(new File(directory, FILE_NAME)).endsWith("Test: next\n"));
+    }
+
+    @Test
+    public void entriesAfterCloseAreRejected() throws Exception {
+        LogFileWriter writer = new LogFileWriter(directory, 256, 2, 16);
+        writer.append(Log.INFO, "Test", "before");
+        writer.close();
+
+        Assert.assertFalse(writer.append(Log.INFO, "Test", "after"));
+        String content = read(new File(directory, FILE_NAME));
+        Assert.assertTrue(content.endsWith("Test: before\n"));
+    }
+
+    private static String read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            return new String(bytes, UTF_8);
+        } finally {
+            raf.close();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.utils;
+
+import android.util.Log;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import timber.log.Timber;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+
+public class WireLoggerTreeTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private File directory;
+    private WireLoggerTree tree;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = File.createTempFile("logs", "");
+        Assert.assertTrue(directory.delete());
+        Assert.assertTrue(directory.mkdirs());
+        tree = new WireLoggerTree(Log.WARN, new LogFileWriter(directory, 4096, 1, 64));
+        WireLoggerTree.plant(tree);
+    }
+
+    @After
+    public void tearDown() {
+        Timber.uprootAll();
+        tree.close();
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void tagOfADroppedEntryDoesNotStickToTheNextOne() throws Exception {
+        Timber.tag("Dropped").i("below the level");
+        Timber.w("untagged");
+        Timber.tag("Kept").e("tagged");
+        tree.close();
+
+        String log = read(new File(directory, "wire.log"));
+        Assert.assertFalse(log.contains("below the level"));
+        Assert.assertFalse(log.contains("Dropped"));
+        Assert.assertTrue(log.contains("W/Wire: untagged"));
+        Assert.assertTrue(log.contains("E/Kept: tagged"));
+    }
+
+    @Test
+    public void isEnabledFollowsThePlantedTree() {
+        Assert.assertFalse(WireLoggerTree.isEnabled(Log.INFO));
+        Assert.assertTrue(WireLoggerTree.isEnabled(Log.WARN));
+        Assert.assertTrue(WireLoggerTree.isEnabled(Log.ERROR));
+    }
+
+    private static String read(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            byte[] bytes = new byte[(int) raf.length()];
+            raf.readFully(bytes);
+            return new String(bytes, UTF_8);
+        } finally {
+            raf.close();
+        }
+    }
+}
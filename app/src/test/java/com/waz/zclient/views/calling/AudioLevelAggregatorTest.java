@@ -0,0 +1,212 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.views.calling;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+public class AudioLevelAggregatorTest {
+
+    private static final int SPEAKERS = 50;
+    private static final int UPDATES_PER_SPEAKER = 2000;
+    private static final long FRAME_NANOS = 16666667L;
+
+    private FakeFrameScheduler scheduler;
+    private AudioLevelAggregator aggregator;
+    private CountingListener[] listeners;
+    private int[] slots;
+
+    @Before
+    public void setUp() {
+        scheduler = new FakeFrameScheduler();
+        aggregator = new AudioLevelAggregator(scheduler, AudioLevelAggregator.DEFAULT_CAPACITY);
+        listeners = new CountingListener[SPEAKERS];
+        slots = new int[SPEAKERS];
+        for (int i = 0; i < SPEAKERS; i++) {
+            slots[i] = aggregator.acquireSlot();
+            listeners[i] = new CountingListener();
+            aggregator.setListener(slots[i], listeners[i]);
+            listeners[i].calls = 0;
+        }
+    }
+
+    @Test
+    public void concurrentSpeakersAreCoalescedIntoOneFrame() throws InterruptedException {
+        floodFromBackgroundThreads();
+
+        Assert.assertEquals(1, scheduler.postCount);
+        float[] snapshot = aggregator.getLevels();
+        scheduler.runFrame(FRAME_NANOS);
+
+        Assert.assertEquals(1, aggregator.getFrameCount());
+        Assert.assertSame(snapshot, aggregator.getLevels());
+        for (int i = 0; i < SPEAKERS; i++) {
+            // Every speaker's loudest update of the frame wins, each view is told once
+            Assert.assertEquals(AudioLevelAggregator.toGain(peakVolume(i)), snapshot[AudioLevelAggregator.slotOf(slots[i])], 0.0001f);
+            Assert.assertEquals(1, listeners[i].calls);
+            Assert.assertEquals(snapshot[AudioLevelAggregator.slotOf(slots[i])], listeners[i].level, 0f);
+        }
+    }
+
+    @Test
+    public void levelsDecayAndFramesStopWhenSilent() throws InterruptedException {
+        floodFromBackgroundThreads();
+
+        long frameTime = 0;
+        int frames = 0;
+        while (scheduler.hasPendingFrame()) {
+            frameTime += FRAME_NANOS;
+            scheduler.runFrame(frameTime);
+            frames++;
+            Assert.assertTrue("levels should fade out within a few seconds", frames < 300);
+        }
+
+        for (int i = 0; i < SPEAKERS; i++) {
+            Assert.assertEquals(0f, aggregator.getLevels()[AudioLevelAggregator.slotOf(slots[i])], 0f);
+            Assert.assertEquals(0f, listeners[i].level, 0f);
+            // Monotonic decay of a single peak never notifies more often than there were frames
+            Assert.assertTrue(listeners[i].calls <= frames);
+        }
+        Assert.assertEquals(frames, scheduler.postCount);
+    }
+
+    @Test
+    public void releasedSlotIsReusedWithoutStaleLevel() {
+        int slot = AudioLevelAggregator.slotOf(slots[0]);
+        aggregator.submitVolume(slots[0], 1f);
+        scheduler.runFrame(FRAME_NANOS);
+        Assert.assertTrue(aggregator.getLevels()[slot] > 0);
+
+        aggregator.releaseSlot(slots[0]);
+        int handle = aggregator.acquireSlot();
+
+        Assert.assertEquals(slot, AudioLevelAggregator.slotOf(handle));
+        Assert.assertTrue(handle != slots[0]);
+        Assert.assertEquals(0f, aggregator.getLevels()[slot], 0f);
+    }
+
+    @Test
+    public void volumeSubmittedForAReleasedHandleDoesNotReachTheNextOwner() {
+        int staleHandle = slots[0];
+        int slot = AudioLevelAggregator.slotOf(staleHandle);
+        // in flight while the view is detached and its slot handed to another view
+        aggregator.submitVolume(staleHandle, 1f);
+        aggregator.releaseSlot(staleHandle);
+        int handle = aggregator.acquireSlot();
+        CountingListener listener = new CountingListener();
+        aggregator.setListener(handle, listener);
+        aggregator.submitVolume(staleHandle, 1f);
+        scheduler.runFrame(FRAME_NANOS);
+
+        Assert.assertEquals(0f, aggregator.getLevels()[slot], 0f);
+        Assert.assertEquals(0f, listener.level, 0f);
+
+        // the stale handle can't touch the slot any more either
+        aggregator.setListener(staleHandle, new CountingListener());
+        aggregator.releaseSlot(staleHandle);
+        aggregator.submitVolume(handle, 1f);
+        scheduler.runFrame(2 * FRAME_NANOS);
+        Assert.assertTrue(listener.level > 0);
+    }
+
+    @Test
+    public void slotsAreLimitedToCapacity() {
+        for (int i = SPEAKERS; i < AudioLevelAggregator.DEFAULT_CAPACITY; i++) {
+            Assert.assertTrue(aggregator.acquireSlot() >= 0);
+        }
+        Assert.assertEquals(-1, aggregator.acquireSlot());
+
+        // Updates for a view without a slot are ignored
+        aggregator.submitVolume(-1, 1f);
+    }
+
+    private void floodFromBackgroundThreads() throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(SPEAKERS);
+        for (int i = 0; i < SPEAKERS; i++) {
+            final int speaker = i;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int update = 0; update < UPDATES_PER_SPEAKER; update++) {
+                        aggregator.submitVolume(slots[speaker], volume(speaker, update));
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+    }
+
+    private static float volume(int speaker, int update) {
+        // Sawtooth per speaker, peaking at a different volume for each one
+        return peakVolume(speaker) * (update % 100) / 99f;
+    }
+
+    private static float peakVolume(int speaker) {
+        return 0.1f + 0.3f * speaker / SPEAKERS;
+    }
+
+    private static class CountingListener implements AudioLevelAggregator.LevelListener {
+        int calls;
+        float level;
+
+        @Override
+        public void onLevelChanged(float level) {
+            calls++;
+            this.level = level;
+        }
+    }
+
+    private static class FakeFrameScheduler implements AudioLevelAggregator.FrameScheduler {
+        private AudioLevelAggregator.FrameCallback pending;
+        int postCount;
+
+        @Override
+        public synchronized void postFrame(AudioLevelAggregator.FrameCallback callback) {
+            Assert.assertNull("only one frame may be pending", pending);
+            pending = callback;
+            postCount++;
+        }
+
+        synchronized boolean hasPendingFrame() {
+            return pending != null;
+        }
+
+        void runFrame(long frameTimeNanos) {
+            AudioLevelAggregator.FrameCallback callback;
+            synchronized (this) {
+                callback = pending;
+                pending = null;
+            }
+            if (callback != null) {
+                callback.doFrame(frameTimeNanos);
+            }
+        }
+    }
+}
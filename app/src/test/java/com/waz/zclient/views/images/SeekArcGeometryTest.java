@@ -0,0 +1,98 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.views.images;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class SeekArcGeometryTest {
+
+    private static final float DELTA = 0.001f;
+
+    @Test
+    public void sameStartAndEndIsAFullCircle() {
+        Assert.assertEquals(360f, SeekArcGeometry.totalDegrees(270f, 270f), DELTA);
+        Assert.assertEquals(359.9f, SeekArcGeometry.totalDegrees(270f, 269.9f), DELTA);
+        Assert.assertEquals(180f, SeekArcGeometry.totalDegrees(180f, 0f), DELTA);
+        Assert.assertEquals(90f, SeekArcGeometry.totalDegrees(0f, 90f), DELTA);
+    }
+
+    @Test
+    public void pointerAngleWrapsAroundTheStart() {
+        Assert.assertEquals(270f, SeekArcGeometry.pointerAngle(0, 100, 270f, 360f), DELTA);
+        Assert.assertEquals(0f, SeekArcGeometry.pointerAngle(25, 100, 270f, 360f), DELTA);
+        Assert.assertEquals(90f, SeekArcGeometry.pointerAngle(50, 100, 270f, 360f), DELTA);
+        Assert.assertEquals(270f, SeekArcGeometry.pointerAngle(0, 0, 270f, 360f), DELTA);
+    }
+
+    @Test
+    public void clockwiseDistanceIsNeverNegative() {
+        Assert.assertEquals(90f, SeekArcGeometry.clockwiseDegrees(270f, 0f), DELTA);
+        Assert.assertEquals(270f, SeekArcGeometry.clockwiseDegrees(0f, 270f), DELTA);
+        Assert.assertEquals(0f, SeekArcGeometry.clockwiseDegrees(45f, 45f), DELTA);
+    }
+
+    @Test
+    public void progressRoundTripsThroughTheAngle() {
+        float total = SeekArcGeometry.totalDegrees(270f, 269.9f);
+        for (int progress = 0; progress < 1000; progress += 7) {
+            float pointer = SeekArcGeometry.pointerAngle(progress, 1000, 270f, total);
+            float sweep = SeekArcGeometry.clockwiseDegrees(270f, pointer);
+            Assert.assertEquals(progress, Math.round(1000 * sweep / total));
+        }
+    }
+
+    @Test
+    public void anglesOfPointsAreClockwiseFromThreeOClock() {
+        Assert.assertEquals(0f, SeekArcGeometry.angleOf(10, 0), DELTA);
+        Assert.assertEquals(90f, SeekArcGeometry.angleOf(0, 10), DELTA);
+        Assert.assertEquals(180f, SeekArcGeometry.angleOf(-10, 0), DELTA);
+        Assert.assertEquals(270f, SeekArcGeometry.angleOf(0, -10), DELTA);
+        Assert.assertEquals(5f, SeekArcGeometry.distanceOf(3, 4), DELTA);
+    }
+
+    @Test
+    public void pointerPositionIsOnTheEllipse() {
+        SeekArcGeometry geometry = new SeekArcGeometry();
+        geometry.set(100, 50, 0, 0);
+        Assert.assertEquals(0f, geometry.getX(270f), DELTA);
+        Assert.assertEquals(-50f, geometry.getY(270f), DELTA);
+        Assert.assertEquals(100f, geometry.getX(0f), DELTA);
+        Assert.assertEquals(0f, geometry.getY(0f), DELTA);
+
+        geometry.set(80, 80, 0, 0);
+        for (float angle = 0; angle < 360; angle += 15) {
+            float x = geometry.getX(angle);
+            float y = geometry.getY(angle);
+            Assert.assertEquals(80f, SeekArcGeometry.distanceOf(x, y), DELTA);
+            Assert.assertEquals(angle, SeekArcGeometry.angleOf(x, y), 0.01f);
+        }
+    }
+
+    @Test
+    public void touchRadiiSurroundTheArc() {
+        SeekArcGeometry geometry = new SeekArcGeometry();
+        geometry.set(100, 80, 24, 10);
+        Assert.assertEquals(56f, geometry.getInnerTouchRadius(), DELTA);
+        Assert.assertEquals(124f, geometry.getOuterTouchRadius(), DELTA);
+        Assert.assertEquals(10 * 180 / (Math.PI * 100), geometry.getPointerRadiusDegrees(), DELTA);
+
+        geometry.set(0, 0, 24, 10);
+        Assert.assertEquals(0f, geometry.getPointerRadiusDegrees(), DELTA);
+    }
+}
@@ -32,7 +32,7 @@ import com.waz.service.call.{FlowManagerService, VoiceChannelContent, VoiceChann
 import com.waz.testutils.TestUtils.{PrintSignalVals, signalTest}
 import com.waz.testutils.{MockZMessaging, TestWireContext}
 import com.waz.utils.events.Signal
-import com.waz.zclient.calling.controllers.{GlobalCallingController, CurrentCallController}
+import com.waz.zclient.calling.controllers.{CallParticipants, GlobalCallingController, CurrentCallController}
 import com.waz.zclient.common.controllers.PermissionsController
 import com.waz.zclient.{Module, R}
 import org.junit.runner.RunWith
@@ -170,6 +170,39 @@ class CurrentCallControllerTest extends JUnitSuite {
     }
   }
 
+  @Test
+  def otherParticipantsFollowParticipantJoiningTheCall(): Unit = {
+    pushChannel(OngoingAudioCall(groupConv))
+    signalTest(controller.otherParticipants)(_.map(_.userId).toSet == Set(user2.id, user3.id, user4.id)) {
+      pushChannel(OngoingGroupCallAllConnected(groupConv))
+    }
+  }
+
+  @Test
+  def otherParticipantsFollowParticipantLeavingTheCall(): Unit = {
+    pushChannel(OngoingGroupCallAllConnected(groupConv))
+    signalTest(controller.otherParticipants)(_.size equals(otherParticipantsInGroupCall)) {
+      pushChannel(OngoingAudioCall(groupConv))
+    }
+  }
+
+  @Test
+  def otherSendingVideoFollowsParticipantUpdates(): Unit = {
+    pushChannel(OngoingVideoCall(oneToOneConv))
+    signalTest(controller.otherSendingVideo)(_ == true)(())
+    signalTest(controller.otherSendingVideo)(_ == false) {
+      pushChannel(OngoingVideoCallVideoOff(oneToOneConv))
+    }
+  }
+
+  @Test
+  def participantsAreClearedWhenTheCallIsNoLongerConnected(): Unit = {
+    pushChannel(OngoingAudioCall(groupConv))
+    signalTest(controller.participants)(_ == CallParticipants.Empty) {
+      pushChannel(OutgoingAudioCall(groupConv))
+    }
+  }
+
   @Test
   def participantsToDisplayInOneToOneIncomingCallShouldBeOtherUser(): Unit = {
     signalTest(controller.participantIdsToDisplay) {
@@ -313,6 +346,7 @@ class CurrentCallControllerTest extends JUnitSuite {
   case class IncomingVideoCall(cData: ConversationData) extends DefaultCall(cData, OTHER_CALLING, Idle, user2.id, VideoDataForVideoCall(VideoSendState.PREVIEW).data, EmptyParticipantsData)
   case class OngoingVideoCall(cData: ConversationData) extends DefaultCall(cData, SELF_CONNECTED, Connected, selfUser.id, VideoDataForVideoCall(VideoSendState.SEND).data, ParticipantsData(cData, video = true))
   case class OngoingVideoCallVideoOff(cData: ConversationData) extends DefaultCall(cData, SELF_CONNECTED, Connected, selfUser.id, VideoDataForVideoCall(VideoSendState.SEND).data, ParticipantsData(cData, video = false))
+  case class OngoingGroupCallAllConnected(cData: ConversationData) extends DefaultCall(cData, SELF_CONNECTED, Connected, selfUser.id, VideoDataForAudioCall().data, AllConnectedGroupParticipantsData)
   case class OngoingVideoCallThreeCameras(cData: ConversationData) extends DefaultCall(cData, SELF_CONNECTED, Connected, selfUser.id, VideoDataForVideoCallThreeCameras(VideoSendState.SEND).data, ParticipantsData(cData, video = false))
 
   case class TrackingData(cData: ConversationData, channelState: VoiceChannelState) {
@@ -359,6 +393,10 @@ class CurrentCallControllerTest extends JUnitSuite {
     )
   }
 
+  case object AllConnectedGroupParticipantsData extends ParticipantsData {
+    override val data = GroupParticipantsData(video = false).data.updated(user4.id, VoiceParticipantData(groupConv.id, user4.id, Connected))
+  }
+
   case object EmptyParticipantsData extends ParticipantsData {
     override val data = Map.empty[UserId, VoiceParticipantData]
   }
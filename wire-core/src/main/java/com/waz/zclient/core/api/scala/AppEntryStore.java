@@ -18,7 +18,6 @@
 package com.waz.zclient.core.api.scala;
 
 import android.content.Context;
-import android.content.SharedPreferences;
 import android.os.Bundle;
 import android.text.TextUtils;
 import com.waz.api.AccentColor;
@@ -53,9 +52,16 @@ import com.waz.zclient.core.controllers.tracking.events.registration.VerifiedEma
 import com.waz.zclient.core.controllers.tracking.events.registration.VerifiedPhoneEvent;
 import com.waz.zclient.core.controllers.tracking.events.registration.RequestedPhoneVerificationCallEvent;
 import com.waz.zclient.core.controllers.tracking.events.session.LoggedInEvent;
+import com.waz.zclient.core.stores.appentry.AppEntryCondition;
+import com.waz.zclient.core.stores.appentry.AppEntryEffect;
 import com.waz.zclient.core.stores.appentry.AppEntryError;
+import com.waz.zclient.core.stores.appentry.AppEntryEvent;
+import com.waz.zclient.core.stores.appentry.AppEntrySnapshot;
+import com.waz.zclient.core.stores.appentry.AppEntrySnapshotStore;
 import com.waz.zclient.core.stores.appentry.AppEntryState;
 import com.waz.zclient.core.stores.appentry.AppEntryStateCallback;
+import com.waz.zclient.core.stores.appentry.AppEntryTrace;
+import com.waz.zclient.core.stores.appentry.AppEntryTransitions;
 import com.waz.zclient.core.stores.appentry.IAppEntryStore;
 import com.waz.zclient.utils.LayoutSpec;
 import timber.log.Timber;
@@ -63,13 +69,6 @@ import timber.log.Timber;
 public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
     public static final String TAG = AppEntryStore.class.getName();
     public static final String GENERAL_GENERIC_INVITE_TOKEN = "getwire";
-    private static final String PREF_REGISTRATION = "PREF_REGISTRATION";
-    private static final String PREF_ITEM_ENTRY_POINT = "PREF_ITEM_ENTRY_POINT";
-    private static final String PREF_ITEM_EMAIL = "PREF_ITEM_EMAIL";
-    private static final String PREF_ITEM_COUNTRY_CODE = "PREF_ITEM_COUNTRY_CODE";
-    private static final String PREF_ITEM_PHONE_VERIFICATION_CODE = "PREF_ITEM_PHONE_VERIFICATION_CODE";
-    private static final String PREF_ITEM_PHONE = "PREF_ITEM_PHONE";
-    private static final String PREF_ITEM_NAME = "PREF_ITEM_NAME";
     private static final String SAVED_INSTANCE_CURRENT_STATE = "SAVED_INSTANCE_CURRENT_STATE";
 
     private Context context;
@@ -81,6 +80,10 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
     private AppEntryState entryPoint;
     private boolean ignoreSelfUpdates;
 
+    private final AppEntryTransitions transitions = AppEntryTransitions.getDefault();
+    private final AppEntryTrace trace = new AppEntryTrace();
+    private AppEntrySnapshotStore snapshotStore;
+
     private String countryCode;
     private String phone;
     private String phoneVerificationCode;
@@ -101,21 +104,48 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
         }
     };
 
+    private final AppEntryTransitions.Conditions conditions = new AppEntryTransitions.Conditions() {
+        @Override
+        public boolean holds(AppEntryCondition condition) {
+            switch (condition) {
+                case PHONE_LAYOUT:
+                    return LayoutSpec.isPhone(context);
+                case LOGGED_IN:
+                    return self.isLoggedIn();
+                case ACCOUNT_ACTIVATED:
+                    return self.accountActivated();
+                case HAS_EMAIL:
+                    return !self.getEmail().isEmpty();
+                case HAS_PHONE:
+                    return !self.getPhone().isEmpty();
+                case HAS_PICTURE:
+                    return !self.getPicture().isEmpty();
+                case EMAIL_SIGN_IN_ENTRY_POINT:
+                    return entryPoint == AppEntryState.EMAIL_SIGN_IN;
+                default:
+                    return false;
+            }
+        }
+    };
+
     public AppEntryStore(Context context, ZMessagingApi zMessagingApi) {
+        this(context, zMessagingApi, new PreferencesAppEntrySnapshotStore(context));
+    }
+
+    public AppEntryStore(Context context, ZMessagingApi zMessagingApi, AppEntrySnapshotStore snapshotStore) {
         this.context = context;
         this.zMessagingApi = zMessagingApi;
+        this.snapshotStore = snapshotStore;
         errors = zMessagingApi.getErrors();
         errors.addErrorListener(this);
-        SharedPreferences sharedPreferences = context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE);
-        if (sharedPreferences.contains(PREF_ITEM_ENTRY_POINT)) {
-            entryPoint = AppEntryState.values()[sharedPreferences.getInt(PREF_ITEM_ENTRY_POINT, -1)];
-        }
 
-        countryCode = sharedPreferences.getString(PREF_ITEM_COUNTRY_CODE, null);
-        phone = sharedPreferences.getString(PREF_ITEM_PHONE, null);
-        email = sharedPreferences.getString(PREF_ITEM_EMAIL, null);
-        name = sharedPreferences.getString(PREF_ITEM_NAME, null);
-        phoneVerificationCode = sharedPreferences.getString(PREF_ITEM_PHONE_VERIFICATION_CODE, null);
+        AppEntrySnapshot snapshot = snapshotStore.load();
+        entryPoint = snapshot.getEntryPoint();
+        countryCode = snapshot.getCountryCode();
+        phone = snapshot.getPhone();
+        email = snapshot.getEmail();
+        name = snapshot.getName();
+        phoneVerificationCode = snapshot.getPhoneVerificationCode();
     }
 
     public void resumeAppEntry(Self self, String personalInvitationToken) {
@@ -155,60 +185,7 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
             return;
         }
 
-        // Resume phone registration
-        if (entryPoint == AppEntryState.PHONE_REGISTER && self.isLoggedIn()) {
-            if (self.getPicture().isEmpty()) {
-                setState(AppEntryState.PHONE_SET_PICTURE);
-                return;
-            }
-            setState(AppEntryState.LOGGED_IN);
-            return;
-        }
-
-        //Resume at phone set name
-        if (entryPoint == AppEntryState.PHONE_SET_NAME && self.isLoggedIn()) {
-            setState(AppEntryState.PHONE_SET_NAME);
-            return;
-        }
-
-        // Resume phone sign-in
-        if (entryPoint == AppEntryState.PHONE_SIGN_IN && self.isLoggedIn()) {
-            setState(AppEntryState.PHONE_SIGNED_IN_RESUMING);
-            return;
-        }
-
-        // Resume email registration
-        if (entryPoint == AppEntryState.EMAIL_REGISTER) {
-            if (self.isLoggedIn() && !self.accountActivated()) {
-                setState(AppEntryState.EMAIL_VERIFY_EMAIL);
-                return;
-            }
-
-            if (self.accountActivated() && self.getPicture().isEmpty()) {
-                setState(AppEntryState.EMAIL_SET_PICTURE);
-                return;
-            }
-
-            if (self.accountActivated()) {
-                appEntryStateCallback.tagAppEntryEvent(new VerifiedEmailEvent(OutcomeAttribute.SUCCESS, "", getEmailRegistrationContext()));
-                appEntryStateCallback.tagAppEntryEvent(new SucceededWithRegistrationEvent(getEmailRegistrationContext()));
-                setState(AppEntryState.LOGGED_IN);
-                return;
-            }
-        }
-
-        // Resume email sign-in
-        if (entryPoint == AppEntryState.EMAIL_SIGN_IN && self.isLoggedIn()) {
-            setState(AppEntryState.EMAIL_SIGNED_IN);
-            return;
-        }
-
-        // Start registration
-        if (LayoutSpec.isPhone(context)) {
-            setState(AppEntryState.PHONE_REGISTER);
-        } else {
-            setState(AppEntryState.EMAIL_WELCOME);
-        }
+        applyTransition(entryPoint, AppEntryEvent.RESUME);
     }
 
     @Override
@@ -225,15 +202,7 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
         email = null;
         password = null;
         phoneVerificationCode = null;
-
-        context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE)
-               .edit()
-               .remove(PREF_ITEM_COUNTRY_CODE)
-               .remove(PREF_ITEM_PHONE)
-               .remove(PREF_ITEM_NAME)
-               .remove(PREF_ITEM_EMAIL)
-               .remove(PREF_ITEM_PHONE_VERIFICATION_CODE)
-               .commit();
+        saveSnapshot();
     }
 
     // Here we handle email verification click on a different device
@@ -242,26 +211,7 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
             return;
         }
 
-        if (entryPoint == AppEntryState.PHONE_SIGN_IN && self.accountActivated()) {
-            appEntryStateCallback.tagAppEntryEvent(EmailVerification.success(EmailVerification.Context.POST_LOGIN));
-            if (self.getPicture().isEmpty()) {
-                setState(AppEntryState.PHONE_SET_PICTURE);
-                return;
-            }
-            setState(AppEntryState.LOGGED_IN);
-            return;
-        }
-
-        if (entryPoint == AppEntryState.EMAIL_REGISTER && self.accountActivated()) {
-            appEntryStateCallback.tagAppEntryEvent(new VerifiedEmailEvent(OutcomeAttribute.SUCCESS, "", getEmailRegistrationContext()));
-            appEntryStateCallback.tagAppEntryEvent(new SucceededWithRegistrationEvent(getEmailRegistrationContext()));
-            if (self.getPicture().isEmpty()) {
-                setState(AppEntryState.EMAIL_SET_PICTURE);
-                return;
-            }
-            setState(AppEntryState.LOGGED_IN);
-            return;
-        }
+        applyTransition(entryPoint, AppEntryEvent.SELF_UPDATED);
     }
 
     /* returns true if bound to new self */
@@ -297,48 +247,39 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
             return false;
         }
 
-        switch (currentState) {
+        return applyTransition(currentState, AppEntryEvent.BACK);
+    }
 
-            case PHONE_SIGN_IN:
-            case PHONE_INVITATION:
-            case EMAIL_INVITATION:
-                if (LayoutSpec.isPhone(context)) {
-                    setState(AppEntryState.PHONE_REGISTER);
-                } else {
-                    setState(AppEntryState.EMAIL_WELCOME);
-                }
-                return true;
-            case PHONE_SET_CODE:
-                if (entryPoint == AppEntryState.EMAIL_SIGN_IN) {
-                    setState(AppEntryState.EMAIL_SET_PHONE);
-                } else {
-                    setState(entryPoint);
-                }
-                return true;
-            case PHONE_VERIFY_EMAIL:
-                setState(AppEntryState.PHONE_EMAIL_PASSWORD);
-                return true;
-            case EMAIL_VERIFY_EMAIL:
-                setState(AppEntryState.EMAIL_REGISTER);
-                return true;
-            case EMAIL_REGISTER:
-                setState(AppEntryState.EMAIL_WELCOME);
-                return true;
-            case EMAIL_SIGN_IN:
-                if (LayoutSpec.isPhone(context)) {
-                    setState(AppEntryState.PHONE_REGISTER);
-                } else {
-                    setState(AppEntryState.EMAIL_WELCOME);
-                }
-                return true;
-            case EMAIL_SET_CODE:
-                setState(AppEntryState.EMAIL_SET_PHONE);
-                return true;
-            case PHONE_SET_PICTURE:
-                setState(AppEntryState.PHONE_SET_NAME);
-                return true;
-            default:
-                return false;
+    /**
+     * Looks up the transition for the event, runs its effect and enters its target.
+     *
+     * @return false if the event does nothing in this state
+     */
+    private boolean applyTransition(AppEntryState from, AppEntryEvent event) {
+        long startNanos = System.nanoTime();
+        AppEntryTransitions.Transition transition = transitions.find(from, event, conditions);
+        if (transition == null) {
+            return false;
+        }
+        if (transition.getEffect() != null) {
+            runEffect(transition.getEffect());
+        }
+        setStateInternal(transition.getTarget(entryPoint), event, startNanos, false);
+        return true;
+    }
+
+    private void runEffect(AppEntryEffect effect) {
+        if (appEntryStateCallback == null) {
+            return;
+        }
+        switch (effect) {
+            case TAG_EMAIL_REGISTRATION_SUCCEEDED:
+                appEntryStateCallback.tagAppEntryEvent(new VerifiedEmailEvent(OutcomeAttribute.SUCCESS, "", getEmailRegistrationContext()));
+                appEntryStateCallback.tagAppEntryEvent(new SucceededWithRegistrationEvent(getEmailRegistrationContext()));
+                break;
+            case TAG_POST_LOGIN_EMAIL_VERIFIED:
+                appEntryStateCallback.tagAppEntryEvent(EmailVerification.success(EmailVerification.Context.POST_LOGIN));
+                break;
         }
     }
 
@@ -347,21 +288,23 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
         bindSelf(null);
         errors.removeErrorListener(this);
         errors = null;
+        snapshotStore.close();
+        snapshotStore = null;
         zMessagingApi = null;
         context = null;
     }
 
     @Override
     public void setState(AppEntryState state) {
-        setStateInternal(state, false);
+        setStateInternal(state, AppEntryEvent.SET, System.nanoTime(), false);
     }
 
     @Override
     public void triggerStateUpdate() {
-        setStateInternal(currentState, true);
+        setStateInternal(currentState, AppEntryEvent.SET, System.nanoTime(), true);
     }
 
-    private void setStateInternal(AppEntryState state, boolean forceUpdate) {
+    private void setStateInternal(AppEntryState state, AppEntryEvent event, long startNanos, boolean forceUpdate) {
         if (appEntryStateCallback == null) {
             return;
         }
@@ -370,12 +313,30 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
             return;
         }
 
+        AppEntryState previousState = currentState;
         currentState = state;
 
         if (AppEntryState.entryPoints().contains(state)) {
             persistAppEntryPoint(state);
         }
 
+        // Routing states only decide where to go next from the self user
+        AppEntryTransitions.Transition route = transitions.find(state, AppEntryEvent.ENTER, conditions);
+        if (route != null) {
+            trace.record(previousState, event, state, startNanos, System.nanoTime());
+            setStateInternal(route.getTarget(entryPoint), AppEntryEvent.ENTER, System.nanoTime(), false);
+            return;
+        }
+
+        enter(state);
+        trace.record(previousState, event, state, startNanos, System.nanoTime());
+        if (state == AppEntryState.LOGGED_IN) {
+            Timber.i("%s", trace);
+            trace.clear();
+        }
+    }
+
+    private void enter(AppEntryState state) {
         switch (state) {
             case PHONE_REGISTER:
                 appEntryStateCallback.onShowPhoneRegistrationPage();
@@ -386,34 +347,6 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
             case PHONE_SET_CODE:
                 appEntryStateCallback.onShowPhoneCodePage();
                 break;
-            case PHONE_SIGNED_IN:
-                if (self.getEmail().isEmpty()) {
-                    setState(AppEntryState.PHONE_EMAIL_PASSWORD);
-                    break;
-                }
-                if (self.getPicture().isEmpty()) {
-                    setState(AppEntryState.PHONE_SET_PICTURE);
-                    break;
-                }
-                setState(AppEntryState.LOGGED_IN);
-                break;
-            // TODO: This state was needed because SyncEngine isEmailVerified() was not entirely reliable,
-            // accountActivated() flag should not have this problem, we should remove this special state.
-            case PHONE_SIGNED_IN_RESUMING:
-                if (self.getEmail().isEmpty()) {
-                    setState(AppEntryState.PHONE_EMAIL_PASSWORD);
-                    break;
-                }
-                if (!self.accountActivated()) {
-                    setState(AppEntryState.PHONE_VERIFY_EMAIL);
-                    break;
-                }
-                if (self.getPicture().isEmpty()) {
-                    setState(AppEntryState.PHONE_SET_PICTURE);
-                    break;
-                }
-                setState(AppEntryState.FIRST_LOGIN);
-                break;
             case PHONE_EMAIL_PASSWORD:
                 appEntryStateCallback.onShowPhoneAddEmailPage();
                 break;
@@ -447,24 +380,9 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
             case EMAIL_SET_CODE:
                 appEntryStateCallback.onShowEmailPhoneCodePage();
                 break;
-            case EMAIL_SIGNED_IN:
-                if (!self.accountActivated()) {
-                    setState(AppEntryState.EMAIL_VERIFY_EMAIL);
-                    break;
-                }
-                if (self.getPicture().isEmpty()) {
-                    setState(AppEntryState.EMAIL_SET_PICTURE);
-                    break;
-                }
-                if (self.getPhone().isEmpty()) {
-                    setState(AppEntryState.EMAIL_SET_PHONE);
-                    break;
-                }
-                setState(AppEntryState.FIRST_LOGIN);
-                break;
             case LOGGED_IN:
                 entryPoint = null;
-                context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE).edit().clear().commit();
+                snapshotStore.clear();
                 self.removeUpdateListener(selfUpdateListener);
                 appEntryStateCallback.onEnterApplication();
                 break;
@@ -484,10 +402,7 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
 
     private void persistAppEntryPoint(AppEntryState state) {
         entryPoint = state;
-        context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE)
-               .edit()
-               .putInt(PREF_ITEM_ENTRY_POINT, entryPoint.ordinal())
-               .apply();
+        saveSnapshot();
     }
 
     @Override
@@ -1065,28 +980,32 @@ public class AppEntryStore implements IAppEntryStore, ErrorsList.ErrorListener {
     }
 
     private void setAndStorePhone(String phone) {
-        context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE).edit().putString(PREF_ITEM_PHONE, phone).apply();
         this.phone = phone;
+        saveSnapshot();
     }
 
     private void setAndStoreCountryCode(String countryCode) {
-        context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE).edit().putString(PREF_ITEM_COUNTRY_CODE, countryCode).apply();
         this.countryCode = countryCode;
+        saveSnapshot();
     }
 
     private void setAndStorePhoneVerificationCode(String phoneVerificationCode) {
-        context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE).edit().putString(PREF_ITEM_PHONE_VERIFICATION_CODE, countryCode).apply();
         this.phoneVerificationCode = phoneVerificationCode;
+        saveSnapshot();
     }
 
     private void setAndStoreName(String name) {
-        context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE).edit().putString(PREF_ITEM_NAME, name).apply();
         this.name = name;
+        saveSnapshot();
     }
 
     private void setAndStoreEmail(String email) {
-        context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE).edit().putString(PREF_ITEM_EMAIL, email).apply();
         this.email = email;
+        saveSnapshot();
+    }
+
+    private void saveSnapshot() {
+        snapshotStore.save(new AppEntrySnapshot(entryPoint, countryCode, phone, phoneVerificationCode, name, email));
     }
 
     ////////////////////////
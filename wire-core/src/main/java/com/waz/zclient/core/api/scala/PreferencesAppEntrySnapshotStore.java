@@ -0,0 +1,138 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.api.scala;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import com.waz.zclient.core.stores.appentry.AppEntrySnapshot;
+import com.waz.zclient.core.stores.appentry.AppEntrySnapshotStore;
+import com.waz.zclient.core.stores.appentry.AppEntryState;
+import timber.log.Timber;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps the registration snapshot in the shared preferences the {@link AppEntryStore} always used.
+ *
+ * Saves are written with one {@code commit()} per snapshot on a background thread. While a write is
+ * pending further saves only replace the pending snapshot, so typing through the flow costs one disk
+ * write per burst instead of one per field. {@link #close()} lets the writer finish the queued write
+ * without waiting for it; saves after that are dropped.
+ */
+class PreferencesAppEntrySnapshotStore implements AppEntrySnapshotStore {
+
+    private static final String PREF_REGISTRATION = "PREF_REGISTRATION";
+    private static final String PREF_ITEM_ENTRY_POINT = "PREF_ITEM_ENTRY_POINT";
+    private static final String PREF_ITEM_EMAIL = "PREF_ITEM_EMAIL";
+    private static final String PREF_ITEM_COUNTRY_CODE = "PREF_ITEM_COUNTRY_CODE";
+    private static final String PREF_ITEM_PHONE_VERIFICATION_CODE = "PREF_ITEM_PHONE_VERIFICATION_CODE";
+    private static final String PREF_ITEM_PHONE = "PREF_ITEM_PHONE";
+    private static final String PREF_ITEM_NAME = "PREF_ITEM_NAME";
+
+    private final SharedPreferences preferences;
+    private final AtomicReference<AppEntrySnapshot> pending = new AtomicReference<>();
+    private final ExecutorService writer;
+
+    private final Runnable writePending = new Runnable() {
+        @Override
+        public void run() {
+            AppEntrySnapshot snapshot = pending.getAndSet(null);
+            if (snapshot != null) {
+                write(snapshot);
+            }
+        }
+    };
+
+    PreferencesAppEntrySnapshotStore(Context context) {
+        this.preferences = context.getSharedPreferences(PREF_REGISTRATION, Context.MODE_PRIVATE);
+        this.writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "AppEntrySnapshot");
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        });
+    }
+
+    @Override
+    public AppEntrySnapshot load() {
+        AppEntryState entryPoint = null;
+        int ordinal = preferences.getInt(PREF_ITEM_ENTRY_POINT, -1);
+        if (ordinal >= 0 && ordinal < AppEntryState.values().length) {
+            entryPoint = AppEntryState.values()[ordinal];
+        }
+        return new AppEntrySnapshot(entryPoint,
+                                    preferences.getString(PREF_ITEM_COUNTRY_CODE, null),
+                                    preferences.getString(PREF_ITEM_PHONE, null),
+                                    preferences.getString(PREF_ITEM_PHONE_VERIFICATION_CODE, null),
+                                    preferences.getString(PREF_ITEM_NAME, null),
+                                    preferences.getString(PREF_ITEM_EMAIL, null));
+    }
+
+    @Override
+    public void save(AppEntrySnapshot snapshot) {
+        // Only the first save of a burst schedules a write, the others ride along with it
+        if (pending.getAndSet(snapshot) == null && !writer.isShutdown()) {
+            writer.execute(writePending);
+        }
+    }
+
+    @Override
+    public void clear() {
+        save(AppEntrySnapshot.EMPTY);
+    }
+
+    @Override
+    public void close() {
+        // A pending snapshot always has its write queued, which still runs after the shutdown
+        writer.shutdown();
+    }
+
+    private void write(AppEntrySnapshot snapshot) {
+        if (snapshot == AppEntrySnapshot.EMPTY) {
+            preferences.edit().clear().commit();
+            return;
+        }
+        SharedPreferences.Editor editor = preferences.edit();
+        if (snapshot.getEntryPoint() == null) {
+            editor.remove(PREF_ITEM_ENTRY_POINT);
+        } else {
+            editor.putInt(PREF_ITEM_ENTRY_POINT, snapshot.getEntryPoint().ordinal());
+        }
+        putOrRemove(editor, PREF_ITEM_COUNTRY_CODE, snapshot.getCountryCode());
+        putOrRemove(editor, PREF_ITEM_PHONE, snapshot.getPhone());
+        putOrRemove(editor, PREF_ITEM_PHONE_VERIFICATION_CODE, snapshot.getPhoneVerificationCode());
+        putOrRemove(editor, PREF_ITEM_NAME, snapshot.getName());
+        putOrRemove(editor, PREF_ITEM_EMAIL, snapshot.getEmail());
+        if (!editor.commit()) {
+            Timber.e("Failed to write registration state");
+        }
+    }
+
+    private static void putOrRemove(SharedPreferences.Editor editor, String key, String value) {
+        if (value == null) {
+            editor.remove(key);
+        } else {
+            editor.putString(key, value);
+        }
+    }
+}
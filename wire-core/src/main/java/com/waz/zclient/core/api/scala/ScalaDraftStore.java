@@ -17,43 +17,377 @@
  */
 package com.waz.zclient.core.api.scala;
 
+import android.os.Handler;
+import android.os.Looper;
 import com.waz.api.IConversation;
+import com.waz.zclient.core.stores.draft.Draft;
+import com.waz.zclient.core.stores.draft.DraftJournal;
 import com.waz.zclient.core.stores.draft.DraftStore;
+import timber.log.Timber;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Drafts are served from memory and persisted write-behind to a {@link DraftJournal}.
+ *
+ * The journal is recovered on a background writer thread when the store is created; nothing waits for it.
+ * Recovered drafts are merged into memory when the recovery finishes, changes made before that win, and
+ * {@link #loadDraftState(IConversation, DraftCallback)} delivers drafts once they are merged. Changes are
+ * appended to the journal in batches; the journal is compacted once most of its records are superseded.
+ *
+ * All stores share one writer thread, so a store created after another one was torn down only recovers the
+ * journal after the torn down store has written and closed it. The journal isn't kept across accounts,
+ * {@link #onLogout()} deletes it before the stores are reset.
+ */
 public class ScalaDraftStore extends DraftStore {
     public static final String TAG = ScalaDraftStore.class.getName();
 
-    Map<String, String> draftMap = new HashMap<>();
+    private static final long WRITE_BEHIND_DELAY_MS = 500;
+    private static final int MIN_RECORDS_FOR_COMPACTION = 64;
 
-    public ScalaDraftStore() {
+    private static final ScheduledThreadPoolExecutor WRITER = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "DraftStore");
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    });
 
+    static {
+        // Don't keep the thread around while no store is writing
+        WRITER.setKeepAliveTime(1, TimeUnit.SECONDS);
+        WRITER.allowCoreThreadTimeOut(true);
+    }
+
+    private final Map<String, Draft> drafts = new ConcurrentHashMap<>();
+    private final DraftJournal journal;
+    private final long writeBehindDelayMs;
+    private final Executor callbackExecutor;
+
+    private final Object writeLock = new Object();
+    // guarded by writeLock, null values are removals
+    private Map<String, Draft> pendingWrites = new HashMap<>();
+    // guarded by writeLock
+    private boolean flushScheduled;
+    // guarded by writeLock
+    private boolean recovered;
+    // guarded by writeLock, delivered once recovered
+    private final List<Runnable> recoveryCallbacks = new ArrayList<>();
+    // guarded by writeLock, applied once recovered
+    private Set<String> retainedConversations;
+    // guarded by writeLock
+    private boolean loggedOut;
+
+    // only touched on the writer thread
+    private boolean journalAvailable;
+
+    private Future<?> tornDown;
+
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flush();
+        }
+    };
+
+    public ScalaDraftStore(File directory) {
+        this(directory, WRITE_BEHIND_DELAY_MS, new Executor() {
+            private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+            @Override
+            public void execute(Runnable command) {
+                mainHandler.post(command);
+            }
+        });
+    }
+
+    ScalaDraftStore(File directory, long writeBehindDelayMs, Executor callbackExecutor) {
+        this.journal = new DraftJournal(directory);
+        this.writeBehindDelayMs = writeBehindDelayMs;
+        this.callbackExecutor = callbackExecutor;
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                recover();
+            }
+        });
     }
 
     @Override
     public void setDraft(IConversation conversation, String text) {
+        setDraft(conversation, Draft.of(text));
+    }
+
+    @Override
+    public String getDraft(IConversation conversation) {
+        Draft draft = getDraftState(conversation);
+        return draft == null ? "" : draft.getText();
+    }
+
+    @Override
+    public void setDraft(IConversation conversation, Draft draft) {
         if (conversation == null) {
             return;
         }
-        draftMap.put(conversation.getId(), text);
+        setDraft(conversation.getId(), draft);
     }
 
     @Override
-    public String getDraft(IConversation conversation) {
+    public Draft getDraftState(IConversation conversation) {
+        if (conversation == null) {
+            return null;
+        }
+        return getDraftState(conversation.getId());
+    }
+
+    @Override
+    public void loadDraftState(IConversation conversation, DraftCallback callback) {
+        if (conversation == null) {
+            callback.onDraftLoaded(null);
+            return;
+        }
+        loadDraftState(conversation.getId(), callback);
+    }
+
+    void setDraft(String conversationId, Draft draft) {
+        if (draft == null || draft.isEmpty()) {
+            draft = null;
+        }
+        synchronized (writeLock) {
+            Draft current = drafts.get(conversationId);
+            // Before the recovery memory doesn't know the stored drafts, record every change so it wins the merge
+            if (recovered && (draft == null ? current == null : draft.equals(current))) {
+                return;
+            }
+            if (draft == null) {
+                drafts.remove(conversationId);
+            } else {
+                drafts.put(conversationId, draft);
+            }
+            pendingWrites.put(conversationId, draft);
+            if (!scheduleFlushLocked()) {
+                return;
+            }
+        }
+        WRITER.schedule(flushRunnable, writeBehindDelayMs, TimeUnit.MILLISECONDS);
+    }
 
-        if (conversation != null &&
-            draftMap.containsKey(conversation.getId())) {
-            return draftMap.get(conversation.getId());
+    @Override
+    public void retainDrafts(Collection<String> conversationIds) {
+        synchronized (writeLock) {
+            if (!recovered) {
+                retainedConversations = new HashSet<>(conversationIds);
+                return;
+            }
+            if (!pruneLocked(conversationIds)) {
+                return;
+            }
+        }
+        WRITER.schedule(flushRunnable, writeBehindDelayMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Forgets all drafts and deletes the journal on the writer thread, the store keeps nothing after that.
+     */
+    @Override
+    public void onLogout() {
+        synchronized (writeLock) {
+            loggedOut = true;
+            drafts.clear();
+            pendingWrites.clear();
+        }
+        WRITER.execute(new Runnable() {
+            @Override
+            public void run() {
+                journalAvailable = false;
+                try {
+                    journal.delete();
+                } catch (IOException e) {
+                    Timber.e(e, "Failed deleting the drafts of the logged out account");
+                }
+            }
+        });
+    }
+
+    Draft getDraftState(String conversationId) {
+        return drafts.get(conversationId);
+    }
+
+    void loadDraftState(final String conversationId, final DraftCallback callback) {
+        Runnable delivery = new Runnable() {
+            @Override
+            public void run() {
+                callback.onDraftLoaded(drafts.get(conversationId));
+            }
+        };
+        synchronized (writeLock) {
+            if (!recovered) {
+                recoveryCallbacks.add(delivery);
+                return;
+            }
+        }
+        delivery.run();
+    }
+
+    /**
+     * Writes all pending changes to the journal. Runs on the writer thread.
+     */
+    void flush() {
+        Map<String, Draft> batch;
+        Map<String, Draft> snapshot = null;
+        synchronized (writeLock) {
+            flushScheduled = false;
+            if (!journalAvailable) {
+                // torn down, or the journal couldn't be recovered
+                pendingWrites.clear();
+                return;
+            }
+            if (pendingWrites.isEmpty()) {
+                return;
+            }
+            batch = pendingWrites;
+            pendingWrites = new HashMap<>();
+            if (journal.getRecordCount() + batch.size() > compactionThreshold()) {
+                snapshot = new HashMap<>(drafts);
+            }
+        }
+        try {
+            if (snapshot != null) {
+                journal.compact(snapshot);
+            } else {
+                for (Map.Entry<String, Draft> entry : batch.entrySet()) {
+                    journal.append(entry.getKey(), entry.getValue());
+                }
+                journal.sync();
+            }
+        } catch (IOException e) {
+            Timber.e(e, "Failed writing %d drafts", batch.size());
         }
-        return "";
     }
 
+    /**
+     * Writes the pending changes and closes the journal on the writer thread, without waiting for it. A store
+     * created afterwards for the same directory recovers the journal once this is done.
+     */
     @Override
     public void tearDown() {
-        if (draftMap != null) {
-            draftMap.clear();
+        tornDown = WRITER.submit(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+                if (!journalAvailable) {
+                    return;
+                }
+                journalAvailable = false;
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    Timber.w(e, "Failed closing the draft journal");
+                }
+            }
+        });
+    }
+
+    /**
+     * Blocks until a torn down store has written all changes, for tests.
+     */
+    void awaitTornDown() throws InterruptedException, ExecutionException, TimeoutException {
+        tornDown.get(10, TimeUnit.SECONDS);
+    }
+
+    private void recover() {
+        long start = System.nanoTime();
+        Map<String, Draft> recovered;
+        try {
+            recovered = journal.recover();
+            journalAvailable = true;
+            Timber.i("Recovered %d drafts from %d records in %d ms",
+                     recovered.size(),
+                     journal.getRecordCount(),
+                     TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } catch (IOException e) {
+            Timber.e(e, "Unable to recover drafts, they will only be kept in memory");
+            recovered = new HashMap<>();
         }
+
+        List<Runnable> callbacks;
+        boolean pruned = false;
+        synchronized (writeLock) {
+            if (!loggedOut) {
+                for (Map.Entry<String, Draft> entry : recovered.entrySet()) {
+                    // changes made while the recovery was running win
+                    if (!pendingWrites.containsKey(entry.getKey())) {
+                        drafts.put(entry.getKey(), entry.getValue());
+                    }
+                }
+            }
+            if (retainedConversations != null) {
+                pruned = pruneLocked(retainedConversations);
+                retainedConversations = null;
+            }
+            this.recovered = true;
+            callbacks = new ArrayList<>(recoveryCallbacks);
+            recoveryCallbacks.clear();
+        }
+        if (pruned) {
+            WRITER.schedule(flushRunnable, writeBehindDelayMs, TimeUnit.MILLISECONDS);
+        }
+        for (Runnable callback : callbacks) {
+            callbackExecutor.execute(callback);
+        }
+    }
+
+    /**
+     * Removes the drafts of all other conversations, returns true if the caller has to schedule a flush.
+     */
+    private boolean pruneLocked(Collection<String> conversationIds) {
+        Set<String> retained = new HashSet<>(conversationIds);
+        int count = 0;
+        for (Iterator<String> it = drafts.keySet().iterator(); it.hasNext(); ) {
+            String conversationId = it.next();
+            if (!retained.contains(conversationId)) {
+                it.remove();
+                pendingWrites.put(conversationId, null);
+                count++;
+            }
+        }
+        if (count == 0) {
+            return false;
+        }
+        Timber.i("Removed the drafts of %d conversations that no longer exist", count);
+        return scheduleFlushLocked();
+    }
+
+    /**
+     * Returns true if the caller has to schedule a flush, false if one already is.
+     */
+    private boolean scheduleFlushLocked() {
+        if (flushScheduled) {
+            return false;
+        }
+        flushScheduled = true;
+        return true;
+    }
+
+    private int compactionThreshold() {
+        return Math.max(MIN_RECORDS_FOR_COMPACTION, 2 * drafts.size());
     }
 }
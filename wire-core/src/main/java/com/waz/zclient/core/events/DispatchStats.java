@@ -0,0 +1,89 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.events;
+
+import java.util.Locale;
+
+/**
+ * Dispatch counters of one event type, shared by all channels publishing it.
+ */
+public class DispatchStats {
+
+    private final String name;
+    private long publishCount;
+    private long deliveryCount;
+    private long coalescedCount;
+    private long totalNanos;
+    private long maxNanos;
+
+    DispatchStats(String name) {
+        this.name = name;
+    }
+
+    synchronized void onPublished() {
+        publishCount++;
+    }
+
+    synchronized void onCoalesced() {
+        coalescedCount++;
+    }
+
+    synchronized void onDelivered(int observerCount, long nanos) {
+        deliveryCount += observerCount;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized long getPublishCount() {
+        return publishCount;
+    }
+
+    public synchronized long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    public synchronized long getDeliveryCount() {
+        return deliveryCount;
+    }
+
+    public synchronized long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public synchronized long getMaxNanos() {
+        return maxNanos;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.US,
+                             "%s: published=%d coalesced=%d delivered=%d total=%.2fms max=%.2fms",
+                             name,
+                             publishCount,
+                             coalescedCount,
+                             deliveryCount,
+                             totalNanos / 1e6,
+                             maxNanos / 1e6);
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.events;
+
+import timber.log.Timber;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creates {@link EventChannel}s and keeps their dispatch counters, keyed by event name so that every controller
+ * instance publishing the same event adds up in the same {@link DispatchStats}.
+ */
+public final class EventBus {
+
+    private static final EventBus INSTANCE = new EventBus();
+
+    public static EventBus getInstance() {
+        return INSTANCE;
+    }
+
+    private final Map<String, DispatchStats> stats = new HashMap<>();
+    private final FrameScheduler frameScheduler;
+    private final Executor backgroundExecutor;
+
+    private EventBus() {
+        this(FrameScheduler.MAIN, newBackgroundExecutor());
+    }
+
+    EventBus(FrameScheduler frameScheduler, Executor backgroundExecutor) {
+        this.frameScheduler = frameScheduler;
+        this.backgroundExecutor = backgroundExecutor;
+    }
+
+    /**
+     * A single thread keeps background deliveries in publication order, it goes away while nothing is published
+     */
+    private static Executor newBackgroundExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 1, TimeUnit.SECONDS,
+                                                             new LinkedBlockingQueue<Runnable>(),
+                                                             new ThreadFactory() {
+                                                                 @Override
+                                                                 public Thread newThread(Runnable r) {
+                                                                     Thread thread = new Thread(r, "EventBus");
+                                                                     thread.setPriority(Thread.NORM_PRIORITY - 1);
+                                                                     return thread;
+                                                                 }
+                                                             });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    public <T> EventChannel<T> channel(String name, Class<T> observerType) {
+        return channel(name, observerType, EventChannel.Delivery.IMMEDIATE);
+    }
+
+    public <T> EventChannel<T> channel(String name, Class<T> observerType, EventChannel.Delivery delivery) {
+        return new EventChannel<>(observerType, delivery, getStats(name), frameScheduler, backgroundExecutor);
+    }
+
+    public synchronized DispatchStats getStats(String name) {
+        DispatchStats dispatchStats = stats.get(name);
+        if (dispatchStats == null) {
+            dispatchStats = new DispatchStats(name);
+            stats.put(name, dispatchStats);
+        }
+        return dispatchStats;
+    }
+
+    public synchronized List<DispatchStats> getAllStats() {
+        return new ArrayList<>(stats.values());
+    }
+
+    public void logStats() {
+        for (DispatchStats dispatchStats : getAllStats()) {
+            Timber.i("%s", dispatchStats);
+        }
+    }
+}
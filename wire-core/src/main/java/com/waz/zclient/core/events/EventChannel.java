@@ -0,0 +1,169 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.events;
+
+import android.view.Choreographer;
+
+import java.lang.reflect.Array;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Observers of one event type.
+ *
+ * Observers are kept in a copy-on-write array, dispatch loops iterate the current snapshot, so they neither
+ * allocate an iterator nor fail when an observer removes itself (or others) while being notified. Observers are
+ * notified in the order they were added.
+ *
+ * {@link #publish(Dispatch)} delivers according to the channel's {@link Delivery}:
+ * <ul>
+ * <li>{@link Delivery#IMMEDIATE} on the calling thread, before returning</li>
+ * <li>{@link Delivery#MAIN_COALESCED} on the next frame on the main thread, with only the last published
+ * dispatch being delivered - for high-frequency events like layout passes or keyboard height changes. Observers
+ * hear about the event up to one frame after it happened.</li>
+ * <li>{@link Delivery#BACKGROUND} on the bus' background thread, every dispatch in publication order - for
+ * observers that do I/O or other work that must not hold up the publisher</li>
+ * </ul>
+ */
+public class EventChannel<T> {
+
+    public enum Delivery {
+        IMMEDIATE,
+        MAIN_COALESCED,
+        BACKGROUND
+    }
+
+    private final Class<T> observerType;
+    private final Delivery delivery;
+    private final DispatchStats stats;
+    private final FrameScheduler frameScheduler;
+    private final Executor backgroundExecutor;
+
+    private volatile T[] observers;
+
+    // MAIN_COALESCED only
+    private final AtomicReference<Dispatch<T>> pendingDispatch = new AtomicReference<>();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+
+    private final Choreographer.FrameCallback frameCallback = new Choreographer.FrameCallback() {
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            frameScheduled.set(false);
+            Dispatch<T> dispatch = pendingDispatch.getAndSet(null);
+            if (dispatch != null) {
+                deliver(dispatch);
+            }
+        }
+    };
+
+    EventChannel(Class<T> observerType,
+                 Delivery delivery,
+                 DispatchStats stats,
+                 FrameScheduler frameScheduler,
+                 Executor backgroundExecutor) {
+        this.observerType = observerType;
+        this.delivery = delivery;
+        this.stats = stats;
+        this.frameScheduler = frameScheduler;
+        this.backgroundExecutor = backgroundExecutor;
+        this.observers = newArray(0);
+    }
+
+    public synchronized boolean add(T observer) {
+        T[] current = observers;
+        for (T o : current) {
+            if (o == observer) {
+                return false;
+            }
+        }
+        T[] updated = newArray(current.length + 1);
+        System.arraycopy(current, 0, updated, 0, current.length);
+        updated[current.length] = observer;
+        observers = updated;
+        return true;
+    }
+
+    public synchronized boolean remove(T observer) {
+        T[] current = observers;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == observer) {
+                T[] updated = newArray(current.length - 1);
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                observers = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void clear() {
+        observers = newArray(0);
+        pendingDispatch.set(null);
+    }
+
+    public boolean isEmpty() {
+        return observers.length == 0;
+    }
+
+    public DispatchStats getStats() {
+        return stats;
+    }
+
+    public void publish(final Dispatch<T> dispatch) {
+        stats.onPublished();
+        if (observers.length == 0) {
+            return;
+        }
+        switch (delivery) {
+            case MAIN_COALESCED:
+                if (pendingDispatch.getAndSet(dispatch) != null) {
+                    stats.onCoalesced();
+                }
+                if (frameScheduled.compareAndSet(false, true)) {
+                    frameScheduler.postFrameCallback(frameCallback);
+                }
+                break;
+            case BACKGROUND:
+                backgroundExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        deliver(dispatch);
+                    }
+                });
+                break;
+            default:
+                deliver(dispatch);
+        }
+    }
+
+    private void deliver(Dispatch<T> dispatch) {
+        T[] snapshot = observers;
+        long start = System.nanoTime();
+        for (T observer : snapshot) {
+            dispatch.dispatch(observer);
+        }
+        stats.onDelivered(snapshot.length, System.nanoTime() - start);
+    }
+
+    @SuppressWarnings("unchecked")
+    private T[] newArray(int length) {
+        return (T[]) Array.newInstance(observerType, length);
+    }
+}
@@ -0,0 +1,48 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.events;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.Choreographer;
+
+/**
+ * Posts the delivery of coalesced channels to the next frame on the main thread.
+ */
+interface FrameScheduler {
+
+    void postFrameCallback(Choreographer.FrameCallback callback);
+
+    FrameScheduler MAIN = new FrameScheduler() {
+        private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void postFrameCallback(final Choreographer.FrameCallback callback) {
+            if (Looper.myLooper() == Looper.getMainLooper()) {
+                Choreographer.getInstance().postFrameCallback(callback);
+            } else {
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        Choreographer.getInstance().postFrameCallback(callback);
+                    }
+                });
+            }
+        }
+    };
+}
@@ -0,0 +1,40 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.appentry;
+
+/**
+ * Facts the guards of the {@link AppEntryTransitions} are evaluated against.
+ */
+public enum AppEntryCondition {
+
+    // phone layout, as opposed to tablet
+    PHONE_LAYOUT,
+
+    LOGGED_IN,
+
+    ACCOUNT_ACTIVATED,
+
+    HAS_EMAIL,
+
+    HAS_PHONE,
+
+    HAS_PICTURE,
+
+    // the saved entry point is email sign-in
+    EMAIL_SIGN_IN_ENTRY_POINT
+}
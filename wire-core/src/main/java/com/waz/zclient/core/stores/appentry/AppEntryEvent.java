@@ -0,0 +1,36 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.appentry;
+
+public enum AppEntryEvent {
+
+    // explicit state change, from the UI or a finished backend call
+    SET,
+
+    // entering a state that only decides where to go next
+    ENTER,
+
+    // back button
+    BACK,
+
+    // app entry started again, looked up by the saved entry point
+    RESUME,
+
+    // self user changed, e.g. email verified on another device, looked up by the saved entry point
+    SELF_UPDATED
+}
@@ -0,0 +1,71 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.appentry;
+
+/**
+ * The user input of an unfinished sign-up / sign-in that is kept across restarts. Immutable.
+ */
+public class AppEntrySnapshot {
+
+    public static final AppEntrySnapshot EMPTY = new AppEntrySnapshot(null, null, null, null, null, null);
+
+    private final AppEntryState entryPoint;
+    private final String countryCode;
+    private final String phone;
+    private final String phoneVerificationCode;
+    private final String name;
+    private final String email;
+
+    public AppEntrySnapshot(AppEntryState entryPoint,
+                            String countryCode,
+                            String phone,
+                            String phoneVerificationCode,
+                            String name,
+                            String email) {
+        this.entryPoint = entryPoint;
+        this.countryCode = countryCode;
+        this.phone = phone;
+        this.phoneVerificationCode = phoneVerificationCode;
+        this.name = name;
+        this.email = email;
+    }
+
+    public AppEntryState getEntryPoint() {
+        return entryPoint;
+    }
+
+    public String getCountryCode() {
+        return countryCode;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
+    public String getPhoneVerificationCode() {
+        return phoneVerificationCode;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+}
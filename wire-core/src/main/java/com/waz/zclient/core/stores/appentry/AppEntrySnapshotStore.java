@@ -0,0 +1,37 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.appentry;
+
+/**
+ * Keeps the {@link AppEntrySnapshot} across restarts. Loading is synchronous, the state is needed before
+ * the first page is shown; saving may be deferred to a background thread, a later snapshot supersedes an
+ * earlier one that was not written yet.
+ */
+public interface AppEntrySnapshotStore {
+
+    AppEntrySnapshot load();
+
+    void save(AppEntrySnapshot snapshot);
+
+    void clear();
+
+    /**
+     * Releases the store; a pending snapshot is still written, but the call doesn't wait for it.
+     */
+    void close();
+}
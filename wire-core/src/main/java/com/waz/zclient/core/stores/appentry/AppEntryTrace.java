@@ -0,0 +1,132 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.appentry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The last transitions of the sign-up / sign-in flow with how long each state was shown and how long the
+ * transition took to apply, so slow or looping flows can be read from the log.
+ */
+public class AppEntryTrace {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final Step[] steps;
+    private int next;
+    private int size;
+    private long enteredNanos;
+
+    public AppEntryTrace() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public AppEntryTrace(int capacity) {
+        steps = new Step[Math.max(1, capacity)];
+    }
+
+    /**
+     * @param startNanos {@link System#nanoTime()} when the event was received
+     * @param endNanos   {@link System#nanoTime()} when the target state was entered
+     */
+    public void record(AppEntryState from, AppEntryEvent event, AppEntryState to, long startNanos, long endNanos) {
+        long dwellNanos = size == 0 ? 0 : startNanos - enteredNanos;
+        steps[next] = new Step(from, event, to, dwellNanos, endNanos - startNanos);
+        next = (next + 1) % steps.length;
+        size = Math.min(size + 1, steps.length);
+        enteredNanos = endNanos;
+    }
+
+    public void clear() {
+        for (int i = 0; i < steps.length; i++) {
+            steps[i] = null;
+        }
+        next = 0;
+        size = 0;
+    }
+
+    /**
+     * Oldest first.
+     */
+    public List<Step> getSteps() {
+        List<Step> result = new ArrayList<>(size);
+        int first = (next - size + steps.length) % steps.length;
+        for (int i = 0; i < size; i++) {
+            result.add(steps[(first + i) % steps.length]);
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("AppEntryTrace[");
+        List<Step> list = getSteps();
+        for (int i = 0; i < list.size(); i++) {
+            if (i > 0) {
+                builder.append(", ");
+            }
+            builder.append(list.get(i));
+        }
+        return builder.append(']').toString();
+    }
+
+    public static final class Step {
+        private final AppEntryState from;
+        private final AppEntryEvent event;
+        private final AppEntryState to;
+        private final long dwellNanos;
+        private final long applyNanos;
+
+        Step(AppEntryState from, AppEntryEvent event, AppEntryState to, long dwellNanos, long applyNanos) {
+            this.from = from;
+            this.event = event;
+            this.to = to;
+            this.dwellNanos = dwellNanos;
+            this.applyNanos = applyNanos;
+        }
+
+        public AppEntryState getFrom() {
+            return from;
+        }
+
+        public AppEntryEvent getEvent() {
+            return event;
+        }
+
+        public AppEntryState getTo() {
+            return to;
+        }
+
+        /**
+         * Time spent in {@link #getFrom()} before the event.
+         */
+        public long getDwellNanos() {
+            return dwellNanos;
+        }
+
+        public long getApplyNanos() {
+            return applyNanos;
+        }
+
+        @Override
+        public String toString() {
+            return from + " -" + event + "-> " + to + " (" + dwellNanos / 1000000 + "ms, " + applyNanos / 1000 + "us)";
+        }
+    }
+}
@@ -0,0 +1,300 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.appentry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+
+import static com.waz.zclient.core.stores.appentry.AppEntryCondition.ACCOUNT_ACTIVATED;
+import static com.waz.zclient.core.stores.appentry.AppEntryCondition.EMAIL_SIGN_IN_ENTRY_POINT;
+import static com.waz.zclient.core.stores.appentry.AppEntryCondition.HAS_EMAIL;
+import static com.waz.zclient.core.stores.appentry.AppEntryCondition.HAS_PHONE;
+import static com.waz.zclient.core.stores.appentry.AppEntryCondition.HAS_PICTURE;
+import static com.waz.zclient.core.stores.appentry.AppEntryCondition.LOGGED_IN;
+import static com.waz.zclient.core.stores.appentry.AppEntryCondition.PHONE_LAYOUT;
+import static com.waz.zclient.core.stores.appentry.AppEntryEffect.TAG_EMAIL_REGISTRATION_SUCCEEDED;
+import static com.waz.zclient.core.stores.appentry.AppEntryEffect.TAG_POST_LOGIN_EMAIL_VERIFIED;
+import static com.waz.zclient.core.stores.appentry.AppEntryEvent.BACK;
+import static com.waz.zclient.core.stores.appentry.AppEntryEvent.ENTER;
+import static com.waz.zclient.core.stores.appentry.AppEntryEvent.RESUME;
+import static com.waz.zclient.core.stores.appentry.AppEntryEvent.SELF_UPDATED;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_INVITATION;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_REGISTER;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_SET_CODE;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_SET_PHONE;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_SET_PICTURE;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_SIGNED_IN;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_SIGN_IN;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_VERIFY_EMAIL;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.EMAIL_WELCOME;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.FIRST_LOGIN;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_EMAIL_PASSWORD;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_INVITATION;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_REGISTER;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_SET_CODE;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_SET_NAME;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_SET_PICTURE;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_SIGNED_IN;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_SIGNED_IN_RESUMING;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_SIGN_IN;
+import static com.waz.zclient.core.stores.appentry.AppEntryState.PHONE_VERIFY_EMAIL;
+
+/**
+ * The sign-up and sign-in flow as a table of state x event -> target state + effect.
+ *
+ * Each transition is guarded by conditions that must hold and conditions that must not hold. For a state
+ * and event the first transition whose guard passes wins; transitions declared for any state are tried
+ * after those of the state. {@link AppEntryEvent#RESUME} and {@link AppEntryEvent#SELF_UPDATED} are
+ * looked up by the saved entry point, all other events by the current state. Immutable.
+ */
+public class AppEntryTransitions {
+
+    public interface Conditions {
+        boolean holds(AppEntryCondition condition);
+    }
+
+    private static final AppEntryTransitions DEFAULT = build();
+
+    private final Map<AppEntryEvent, Map<AppEntryState, List<Transition>>> byState;
+    private final Map<AppEntryEvent, List<Transition>> anyState;
+
+    private AppEntryTransitions(Builder builder) {
+        byState = builder.byState;
+        anyState = builder.anyState;
+    }
+
+    public static AppEntryTransitions getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * @param from the current state or saved entry point, may be null
+     * @return the transition to take, or null if the event does nothing in this state
+     */
+    public Transition find(AppEntryState from, AppEntryEvent event, Conditions conditions) {
+        if (from != null) {
+            Map<AppEntryState, List<Transition>> states = byState.get(event);
+            Transition transition = firstPassing(states == null ? null : states.get(from), conditions);
+            if (transition != null) {
+                return transition;
+            }
+        }
+        return firstPassing(anyState.get(event), conditions);
+    }
+
+    private static Transition firstPassing(List<Transition> transitions, Conditions conditions) {
+        if (transitions == null) {
+            return null;
+        }
+        for (int i = 0; i < transitions.size(); i++) {
+            Transition transition = transitions.get(i);
+            if (transition.passes(conditions)) {
+                return transition;
+            }
+        }
+        return null;
+    }
+
+    private static AppEntryTransitions build() {
+        Builder table = new Builder();
+
+        // Back navigation
+        table.from(PHONE_SIGN_IN, PHONE_INVITATION, EMAIL_INVITATION, EMAIL_SIGN_IN).on(BACK).when(PHONE_LAYOUT).goTo(PHONE_REGISTER);
+        table.from(PHONE_SIGN_IN, PHONE_INVITATION, EMAIL_INVITATION, EMAIL_SIGN_IN).on(BACK).goTo(EMAIL_WELCOME);
+        table.from(PHONE_SET_CODE).on(BACK).when(EMAIL_SIGN_IN_ENTRY_POINT).goTo(EMAIL_SET_PHONE);
+        table.from(PHONE_SET_CODE).on(BACK).goToEntryPoint();
+        table.from(PHONE_VERIFY_EMAIL).on(BACK).goTo(PHONE_EMAIL_PASSWORD);
+        table.from(EMAIL_VERIFY_EMAIL).on(BACK).goTo(EMAIL_REGISTER);
+        table.from(EMAIL_REGISTER).on(BACK).goTo(EMAIL_WELCOME);
+        table.from(EMAIL_SET_CODE).on(BACK).goTo(EMAIL_SET_PHONE);
+        table.from(PHONE_SET_PICTURE).on(BACK).goTo(PHONE_SET_NAME);
+
+        // Phone + code validated for a registered number
+        table.from(PHONE_SIGNED_IN).on(ENTER).unless(HAS_EMAIL).goTo(PHONE_EMAIL_PASSWORD);
+        table.from(PHONE_SIGNED_IN).on(ENTER).unless(HAS_PICTURE).goTo(PHONE_SET_PICTURE);
+        table.from(PHONE_SIGNED_IN).on(ENTER).goTo(AppEntryState.LOGGED_IN);
+
+        // TODO: This state was needed because SyncEngine isEmailVerified() was not entirely reliable,
+        // accountActivated() flag should not have this problem, we should remove this special state.
+        table.from(PHONE_SIGNED_IN_RESUMING).on(ENTER).unless(HAS_EMAIL).goTo(PHONE_EMAIL_PASSWORD);
+        table.from(PHONE_SIGNED_IN_RESUMING).on(ENTER).unless(ACCOUNT_ACTIVATED).goTo(PHONE_VERIFY_EMAIL);
+        table.from(PHONE_SIGNED_IN_RESUMING).on(ENTER).unless(HAS_PICTURE).goTo(PHONE_SET_PICTURE);
+        table.from(PHONE_SIGNED_IN_RESUMING).on(ENTER).goTo(FIRST_LOGIN);
+
+        // Email validated, ask for phone and picture if there aren't any
+        table.from(EMAIL_SIGNED_IN).on(ENTER).unless(ACCOUNT_ACTIVATED).goTo(EMAIL_VERIFY_EMAIL);
+        table.from(EMAIL_SIGNED_IN).on(ENTER).unless(HAS_PICTURE).goTo(EMAIL_SET_PICTURE);
+        table.from(EMAIL_SIGNED_IN).on(ENTER).unless(HAS_PHONE).goTo(EMAIL_SET_PHONE);
+        table.from(EMAIL_SIGNED_IN).on(ENTER).goTo(FIRST_LOGIN);
+
+        // Resuming an interrupted flow
+        table.from(PHONE_REGISTER).on(RESUME).when(LOGGED_IN).unless(HAS_PICTURE).goTo(PHONE_SET_PICTURE);
+        table.from(PHONE_REGISTER).on(RESUME).when(LOGGED_IN).goTo(AppEntryState.LOGGED_IN);
+        table.from(PHONE_SET_NAME).on(RESUME).when(LOGGED_IN).goTo(PHONE_SET_NAME);
+        table.from(PHONE_SIGN_IN).on(RESUME).when(LOGGED_IN).goTo(PHONE_SIGNED_IN_RESUMING);
+        table.from(EMAIL_REGISTER).on(RESUME).when(LOGGED_IN).unless(ACCOUNT_ACTIVATED).goTo(EMAIL_VERIFY_EMAIL);
+        table.from(EMAIL_REGISTER).on(RESUME).when(ACCOUNT_ACTIVATED).unless(HAS_PICTURE).goTo(EMAIL_SET_PICTURE);
+        table.from(EMAIL_REGISTER).on(RESUME).when(ACCOUNT_ACTIVATED).effect(TAG_EMAIL_REGISTRATION_SUCCEEDED).goTo(AppEntryState.LOGGED_IN);
+        table.from(EMAIL_SIGN_IN).on(RESUME).when(LOGGED_IN).goTo(EMAIL_SIGNED_IN);
+        table.fromAny().on(RESUME).when(PHONE_LAYOUT).goTo(PHONE_REGISTER);
+        table.fromAny().on(RESUME).goTo(EMAIL_WELCOME);
+
+        // Email verification clicked on a different device
+        table.from(PHONE_SIGN_IN).on(SELF_UPDATED).when(ACCOUNT_ACTIVATED).unless(HAS_PICTURE).effect(TAG_POST_LOGIN_EMAIL_VERIFIED).goTo(PHONE_SET_PICTURE);
+        table.from(PHONE_SIGN_IN).on(SELF_UPDATED).when(ACCOUNT_ACTIVATED).effect(TAG_POST_LOGIN_EMAIL_VERIFIED).goTo(AppEntryState.LOGGED_IN);
+        table.from(EMAIL_REGISTER).on(SELF_UPDATED).when(ACCOUNT_ACTIVATED).unless(HAS_PICTURE).effect(TAG_EMAIL_REGISTRATION_SUCCEEDED).goTo(EMAIL_SET_PICTURE);
+        table.from(EMAIL_REGISTER).on(SELF_UPDATED).when(ACCOUNT_ACTIVATED).effect(TAG_EMAIL_REGISTRATION_SUCCEEDED).goTo(AppEntryState.LOGGED_IN);
+
+        return new AppEntryTransitions(table);
+    }
+
+    public static final class Transition {
+        private final AppEntryEvent event;
+        private final EnumSet<AppEntryCondition> required;
+        private final EnumSet<AppEntryCondition> excluded;
+        private final AppEntryState target;
+        private final AppEntryEffect effect;
+
+        private Transition(AppEntryEvent event,
+                           EnumSet<AppEntryCondition> required,
+                           EnumSet<AppEntryCondition> excluded,
+                           AppEntryState target,
+                           AppEntryEffect effect) {
+            this.event = event;
+            this.required = required;
+            this.excluded = excluded;
+            this.target = target;
+            this.effect = effect;
+        }
+
+        public AppEntryEvent getEvent() {
+            return event;
+        }
+
+        /**
+         * @param entryPoint the saved entry point, the target of transitions back to it
+         */
+        public AppEntryState getTarget(AppEntryState entryPoint) {
+            return target == null ? entryPoint : target;
+        }
+
+        /**
+         * The effect to run before the target is entered, or null.
+         */
+        public AppEntryEffect getEffect() {
+            return effect;
+        }
+
+        private boolean passes(Conditions conditions) {
+            for (AppEntryCondition condition : required) {
+                if (!conditions.holds(condition)) {
+                    return false;
+                }
+            }
+            for (AppEntryCondition condition : excluded) {
+                if (conditions.holds(condition)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class Builder {
+        private final Map<AppEntryEvent, Map<AppEntryState, List<Transition>>> byState = new EnumMap<>(AppEntryEvent.class);
+        private final Map<AppEntryEvent, List<Transition>> anyState = new EnumMap<>(AppEntryEvent.class);
+
+        Row from(AppEntryState... states) {
+            return new Row(this, states);
+        }
+
+        Row fromAny() {
+            return new Row(this, null);
+        }
+
+        private void add(AppEntryState[] states, Transition transition) {
+            if (states == null) {
+                list(anyState, transition.event).add(transition);
+                return;
+            }
+            Map<AppEntryState, List<Transition>> transitions = byState.get(transition.event);
+            if (transitions == null) {
+                transitions = new EnumMap<>(AppEntryState.class);
+                byState.put(transition.event, transitions);
+            }
+            for (AppEntryState state : states) {
+                list(transitions, state).add(transition);
+            }
+        }
+
+        private static <K> List<Transition> list(Map<K, List<Transition>> map, K key) {
+            List<Transition> list = map.get(key);
+            if (list == null) {
+                list = new ArrayList<>();
+                map.put(key, list);
+            }
+            return list;
+        }
+    }
+
+    private static final class Row {
+        private final Builder builder;
+        private final AppEntryState[] states;
+        private final EnumSet<AppEntryCondition> required = EnumSet.noneOf(AppEntryCondition.class);
+        private final EnumSet<AppEntryCondition> excluded = EnumSet.noneOf(AppEntryCondition.class);
+        private AppEntryEvent event;
+        private AppEntryEffect effect;
+
+        Row(Builder builder, AppEntryState[] states) {
+            this.builder = builder;
+            this.states = states;
+        }
+
+        Row on(AppEntryEvent event) {
+            this.event = event;
+            return this;
+        }
+
+        Row when(AppEntryCondition... conditions) {
+            Collections.addAll(required, conditions);
+            return this;
+        }
+
+        Row unless(AppEntryCondition... conditions) {
+            Collections.addAll(excluded, conditions);
+            return this;
+        }
+
+        Row effect(AppEntryEffect effect) {
+            this.effect = effect;
+            return this;
+        }
+
+        void goTo(AppEntryState target) {
+            builder.add(states, new Transition(event, required, excluded, target, effect));
+        }
+
+        void goToEntryPoint() {
+            goTo(null);
+        }
+    }
+}
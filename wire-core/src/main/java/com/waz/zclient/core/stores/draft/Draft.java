@@ -0,0 +1,105 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.draft;
+
+/**
+ * Cursor state of a conversation: the unsent text, the selection and, while a message is being edited,
+ * the id of that message.
+ */
+public class Draft {
+
+    private final String text;
+    private final int selectionStart;
+    private final int selectionEnd;
+    private final String editedMessageId;
+
+    public Draft(String text, int selectionStart, int selectionEnd, String editedMessageId) {
+        this.text = text == null ? "" : text;
+        this.selectionStart = clamp(selectionStart, this.text.length());
+        this.selectionEnd = clamp(selectionEnd, this.text.length());
+        this.editedMessageId = editedMessageId;
+    }
+
+    /**
+     * A plain text draft with the cursor at its end.
+     */
+    public static Draft of(String text) {
+        int length = text == null ? 0 : text.length();
+        return new Draft(text, length, length, null);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int getSelectionStart() {
+        return selectionStart;
+    }
+
+    public int getSelectionEnd() {
+        return selectionEnd;
+    }
+
+    /**
+     * The id of the message being edited, or null if the draft is a new message.
+     */
+    public String getEditedMessageId() {
+        return editedMessageId;
+    }
+
+    public boolean isEmpty() {
+        return text.isEmpty() && editedMessageId == null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Draft draft = (Draft) o;
+        return selectionStart == draft.selectionStart &&
+               selectionEnd == draft.selectionEnd &&
+               text.equals(draft.text) &&
+               (editedMessageId == null ? draft.editedMessageId == null : editedMessageId.equals(draft.editedMessageId));
+    }
+
+    @Override
+    public int hashCode() {
+        int result = text.hashCode();
+        result = 31 * result + selectionStart;
+        result = 31 * result + selectionEnd;
+        result = 31 * result + (editedMessageId != null ? editedMessageId.hashCode() : 0);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Draft{" +
+               "length=" + text.length() +
+               ", selection=" + selectionStart + "-" + selectionEnd +
+               ", editedMessageId=" + editedMessageId +
+               '}';
+    }
+
+    private static int clamp(int position, int length) {
+        return Math.max(0, Math.min(position, length));
+    }
+}
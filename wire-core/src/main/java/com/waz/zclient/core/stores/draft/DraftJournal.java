@@ -0,0 +1,301 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.draft;
+
+import timber.log.Timber;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only file of draft changes, one record per changed conversation.
+ *
+ * Each record is {@code [payload length][CRC32 of payload][payload]}. A record that was only partly written
+ * when the process died fails its length or checksum and is cut off on {@link #recover()}, so recovery
+ * always ends at the last complete change. {@link #compact(Map)} replaces the journal with one record per
+ * live draft by writing a new file and renaming it over the old one. A draft too large for a record is not
+ * stored, a removal is appended in its place so an older version doesn't come back on recovery.
+ *
+ * Not thread safe, use it from a single writer thread.
+ */
+public class DraftJournal implements Closeable {
+
+    public static final String FILE_NAME = "drafts.journal";
+    private static final String COMPACT_FILE_NAME = FILE_NAME + ".tmp";
+
+    private static final int MAGIC = 0x44524654; // DRFT
+    private static final int VERSION = 1;
+    private static final int HEADER_LENGTH = 8;
+    private static final int RECORD_HEADER_LENGTH = 8;
+    private static final int MAX_RECORD_LENGTH = 8 * 1024 * 1024;
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_REMOVE = 2;
+
+    private final File file;
+    private final File compactFile;
+    private final ByteArrayOutputStream payloadBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream payloadOut = new DataOutputStream(payloadBuffer);
+    private final CRC32 crc = new CRC32();
+
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private int recordCount;
+
+    public DraftJournal(File directory) {
+        this.file = new File(directory, FILE_NAME);
+        this.compactFile = new File(directory, COMPACT_FILE_NAME);
+    }
+
+    /**
+     * Replays the journal and opens it for appending. Must be called once before any other method.
+     */
+    public Map<String, Draft> recover() throws IOException {
+        File directory = file.getParentFile();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        // A leftover compaction file was never renamed, so the journal is still the complete one
+        if (compactFile.exists() && !compactFile.delete()) {
+            throw new IOException("Unable to delete " + compactFile);
+        }
+
+        Map<String, Draft> drafts = new HashMap<>();
+        long validLength = file.exists() ? replay(drafts) : 0;
+        if (validLength == 0) {
+            writeFresh(file, drafts);
+        } else if (validLength < file.length()) {
+            RandomAccessFile raf = new RandomAccessFile(file, "rw");
+            try {
+                raf.setLength(validLength);
+                raf.getFD().sync();
+            } finally {
+                raf.close();
+            }
+        }
+        openForAppend();
+        return drafts;
+    }
+
+    /**
+     * Appends a change, a null or empty draft removes the conversation. Call {@link #sync()} after a batch.
+     */
+    public void append(String conversationId, Draft draft) throws IOException {
+        if (!encodeRecord(conversationId, draft)) {
+            Timber.w("Draft of %s is too large to journal, storing its removal", conversationId);
+            encodeRecord(conversationId, null);
+        }
+        writeRecord(out);
+        recordCount++;
+    }
+
+    /**
+     * Writes appended records through to the storage device.
+     */
+    public void sync() throws IOException {
+        out.flush();
+        fileOut.getFD().sync();
+    }
+
+    /**
+     * Number of records in the journal, live or superseded.
+     */
+    public int getRecordCount() {
+        return recordCount;
+    }
+
+    /**
+     * Rewrites the journal to hold exactly the given drafts.
+     */
+    public void compact(Map<String, Draft> drafts) throws IOException {
+        int written = writeFresh(compactFile, drafts);
+        close();
+        if (!compactFile.renameTo(file)) {
+            openForAppend();
+            throw new IOException("Unable to replace " + file);
+        }
+        openForAppend();
+        recordCount = written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    /**
+     * Closes the journal and deletes its files.
+     */
+    public void delete() throws IOException {
+        close();
+        recordCount = 0;
+        compactFile.delete();
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Unable to delete " + file);
+        }
+    }
+
+    /**
+     * Returns the length of the valid prefix of the journal, 0 if it has no valid header.
+     */
+    private long replay(Map<String, Draft> drafts) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        recordCount = 0;
+        try {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                return 0;
+            }
+            long validLength = HEADER_LENGTH;
+            byte[] payload = new byte[256];
+            while (true) {
+                int length;
+                int checksum;
+                try {
+                    length = in.readInt();
+                    checksum = in.readInt();
+                } catch (EOFException e) {
+                    return validLength;
+                }
+                if (length <= 0 || length > MAX_RECORD_LENGTH) {
+                    return validLength;
+                }
+                if (payload.length < length) {
+                    payload = new byte[length];
+                }
+                try {
+                    in.readFully(payload, 0, length);
+                } catch (EOFException e) {
+                    return validLength;
+                }
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    return validLength;
+                }
+                applyRecord(new DataInputStream(new ByteArrayInputStream(payload, 0, length)), drafts);
+                validLength += RECORD_HEADER_LENGTH + length;
+                recordCount++;
+            }
+        } catch (EOFException e) {
+            // Not even a complete header
+            return 0;
+        } finally {
+            in.close();
+        }
+    }
+
+    private static void applyRecord(DataInputStream in, Map<String, Draft> drafts) throws IOException {
+        byte type = in.readByte();
+        String conversationId = in.readUTF();
+        if (type == TYPE_REMOVE) {
+            drafts.remove(conversationId);
+            return;
+        }
+        byte[] text = new byte[in.readInt()];
+        in.readFully(text);
+        int selectionStart = in.readInt();
+        int selectionEnd = in.readInt();
+        String editedMessageId = in.readBoolean() ? in.readUTF() : null;
+        drafts.put(conversationId, new Draft(new String(text, "UTF-8"), selectionStart, selectionEnd, editedMessageId));
+    }
+
+    /**
+     * Returns the number of records written.
+     */
+    private int writeFresh(File target, Map<String, Draft> drafts) throws IOException {
+        FileOutputStream fos = new FileOutputStream(target);
+        DataOutputStream dos = new DataOutputStream(new BufferedOutputStream(fos));
+        int written = 0;
+        try {
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            for (Map.Entry<String, Draft> entry : drafts.entrySet()) {
+                if (entry.getValue() == null || entry.getValue().isEmpty()) {
+                    continue;
+                }
+                if (encodeRecord(entry.getKey(), entry.getValue())) {
+                    writeRecord(dos);
+                    written++;
+                } else {
+                    Timber.w("Draft of %s is too large to journal, skipping it", entry.getKey());
+                }
+            }
+            dos.flush();
+            fos.getFD().sync();
+        } finally {
+            dos.close();
+        }
+        return written;
+    }
+
+    /**
+     * Encodes a record into the payload buffer, returns false if it is too large to be stored.
+     */
+    private boolean encodeRecord(String conversationId, Draft draft) throws IOException {
+        payloadBuffer.reset();
+        if (draft == null || draft.isEmpty()) {
+            payloadOut.writeByte(TYPE_REMOVE);
+            payloadOut.writeUTF(conversationId);
+        } else {
+            byte[] text = draft.getText().getBytes("UTF-8");
+            payloadOut.writeByte(TYPE_PUT);
+            payloadOut.writeUTF(conversationId);
+            payloadOut.writeInt(text.length);
+            payloadOut.write(text);
+            payloadOut.writeInt(draft.getSelectionStart());
+            payloadOut.writeInt(draft.getSelectionEnd());
+            payloadOut.writeBoolean(draft.getEditedMessageId() != null);
+            if (draft.getEditedMessageId() != null) {
+                payloadOut.writeUTF(draft.getEditedMessageId());
+            }
+        }
+        payloadOut.flush();
+        return payloadBuffer.size() <= MAX_RECORD_LENGTH;
+    }
+
+    private void writeRecord(DataOutputStream target) throws IOException {
+        crc.reset();
+        crc.update(payloadBuffer.toByteArray());
+        target.writeInt(payloadBuffer.size());
+        target.writeInt((int) crc.getValue());
+        payloadBuffer.writeTo(target);
+    }
+
+    private void openForAppend() throws IOException {
+        fileOut = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut));
+    }
+}
@@ -20,8 +20,41 @@ package com.waz.zclient.core.stores.draft;
 import com.waz.api.IConversation;
 import com.waz.zclient.core.stores.IStore;
 
+import java.util.Collection;
+
 public interface IDraftStore extends IStore {
 
+    interface DraftCallback {
+        void onDraftLoaded(Draft draft);
+    }
+
     void setDraft(IConversation conversation, String text);
     String getDraft(IConversation conversation);
+
+    /**
+     * Stores the full cursor state, an empty draft removes it.
+     */
+    void setDraft(IConversation conversation, Draft draft);
+
+    /**
+     * Returns the stored cursor state, or null if there is none. Doesn't wait for the stored drafts to be
+     * loaded at startup, use {@link #loadDraftState(IConversation, DraftCallback)} where that matters.
+     */
+    Draft getDraftState(IConversation conversation);
+
+    /**
+     * Delivers the stored cursor state, or null, on the main thread once the stored drafts are loaded.
+     * Delivers it right away if they already are.
+     */
+    void loadDraftState(IConversation conversation, DraftCallback callback);
+
+    /**
+     * Removes the drafts of all conversations but the given ones, e.g. of conversations that were deleted.
+     */
+    void retainDrafts(Collection<String> conversationIds);
+
+    /**
+     * Removes all drafts, also the stored ones. Call it before the stores are reset on logout.
+     */
+    void onLogout();
 }
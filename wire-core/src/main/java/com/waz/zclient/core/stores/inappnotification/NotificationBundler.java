@@ -0,0 +1,235 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.core.stores.inappnotification;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Decides which incoming message the in-app notification shows, and when.
+ *
+ * Messages are coalesced per conversation and priority: the first message of a conversation opens a
+ * window, and all messages of that conversation arriving within the window end up in one bundle, shown
+ * once the window closes. Of the bundles that are ready, higher priority wins over lower, newer over
+ * older. Bundles are shown at most once per display interval; the others wait in a bounded backlog.
+ *
+ * Backlog eviction rules:
+ * <ul>
+ * <li>A bundle whose newest message is older than the maximum age is dropped.</li>
+ * <li>When a new conversation would exceed the capacity, the bundle with the lowest priority is
+ * dropped, the one with the oldest newest message among those. This can be the new bundle itself.</li>
+ * </ul>
+ *
+ * The bundler has no timers of its own: the host calls {@link #poll()} at {@link #getNextDeadline()}.
+ * All times come from the injected {@link Clock}. Not thread safe, use it from one thread.
+ */
+public class NotificationBundler<T> {
+
+    public static final int PRIORITY_NORMAL = 0;
+    public static final int PRIORITY_HIGH = 1;
+
+    public static final long NO_DEADLINE = -1;
+
+    public interface Clock {
+        /**
+         * Monotonic time in milliseconds.
+         */
+        long now();
+    }
+
+    public static class Bundle<T> {
+        private final String conversationId;
+        private final int priority;
+        private final long firstArrival;
+        private long lastArrival;
+        private T latest;
+        private int count;
+
+        Bundle(String conversationId, int priority, long arrival, T message) {
+            this.conversationId = conversationId;
+            this.priority = priority;
+            this.firstArrival = arrival;
+            add(arrival, message);
+        }
+
+        void add(long arrival, T message) {
+            lastArrival = arrival;
+            latest = message;
+            count++;
+        }
+
+        public String getConversationId() {
+            return conversationId;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        /**
+         * The newest message of the bundle, the one to show.
+         */
+        public T getLatest() {
+            return latest;
+        }
+
+        /**
+         * Number of messages coalesced into this bundle.
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+
+    private final Clock clock;
+    private final long windowMillis;
+    private final long minDisplayIntervalMillis;
+    private final long maxAgeMillis;
+    private final int capacity;
+
+    private final List<Bundle<T>> bundles = new ArrayList<>();
+    private long lastDisplay = NO_DEADLINE;
+    private int evictedCount;
+
+    /**
+     * @param windowMillis             how long messages of one conversation are coalesced
+     * @param minDisplayIntervalMillis minimum time between two shown bundles
+     * @param maxAgeMillis             bundles whose newest message is older are dropped
+     * @param capacity                 maximum number of waiting bundles
+     */
+    public NotificationBundler(Clock clock,
+                               long windowMillis,
+                               long minDisplayIntervalMillis,
+                               long maxAgeMillis,
+                               int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be at least 1");
+        }
+        this.clock = clock;
+        this.windowMillis = windowMillis;
+        this.minDisplayIntervalMillis = minDisplayIntervalMillis;
+        this.maxAgeMillis = maxAgeMillis;
+        this.capacity = capacity;
+    }
+
+    public void offer(String conversationId, int priority, T message) {
+        long now = clock.now();
+        for (int i = 0, size = bundles.size(); i < size; i++) {
+            Bundle<T> bundle = bundles.get(i);
+            if (bundle.priority == priority && bundle.conversationId.equals(conversationId)) {
+                bundle.add(now, message);
+                return;
+            }
+        }
+        bundles.add(new Bundle<>(conversationId, priority, now, message));
+        if (bundles.size() > capacity) {
+            bundles.remove(indexOfEvictionCandidate());
+            evictedCount++;
+        }
+    }
+
+    /**
+     * Returns the bundle to show now, or null if none is due. The returned bundle is removed.
+     */
+    public Bundle<T> poll() {
+        long now = clock.now();
+        evictExpired(now);
+        if (lastDisplay != NO_DEADLINE && now < lastDisplay + minDisplayIntervalMillis) {
+            return null;
+        }
+
+        int best = -1;
+        for (int i = 0, size = bundles.size(); i < size; i++) {
+            Bundle<T> bundle = bundles.get(i);
+            if (now < bundle.firstArrival + windowMillis) {
+                continue;
+            }
+            if (best < 0 || isPreferred(bundle, bundles.get(best))) {
+                best = i;
+            }
+        }
+        if (best < 0) {
+            return null;
+        }
+        lastDisplay = now;
+        return bundles.remove(best);
+    }
+
+    /**
+     * Returns when {@link #poll()} should be called next, or {@link #NO_DEADLINE} if nothing is waiting.
+     */
+    public long getNextDeadline() {
+        if (bundles.isEmpty()) {
+            return NO_DEADLINE;
+        }
+        long windowEnd = Long.MAX_VALUE;
+        for (int i = 0, size = bundles.size(); i < size; i++) {
+            windowEnd = Math.min(windowEnd, bundles.get(i).firstArrival + windowMillis);
+        }
+        if (lastDisplay == NO_DEADLINE) {
+            return windowEnd;
+        }
+        return Math.max(windowEnd, lastDisplay + minDisplayIntervalMillis);
+    }
+
+    public int getPendingCount() {
+        return bundles.size();
+    }
+
+    /**
+     * Number of bundles dropped because of the capacity or their age.
+     */
+    public int getEvictedCount() {
+        return evictedCount;
+    }
+
+    public void clear() {
+        bundles.clear();
+    }
+
+    private void evictExpired(long now) {
+        Iterator<Bundle<T>> iterator = bundles.iterator();
+        while (iterator.hasNext()) {
+            if (now - iterator.next().lastArrival > maxAgeMillis) {
+                iterator.remove();
+                evictedCount++;
+            }
+        }
+    }
+
+    private int indexOfEvictionCandidate() {
+        int candidate = 0;
+        for (int i = 1, size = bundles.size(); i < size; i++) {
+            if (isPreferred(bundles.get(candidate), bundles.get(i))) {
+                candidate = i;
+            }
+        }
+        return candidate;
+    }
+
+    /**
+     * Higher priority first, then the newer message.
+     */
+    private static boolean isPreferred(Bundle<?> bundle, Bundle<?> other) {
+        if (bundle.priority != other.priority) {
+            return bundle.priority > other.priority;
+        }
+        return bundle.lastArrival > other.lastArrival;
+    }
+}
@@ -20,13 +20,14 @@ package com.waz.zclient.core.stores.pickuser;
 import com.waz.api.Contacts;
 import com.waz.api.IConversation;
 import com.waz.api.User;
-
-import java.util.HashSet;
-import java.util.Set;
+import com.waz.zclient.core.events.Dispatch;
+import com.waz.zclient.core.events.EventBus;
+import com.waz.zclient.core.events.EventChannel;
 
 public abstract class PickUserStore implements IPickUserStore {
     // observers attached to a IPickUserStore
-    protected Set<PickUserStoreObserver> pickUserStoreObservers = new HashSet<PickUserStoreObserver>();
+    protected final EventChannel<PickUserStoreObserver> pickUserStoreObservers =
+        EventBus.getInstance().channel("pickUserStore", PickUserStoreObserver.class);
 
     @Override
     public void addPickUserStoreObserver(PickUserStoreObserver pickUserStoreObserver) {
@@ -38,28 +39,42 @@ public abstract class PickUserStore implements IPickUserStore {
         pickUserStoreObservers.remove(pickUserStoreObserver);
     }
 
-    protected void notifyTopUsersUpdated(User[] users) {
-        for (PickUserStoreObserver pickUserStoreObserver : pickUserStoreObservers) {
-            pickUserStoreObserver.onTopUsersUpdated(users);
-        }
+    protected void notifyTopUsersUpdated(final User[] users) {
+        pickUserStoreObservers.publish(new Dispatch<PickUserStoreObserver>() {
+            @Override
+            public void dispatch(PickUserStoreObserver observer) {
+                observer.onTopUsersUpdated(users);
+            }
+        });
     }
 
-    protected void notifySearchResultsUpdated(User[] contacts, User[] otherUsers, IConversation[] conversations) {
-        for (PickUserStoreObserver pickUserStoreObserver : pickUserStoreObservers) {
-            pickUserStoreObserver.onSearchResultsUpdated(contacts, otherUsers, conversations);
-        }
+    protected void notifySearchResultsUpdated(final User[] contacts,
+                                              final User[] otherUsers,
+                                              final IConversation[] conversations) {
+        pickUserStoreObservers.publish(new Dispatch<PickUserStoreObserver>() {
+            @Override
+            public void dispatch(PickUserStoreObserver observer) {
+                observer.onSearchResultsUpdated(contacts, otherUsers, conversations);
+            }
+        });
     }
 
-    protected void notifyContactsUpdated(Contacts contacts) {
-        for (PickUserStoreObserver pickUserStoreObserver : pickUserStoreObservers) {
-            pickUserStoreObserver.onContactsUpdated(contacts);
-        }
+    protected void notifyContactsUpdated(final Contacts contacts) {
+        pickUserStoreObservers.publish(new Dispatch<PickUserStoreObserver>() {
+            @Override
+            public void dispatch(PickUserStoreObserver observer) {
+                observer.onContactsUpdated(contacts);
+            }
+        });
     }
 
-    protected void notifySearchContactsUpdated(Contacts contacts) {
-        for (PickUserStoreObserver pickUserStoreObserver : pickUserStoreObservers) {
-            pickUserStoreObserver.onSearchContactsUpdated(contacts);
-        }
+    protected void notifySearchContactsUpdated(final Contacts contacts) {
+        pickUserStoreObservers.publish(new Dispatch<PickUserStoreObserver>() {
+            @Override
+            public void dispatch(PickUserStoreObserver observer) {
+                observer.onSearchContactsUpdated(contacts);
+            }
+        });
     }
 
 }
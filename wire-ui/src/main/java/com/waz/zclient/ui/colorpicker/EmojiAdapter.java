@@ -19,12 +19,9 @@ package com.waz.zclient.ui.colorpicker;
 
 import android.content.Context;
 import android.support.v7.widget.RecyclerView;
-import android.util.TypedValue;
-import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.FrameLayout;
-import android.widget.TextView;
 import com.waz.zclient.ui.R;
 import com.waz.zclient.utils.ViewUtils;
 import java.util.List;
@@ -41,6 +38,10 @@ public class EmojiAdapter extends RecyclerView.Adapter<EmojiAdapter.ViewHolder>
     private final int largeSize;
     private final int categorySpacing;
     private final int textColor;
+    private final int[] iconSizes;
+    private final EmojiGlyphAtlas atlas;
+    private int iconSize;
+    private int prewarmedIconSize;
 
     public EmojiAdapter(Context context) {
         super();
@@ -51,16 +52,22 @@ public class EmojiAdapter extends RecyclerView.Adapter<EmojiAdapter.ViewHolder>
         largeSize = context.getResources().getDimensionPixelSize(R.dimen.sketch__emoji__keyboard__item_size__large);
         categorySpacing = context.getResources().getDimensionPixelSize(R.dimen.sketch__emoji__keyboard__category_spacing);
         textColor = context.getResources().getColor(R.color.text__primary_dark);
+        EmojiSize[] emojiSizes = EmojiSize.values();
+        iconSizes = new int[emojiSizes.length];
+        for (EmojiSize size : emojiSizes) {
+            iconSizes[size.ordinal()] = size.getIconSize(context);
+        }
+        iconSize = iconSizes[emojiSize.ordinal()];
+        atlas = EmojiGlyphAtlas.getInstance(context);
     }
 
     @Override
     public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
         FrameLayout frameLayout = new FrameLayout(parent.getContext());
-        TextView textView = new TextView(parent.getContext());
-        textView.setId(R.id.emoji_keyboard_item);
-        textView.setTextColor(textColor);
-        textView.setGravity(Gravity.CENTER);
-        frameLayout.addView(textView);
+        EmojiGlyphView glyphView = new EmojiGlyphView(parent.getContext());
+        glyphView.setId(R.id.emoji_keyboard_item);
+        glyphView.setTextColor(textColor);
+        frameLayout.addView(glyphView);
         return new ViewHolder(frameLayout);
     }
 
@@ -81,34 +88,46 @@ public class EmojiAdapter extends RecyclerView.Adapter<EmojiAdapter.ViewHolder>
 
     public void setEmojis(List<String> emojis, EmojiSize emojiSize) {
         this.emojis = emojis;
-        this.emojiSize = emojiSize;
+        applyEmojiSize(emojiSize);
         notifyDataSetChanged();
     }
 
     public void setEmojiSize(EmojiSize emojiSize) {
-        this.emojiSize = emojiSize;
+        if (this.emojiSize == emojiSize) {
+            return;
+        }
+        applyEmojiSize(emojiSize);
         notifyDataSetChanged();
     }
 
+    private void applyEmojiSize(EmojiSize emojiSize) {
+        this.emojiSize = emojiSize;
+        iconSize = iconSizes[emojiSize.ordinal()];
+        if (iconSize != prewarmedIconSize) {
+            prewarmedIconSize = iconSize;
+            // same style as the glyph views, which don't set a typeface
+            atlas.prewarm(iconSize, textColor, null);
+        }
+    }
+
     public class ViewHolder extends RecyclerView.ViewHolder {
-        private TextView textView;
+        private EmojiGlyphView glyphView;
 
         public ViewHolder(final View itemView) {
             super(itemView);
-            textView = ViewUtils.getView(itemView, R.id.emoji_keyboard_item);
-            textView.setOnClickListener(new View.OnClickListener() {
+            glyphView = ViewUtils.getView(itemView, R.id.emoji_keyboard_item);
+            glyphView.setOnClickListener(new View.OnClickListener() {
                 @Override
                 public void onClick(View v) {
                     if (onEmojiClickListener != null) {
-                        onEmojiClickListener.onEmojiClick(textView.getText().toString(), emojiSize);
+                        onEmojiClickListener.onEmojiClick(glyphView.getEmoji(), emojiSize);
                     }
                 }
             });
         }
 
         public void bind(String string) {
-            textView.setText(string);
-            textView.setTextSize(TypedValue.COMPLEX_UNIT_PX, itemView.getResources().getDimension(emojiSize.getIconSizeResId()));
+            glyphView.setEmoji(string, iconSize);
             int size;
             if (SPACE.equals(string)) {
                 size = categorySpacing;
@@ -125,11 +144,12 @@ public class EmojiAdapter extends RecyclerView.Adapter<EmojiAdapter.ViewHolder>
                         size = smallSize;
                 }
             }
-            ViewGroup.LayoutParams params = textView.getLayoutParams();
-            params.width = size;
-            params.height = size;
-            textView.setLayoutParams(params);
-            textView.invalidate();
+            ViewGroup.LayoutParams params = glyphView.getLayoutParams();
+            if (params.width != size || params.height != size) {
+                params.width = size;
+                params.height = size;
+                glyphView.setLayoutParams(params);
+            }
         }
     }
 
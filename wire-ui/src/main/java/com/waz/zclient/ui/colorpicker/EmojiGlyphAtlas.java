@@ -0,0 +1,520 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.colorpicker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.util.LruCache;
+import com.waz.threading.Threading;
+import com.waz.zclient.utils.Emojis;
+import timber.log.Timber;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Pre-rasterized emoji glyphs shared by the emoji keyboard and the sketch canvas.
+ *
+ * For the keyboard sizes every emoji of {@link Emojis} gets a fixed cell on a page bitmap. Pages are rendered on
+ * a background thread with the caller's text size, color and typeface, written to disk under a directory keyed by
+ * the emoji font fingerprint and kept in memory in a size-bounded LRU, so binding a keyboard cell is a single
+ * {@code drawBitmap}. Pages for typefaces other than the system ones are only kept in memory. While a page is being
+ * loaded {@link #drawGlyph} returns false and the caller draws the text itself; {@link Listener}s are told once it
+ * is ready.
+ *
+ * The sketch canvas uses much larger sizes, but only a handful of different emojis, so those are rendered one by
+ * one on demand and kept in a separate small LRU.
+ *
+ * Not thread safe, all public methods must be called on the main thread.
+ */
+public class EmojiGlyphAtlas {
+
+    private static final String CACHE_DIR = "emoji_atlas";
+    private static final int PAGE_SIZE = 1024;
+    private static final float CELL_TO_TEXT_SIZE_RATIO = 1.25f;
+    private static final int MAX_MEMORY_BYTES = 16 * 1024 * 1024;
+    private static final int MAX_SINGLE_GLYPH_BYTES = 4 * 1024 * 1024;
+
+    private static EmojiGlyphAtlas instance;
+
+    public static EmojiGlyphAtlas getInstance(Context context) {
+        if (instance == null) {
+            instance = new EmojiGlyphAtlas(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Drops all glyphs held in memory, if the atlas has been used at all. The pages on disk are kept.
+     */
+    public static void trimMemory() {
+        if (instance != null) {
+            instance.pages.evictAll();
+            instance.singleGlyphs.evictAll();
+        }
+    }
+
+    public interface Listener {
+        void onGlyphsAvailable();
+    }
+
+    private final String[] glyphs;
+    private final Map<String, Integer> glyphIndex;
+    private final File cacheRoot;
+    private final File cacheDir;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final LruCache<PageKey, Bitmap> pages;
+    private final LruCache<GlyphKey, Glyph> singleGlyphs;
+    private final Set<PageKey> loadingPages = new HashSet<>();
+    private final Set<Listener> listeners = new HashSet<>();
+
+    // reused while drawing, main thread only. The lookup keys are only used for cache reads, stored keys are copies
+    private final Rect srcRect = new Rect();
+    private final Rect dstRect = new Rect();
+    private final PageKey pageLookup = new PageKey();
+    private final GlyphKey glyphLookup = new GlyphKey();
+
+    private EmojiGlyphAtlas(Context context) {
+        int count = 0;
+        for (String[] category : Emojis.getAllEmojisSortedByCategory()) {
+            count += category.length;
+        }
+        glyphs = new String[count];
+        glyphIndex = new HashMap<>(count * 2);
+        int i = 0;
+        for (String[] category : Emojis.getAllEmojisSortedByCategory()) {
+            for (String emoji : category) {
+                glyphs[i] = emoji;
+                glyphIndex.put(emoji, i);
+                i++;
+            }
+        }
+
+        int maxBytes = (int) Math.min(Runtime.getRuntime().maxMemory() / 16, MAX_MEMORY_BYTES);
+        pages = new LruCache<PageKey, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(PageKey key, Bitmap value) {
+                return value.getRowBytes() * value.getHeight();
+            }
+        };
+        singleGlyphs = new LruCache<GlyphKey, Glyph>(MAX_SINGLE_GLYPH_BYTES) {
+            @Override
+            protected int sizeOf(GlyphKey key, Glyph value) {
+                return value.bitmap.getRowBytes() * value.bitmap.getHeight();
+            }
+        };
+
+        cacheRoot = new File(context.getCacheDir(), CACHE_DIR);
+        cacheDir = new File(cacheRoot, getFontFingerprint());
+        Threading.Background().execute(new Runnable() {
+            @Override
+            public void run() {
+                removeStaleCaches();
+            }
+        });
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Renders all pages for the given style to disk in the background, so that later keyboard openings only
+     * need to decode them.
+     */
+    public void prewarm(final int textSize, final int color, final Typeface typeface) {
+        if (getTypefaceName(typeface) == null) {
+            // nothing to store on disk
+            return;
+        }
+        final int pageCount = getPageCount(textSize);
+        Threading.Background().execute(new Runnable() {
+            @Override
+            public void run() {
+                for (int page = 0; page < pageCount; page++) {
+                    File file = getPageFile(textSize, color, typeface, page);
+                    if (!file.exists()) {
+                        Bitmap bitmap = renderPage(textSize, color, typeface, page);
+                        if (bitmap != null) {
+                            writePage(file, bitmap);
+                            bitmap.recycle();
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Draws the emoji centered on (centerX, centerY) if its page is in memory. The glyph is rendered with the text
+     * size, color and typeface of {@code textPaint}, {@code bitmapPaint} is used to draw the page.
+     *
+     * @return false if the glyph is not available (yet), in which case the caller has to draw the text itself
+     */
+    public boolean drawGlyph(Canvas canvas, String emoji, Paint textPaint, int centerX, int centerY, Paint bitmapPaint) {
+        Integer index = glyphIndex.get(emoji);
+        if (index == null) {
+            return false;
+        }
+        int textSize = (int) textPaint.getTextSize();
+        int color = textPaint.getColor();
+        Typeface typeface = textPaint.getTypeface();
+        int cellSize = getCellSize(textSize);
+        int perRow = PAGE_SIZE / cellSize;
+        int perPage = perRow * perRow;
+        int page = index / perPage;
+        Bitmap bitmap = pages.get(pageLookup.set(textSize, color, typeface, page));
+        if (bitmap == null) {
+            loadPage(textSize, color, typeface, page);
+            return false;
+        }
+        int cell = index % perPage;
+        int left = (cell % perRow) * cellSize;
+        int top = (cell / perRow) * cellSize;
+        srcRect.set(left, top, left + cellSize, top + cellSize);
+        int half = cellSize / 2;
+        dstRect.set(centerX - half, centerY - half, centerX - half + cellSize, centerY - half + cellSize);
+        canvas.drawBitmap(bitmap, srcRect, dstRect, bitmapPaint);
+        return true;
+    }
+
+    /**
+     * Draws the emoji like {@code canvas.drawText(emoji, x, baselineY, textPaint)} would, but from a cached bitmap.
+     * The glyph is rendered with the opaque color and the typeface of {@code textPaint}, its alpha and color filter
+     * apply to the bitmap.
+     */
+    public void drawGlyphAtBaseline(Canvas canvas, String emoji, float x, float baselineY, Paint textPaint) {
+        Glyph glyph = getSingleGlyph(emoji, textPaint.getTextSize(), textPaint.getColor() | 0xFF000000, textPaint.getTypeface());
+        if (glyph == null) {
+            canvas.drawText(emoji, x, baselineY, textPaint);
+            return;
+        }
+        canvas.drawBitmap(glyph.bitmap, x + glyph.left, baselineY + glyph.top, textPaint);
+    }
+
+    private Glyph getSingleGlyph(String emoji, float textSize, int color, Typeface typeface) {
+        Glyph glyph = singleGlyphs.get(glyphLookup.set(emoji, textSize, color, typeface));
+        if (glyph != null) {
+            return glyph;
+        }
+        Paint paint = newTextPaint(textSize, color, typeface);
+        Paint.FontMetrics metrics = paint.getFontMetrics();
+        // Color emojis may overhang their advance, so the bitmap covers both the advance and the ink bounds
+        Rect bounds = new Rect();
+        paint.getTextBounds(emoji, 0, emoji.length(), bounds);
+        int left = Math.min(0, bounds.left);
+        int top = Math.min((int) Math.floor(metrics.ascent), bounds.top);
+        int right = Math.max((int) Math.ceil(paint.measureText(emoji)), bounds.right);
+        int bottom = Math.max((int) Math.ceil(metrics.descent), bounds.bottom);
+        int width = right - left;
+        int height = bottom - top;
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        try {
+            Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+            new Canvas(bitmap).drawText(emoji, -left, -top, paint);
+            glyph = new Glyph(bitmap, left, top);
+            singleGlyphs.put(new GlyphKey().set(emoji, textSize, color, typeface), glyph);
+            return glyph;
+        } catch (OutOfMemoryError e) {
+            Timber.w(e, "Failed rasterizing emoji at size %f", textSize);
+            return null;
+        }
+    }
+
+    private void loadPage(final int textSize, final int color, final Typeface typeface, final int page) {
+        final PageKey key = new PageKey().set(textSize, color, typeface, page);
+        if (!loadingPages.add(key)) {
+            return;
+        }
+        Threading.Background().execute(new Runnable() {
+            @Override
+            public void run() {
+                File file = getPageFile(textSize, color, typeface, page);
+                Bitmap bitmap = null;
+                if (file != null && file.exists()) {
+                    bitmap = BitmapFactory.decodeFile(file.getAbsolutePath());
+                }
+                if (bitmap == null) {
+                    bitmap = renderPage(textSize, color, typeface, page);
+                    if (bitmap != null && file != null) {
+                        writePage(file, bitmap);
+                    }
+                }
+                final Bitmap result = bitmap;
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        loadingPages.remove(key);
+                        if (result == null) {
+                            return;
+                        }
+                        pages.put(key, result);
+                        for (Listener listener : listeners.toArray(new Listener[listeners.size()])) {
+                            listener.onGlyphsAvailable();
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    private Bitmap renderPage(int textSize, int color, Typeface typeface, int page) {
+        int cellSize = getCellSize(textSize);
+        int perRow = PAGE_SIZE / cellSize;
+        int perPage = perRow * perRow;
+        int first = page * perPage;
+        int count = Math.min(perPage, glyphs.length - first);
+        if (count <= 0) {
+            return null;
+        }
+        int rows = (count + perRow - 1) / perRow;
+
+        Paint paint = newTextPaint(textSize, color, typeface);
+        paint.setTextAlign(Paint.Align.CENTER);
+        Paint.FontMetrics metrics = paint.getFontMetrics();
+        float baselineOffset = -(metrics.ascent + metrics.descent) / 2;
+
+        Bitmap bitmap;
+        try {
+            bitmap = Bitmap.createBitmap(perRow * cellSize, rows * cellSize, Bitmap.Config.ARGB_8888);
+        } catch (OutOfMemoryError e) {
+            Timber.w(e, "Failed allocating emoji atlas page");
+            return null;
+        }
+        Canvas canvas = new Canvas(bitmap);
+        float half = cellSize / 2f;
+        for (int i = 0; i < count; i++) {
+            float centerX = (i % perRow) * cellSize + half;
+            float centerY = (i / perRow) * cellSize + half;
+            canvas.drawText(glyphs[first + i], centerX, centerY + baselineOffset, paint);
+        }
+        return bitmap;
+    }
+
+    private void writePage(File file, Bitmap bitmap) {
+        if (!cacheDir.exists() && !cacheDir.mkdirs()) {
+            return;
+        }
+        File tmp = new File(file.getPath() + ".tmp");
+        OutputStream out = null;
+        try {
+            out = new FileOutputStream(tmp);
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            out.close();
+            out = null;
+            if (!tmp.renameTo(file)) {
+                Timber.w("Failed storing emoji atlas page %s", file.getName());
+            }
+        } catch (IOException e) {
+            Timber.w(e, "Failed writing emoji atlas page %s", file.getName());
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private void removeStaleCaches() {
+        File[] dirs = cacheRoot.listFiles();
+        if (dirs == null) {
+            return;
+        }
+        for (File dir : dirs) {
+            if (dir.equals(cacheDir)) {
+                continue;
+            }
+            File[] files = dir.listFiles();
+            if (files != null) {
+                for (File file : files) {
+                    //noinspection ResultOfMethodCallIgnored
+                    file.delete();
+                }
+            }
+            //noinspection ResultOfMethodCallIgnored
+            dir.delete();
+        }
+    }
+
+    private int getPageCount(int textSize) {
+        int perRow = PAGE_SIZE / getCellSize(textSize);
+        int perPage = perRow * perRow;
+        return (glyphs.length + perPage - 1) / perPage;
+    }
+
+    /**
+     * @return null if pages in this typeface can not be stored
+     */
+    private File getPageFile(int textSize, int color, Typeface typeface, int page) {
+        String typefaceName = getTypefaceName(typeface);
+        if (typefaceName == null) {
+            return null;
+        }
+        return new File(cacheDir, textSize + "_" + Integer.toHexString(color) + "_" + typefaceName + "_" + page + ".png");
+    }
+
+    private static Paint newTextPaint(float textSize, int color, Typeface typeface) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextSize(textSize);
+        paint.setColor(color);
+        paint.setTypeface(typeface);
+        return paint;
+    }
+
+    /**
+     * Typeface instances can't be identified across processes, only the system ones get a stable name
+     */
+    private static String getTypefaceName(Typeface typeface) {
+        if (typeface == null || typeface.equals(Typeface.DEFAULT)) {
+            return "default";
+        } else if (typeface.equals(Typeface.DEFAULT_BOLD)) {
+            return "bold";
+        } else if (typeface.equals(Typeface.SANS_SERIF)) {
+            return "sans";
+        } else if (typeface.equals(Typeface.SERIF)) {
+            return "serif";
+        } else if (typeface.equals(Typeface.MONOSPACE)) {
+            return "mono";
+        }
+        return null;
+    }
+
+    private static int getCellSize(int textSize) {
+        return (int) Math.ceil(textSize * CELL_TO_TEXT_SIZE_RATIO);
+    }
+
+    /**
+     * Changes whenever the system emoji font or the emoji set could render differently
+     */
+    private static String getFontFingerprint() {
+        StringBuilder fingerprint = new StringBuilder()
+            .append(Build.FINGERPRINT)
+            .append('|')
+            .append(Emojis.VERSION);
+        File font = new File("/system/fonts/NotoColorEmoji.ttf");
+        if (font.exists()) {
+            fingerprint.append('|').append(font.length()).append('|').append(font.lastModified());
+        }
+        return Integer.toHexString(fingerprint.toString().hashCode());
+    }
+
+    private static class Glyph {
+        private final Bitmap bitmap;
+        private final int left;
+        private final int top;
+
+        Glyph(Bitmap bitmap, int left, int top) {
+            this.bitmap = bitmap;
+            this.left = left;
+            this.top = top;
+        }
+    }
+
+    private static final class PageKey {
+        private int textSize;
+        private int color;
+        private Typeface typeface;
+        private int page;
+
+        PageKey set(int textSize, int color, Typeface typeface, int page) {
+            this.textSize = textSize;
+            this.color = color;
+            this.typeface = typeface;
+            this.page = page;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof PageKey)) {
+                return false;
+            }
+            PageKey that = (PageKey) o;
+            return textSize == that.textSize &&
+                   color == that.color &&
+                   page == that.page &&
+                   (typeface == null ? that.typeface == null : typeface.equals(that.typeface));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = textSize;
+            result = 31 * result + color;
+            result = 31 * result + (typeface == null ? 0 : typeface.hashCode());
+            return 31 * result + page;
+        }
+    }
+
+    private static final class GlyphKey {
+        private String emoji;
+        private float textSize;
+        private int color;
+        private Typeface typeface;
+
+        GlyphKey set(String emoji, float textSize, int color, Typeface typeface) {
+            this.emoji = emoji;
+            this.textSize = textSize;
+            this.color = color;
+            this.typeface = typeface;
+            return this;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof GlyphKey)) {
+                return false;
+            }
+            GlyphKey that = (GlyphKey) o;
+            return Float.compare(textSize, that.textSize) == 0 &&
+                   color == that.color &&
+                   emoji.equals(that.emoji) &&
+                   (typeface == null ? that.typeface == null : typeface.equals(that.typeface));
+        }
+
+        @Override
+        public int hashCode() {
+            int result = emoji.hashCode();
+            result = 31 * result + Float.floatToIntBits(textSize);
+            result = 31 * result + color;
+            return 31 * result + (typeface == null ? 0 : typeface.hashCode());
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.colorpicker;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * Draws a single emoji from the {@link EmojiGlyphAtlas}, falling back to text rendering until the glyph's atlas
+ * page has been loaded.
+ */
+public class EmojiGlyphView extends View implements EmojiGlyphAtlas.Listener {
+
+    private final Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private EmojiGlyphAtlas atlas;
+    private String emoji;
+    private int textSize;
+    private boolean waitingForAtlas;
+
+    public EmojiGlyphView(Context context) {
+        this(context, null);
+    }
+
+    public EmojiGlyphView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public EmojiGlyphView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        atlas = EmojiGlyphAtlas.getInstance(context);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+    }
+
+    public void setEmoji(String emoji, int textSize) {
+        if (textSize != this.textSize) {
+            this.textSize = textSize;
+            textPaint.setTextSize(textSize);
+        }
+        this.emoji = emoji;
+        invalidate();
+    }
+
+    public String getEmoji() {
+        return emoji;
+    }
+
+    public void setTextColor(int color) {
+        textPaint.setColor(color);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        super.onDraw(canvas);
+        if (emoji == null || EmojiAdapter.SPACE.equals(emoji)) {
+            return;
+        }
+        int centerX = getWidth() / 2;
+        int centerY = getHeight() / 2;
+        if (atlas.drawGlyph(canvas, emoji, textPaint, centerX, centerY, bitmapPaint)) {
+            return;
+        }
+        if (!waitingForAtlas) {
+            waitingForAtlas = true;
+            atlas.addListener(this);
+        }
+        canvas.drawText(emoji, centerX, centerY - (textPaint.ascent() + textPaint.descent()) / 2, textPaint);
+    }
+
+    @Override
+    public void onGlyphsAvailable() {
+        waitingForAtlas = false;
+        atlas.removeListener(this);
+        invalidate();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (waitingForAtlas) {
+            waitingForAtlas = false;
+            atlas.removeListener(this);
+        }
+        super.onDetachedFromWindow();
+    }
+}
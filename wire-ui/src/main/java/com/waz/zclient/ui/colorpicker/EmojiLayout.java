@@ -0,0 +1,122 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.colorpicker;
+
+import com.waz.zclient.utils.Emojis;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Flat emoji keyboard layout: the recent emojis followed by every supported emoji of each category, with a
+ * spacer item closing each section. Spacer positions are kept in a {@link BitSet} so span lookups during
+ * layout are a single bit test.
+ *
+ * Instances are immutable; {@link #matches(List, Set)} lets callers keep a layout for as long as the recent and
+ * unsupported emoji collections it was built from have not been replaced.
+ */
+public class EmojiLayout {
+
+    public static final int RECENT_CATEGORY = 0;
+
+    private final List<String> recent;
+    private final Set<String> unsupported;
+
+    private final List<String> emojis;
+    private final BitSet spacers;
+    /**
+     * First position of each section, index 0 being the recent emojis
+     */
+    private final int[] categoryPositions;
+
+    public EmojiLayout(List<String> recent, Set<String> unsupported) {
+        this.recent = recent;
+        this.unsupported = unsupported;
+
+        List<String[]> categories = Emojis.getAllEmojisSortedByCategory();
+        int capacity = recent == null ? 0 : recent.size() + 1;
+        for (String[] category : categories) {
+            capacity += category.length + 1;
+        }
+        List<String> emojis = new ArrayList<>(capacity);
+        spacers = new BitSet(capacity);
+        categoryPositions = new int[categories.size() + 1];
+
+        if (recent != null && recent.size() > 0) {
+            emojis.addAll(recent);
+            spacers.set(emojis.size());
+            emojis.add(EmojiAdapter.SPACE);
+        }
+        int category = RECENT_CATEGORY + 1;
+        for (String[] emojiArray : categories) {
+            int start = emojis.size();
+            for (String emoji : emojiArray) {
+                if (unsupported == null || !unsupported.contains(emoji)) {
+                    emojis.add(emoji);
+                }
+            }
+            // sections with at most one emoji are not worth jumping to
+            categoryPositions[category++] = emojis.size() - start > 1 ? start : 0;
+            spacers.set(emojis.size());
+            emojis.add(EmojiAdapter.SPACE);
+        }
+        this.emojis = Collections.unmodifiableList(emojis);
+    }
+
+    /**
+     * @return true if this layout was built from exactly these collections
+     */
+    public boolean matches(List<String> recent, Set<String> unsupported) {
+        return this.recent == recent && this.unsupported == unsupported;
+    }
+
+    public List<String> getEmojis() {
+        return emojis;
+    }
+
+    public boolean hasRecent() {
+        return recent != null && recent.size() > 0;
+    }
+
+    public boolean isSpacer(int position) {
+        return position >= 0 && spacers.get(position);
+    }
+
+    public int getCategoryPosition(int category) {
+        if (category < 0 || category >= categoryPositions.length) {
+            return 0;
+        }
+        return categoryPositions[category];
+    }
+
+    public int getCategoryForPosition(int position) {
+        int last = categoryPositions.length - 1;
+        if (position >= categoryPositions[last]) {
+            return last;
+        }
+        for (int i = 0; i < last; i++) {
+            if (position >= categoryPositions[i] && position < categoryPositions[i + 1]) {
+                return i;
+            }
+        }
+        return 0;
+    }
+}
@@ -21,7 +21,9 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.animation.ObjectAnimator;
 import android.content.Context;
+import android.content.res.ColorStateList;
 import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
 import android.os.Handler;
 import android.support.v4.content.ContextCompat;
 import android.text.Editable;
@@ -34,6 +36,7 @@ import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.MotionEvent;
 import android.view.View;
+import android.view.ViewGroup;
 import android.view.inputmethod.EditorInfo;
 import android.widget.FrameLayout;
 import android.widget.TextView;
@@ -46,6 +49,7 @@ import com.waz.zclient.core.api.scala.ModelObserver;
 import com.waz.zclient.ui.R;
 import com.waz.zclient.ui.animation.interpolators.penner.Expo;
 import com.waz.zclient.ui.animation.interpolators.penner.Quart;
+import com.waz.zclient.ui.theme.ThemeAttributes;
 import com.waz.zclient.ui.utils.CursorUtils;
 import com.waz.zclient.ui.utils.TypefaceUtils;
 import com.waz.zclient.ui.views.CursorIconButton;
@@ -94,6 +98,7 @@ public class CursorLayout extends FrameLayout implements
 
     private CursorCallback cursorCallback;
     private boolean sendButtonIsVisible;
+    private boolean sendButtonEnabled;
     private boolean tooltipEnabled;
     private boolean isEditingMessage;
     private boolean ephemeralSelected;
@@ -115,6 +120,7 @@ public class CursorLayout extends FrameLayout implements
     private int ephemeralColor;
     private int accentColor;
     private IConversation conversation;
+    private TextChangeDispatcher textChangeDispatcher;
 
     private ModelObserver<IConversation> conversationModelObserver = new ModelObserver<IConversation>() {
         @Override
@@ -180,6 +186,20 @@ public class CursorLayout extends FrameLayout implements
         super(context, attrs, defStyleAttr);
         anchorPositionPx2 = getResources().getDimensionPixelSize(R.dimen.cursor_anchor2);
         ephemeralColor = ContextCompat.getColor(getContext(), R.color.ephemera);
+        textChangeDispatcher = new TextChangeDispatcher(this,
+                                                        getResources().getInteger(R.integer.cursor__text_change__dispatch_interval),
+                                                        new TextChangeDispatcher.Listener() {
+                                                            @Override
+                                                            public void onTextChangesSettled() {
+                                                                notifyTextChanged();
+                                                            }
+                                                        });
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        textChangeDispatcher.cancel();
+        super.onDetachedFromWindow();
     }
 
     /**
@@ -304,6 +324,48 @@ public class CursorLayout extends FrameLayout implements
         secondaryToolbar.setCallback(this);
     }
 
+    /**
+     * Sets the theme dependent colors in place, the cursor keeps its text, state and toolbars.
+     */
+    public void applyTheme(ThemeAttributes attributes) {
+        ColorStateList editTextColor = attributes.getColorStateList(R.attr.cursorEditText, android.R.attr.textColor);
+        if (editTextColor != null) {
+            defaultEditTextColor = editTextColor.getDefaultColor();
+        }
+        Drawable divider = attributes.getDrawable(R.attr.wireDivider, android.R.attr.background);
+        if (divider instanceof ColorDrawable) {
+            defaultDividerColor = ((ColorDrawable) divider).getColor();
+        }
+        if (divider != null) {
+            topBorder.setBackground(divider);
+        }
+        ColorStateList iconColor = attributes.getColorStateList(R.attr.cursorIconButton, android.R.attr.textColor);
+        if (iconColor != null) {
+            setIconButtonTextColor(mainToolbar, iconColor);
+            setIconButtonTextColor(secondaryToolbar, iconColor);
+            emojiButton.setTextColor(iconColor);
+        }
+
+        if (!isEditingMessage) {
+            newCursorEditText.setTextColor(defaultEditTextColor);
+            dividerView.setBackgroundColor(defaultDividerColor);
+            ephemeralButton.setTextColor(defaultEditTextColor);
+        }
+        // Ephemeral and edit colors win over the defaults
+        conversationModelObserver.forceUpdate();
+    }
+
+    private static void setIconButtonTextColor(ViewGroup group, ColorStateList color) {
+        for (int i = 0; i < group.getChildCount(); i++) {
+            View child = group.getChildAt(i);
+            if (child instanceof CursorIconButton) {
+                ((CursorIconButton) child).setTextColor(color);
+            } else if (child instanceof ViewGroup) {
+                setIconButtonTextColor((ViewGroup) child, color);
+            }
+        }
+    }
+
     public void setAccentColor(int accentColor) {
         newCursorEditText.setAccentColor(accentColor);
         mainToolbar.setAccentColor(accentColor);
@@ -340,8 +402,9 @@ public class CursorLayout extends FrameLayout implements
     }
 
     /**
-     * Notifies container that edit text has changed. And if text is not empty it triggers
-     * also the typing indicator.
+     * Updates the hint and the send button right away. The container is notified through the
+     * {@link TextChangeDispatcher}, as it re-anchors the message stream and triggers the typing
+     * indicator, so a burst of keystrokes or an IME commit only notifies it once.
      */
     @Override
     public void onTextChanged(CharSequence charSequence, int i, int i1, int i2) {
@@ -355,20 +418,31 @@ public class CursorLayout extends FrameLayout implements
             return;
         }
 
-        String text = charSequence.toString();
-        if (cursorCallback != null) {
-            cursorCallback.onEditTextHasChanged(newCursorEditText.getSelectionStart(), text);
+        boolean empty = charSequence.length() == 0;
+        int hintVisibility = empty ? View.VISIBLE : View.GONE;
+        if (hintView.getVisibility() != hintVisibility) {
+            hintView.setVisibility(hintVisibility);
+        }
+        if (sendButtonEnabled) {
+            showSendButton(!empty);
         }
 
-        if (TextUtils.isEmpty(charSequence.toString())) {
-            hintView.setVisibility(View.VISIBLE);
-        } else {
-            hintView.setVisibility(View.GONE);
+        textChangeDispatcher.onTextChanged();
+        if (empty) {
+            // Let the typing indicator stop without delay, e.g. after sending
+            textChangeDispatcher.flush();
         }
 
         showTopbar(newCursorEditText.getLineCount() > maxLines);
     }
 
+    private void notifyTextChanged() {
+        if (cursorCallback == null || isEditingMessage()) {
+            return;
+        }
+        cursorCallback.onEditTextHasChanged(newCursorEditText.getSelectionStart(), newCursorEditText.getText().toString());
+    }
+
     @Override
     public void afterTextChanged(Editable editable) {
         // do nothing
@@ -410,6 +484,13 @@ public class CursorLayout extends FrameLayout implements
         }
     }
 
+    /**
+     * Whether the send button shows up while there is text, see {@link #showSendButton(boolean)}.
+     */
+    public void setSendButtonEnabled(boolean enabled) {
+        sendButtonEnabled = enabled;
+    }
+
     public void showSendButton(boolean show) {
         if (sendButtonIsVisible == show) {
             return;
@@ -493,6 +574,11 @@ public class CursorLayout extends FrameLayout implements
         this.newCursorEditText.setSelection(selection);
     }
 
+    public void setSelection(int start, int end) {
+        int length = newCursorEditText.length();
+        newCursorEditText.setSelection(Math.min(start, length), Math.min(end, length));
+    }
+
 
     public void setConversation(IConversation conversation) {
         this.conversation = conversation;
@@ -621,6 +707,17 @@ public class CursorLayout extends FrameLayout implements
         return isEditingMessage;
     }
 
+    /**
+     * The message being edited, or null.
+     */
+    public Message getEditedMessage() {
+        return isEditingMessage ? message : null;
+    }
+
+    public int getSelectionStart() {
+        return newCursorEditText.getSelectionStart();
+    }
+
     public void editMessage(Message message) {
         isEditingMessage = true;
         this.message = message;
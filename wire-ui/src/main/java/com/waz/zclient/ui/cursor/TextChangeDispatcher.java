@@ -0,0 +1,91 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.cursor;
+
+import android.os.SystemClock;
+import android.view.View;
+
+/**
+ * Coalesces text changes of the cursor for the reactions that are too expensive to run per keystroke.
+ *
+ * All changes within one frame, and at most one dispatch per minimum interval, end up in a single
+ * {@link Listener#onTextChangesSettled()}, which then reads the latest text. Use it from the UI thread.
+ */
+class TextChangeDispatcher implements Runnable {
+
+    interface Listener {
+        void onTextChangesSettled();
+    }
+
+    private final View host;
+    private final Listener listener;
+    private final long minIntervalMillis;
+    private long lastDispatch;
+    private boolean scheduled;
+
+    /**
+     * @param minIntervalMillis minimum time between two dispatches, 0 dispatches once per frame
+     */
+    TextChangeDispatcher(View host, long minIntervalMillis, Listener listener) {
+        this.host = host;
+        this.minIntervalMillis = minIntervalMillis;
+        this.listener = listener;
+    }
+
+    void onTextChanged() {
+        if (scheduled) {
+            return;
+        }
+        scheduled = true;
+        long wait = lastDispatch + minIntervalMillis - now();
+        if (wait > 0) {
+            host.postDelayed(this, wait);
+        } else {
+            host.postOnAnimation(this);
+        }
+    }
+
+    /**
+     * Dispatches a pending change right away, e.g. when the text was cleared.
+     */
+    void flush() {
+        if (scheduled) {
+            host.removeCallbacks(this);
+            run();
+        }
+    }
+
+    void cancel() {
+        if (scheduled) {
+            host.removeCallbacks(this);
+            scheduled = false;
+        }
+    }
+
+    @Override
+    public void run() {
+        scheduled = false;
+        lastDispatch = now();
+        listener.onTextChangesSettled();
+    }
+
+    // Overridden by the tests
+    long now() {
+        return SystemClock.uptimeMillis();
+    }
+}
@@ -30,6 +30,7 @@ import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.View;
 import com.waz.zclient.ui.R;
+import com.waz.zclient.ui.colorpicker.EmojiGlyphAtlas;
 import net.hockeyapp.android.ExceptionHandler;
 
 import java.util.LinkedList;
@@ -44,6 +45,7 @@ public class DrawingCanvasView extends View {
     private Paint drawingPaint;
     private Paint emojiPaint;
     private Paint whitePaint;
+    private EmojiGlyphAtlas emojiGlyphAtlas;
     private DrawingCanvasCallback drawingCanvasCallback;
 
     //used for drawing path
@@ -93,6 +95,7 @@ public class DrawingCanvasView extends View {
         emojiPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
         emojiPaint.setStrokeWidth(1);
         emoji = null;
+        emojiGlyphAtlas = EmojiGlyphAtlas.getInstance(getContext());
 
         trimBuffer = getResources().getDimensionPixelSize(R.dimen.draw_image_trim_buffer);
     }
@@ -124,7 +127,7 @@ public class DrawingCanvasView extends View {
         canvas.drawColor(Color.TRANSPARENT);
         canvas.drawBitmap(bitmap, 0, 0, bitmapPaint);
         if (drawEmoji) {
-            canvas.drawText(emoji, currentX, currentY, emojiPaint);
+            emojiGlyphAtlas.drawGlyphAtBaseline(canvas, emoji, currentX, currentY, emojiPaint);
         } else {
             canvas.drawPath(path, drawingPaint);
         }
@@ -227,7 +230,7 @@ public class DrawingCanvasView extends View {
     private void touch_up() {
         if (drawEmoji) {
             drawEmoji = false;
-            canvas.drawText(emoji, currentX, currentY, emojiPaint);
+            emojiGlyphAtlas.drawGlyphAtBaseline(canvas, emoji, currentX, currentY, emojiPaint);
             historyItems.add(new Emoji(emoji, currentX, currentY, new Paint(emojiPaint)));
             paintedOn(true);
         } else {
@@ -460,7 +463,7 @@ public class DrawingCanvasView extends View {
 
         @Override
         public void draw(Canvas canvas) {
-            canvas.drawText(emoji, x, y, paint);
+            emojiGlyphAtlas.drawGlyphAtBaseline(canvas, emoji, x, y, paint);
         }
     }
 
@@ -21,8 +21,10 @@ import android.graphics.Typeface;
 
 public class TypefaceFactory {
 
-    private static TypefaceFactory typefaceFactory;
-    private TypefaceLoader typefaceLoader;
+    private static final TypefaceFactory typefaceFactory = new TypefaceFactory();
+
+    // Set once at startup on the main thread, read from any thread that inflates or measures text
+    private volatile TypefaceLoader typefaceLoader;
 
     private TypefaceFactory() {
     }
@@ -32,9 +34,6 @@ public class TypefaceFactory {
     }
 
     public static TypefaceFactory getInstance() {
-        if (typefaceFactory == null) {
-            typefaceFactory = new TypefaceFactory();
-        }
         return typefaceFactory;
     }
 
@@ -42,9 +41,10 @@ public class TypefaceFactory {
      * Returns a typeface with a given name
      */
     public Typeface getTypeface(String name) {
-        if (typefaceLoader == null) {
+        TypefaceLoader loader = typefaceLoader;
+        if (loader == null) {
             throw new IllegalStateException("Init not called with a valid Typefaceloader");
         }
-        return typefaceLoader.getTypeface(name);
+        return loader.getTypeface(name);
     }
 }
@@ -0,0 +1,153 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.text;
+
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+import timber.log.Timber;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Immutable table of all typefaces the app uses, keyed by the names used in layouts and styles.
+ *
+ * System typefaces are resolved when the registry is built. Asset fonts are decoded by {@link #warmUp()},
+ * which is meant to run on a background thread at startup; a lookup that comes before the warm-up has
+ * reached its font decodes it on the calling thread instead. Lookups never take a lock once the font
+ * is loaded, so they are safe from any thread. An asset font that fails to decode is looked up as
+ * {@code null}, like a blank name.
+ */
+public class TypefaceRegistry implements TypefaceLoader {
+
+    private final AssetManager assets;
+    private final Map<String, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong loadTimeNanos = new AtomicLong();
+
+    private TypefaceRegistry(AssetManager assets, Map<String, Entry> entries) {
+        this.assets = assets;
+        this.entries = Collections.unmodifiableMap(entries);
+    }
+
+    @Override
+    public Typeface getTypeface(String name) {
+        if (name == null || "".equals(name)) {
+            return null;
+        }
+        Entry entry = entries.get(name);
+        if (entry == null) {
+            misses.incrementAndGet();
+            Timber.e("Couldn't load typeface: %s", name);
+            return Typeface.DEFAULT;
+        }
+        Typeface typeface = entry.typeface;
+        if (typeface != null || entry.failed) {
+            hits.incrementAndGet();
+            return typeface;
+        }
+        misses.incrementAndGet();
+        return load(entry);
+    }
+
+    /**
+     * Decodes all asset fonts that are not loaded yet. Blocks, call it off the main thread.
+     */
+    public void warmUp() {
+        for (Entry entry : entries.values()) {
+            if (entry.typeface == null && !entry.failed) {
+                load(entry);
+            }
+        }
+        Timber.i("Typefaces loaded in %d ms", loadTimeNanos.get() / (1000 * 1000));
+    }
+
+    /**
+     * Logs the lookup counters. Misses are lookups of unknown names plus lookups that had to
+     * decode an asset font on the calling thread; load time is spent decoding on any thread.
+     */
+    public void logStats() {
+        Timber.i("Typeface lookups: %d hits, %d misses, %d ms loading",
+                 hits.get(),
+                 misses.get(),
+                 loadTimeNanos.get() / (1000 * 1000));
+    }
+
+    private Typeface load(Entry entry) {
+        synchronized (entry) {
+            if (entry.typeface != null || entry.failed) {
+                return entry.typeface;
+            }
+            long start = System.nanoTime();
+            try {
+                entry.typeface = Typeface.createFromAsset(assets, entry.assetPath);
+            } catch (Throwable t) {
+                Timber.e(t, "Couldn't load typeface: %s", entry.assetPath);
+                // Don't retry on every lookup
+                entry.failed = true;
+            }
+            loadTimeNanos.addAndGet(System.nanoTime() - start);
+            return entry.typeface;
+        }
+    }
+
+    private static class Entry {
+        final String assetPath;
+        volatile Typeface typeface;
+        volatile boolean failed;
+
+        Entry(String assetPath, Typeface typeface) {
+            this.assetPath = assetPath;
+            this.typeface = typeface;
+        }
+    }
+
+    public static class Builder {
+
+        private final AssetManager assets;
+        private final Map<String, Entry> entries = new HashMap<>();
+
+        public Builder(AssetManager assets) {
+            this.assets = assets;
+        }
+
+        /**
+         * Registers a system font family, e.g. {@code "sans-serif-light"}.
+         */
+        public Builder addSystem(String name, String familyName, int style) {
+            entries.put(name, new Entry(null, Typeface.create(familyName, style)));
+            return this;
+        }
+
+        /**
+         * Registers a font file in the assets, loaded by {@link TypefaceRegistry#warmUp()}.
+         */
+        public Builder addAsset(String name, String assetPath) {
+            entries.put(name, new Entry(assetPath, null));
+            return this;
+        }
+
+        public TypefaceRegistry build() {
+            return new TypefaceRegistry(assets, new HashMap<>(entries));
+        }
+    }
+}
@@ -18,60 +18,20 @@
 package com.waz.zclient.ui.theme;
 
 import android.content.Context;
-import android.content.res.ColorStateList;
-import android.content.res.Resources;
-import android.graphics.drawable.Drawable;
 import com.waz.zclient.ui.R;
 
-public class OptionsDarkTheme implements OptionsTheme {
-    private Resources resource;
+public class OptionsDarkTheme extends ThemeAttributesOptionsTheme {
 
     public OptionsDarkTheme(Context context) {
-        resource = context.getResources();
+        this(ThemeAttributes.of(context, R.style.Theme_Dark));
     }
 
-    @Override
-    public Type getType() {
-        return Type.DARK;
-    }
-
-    @Override
-    public int getTextColorPrimary() {
-        return resource.getColor(R.color.text__primary_dark);
-    }
-
-    @Override
-    public ColorStateList getTextColorPrimarySelector() {
-        return resource.getColorStateList(R.color.wire__text_color_primary_dark_selector);
-    }
-
-    @Override
-    public int getOverlayColor() {
-        return resource.getColor(R.color.background_overlay_dark);
-    }
-
-    @Override
-    public void tearDown() {
-        resource = null;
+    public OptionsDarkTheme(ThemeAttributes attributes) {
+        super(attributes);
     }
 
     @Override
-    public int getCheckboxTextColor() {
-        return resource.getColor(R.color.text__primary_light);
-    }
-
-    @Override
-    public Drawable getCheckBoxBackgroundSelector() {
-        return resource.getDrawable(R.drawable.selector__check_box__background__dark);
-    }
-
-    @Override
-    public ColorStateList getIconButtonTextColor() {
-        return resource.getColorStateList(R.color.selector__icon_button__text_color__dark);
-    }
-
-    @Override
-    public Drawable getIconButtonBackground() {
-        return resource.getDrawable(R.drawable.selector__icon_button__background__dark);
+    public Type getType() {
+        return Type.DARK;
     }
 }
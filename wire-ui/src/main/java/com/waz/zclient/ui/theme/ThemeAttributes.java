@@ -0,0 +1,218 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.theme;
+
+import android.content.Context;
+import android.content.res.ColorStateList;
+import android.content.res.Resources;
+import android.content.res.TypedArray;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.AttrRes;
+import android.support.annotation.StyleRes;
+import android.util.LongSparseArray;
+import android.util.SparseArray;
+import android.util.TypedValue;
+
+/**
+ * The values of a theme's attributes, resolved once per attribute and kept for the life of the table.
+ *
+ * Colors and color state lists are shared, drawables are kept as their constant state and every
+ * {@link #getDrawable(int)} returns a new instance, as drawables hold per-view state. Most themed values
+ * are styles, their properties are resolved with {@link #getColorStateList(int, int)} and
+ * {@link #getDrawable(int, int)}. Use from the UI thread only.
+ */
+public final class ThemeAttributes {
+
+    private static final Object MISSING = new Object();
+    private static final SparseArray<ThemeAttributes> SHARED = new SparseArray<>();
+
+    private final Resources resources;
+    private final Resources.Theme theme;
+    private final int style;
+    private final SparseArray<Object> values = new SparseArray<>();
+    // keyed by style attribute and property
+    private final LongSparseArray<Object> styledValues = new LongSparseArray<>();
+    private final TypedValue typedValue = new TypedValue();
+
+    public ThemeAttributes(Context context, @StyleRes int style) {
+        this.resources = context.getResources();
+        this.theme = resources.newTheme();
+        this.theme.applyStyle(style, true);
+        this.style = style;
+    }
+
+    /**
+     * The table of the style shared by the whole app, created on first use.
+     */
+    public static ThemeAttributes of(Context context, @StyleRes int style) {
+        ThemeAttributes attributes = SHARED.get(style);
+        if (attributes == null) {
+            attributes = new ThemeAttributes(context.getApplicationContext(), style);
+            SHARED.put(style, attributes);
+        }
+        return attributes;
+    }
+
+    /**
+     * Drops the shared tables. Their values were resolved for the old configuration, e.g. its density or
+     * orientation, so the next {@link #of(Context, int)} resolves them again.
+     */
+    public static void clearShared() {
+        SHARED.clear();
+    }
+
+    public @StyleRes int getStyle() {
+        return style;
+    }
+
+    /**
+     * @return the color, the default color of a color state list, 0 if the attribute isn't a color
+     */
+    public int getColor(@AttrRes int attr) {
+        Object value = resolve(attr);
+        if (value instanceof Integer) {
+            return (Integer) value;
+        }
+        if (value instanceof ColorStateList) {
+            return ((ColorStateList) value).getDefaultColor();
+        }
+        return 0;
+    }
+
+    /**
+     * @return the color state list, a plain color as a single state list, null if the attribute isn't a color
+     */
+    public ColorStateList getColorStateList(@AttrRes int attr) {
+        Object value = resolve(attr);
+        if (value instanceof Integer) {
+            ColorStateList list = ColorStateList.valueOf((Integer) value);
+            values.put(attr, list);
+            return list;
+        }
+        return value instanceof ColorStateList ? (ColorStateList) value : null;
+    }
+
+    /**
+     * @return a new drawable, a color as a {@link ColorDrawable}, null if the attribute isn't either
+     */
+    public Drawable getDrawable(@AttrRes int attr) {
+        return toDrawable(resolve(attr));
+    }
+
+    private Drawable toDrawable(Object value) {
+        if (value instanceof Drawable.ConstantState) {
+            return ((Drawable.ConstantState) value).newDrawable(resources);
+        }
+        if (value instanceof Integer) {
+            return new ColorDrawable((Integer) value);
+        }
+        if (value instanceof ColorStateList) {
+            return new ColorDrawable(((ColorStateList) value).getDefaultColor());
+        }
+        return null;
+    }
+
+    /**
+     * @return the color state list the style of the attribute sets for the property, null if it sets none
+     */
+    public ColorStateList getColorStateList(@AttrRes int styleAttr, @AttrRes int attr) {
+        long key = styledKey(styleAttr, attr);
+        Object value = resolveStyled(key, styleAttr, attr);
+        if (value instanceof Integer) {
+            ColorStateList list = ColorStateList.valueOf((Integer) value);
+            styledValues.put(key, list);
+            return list;
+        }
+        return value instanceof ColorStateList ? (ColorStateList) value : null;
+    }
+
+    /**
+     * @return a new drawable the style of the attribute sets for the property, null if it sets none
+     */
+    public Drawable getDrawable(@AttrRes int styleAttr, @AttrRes int attr) {
+        return toDrawable(resolveStyled(styledKey(styleAttr, attr), styleAttr, attr));
+    }
+
+    private Object resolve(int attr) {
+        Object value = values.get(attr);
+        if (value == null) {
+            value = load(attr);
+            values.put(attr, value);
+        }
+        return value;
+    }
+
+    private Object resolveStyled(long key, int styleAttr, int attr) {
+        Object value = styledValues.get(key);
+        if (value == null) {
+            value = loadStyled(styleAttr, attr);
+            styledValues.put(key, value);
+        }
+        return value;
+    }
+
+    private static long styledKey(int styleAttr, int attr) {
+        return ((long) styleAttr << 32) | (attr & 0xffffffffL);
+    }
+
+    private Object load(int attr) {
+        if (!theme.resolveAttribute(attr, typedValue, true)) {
+            return MISSING;
+        }
+        return load(typedValue);
+    }
+
+    private Object loadStyled(int styleAttr, int attr) {
+        if (!theme.resolveAttribute(styleAttr, typedValue, true) || typedValue.resourceId == 0) {
+            return MISSING;
+        }
+        TypedArray array = theme.obtainStyledAttributes(typedValue.resourceId, new int[] {attr});
+        try {
+            if (!array.getValue(0, typedValue)) {
+                return MISSING;
+            }
+        } finally {
+            array.recycle();
+        }
+        return load(typedValue);
+    }
+
+    @SuppressWarnings("deprecation")
+    private Object load(TypedValue value) {
+        if (value.type >= TypedValue.TYPE_FIRST_COLOR_INT && value.type <= TypedValue.TYPE_LAST_COLOR_INT) {
+            return value.data;
+        }
+        if (value.resourceId == 0) {
+            return MISSING;
+        }
+        try {
+            String type = resources.getResourceTypeName(value.resourceId);
+            if ("color".equals(type)) {
+                return resources.getColorStateList(value.resourceId);
+            }
+            if ("drawable".equals(type) || "mipmap".equals(type)) {
+                Drawable drawable = resources.getDrawable(value.resourceId);
+                return drawable == null || drawable.getConstantState() == null ? MISSING : drawable.getConstantState();
+            }
+        } catch (Resources.NotFoundException e) {
+            return MISSING;
+        }
+        return MISSING;
+    }
+}
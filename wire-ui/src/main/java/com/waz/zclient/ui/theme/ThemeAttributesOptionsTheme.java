@@ -0,0 +1,74 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.theme;
+
+import android.content.res.ColorStateList;
+import android.graphics.drawable.Drawable;
+import com.waz.zclient.ui.R;
+
+/**
+ * An {@link OptionsTheme} served from the options menu attributes of a theme's {@link ThemeAttributes}.
+ */
+abstract class ThemeAttributesOptionsTheme implements OptionsTheme {
+
+    private ThemeAttributes attributes;
+
+    ThemeAttributesOptionsTheme(ThemeAttributes attributes) {
+        this.attributes = attributes;
+    }
+
+    @Override
+    public int getTextColorPrimary() {
+        return attributes.getColor(R.attr.optionsTextColorPrimary);
+    }
+
+    @Override
+    public ColorStateList getTextColorPrimarySelector() {
+        return attributes.getColorStateList(R.attr.optionsTextColorPrimarySelector);
+    }
+
+    @Override
+    public int getOverlayColor() {
+        return attributes.getColor(R.attr.optionsOverlayColor);
+    }
+
+    @Override
+    public void tearDown() {
+        attributes = null;
+    }
+
+    @Override
+    public int getCheckboxTextColor() {
+        return attributes.getColor(R.attr.optionsCheckboxTextColor);
+    }
+
+    @Override
+    public Drawable getCheckBoxBackgroundSelector() {
+        return attributes.getDrawable(R.attr.optionsCheckBoxBackground);
+    }
+
+    @Override
+    public ColorStateList getIconButtonTextColor() {
+        return attributes.getColorStateList(R.attr.optionsIconButtonTextColor);
+    }
+
+    @Override
+    public Drawable getIconButtonBackground() {
+        return attributes.getDrawable(R.attr.optionsIconButtonBackground);
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.theme;
+
+import android.content.res.ColorStateList;
+import android.graphics.drawable.Drawable;
+import android.support.annotation.AttrRes;
+import android.view.View;
+import android.view.ViewParent;
+import android.widget.TextView;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Theme dependent properties of live views. A registered property is set from the current
+ * {@link ThemeAttributes} right away and again on every {@link #apply(ThemeAttributes)}, so switching the
+ * theme updates the views in place instead of inflating them again.
+ *
+ * Views are held weakly, views that were collected are dropped on the next pass. Use from the UI thread only.
+ */
+public class ThemedViews {
+
+    public interface Binding {
+        void bind(View view, ThemeAttributes attributes);
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private ThemeAttributes attributes;
+
+    public ThemedViews(ThemeAttributes attributes) {
+        this.attributes = attributes;
+    }
+
+    public ThemeAttributes getAttributes() {
+        return attributes;
+    }
+
+    public void register(View view, Binding binding) {
+        binding.bind(view, attributes);
+        entries.add(new Entry(view, binding));
+    }
+
+    public void unregister(View view) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            View registered = entries.get(i).view.get();
+            if (registered == null || registered == view) {
+                entries.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Unregisters the view and every registered view inside it, e.g. the views of a fragment in onDestroyView.
+     */
+    public void unregisterAll(View root) {
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            View registered = entries.get(i).view.get();
+            if (registered == null || isInside(registered, root)) {
+                entries.remove(i);
+            }
+        }
+    }
+
+    /**
+     * Rebinds all registered properties to the attributes in a single pass.
+     */
+    public void apply(ThemeAttributes attributes) {
+        this.attributes = attributes;
+        for (int i = entries.size() - 1; i >= 0; i--) {
+            Entry entry = entries.get(i);
+            View view = entry.view.get();
+            if (view == null) {
+                entries.remove(i);
+            } else {
+                entry.binding.bind(view, attributes);
+            }
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Sets the text color of a {@link TextView} to a color attribute.
+     */
+    public static Binding textColor(@AttrRes final int attr) {
+        return new Binding() {
+            @Override
+            public void bind(View view, ThemeAttributes attributes) {
+                ColorStateList color = attributes.getColorStateList(attr);
+                if (color != null) {
+                    ((TextView) view).setTextColor(color);
+                }
+            }
+        };
+    }
+
+    /**
+     * Sets the text color of a {@link TextView} to the one of a style attribute, like {@code style="?attr"} does.
+     */
+    public static Binding styleTextColor(@AttrRes final int styleAttr) {
+        return new Binding() {
+            @Override
+            public void bind(View view, ThemeAttributes attributes) {
+                ColorStateList color = attributes.getColorStateList(styleAttr, android.R.attr.textColor);
+                if (color != null) {
+                    ((TextView) view).setTextColor(color);
+                }
+            }
+        };
+    }
+
+    /**
+     * Sets the background to the one of a style attribute, like {@code style="?attr"} does.
+     */
+    public static Binding styleBackground(@AttrRes final int styleAttr) {
+        return new Binding() {
+            @Override
+            public void bind(View view, ThemeAttributes attributes) {
+                Drawable background = attributes.getDrawable(styleAttr, android.R.attr.background);
+                if (background != null) {
+                    view.setBackground(background);
+                }
+            }
+        };
+    }
+
+    private static boolean isInside(View view, View root) {
+        if (view == root) {
+            return true;
+        }
+        ViewParent parent = view.getParent();
+        while (parent instanceof View) {
+            if (parent == root) {
+                return true;
+            }
+            parent = parent.getParent();
+        }
+        return false;
+    }
+
+    private static class Entry {
+        final WeakReference<View> view;
+        final Binding binding;
+
+        Entry(View view, Binding binding) {
+            this.view = new WeakReference<>(view);
+            this.binding = binding;
+        }
+    }
+}
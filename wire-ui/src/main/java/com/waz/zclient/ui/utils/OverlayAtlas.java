@@ -0,0 +1,135 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.utils;
+
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+import android.util.LruCache;
+import com.waz.zclient.ui.R;
+
+/**
+ * Generated overlay bitmaps, kept by their parameters in a cache bounded by bytes.
+ *
+ * The bitmaps are shared by everyone asking for the same overlay: they must not be recycled or drawn into.
+ * Evicted bitmaps are left to the garbage collector as views may still show them. Use from the UI thread.
+ */
+public final class OverlayAtlas {
+
+    private static final int MAX_BYTES = 1024 * 1024;
+
+    static final int VIGNETTE_SIZE = 50;
+
+    private static final long KIND_VIGNETTE = 1;
+    private static final long KIND_UNREAD_MARKER = 2;
+
+    private static OverlayAtlas instance;
+
+    private final LruCache<Long, Bitmap> overlays;
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+
+    public static OverlayAtlas getInstance() {
+        if (instance == null) {
+            instance = new OverlayAtlas(MAX_BYTES);
+        }
+        return instance;
+    }
+
+    OverlayAtlas(int maxBytes) {
+        overlays = new LruCache<Long, Bitmap>(maxBytes) {
+            @Override
+            protected int sizeOf(Long key, Bitmap value) {
+                return value.getByteCount();
+            }
+        };
+    }
+
+    /**
+     * A {@link #VIGNETTE_SIZE} square that is transparent in the center and darkens towards the edges.
+     */
+    @SuppressWarnings("deprecation")
+    public Bitmap getVignette(Resources resources) {
+        int radius = getVignetteRadius(resources);
+        int baseColor = resources.getColor(R.color.black_80);
+        long key = key(KIND_VIGNETTE, VIGNETTE_SIZE, radius, baseColor);
+        Bitmap vignette = overlays.get(key);
+        if (vignette == null) {
+            vignette = Bitmap.createBitmap(VIGNETTE_SIZE, VIGNETTE_SIZE, Bitmap.Config.ARGB_8888);
+            paint.setShader(createVignetteShader(VIGNETTE_SIZE / 2f, VIGNETTE_SIZE / 2f, radius, baseColor));
+            new Canvas(vignette).drawRect(0, 0, VIGNETTE_SIZE, VIGNETTE_SIZE, paint);
+            paint.setShader(null);
+            overlays.put(key, vignette);
+        }
+        return vignette;
+    }
+
+    /**
+     * A filled circle centered in a {@code width} square, null if the width is empty.
+     */
+    public Bitmap getUnreadMarker(int width, int radius, int color) {
+        if (width <= 0) {
+            return null;
+        }
+        long key = key(KIND_UNREAD_MARKER, width, radius, color);
+        Bitmap marker = overlays.get(key);
+        if (marker == null) {
+            marker = Bitmap.createBitmap(width, width, Bitmap.Config.ARGB_8888);
+            paint.setColor(color);
+            new Canvas(marker).drawCircle(width / 2, width / 2, radius, paint);
+            overlays.put(key, marker);
+        }
+        return marker;
+    }
+
+    /**
+     * Drops all overlays, if the atlas has been used at all. Drawables draw them again on their next draw.
+     */
+    public static void trimMemory() {
+        if (instance != null) {
+            instance.overlays.evictAll();
+        }
+    }
+
+    static int getVignetteRadius(Resources resources) {
+        double radiusFactor = ResourceUtils.getResourceFloat(resources, R.dimen.background__vignette_radius_factor);
+        return (int) (VIGNETTE_SIZE * radiusFactor);
+    }
+
+    /**
+     * Fades from transparent in the center to the base color at the radius and beyond, the same as cutting
+     * a black to transparent radial gradient out of the base color.
+     */
+    static Shader createVignetteShader(float centerX, float centerY, float radius, int baseColor) {
+        return new RadialGradient(centerX,
+                                  centerY,
+                                  radius,
+                                  baseColor & 0x00ffffff,
+                                  baseColor,
+                                  Shader.TileMode.CLAMP);
+    }
+
+    static long key(long kind, int width, int radius, int color) {
+        return kind << 60 |
+               (long) (width & 0x3fff) << 46 |
+               (long) (radius & 0x3fff) << 32 |
+               (color & 0xffffffffL);
+    }
+}
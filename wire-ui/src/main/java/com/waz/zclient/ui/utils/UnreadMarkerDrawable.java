@@ -0,0 +1,102 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.utils;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.drawable.Drawable;
+
+/**
+ * A filled circle centered in a square of the given size. With hardware acceleration the circle is drawn
+ * directly, otherwise the marker of the {@link OverlayAtlas} is drawn. The color can be changed in place,
+ * so a row can keep one marker while it is rebound.
+ */
+public class UnreadMarkerDrawable extends Drawable {
+
+    private final Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG | Paint.FILTER_BITMAP_FLAG);
+    private final int size;
+    private final int radius;
+    private int color;
+    private int alpha = 255;
+
+    public UnreadMarkerDrawable(int size, int radius, int color) {
+        this.size = size;
+        this.radius = radius;
+        this.color = color;
+    }
+
+    public void setColor(int color) {
+        if (this.color == color) {
+            return;
+        }
+        this.color = color;
+        invalidateSelf();
+    }
+
+    public int getColor() {
+        return color;
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        Rect bounds = getBounds();
+        if (size <= 0) {
+            return;
+        }
+        if (canvas.isHardwareAccelerated()) {
+            paint.setColor(color);
+            paint.setAlpha(Color.alpha(color) * alpha / 255);
+            float scale = Math.min(bounds.width(), bounds.height()) / (float) size;
+            canvas.drawCircle(bounds.exactCenterX(), bounds.exactCenterY(), radius * scale, paint);
+        } else {
+            paint.setAlpha(alpha);
+            canvas.drawBitmap(OverlayAtlas.getInstance().getUnreadMarker(size, radius, color), null, bounds, paint);
+        }
+    }
+
+    @Override
+    public int getIntrinsicWidth() {
+        return size;
+    }
+
+    @Override
+    public int getIntrinsicHeight() {
+        return size;
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        this.alpha = alpha;
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        paint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}
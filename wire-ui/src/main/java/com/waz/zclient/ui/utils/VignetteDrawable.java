@@ -0,0 +1,88 @@
+/**
+ * Wire
+ * Copyright (C) 2016 Wire Swiss GmbH
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package com.waz.zclient.ui.utils;
+
+import android.content.res.Resources;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.Rect;
+import android.graphics.Shader;
+import android.graphics.drawable.Drawable;
+import com.waz.zclient.ui.R;
+
+/**
+ * Darkens the edges of its bounds. With hardware acceleration the gradient is drawn directly, otherwise
+ * the small vignette of the {@link OverlayAtlas} is scaled to the bounds.
+ */
+public class VignetteDrawable extends Drawable {
+
+    private final Resources resources;
+    private final Paint paint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final Shader shader;
+    private final Matrix matrix = new Matrix();
+
+    @SuppressWarnings("deprecation")
+    public VignetteDrawable(Resources resources) {
+        this.resources = resources;
+        float center = OverlayAtlas.VIGNETTE_SIZE / 2f;
+        // Laid out like the atlas vignette and scaled to the bounds, so both paths look the same
+        shader = OverlayAtlas.createVignetteShader(center,
+                                                   center,
+                                                   OverlayAtlas.getVignetteRadius(resources),
+                                                   resources.getColor(R.color.black_80));
+    }
+
+    @Override
+    protected void onBoundsChange(Rect bounds) {
+        matrix.setScale(bounds.width() / (float) OverlayAtlas.VIGNETTE_SIZE,
+                        bounds.height() / (float) OverlayAtlas.VIGNETTE_SIZE);
+        matrix.postTranslate(bounds.left, bounds.top);
+        shader.setLocalMatrix(matrix);
+    }
+
+    @Override
+    public void draw(Canvas canvas) {
+        if (canvas.isHardwareAccelerated()) {
+            paint.setShader(shader);
+            canvas.drawRect(getBounds(), paint);
+        } else {
+            paint.setShader(null);
+            canvas.drawBitmap(OverlayAtlas.getInstance().getVignette(resources), null, getBounds(), paint);
+        }
+    }
+
+    @Override
+    public void setAlpha(int alpha) {
+        paint.setAlpha(alpha);
+        invalidateSelf();
+    }
+
+    @Override
+    public void setColorFilter(ColorFilter colorFilter) {
+        paint.setColorFilter(colorFilter);
+        invalidateSelf();
+    }
+
+    @Override
+    public int getOpacity() {
+        return PixelFormat.TRANSLUCENT;
+    }
+}